@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.impl.NitfFileWriter;
+import org.codice.imaging.nitf.core.impl.ParallelNitfFileWriter;
+import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
+import org.codice.imaging.nitf.core.impl.SlottedStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for writing a file with many image segments, one segment at a time or in parallel.
+ *
+ * The image subheader of a small sample file is repeated, with in-memory image data for each segment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelWriteBenchmark {
+
+    private static final String TEST_FILE = "/JitcNitf21Samples/i_3301a.ntf";
+
+    /**
+     * The number of image segments in the file.
+     */
+    @Param({"200"})
+    public int segments;
+
+    private SlottedStorage mDataSource;
+    private ExecutorService mExecutor;
+    private File mOutputFile;
+
+    /**
+     * Build the data source, and start the executor.
+     *
+     * @throws NitfFormatException if the sample file cannot be parsed.
+     * @throws IOException if the output file cannot be created.
+     */
+    @Setup
+    public void setup() throws NitfFormatException, IOException {
+        Random random = new Random(1);
+        mDataSource = new SlottedStorage();
+        for (int i = 0; i < segments; i++) {
+            SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.HEADERS_ONLY);
+            NitfParser.parse(new NitfInputStreamReader(getClass().getResourceAsStream(TEST_FILE)), parseStrategy);
+            ImageSegment imageSegment = parseStrategy.getDataSource().getImageSegments().get(0);
+            byte[] data = new byte[(int) imageSegment.getDataLength()];
+            random.nextBytes(data);
+            imageSegment.setData(new MemoryCacheImageInputStream(new ByteArrayInputStream(data)));
+            mDataSource.setNitfHeader(parseStrategy.getDataSource().getNitfHeader());
+            mDataSource.getImageSegments().add(imageSegment);
+        }
+        mExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        mOutputFile = File.createTempFile("nitf", ".ntf");
+    }
+
+    /**
+     * Stop the executor, and remove the output file.
+     *
+     * @throws IOException if the output file cannot be removed.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        mExecutor.shutdown();
+        Files.deleteIfExists(mOutputFile.toPath());
+    }
+
+    /**
+     * Write the segments one after another.
+     *
+     * @return the length of the file.
+     */
+    @Benchmark
+    public long writeSequentially() {
+        new NitfFileWriter(mDataSource, mOutputFile.getPath()).write();
+        return mOutputFile.length();
+    }
+
+    /**
+     * Write the segments concurrently, with positional writes.
+     *
+     * @return the length of the file.
+     */
+    @Benchmark
+    public long writeInParallel() {
+        new ParallelNitfFileWriter(mDataSource, mOutputFile.getPath(), mExecutor).write();
+        return mOutputFile.length();
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.codice.imaging.nitf.core.DataSource;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.FixedWidthFieldEncoder;
+import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.impl.NitfOutputStreamWriter;
+import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
+import org.codice.imaging.nitf.core.tre.Tre;
+import org.codice.imaging.nitf.core.tre.TreCollection;
+import org.codice.imaging.nitf.core.tre.TreSource;
+import org.codice.imaging.nitf.core.tre.impl.TreParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for writing headers that carry a lot of TREs.
+ *
+ * The TREs in the image segment of a SAR sample file (ACFTB, AIMIDB, BLOCKA, MENSRB and PATCHB) are repeated to make
+ * the image subheader TRE-heavy. The formatting benchmarks compare the field encoder with the String.format() calls
+ * it replaced, on the kinds of field that TREs contain.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreSerialisationBenchmark {
+
+    private static final String TEST_FILE = "/fromVTS/GHSarNITF21_good.ntf";
+
+    private static final int FIELD_WIDTH = 12;
+
+    private static final double[] REAL_VALUES = {35.6895, -139.6917, 0.000123, 12345.678, -0.5};
+
+    /**
+     * The number of copies of each TRE in the image subheader.
+     */
+    @Param({"1", "20"})
+    public int copies;
+
+    private DataSource mDataSource;
+    private ImageSegment mImageSegment;
+    private TreParser mTreParser;
+    private FixedWidthFieldEncoder mEncoder;
+
+    /**
+     * Parse the sample file headers and repeat the TREs.
+     *
+     * @throws NitfFormatException if the sample file cannot be parsed.
+     */
+    @Setup
+    public void setup() throws NitfFormatException {
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.HEADERS_ONLY);
+        NitfParser.parse(new NitfInputStreamReader(getClass().getResourceAsStream(TEST_FILE)), parseStrategy);
+        mDataSource = parseStrategy.getDataSource();
+        mImageSegment = mDataSource.getImageSegments().get(0);
+        TreCollection tres = mImageSegment.getTREsRawStructure();
+        List<Tre> originalTres = new ArrayList<>(tres.getTREs());
+        for (int i = 1; i < copies; i++) {
+            for (Tre tre : originalTres) {
+                tres.add(tre);
+            }
+        }
+        mTreParser = new TreParser();
+        mEncoder = new FixedWidthFieldEncoder();
+    }
+
+    /**
+     * Serialise the TREs in the image subheader, as the image segment writer does.
+     *
+     * @param blackhole sink for the serialised TREs.
+     * @throws NitfFormatException on serialisation failure.
+     * @throws IOException on writing failure.
+     */
+    @Benchmark
+    public void serialiseTres(final Blackhole blackhole) throws NitfFormatException, IOException {
+        blackhole.consume(mTreParser.getTREs(mImageSegment, TreSource.UserDefinedImageData));
+        blackhole.consume(mTreParser.getTREs(mImageSegment, TreSource.ImageExtendedSubheaderData));
+    }
+
+    /**
+     * Write all of the headers (without segment data) to an output stream that discards them.
+     *
+     * @return the number of bytes written.
+     */
+    @Benchmark
+    public long writeHeaders() {
+        CountingOutputStream outputStream = new CountingOutputStream();
+        new NitfOutputStreamWriter(mDataSource, outputStream).write();
+        return outputStream.getCount();
+    }
+
+    /**
+     * Format integer, string and real fields with String.format(), as the writers used to.
+     *
+     * @param blackhole sink for the formatted fields.
+     */
+    @Benchmark
+    public void formatFieldsWithStringFormat(final Blackhole blackhole) {
+        for (int i = 0; i < REAL_VALUES.length; i++) {
+            blackhole.consume(String.format("%0" + FIELD_WIDTH + "d", i).getBytes());
+            blackhole.consume(String.format("%1$-" + FIELD_WIDTH + "s", "ABC").getBytes());
+            blackhole.consume(String.format("%" + FIELD_WIDTH + "f", REAL_VALUES[i]).getBytes());
+            blackhole.consume(String.format("%0" + FIELD_WIDTH + "." + (FIELD_WIDTH - "X.E+ZZ".length()) + "E", REAL_VALUES[i]).getBytes());
+        }
+    }
+
+    /**
+     * Format the same fields as formatFieldsWithStringFormat() with a re-used FixedWidthFieldEncoder.
+     *
+     * @return the number of bytes encoded.
+     */
+    @Benchmark
+    public int formatFieldsWithEncoder() {
+        mEncoder.clear();
+        for (int i = 0; i < REAL_VALUES.length; i++) {
+            mEncoder.appendZeroPaddedInteger(i, FIELD_WIDTH);
+            mEncoder.appendSpacePaddedString("ABC", FIELD_WIDTH);
+            mEncoder.appendFixedPointReal(REAL_VALUES[i], FIELD_WIDTH);
+            mEncoder.appendExponentReal(REAL_VALUES[i], FIELD_WIDTH);
+        }
+        return mEncoder.length();
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long mCount = 0;
+
+        @Override
+        public void write(final int b) {
+            mCount++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            mCount += len;
+        }
+
+        long getCount() {
+            return mCount;
+        }
+    }
+}
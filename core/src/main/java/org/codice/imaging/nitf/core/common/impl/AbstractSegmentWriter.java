@@ -50,6 +50,8 @@ public abstract class AbstractSegmentWriter {
      */
     protected TreParser mTreParser = null;
 
+    private final FixedWidthFieldEncoder mFieldEncoder = new FixedWidthFieldEncoder();
+
     /**
      * Constructor.
      *
@@ -61,14 +63,6 @@ public abstract class AbstractSegmentWriter {
         mTreParser = treParser;
     }
 
-    private String padNumberToLength(final long number, final int length) {
-        return String.format("%0" + length + "d", number);
-    }
-
-    private String padStringToLength(final String s, final int length) {
-        return String.format("%1$-" + length + "s", s);
-    }
-
     private String hyphenPadStringToLength(final String s, final int length) {
         StringBuilder builder = new StringBuilder(s);
         while (builder.length() < length) {
@@ -138,16 +132,14 @@ public abstract class AbstractSegmentWriter {
      */
     protected final void writeFixedLengthString(final String s, final int length)
             throws IOException {
-        String toWrite;
-        if (s == null) {
-            toWrite = padStringToLength("", length);
-        } else if (s.length() > length) {
+        mFieldEncoder.clear();
+        if ((s != null) && (s.length() > length)) {
             LOG.warn(String.format("Truncated string \"%s\", max length is %d", s, length));
-            toWrite = s.substring(0, length);
+            mFieldEncoder.appendSpacePaddedString(s.substring(0, length), length);
         } else {
-            toWrite = padStringToLength(s, length);
+            mFieldEncoder.appendSpacePaddedString(s, length);
         }
-        writeBytes(toWrite, length);
+        mFieldEncoder.writeTo(mOutput);
     }
 
     /**
@@ -159,15 +151,16 @@ public abstract class AbstractSegmentWriter {
      */
     protected final void writeFixedLengthNumber(final long number, final int length)
             throws IOException {
-        if (String.format("%d", number)
-                .length() > length) {
+        if (FixedWidthFieldEncoder.getIntegerWidth(number) > length) {
             String problem = String.format("Fixed length number %d cannot fit into length %d",
                     number,
                     length);
             LOG.error(problem);
             throw new NumberFormatException(problem);
         }
-        writeBytes(padNumberToLength(number, length), length);
+        mFieldEncoder.clear();
+        mFieldEncoder.appendZeroPaddedInteger(number, length);
+        mFieldEncoder.writeTo(mOutput);
     }
 
     /**
@@ -208,6 +201,9 @@ public abstract class AbstractSegmentWriter {
     /**
      * Write out the data for the segment.
      *
+     * If the data is file-backed (a FileChannelImageInputStream), and the output is a ChannelDataOutput, the data is
+     * moved from file to file by the operating system instead of being copied through a buffer.
+     *
      * @param data the data to write.
      */
     public final void writeSegmentData(final ImageInputStream data) {
@@ -216,6 +212,11 @@ public abstract class AbstractSegmentWriter {
                 return;
             }
             data.seek(0);
+            if ((mOutput instanceof ChannelDataOutput) && (data instanceof FileChannelImageInputStream)) {
+                FileChannelImageInputStream fileData = (FileChannelImageInputStream) data;
+                ((ChannelDataOutput) mOutput).transferFrom(fileData.getChannel(), fileData.getRegionStart(), data.length());
+                return;
+            }
             byte[] buffer = new byte[BUFFER_SIZE];
             int bytesRead;
             while ((bytesRead = data.read(buffer)) != -1) {
@@ -0,0 +1,353 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.common.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DataOutput that writes to a channel.
+ *
+ * Small writes (such as header fields) are collected in direct buffers from a DirectBufferPool, and the filled
+ * buffers are written with a single gathering write. Segment data that is already in a file can be moved with
+ * transferFrom(), which lets the operating system copy it without passing it through the Java heap.
+ *
+ * An output can also write to a fixed position in a file channel, without using or changing the channel position.
+ * Several positional outputs can then write different parts of the same file at the same time.
+ *
+ * Data is not guaranteed to reach the channel until flush() or close() is called. Closing this output releases the
+ * buffers, but does not close the channel.
+ */
+public class ChannelDataOutput implements DataOutput, Flushable, AutoCloseable {
+
+    private static final int MAXIMUM_PENDING_BUFFERS = 16;
+    private static final int SHORT_BYTES = 2;
+
+    private final GatheringByteChannel mChannel;
+    private final FileChannel mPositionalChannel;
+    private final DirectBufferPool mBufferPool;
+    private final List<ByteBuffer> mPendingBuffers = new ArrayList<>();
+    private ByteBuffer mCurrentBuffer = null;
+    private long mBytesWritten = 0;
+    private long mChannelPosition = 0;
+    private long mByteLimit = Long.MAX_VALUE;
+
+    /**
+     * Create an output that uses the shared buffer pool.
+     *
+     * @param channel the channel to write to.
+     */
+    public ChannelDataOutput(final GatheringByteChannel channel) {
+        this(channel, DirectBufferPool.getSharedPool());
+    }
+
+    /**
+     * Create an output that uses the specified buffer pool.
+     *
+     * @param channel the channel to write to.
+     * @param bufferPool the pool to take buffers from.
+     */
+    public ChannelDataOutput(final GatheringByteChannel channel, final DirectBufferPool bufferPool) {
+        if (channel == null) {
+            throw new IllegalArgumentException("ChannelDataOutput: argument 'channel' may not be null.");
+        }
+        mChannel = channel;
+        mPositionalChannel = null;
+        mBufferPool = bufferPool;
+    }
+
+    /**
+     * Create an output that writes to a file channel, starting at a fixed position.
+     *
+     * The output uses positional writes, so the channel position is neither used nor changed.
+     *
+     * @param channel the channel to write to.
+     * @param position the position in the channel to write the first byte to.
+     */
+    public ChannelDataOutput(final FileChannel channel, final long position) {
+        if (channel == null) {
+            throw new IllegalArgumentException("ChannelDataOutput: argument 'channel' may not be null.");
+        }
+        mChannel = channel;
+        mPositionalChannel = channel;
+        mChannelPosition = position;
+        mBufferPool = DirectBufferPool.getSharedPool();
+    }
+
+    /**
+     * Create an output that writes to a fixed region of a file channel.
+     *
+     * The output uses positional writes, as for ChannelDataOutput(FileChannel, long). Any write that would go past the
+     * end of the region throws an IOException before any of it is buffered or written, so the bytes after the region
+     * are never changed.
+     *
+     * @param channel the channel to write to.
+     * @param position the position in the channel to write the first byte to.
+     * @param length the length of the region, in bytes.
+     */
+    public ChannelDataOutput(final FileChannel channel, final long position, final long length) {
+        this(channel, position);
+        mByteLimit = length;
+    }
+
+    /**
+     * Get the number of bytes written to this output, including any that have not yet been flushed.
+     *
+     * @return the number of bytes.
+     */
+    public final long getBytesWritten() {
+        return mBytesWritten;
+    }
+
+    private void checkLimit(final long bytesRequired) throws IOException {
+        if (bytesRequired > mByteLimit - mBytesWritten) {
+            throw new IOException("Writing " + bytesRequired + " bytes after " + mBytesWritten
+                    + " would go past the end of the output region (" + mByteLimit + " bytes)");
+        }
+    }
+
+    private ByteBuffer getBuffer(final int bytesRequired) throws IOException {
+        checkLimit(bytesRequired);
+        if ((mCurrentBuffer == null) || (mCurrentBuffer.remaining() < bytesRequired)) {
+            nextBuffer();
+        }
+        mBytesWritten += bytesRequired;
+        return mCurrentBuffer;
+    }
+
+    private void nextBuffer() throws IOException {
+        if (mCurrentBuffer != null) {
+            mPendingBuffers.add(mCurrentBuffer);
+            mCurrentBuffer = null;
+            if (mPendingBuffers.size() >= MAXIMUM_PENDING_BUFFERS) {
+                writePendingBuffers(null);
+            }
+        }
+        mCurrentBuffer = mBufferPool.acquire();
+    }
+
+    private void writePendingBuffers(final ByteBuffer additionalBuffer) throws IOException {
+        if ((mCurrentBuffer != null) && (mCurrentBuffer.position() > 0)) {
+            mPendingBuffers.add(mCurrentBuffer);
+            mCurrentBuffer = null;
+        }
+        List<ByteBuffer> buffers = new ArrayList<>(mPendingBuffers.size() + 1);
+        for (ByteBuffer buffer : mPendingBuffers) {
+            buffer.flip();
+            buffers.add(buffer);
+        }
+        if (additionalBuffer != null) {
+            buffers.add(additionalBuffer);
+        }
+        ByteBuffer[] bufferArray = buffers.toArray(new ByteBuffer[0]);
+        if (mPositionalChannel != null) {
+            for (ByteBuffer buffer : bufferArray) {
+                while (buffer.hasRemaining()) {
+                    mChannelPosition += mPositionalChannel.write(buffer, mChannelPosition);
+                }
+            }
+        } else {
+            long remaining = 0;
+            for (ByteBuffer buffer : bufferArray) {
+                remaining += buffer.remaining();
+            }
+            while (remaining > 0) {
+                remaining -= mChannel.write(bufferArray);
+            }
+        }
+        for (ByteBuffer buffer : mPendingBuffers) {
+            mBufferPool.release(buffer);
+        }
+        mPendingBuffers.clear();
+    }
+
+    @Override
+    public final void write(final int b) throws IOException {
+        getBuffer(1).put((byte) b);
+    }
+
+    @Override
+    public final void write(final byte[] b) throws IOException {
+        write(b, 0, b.length);
+    }
+
+    @Override
+    public final void write(final byte[] b, final int off, final int len) throws IOException {
+        checkLimit(len);
+        if (len >= mBufferPool.getBufferSize()) {
+            mBytesWritten += len;
+            writePendingBuffers(ByteBuffer.wrap(b, off, len));
+            return;
+        }
+        int offset = off;
+        int length = len;
+        while (length > 0) {
+            if ((mCurrentBuffer == null) || !mCurrentBuffer.hasRemaining()) {
+                nextBuffer();
+            }
+            int chunk = Math.min(length, mCurrentBuffer.remaining());
+            mCurrentBuffer.put(b, offset, chunk);
+            mBytesWritten += chunk;
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    @Override
+    public final void writeBoolean(final boolean v) throws IOException {
+        if (v) {
+            write(1);
+        } else {
+            write(0);
+        }
+    }
+
+    @Override
+    public final void writeByte(final int v) throws IOException {
+        write(v);
+    }
+
+    @Override
+    public final void writeShort(final int v) throws IOException {
+        getBuffer(SHORT_BYTES).putShort((short) v);
+    }
+
+    @Override
+    public final void writeChar(final int v) throws IOException {
+        getBuffer(Character.BYTES).putChar((char) v);
+    }
+
+    @Override
+    public final void writeInt(final int v) throws IOException {
+        getBuffer(Integer.BYTES).putInt(v);
+    }
+
+    @Override
+    public final void writeLong(final long v) throws IOException {
+        getBuffer(Long.BYTES).putLong(v);
+    }
+
+    @Override
+    public final void writeFloat(final float v) throws IOException {
+        getBuffer(Float.BYTES).putFloat(v);
+    }
+
+    @Override
+    public final void writeDouble(final double v) throws IOException {
+        getBuffer(Double.BYTES).putDouble(v);
+    }
+
+    @Override
+    public final void writeBytes(final String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            getBuffer(1).put((byte) s.charAt(i));
+        }
+    }
+
+    @Override
+    public final void writeChars(final String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            writeChar(s.charAt(i));
+        }
+    }
+
+    @Override
+    public final void writeUTF(final String s) throws IOException {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        try (DataOutputStream encoder = new DataOutputStream(encoded)) {
+            encoder.writeUTF(s);
+        }
+        write(encoded.toByteArray());
+    }
+
+    /**
+     * Copy data from a file channel to the output.
+     *
+     * Any buffered data is written first, and the data is then moved with FileChannel.transferTo(), which avoids
+     * copying it through the Java heap where the operating system supports that.
+     *
+     * @param source the channel to copy from.
+     * @param position the position in the source to start copying from.
+     * @param count the number of bytes to copy.
+     * @throws IOException if the data could not be read or written.
+     */
+    public final void transferFrom(final FileChannel source, final long position, final long count) throws IOException {
+        checkLimit(count);
+        writePendingBuffers(null);
+        if (mPositionalChannel != null) {
+            transferToPosition(source, position, count);
+            return;
+        }
+        long transferred = 0;
+        while (transferred < count) {
+            long bytes = source.transferTo(position + transferred, count - transferred, mChannel);
+            if (bytes <= 0) {
+                throw new IOException("Unexpected end of data after " + transferred + " of " + count + " bytes");
+            }
+            transferred += bytes;
+        }
+        mBytesWritten += count;
+    }
+
+    /**
+     * Copy data to the current position of a positional output.
+     *
+     * FileChannel.transferFrom() reads from the source channel position, so copies from the same source are
+     * serialised on the source channel.
+     */
+    private void transferToPosition(final FileChannel source, final long position, final long count) throws IOException {
+        synchronized (source) {
+            source.position(position);
+            long transferred = 0;
+            while (transferred < count) {
+                long bytes = mPositionalChannel.transferFrom(source, mChannelPosition + transferred, count - transferred);
+                if (bytes <= 0) {
+                    throw new IOException("Unexpected end of data after " + transferred + " of " + count + " bytes");
+                }
+                transferred += bytes;
+            }
+        }
+        mChannelPosition += count;
+        mBytesWritten += count;
+    }
+
+    @Override
+    public final void flush() throws IOException {
+        writePendingBuffers(null);
+    }
+
+    /**
+     * Flush any buffered data, and release the buffers.
+     *
+     * @throws IOException if the buffered data could not be written.
+     */
+    @Override
+    public final void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            mBufferPool.release(mCurrentBuffer);
+            mCurrentBuffer = null;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.common.impl;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of direct byte buffers of a fixed size.
+ *
+ * Direct buffers are relatively expensive to allocate, but avoid an extra copy when writing to a channel, so they are
+ * re-used across writers. This class is thread safe.
+ */
+public final class DirectBufferPool {
+
+    /**
+     * The size of the buffers in the shared pool.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final int DEFAULT_MAXIMUM_POOLED_BUFFERS = 32;
+
+    private static final DirectBufferPool SHARED_POOL = new DirectBufferPool(DEFAULT_BUFFER_SIZE, DEFAULT_MAXIMUM_POOLED_BUFFERS);
+
+    private final int mBufferSize;
+    private final int mMaximumPooledBuffers;
+    private final Queue<ByteBuffer> mBuffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger mPooledBufferCount = new AtomicInteger();
+
+    /**
+     * Create a pool.
+     *
+     * @param bufferSize the size of each buffer, in bytes.
+     * @param maximumPooledBuffers the maximum number of buffers to keep for re-use.
+     */
+    public DirectBufferPool(final int bufferSize, final int maximumPooledBuffers) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("DirectBufferPool: buffer size must be at least 1");
+        }
+        mBufferSize = bufferSize;
+        mMaximumPooledBuffers = maximumPooledBuffers;
+    }
+
+    /**
+     * Get the pool that is shared by default.
+     *
+     * @return the shared pool.
+     */
+    public static DirectBufferPool getSharedPool() {
+        return SHARED_POOL;
+    }
+
+    /**
+     * Get the size of the buffers in this pool.
+     *
+     * @return the buffer size, in bytes.
+     */
+    public int getBufferSize() {
+        return mBufferSize;
+    }
+
+    /**
+     * Get a buffer from the pool, allocating a new one if the pool is empty.
+     *
+     * @return a cleared buffer.
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = mBuffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(mBufferSize);
+        }
+        mPooledBufferCount.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Return a buffer to the pool.
+     *
+     * The buffer must not be used by the caller after it has been released. Buffers that did not come from this pool
+     * are ignored.
+     *
+     * @param buffer the buffer to return.
+     */
+    public void release(final ByteBuffer buffer) {
+        if ((buffer == null) || !buffer.isDirect() || (buffer.capacity() != mBufferSize)) {
+            return;
+        }
+        if (mPooledBufferCount.incrementAndGet() <= mMaximumPooledBuffers) {
+            buffer.clear();
+            mBuffers.offer(buffer);
+        } else {
+            mPooledBufferCount.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.common.impl;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import javax.imageio.stream.ImageInputStreamImpl;
+
+/**
+ * An ImageInputStream that reads from a file channel.
+ *
+ * This behaves like FileImageInputStream, but also makes the channel available, so that writers can copy the data
+ * with FileChannel.transferTo() instead of reading it through the Java heap.
+ *
+ * A stream can also be a view of one region of a file, such as the data of a single segment. Stream positions are then
+ * relative to the start of the region, and the stream does not own the channel.
+ */
+public class FileChannelImageInputStream extends ImageInputStreamImpl {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final int BYTE_MASK = 0xFF;
+
+    private final FileChannel mChannel;
+    private final long mRegionStart;
+    private final long mRegionLength;
+    private final byte[] mBuffer = new byte[BUFFER_SIZE];
+    private long mBufferStart = 0;
+    private int mBufferLength = 0;
+
+    /**
+     * Create a stream that reads from a random access file.
+     *
+     * Closing the stream closes the file.
+     *
+     * @param file the file to read from.
+     */
+    public FileChannelImageInputStream(final RandomAccessFile file) {
+        this(file.getChannel());
+    }
+
+    /**
+     * Create a stream that reads from a file channel.
+     *
+     * Closing the stream closes the channel.
+     *
+     * @param channel the channel to read from.
+     */
+    public FileChannelImageInputStream(final FileChannel channel) {
+        if (channel == null) {
+            throw new IllegalArgumentException("FileChannelImageInputStream: argument 'channel' may not be null.");
+        }
+        mChannel = channel;
+        mRegionStart = 0;
+        mRegionLength = -1;
+    }
+
+    /**
+     * Create a stream that reads one region of a file channel.
+     *
+     * Closing the stream does not close the channel, because a channel is usually shared by several regions.
+     *
+     * @param channel the channel to read from.
+     * @param regionStart the offset of the start of the region in the channel.
+     * @param regionLength the length of the region, in bytes.
+     */
+    public FileChannelImageInputStream(final FileChannel channel, final long regionStart, final long regionLength) {
+        if (channel == null) {
+            throw new IllegalArgumentException("FileChannelImageInputStream: argument 'channel' may not be null.");
+        }
+        if ((regionStart < 0) || (regionLength < 0)) {
+            throw new IllegalArgumentException("FileChannelImageInputStream: region start and length may not be negative.");
+        }
+        mChannel = channel;
+        mRegionStart = regionStart;
+        mRegionLength = regionLength;
+    }
+
+    /**
+     * Get the channel that this stream reads from.
+     *
+     * Reading from the channel (with positional reads) does not affect the position of this stream.
+     *
+     * @return the file channel.
+     */
+    public final FileChannel getChannel() {
+        return mChannel;
+    }
+
+    /**
+     * Get the offset in the channel of the first byte of this stream.
+     *
+     * @return the region start, or 0 if the stream reads the whole channel.
+     */
+    public final long getRegionStart() {
+        return mRegionStart;
+    }
+
+    /**
+     * Check whether this stream is a view of one region of the channel.
+     *
+     * @return true if the stream reads a region, false if it reads the whole channel.
+     */
+    public final boolean isRegion() {
+        return mRegionLength >= 0;
+    }
+
+    @Override
+    public final int read() throws IOException {
+        checkClosed();
+        bitOffset = 0;
+        if (!fillBuffer()) {
+            return -1;
+        }
+        int value = mBuffer[(int) (streamPos - mBufferStart)] & BYTE_MASK;
+        streamPos++;
+        return value;
+    }
+
+    @Override
+    public final int read(final byte[] b, final int off, final int len) throws IOException {
+        checkClosed();
+        if ((off < 0) || (len < 0) || (off + len > b.length)) {
+            throw new IndexOutOfBoundsException("FileChannelImageInputStream: invalid offset or length");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        bitOffset = 0;
+        if (len >= BUFFER_SIZE) {
+            int bytesRead = readChannel(ByteBuffer.wrap(b, off, len), streamPos);
+            if (bytesRead > 0) {
+                streamPos += bytesRead;
+            }
+            return bytesRead;
+        }
+        if (!fillBuffer()) {
+            return -1;
+        }
+        int bufferOffset = (int) (streamPos - mBufferStart);
+        int bytesRead = Math.min(len, mBufferLength - bufferOffset);
+        System.arraycopy(mBuffer, bufferOffset, b, off, bytesRead);
+        streamPos += bytesRead;
+        return bytesRead;
+    }
+
+    private boolean fillBuffer() throws IOException {
+        if ((streamPos >= mBufferStart) && (streamPos < mBufferStart + mBufferLength)) {
+            return true;
+        }
+        mBufferStart = streamPos;
+        mBufferLength = Math.max(0, readChannel(ByteBuffer.wrap(mBuffer), streamPos));
+        return mBufferLength > 0;
+    }
+
+    private int readChannel(final ByteBuffer target, final long position) throws IOException {
+        if (isRegion()) {
+            long remaining = mRegionLength - position;
+            if (remaining <= 0) {
+                return -1;
+            }
+            if (remaining < target.remaining()) {
+                target.limit(target.position() + (int) remaining);
+            }
+        }
+        return mChannel.read(target, mRegionStart + position);
+    }
+
+    @Override
+    public final long length() {
+        if (isRegion()) {
+            return mRegionLength;
+        }
+        try {
+            return mChannel.size();
+        } catch (IOException ex) {
+            return -1L;
+        }
+    }
+
+    @Override
+    public final void close() throws IOException {
+        super.close();
+        if (!isRegion()) {
+            mChannel.close();
+        }
+    }
+}
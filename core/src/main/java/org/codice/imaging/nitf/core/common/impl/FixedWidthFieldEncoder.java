@@ -0,0 +1,364 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.common.impl;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Encoder for fixed width ASCII fields, such as NITF header fields and TRE fields.
+ *
+ * Fields are appended to a re-usable byte buffer, without creating intermediate Strings or Formatter instances. The
+ * output is the same as the String.format() conversion noted on each method. As with String.format(), the width is a
+ * minimum, and a value that does not fit is written out in full. Callers that need an exact length check it first.
+ *
+ * An encoder is not thread safe. It is intended to be re-used for each field in a header or TRE.
+ */
+public final class FixedWidthFieldEncoder {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 256;
+    private static final int DECIMAL_BASE = 10;
+    private static final int FIXED_POINT_PRECISION = 6;
+    private static final int EXPONENT_FORMAT_OVERHEAD = "X.E+ZZ".length();
+    private static final int MINIMUM_EXPONENT_DIGITS = 2;
+    private static final int MAXIMUM_EXACT_PRECISION = 14;
+    private static final int MAXIMUM_ISO_8859_1_CHARACTER = 0xFF;
+    private static final int TIE_TOLERANCE_ULPS = 4;
+    private static final double HALF = 0.5;
+    private static final double MAXIMUM_EXACT_SCALED_VALUE = 1.0e15;
+    private static final double[] POWERS_OF_TEN = {
+        1.0e0, 1.0e1, 1.0e2, 1.0e3, 1.0e4, 1.0e5, 1.0e6, 1.0e7, 1.0e8, 1.0e9, 1.0e10, 1.0e11,
+        1.0e12, 1.0e13, 1.0e14, 1.0e15, 1.0e16, 1.0e17, 1.0e18, 1.0e19, 1.0e20, 1.0e21, 1.0e22
+    };
+
+    private byte[] mBuffer;
+    private int mLength = 0;
+
+    /**
+     * Create an encoder with the default initial capacity.
+     */
+    public FixedWidthFieldEncoder() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Create an encoder with a specified initial capacity.
+     *
+     * The buffer grows as required, so this is only a hint.
+     *
+     * @param initialCapacity the initial size of the buffer, in bytes.
+     */
+    public FixedWidthFieldEncoder(final int initialCapacity) {
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException("FixedWidthFieldEncoder: initial capacity must be at least 1");
+        }
+        mBuffer = new byte[initialCapacity];
+    }
+
+    /**
+     * Get the number of characters that a number takes when written without padding.
+     *
+     * This is the length of String.format("%d", number).
+     *
+     * @param number the number to measure.
+     * @return the number of characters, including any minus sign.
+     */
+    public static int getIntegerWidth(final long number) {
+        if (number < 0) {
+            return 1 + countDigits(number);
+        }
+        return countDigits(number);
+    }
+
+    /**
+     * Get the number of bytes that have been encoded since the encoder was created or last cleared.
+     *
+     * @return the number of bytes.
+     */
+    public int length() {
+        return mLength;
+    }
+
+    /**
+     * Discard the encoded bytes, keeping the buffer for re-use.
+     */
+    public void clear() {
+        mLength = 0;
+    }
+
+    /**
+     * Get a copy of the encoded bytes.
+     *
+     * @return the encoded bytes.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(mBuffer, mLength);
+    }
+
+    /**
+     * Decode part of the encoded bytes as a String.
+     *
+     * @param start the index of the first byte to decode.
+     * @param end the index after the last byte to decode.
+     * @return the decoded characters.
+     */
+    public String getString(final int start, final int end) {
+        if ((start < 0) || (end > mLength) || (start > end)) {
+            throw new IndexOutOfBoundsException(String.format("Range %d to %d is outside 0 to %d", start, end, mLength));
+        }
+        return new String(mBuffer, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Write the encoded bytes to an output.
+     *
+     * @param output the output to write to.
+     * @throws IOException on writing problems.
+     */
+    public void writeTo(final DataOutput output) throws IOException {
+        output.write(mBuffer, 0, mLength);
+    }
+
+    /**
+     * Append bytes without any conversion.
+     *
+     * @param bytes the bytes to append.
+     */
+    public void append(final byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, mBuffer, mLength, bytes.length);
+        mLength += bytes.length;
+    }
+
+    /**
+     * Append a number of spaces.
+     *
+     * @param count the number of spaces.
+     */
+    public void appendSpaces(final int count) {
+        appendRepeated((byte) ' ', count);
+    }
+
+    /**
+     * Append a string, left justified and padded with spaces to the specified width.
+     *
+     * This is the same as String.format("%-Ns", s) encoded as ISO-8859-1, where N is the width. A null string is
+     * treated as empty.
+     *
+     * @param s the string to append.
+     * @param width the minimum number of characters to append.
+     */
+    public void appendSpacePaddedString(final CharSequence s, final int width) {
+        int stringLength = 0;
+        if (s != null) {
+            stringLength = s.length();
+        }
+        ensureCapacity(Math.max(stringLength, width));
+        for (int i = 0; i < stringLength; i++) {
+            char c = s.charAt(i);
+            if (c > MAXIMUM_ISO_8859_1_CHARACTER) {
+                c = '?';
+            }
+            mBuffer[mLength++] = (byte) c;
+        }
+        appendSpaces(width - stringLength);
+    }
+
+    /**
+     * Append an integer, padded with leading zeros to the specified width.
+     *
+     * This is the same as String.format("%0Nd", number), where N is the width.
+     *
+     * @param number the number to append.
+     * @param width the minimum number of characters to append.
+     */
+    public void appendZeroPaddedInteger(final long number, final int width) {
+        int digits = countDigits(number);
+        ensureCapacity(Math.max(width, digits + 1));
+        int padding = width - digits;
+        if (number < 0) {
+            mBuffer[mLength++] = (byte) '-';
+            padding--;
+        }
+        appendRepeated((byte) '0', padding);
+        putDigits(number, digits);
+    }
+
+    /**
+     * Append a real number in fixed point format, right justified to the specified width.
+     *
+     * This is the same as String.format("%Nf", number), where N is the width, so there are always six decimal places.
+     *
+     * @param number the number to append.
+     * @param width the minimum number of characters to append.
+     */
+    public void appendFixedPointReal(final double number, final int width) {
+        double scaled = Math.abs(number) * POWERS_OF_TEN[FIXED_POINT_PRECISION];
+        if (!(scaled < MAXIMUM_EXACT_SCALED_VALUE) || isNearRoundingTie(scaled)) {
+            appendSpacePaddedString(String.format("%" + width + "f", number), 0);
+            return;
+        }
+        long rounded = (long) Math.floor(scaled + HALF);
+        long scale = (long) POWERS_OF_TEN[FIXED_POINT_PRECISION];
+        long integerPart = rounded / scale;
+        int integerDigits = countDigits(integerPart);
+        int signLength = getSignLength(number);
+        int fieldLength = signLength + integerDigits + 1 + FIXED_POINT_PRECISION;
+        ensureCapacity(Math.max(width, fieldLength));
+        appendSpaces(width - fieldLength);
+        if (signLength > 0) {
+            mBuffer[mLength++] = (byte) '-';
+        }
+        putDigits(integerPart, integerDigits);
+        mBuffer[mLength++] = (byte) '.';
+        putDigits(rounded % scale, FIXED_POINT_PRECISION);
+    }
+
+    /**
+     * Append a real number in exponent format, zero padded to the specified width.
+     *
+     * This is the same as String.format("%0N.PE", number), where N is the width, and the precision P is chosen so that
+     * a positive number with a two digit exponent exactly fills the width (that is, P is N - 6).
+     *
+     * @param number the number to append.
+     * @param width the minimum number of characters to append.
+     */
+    public void appendExponentReal(final double number, final int width) {
+        int precision = width - EXPONENT_FORMAT_OVERHEAD;
+        double magnitude = Math.abs(number);
+        if ((precision < 1) || (precision > MAXIMUM_EXACT_PRECISION) || Double.isNaN(magnitude) || Double.isInfinite(magnitude)) {
+            appendFormattedExponentReal(number, width, precision);
+            return;
+        }
+        long mantissa = 0;
+        int exponent = 0;
+        if (magnitude != 0.0) {
+            exponent = (int) Math.floor(Math.log10(magnitude));
+            double scaled = scaleByPowerOfTen(magnitude, precision - exponent);
+            if (scaled < POWERS_OF_TEN[precision]) {
+                exponent--;
+                scaled = scaleByPowerOfTen(magnitude, precision - exponent);
+            } else if (scaled >= POWERS_OF_TEN[precision + 1]) {
+                exponent++;
+                scaled = scaleByPowerOfTen(magnitude, precision - exponent);
+            }
+            if (Double.isNaN(scaled) || isNearRoundingTie(scaled)) {
+                appendFormattedExponentReal(number, width, precision);
+                return;
+            }
+            mantissa = (long) Math.floor(scaled + HALF);
+            if (mantissa >= (long) POWERS_OF_TEN[precision + 1]) {
+                mantissa /= DECIMAL_BASE;
+                exponent++;
+            }
+        }
+        int exponentDigits = Math.max(MINIMUM_EXPONENT_DIGITS, countDigits(exponent));
+        int signLength = getSignLength(number);
+        int fieldLength = signLength + EXPONENT_FORMAT_OVERHEAD - MINIMUM_EXPONENT_DIGITS + precision + exponentDigits;
+        ensureCapacity(Math.max(width, fieldLength));
+        if (signLength > 0) {
+            mBuffer[mLength++] = (byte) '-';
+        }
+        appendRepeated((byte) '0', width - fieldLength);
+        long scale = (long) POWERS_OF_TEN[precision];
+        putDigits(mantissa / scale, 1);
+        mBuffer[mLength++] = (byte) '.';
+        putDigits(mantissa % scale, precision);
+        mBuffer[mLength++] = (byte) 'E';
+        if (exponent < 0) {
+            mBuffer[mLength++] = (byte) '-';
+        } else {
+            mBuffer[mLength++] = (byte) '+';
+        }
+        putDigits(exponent, exponentDigits);
+    }
+
+    private void appendFormattedExponentReal(final double number, final int width, final int precision) {
+        appendSpacePaddedString(String.format("%0" + width + "." + precision + "E", number), 0);
+    }
+
+    private void appendRepeated(final byte b, final int count) {
+        if (count <= 0) {
+            return;
+        }
+        ensureCapacity(count);
+        Arrays.fill(mBuffer, mLength, mLength + count, b);
+        mLength += count;
+    }
+
+    /**
+     * Write the least significant digits of a number, ignoring its sign.
+     *
+     * Negative values are handled without negation, so Long.MIN_VALUE works.
+     */
+    private void putDigits(final long number, final int count) {
+        long remaining = number;
+        if (remaining > 0) {
+            remaining = -remaining;
+        }
+        for (int i = mLength + count - 1; i >= mLength; i--) {
+            mBuffer[i] = (byte) ('0' - (remaining % DECIMAL_BASE));
+            remaining /= DECIMAL_BASE;
+        }
+        mLength += count;
+    }
+
+    private void ensureCapacity(final int additionalBytes) {
+        if (mLength + additionalBytes > mBuffer.length) {
+            mBuffer = Arrays.copyOf(mBuffer, Math.max(mBuffer.length * 2, mLength + additionalBytes));
+        }
+    }
+
+    private static int countDigits(final long number) {
+        int digits = 1;
+        long remaining = number / DECIMAL_BASE;
+        while (remaining != 0) {
+            digits++;
+            remaining /= DECIMAL_BASE;
+        }
+        return digits;
+    }
+
+    private static int getSignLength(final double number) {
+        if (Double.doubleToRawLongBits(number) < 0) {
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Check whether rounding a value could depend on digits beyond double precision.
+     *
+     * String.format() rounds the shortest decimal representation of a value, rather than its exact binary value.
+     * These only differ when the value is very close to half way between two results, so those values are left to
+     * String.format().
+     */
+    private static boolean isNearRoundingTie(final double scaled) {
+        double fraction = scaled - Math.floor(scaled);
+        return Math.abs(fraction - HALF) <= TIE_TOLERANCE_ULPS * Math.ulp(scaled);
+    }
+
+    private static double scaleByPowerOfTen(final double value, final int power) {
+        if ((power >= 0) && (power < POWERS_OF_TEN.length)) {
+            return value * POWERS_OF_TEN[power];
+        }
+        if ((power < 0) && (-power < POWERS_OF_TEN.length)) {
+            return value / POWERS_OF_TEN[-power];
+        }
+        return Double.NaN;
+    }
+}
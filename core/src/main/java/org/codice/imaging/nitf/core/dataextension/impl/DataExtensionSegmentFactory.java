@@ -104,6 +104,21 @@ public final class DataExtensionSegmentFactory {
         return des;
     }
 
+    /**
+     * Create a streaming file header NITF data extension segment (DES), without data.
+     *
+     * This is the last segment of a file written in streaming mode, and holds the complete file header.
+     *
+     * @param fileType the type (version) of NITF file this data extension segment is for
+     * @return default valid streaming file header data extension segment, containing no data.
+     */
+    public static DataExtensionSegment getStreamingFileHeader(final FileType fileType) {
+        DataExtensionSegmentImpl des = makeBasicDesImpl(fileType);
+        des.setIdentifier(DataExtensionConstants.STREAMING_FILE_HEADER);
+        des.setDESVersion(1);
+        return des;
+    }
+
     private static DataExtensionSegmentImpl makeBasicDesImpl(final FileType fileType) {
         DataExtensionSegmentImpl des = new DataExtensionSegmentImpl(fileType);
         des.setDESVersion(0);
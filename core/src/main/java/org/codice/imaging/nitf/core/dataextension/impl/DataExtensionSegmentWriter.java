@@ -52,6 +52,19 @@ public class DataExtensionSegmentWriter extends AbstractSegmentWriter {
      * @throws NitfFormatException on TRE parse problems
      */
     public final void writeDESHeader(final DataExtensionSegment des) throws IOException, NitfFormatException {
+        writeDESSubheader(des);
+        writeOverflowedTREs(des);
+        des.consume(this::writeSegmentData);
+    }
+
+    /**
+     * Write out the subheader for this data extension segment, without the segment data.
+     *
+     * @param des the header to write
+     * @throws IOException on write failure
+     * @throws NitfFormatException on TRE parse problems
+     */
+    public final void writeDESSubheader(final DataExtensionSegment des) throws IOException, NitfFormatException {
         writeFixedLengthString(DE, DE.length());
         writeFixedLengthString(des.getIdentifier(), DESID_LENGTH);
         writeFixedLengthNumber(des.getDESVersion(), DESVER_LENGTH);
@@ -63,10 +76,22 @@ public class DataExtensionSegmentWriter extends AbstractSegmentWriter {
         writeFixedLengthNumber(des.getUserDefinedSubheaderField().length(), DESSHL_LENGTH);
         if (des.getUserDefinedSubheaderField().length() > 0) {
             mOutput.writeBytes(des.getUserDefinedSubheaderField());
-        } else {
+        }
+    }
+
+    /**
+     * Write out the TREs that have overflowed into this data extension segment.
+     * <p>
+     * The TREs are the start of the segment data. Nothing is written if the segment has a user defined subheader.
+     *
+     * @param des the segment to write the TREs for
+     * @throws IOException on write failure
+     * @throws NitfFormatException on TRE parse problems
+     */
+    public final void writeOverflowedTREs(final DataExtensionSegment des) throws IOException, NitfFormatException {
+        if (des.getUserDefinedSubheaderField().length() == 0) {
             byte[] treData = mTreParser.getTREs(des, TreSource.TreOverflowDES);
             mOutput.write(treData);
         }
-        des.consume(this::writeSegmentData);
     }
 }
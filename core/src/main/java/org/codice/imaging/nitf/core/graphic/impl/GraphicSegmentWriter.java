@@ -62,6 +62,18 @@ public class GraphicSegmentWriter extends AbstractSegmentWriter {
      * @throws NitfFormatException on TRE parsing failure.
      */
     public final void writeGraphicSegment(final GraphicSegment graphicSegment) throws IOException, NitfFormatException {
+        writeGraphicSubheader(graphicSegment);
+        writeSegmentData(graphicSegment.getData());
+    }
+
+    /**
+     * Write out the subheader of the specified graphic segment, without the segment data.
+     *
+     * @param graphicSegment the segment content to write out
+     * @throws IOException on write failure.
+     * @throws NitfFormatException on TRE parsing failure.
+     */
+    public final void writeGraphicSubheader(final GraphicSegment graphicSegment) throws IOException, NitfFormatException {
         writeFixedLengthString(SY, SY.length());
         writeFixedLengthString(graphicSegment.getIdentifier(), SID_LENGTH);
         writeFixedLengthString(graphicSegment.getGraphicName(), SNAME_LENGTH);
@@ -89,7 +101,6 @@ public class GraphicSegmentWriter extends AbstractSegmentWriter {
             writeFixedLengthNumber(graphicSegment.getExtendedHeaderDataOverflow(), SXSOFL_LENGTH);
             writeBytes(graphicExtendedSubheaderData, graphicExtendedSubheaderDataLength - SXSOFL_LENGTH);
         }
-        writeSegmentData(graphicSegment.getData());
     }
 
 }
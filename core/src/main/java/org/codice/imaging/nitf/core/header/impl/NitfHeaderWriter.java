@@ -16,9 +16,14 @@ package org.codice.imaging.nitf.core.header.impl;
 
 import java.io.DataOutput;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import org.codice.imaging.nitf.core.DataSource;
 import org.codice.imaging.nitf.core.header.NitfHeader;
 import org.codice.imaging.nitf.core.impl.RGBColourImpl;
+import org.codice.imaging.nitf.core.common.CommonSegment;
 import org.codice.imaging.nitf.core.common.impl.AbstractSegmentWriter;
 import org.codice.imaging.nitf.core.common.impl.CommonConstants;
 import org.codice.imaging.nitf.core.common.FileType;
@@ -56,6 +61,62 @@ public class NitfHeaderWriter extends AbstractSegmentWriter {
      * @throws NitfFormatException on TRE parsing problems
      */
     public final void writeFileHeader(final DataSource dataSource) throws IOException, NitfFormatException {
+        Map<CommonSegment, Long> subheaderLengths = new IdentityHashMap<>();
+        addSubheaderLengths(subheaderLengths, dataSource.getImageSegments());
+        addSubheaderLengths(subheaderLengths, dataSource.getGraphicSegments());
+        addSubheaderLengths(subheaderLengths, dataSource.getSymbolSegments());
+        addSubheaderLengths(subheaderLengths, dataSource.getLabelSegments());
+        addSubheaderLengths(subheaderLengths, dataSource.getTextSegments());
+        for (DataExtensionSegment des : dataSource.getDataExtensionSegments()) {
+            if (!des.isStreamingMode()) {
+                subheaderLengths.put(des, des.getHeaderLength());
+            }
+        }
+        writeFileHeader(dataSource, subheaderLengths);
+    }
+
+    private void addSubheaderLengths(final Map<CommonSegment, Long> subheaderLengths, final List<? extends CommonSegment> segments)
+            throws IOException, NitfFormatException {
+        for (CommonSegment segment : segments) {
+            subheaderLengths.put(segment, segment.getHeaderLength());
+        }
+    }
+
+    /**
+     * Write out the file-level header, using subheader lengths that have already been worked out.
+     *
+     * The lengths would usually come from serialising each subheader once (see NitfWritePlan), which avoids
+     * serialising the TREs of each segment more than once.
+     *
+     * @param dataSource the data source to take NITF structure from.
+     * @param subheaderLengths the length of the subheader for each segment that will be written. Data extension
+     * segments that are not in the map are left out of the header.
+     * @throws IOException on read or write problems
+     * @throws NitfFormatException on TRE parsing problems
+     */
+    public final void writeFileHeader(final DataSource dataSource, final Map<CommonSegment, Long> subheaderLengths)
+            throws IOException, NitfFormatException {
+        writeFileHeader(dataSource, subheaderLengths, false);
+    }
+
+    /**
+     * Write out the initial file-level header for a file in streaming mode.
+     *
+     * This is the same as the usual header, except that the file length (FL) is the streaming mode marker. The complete
+     * header follows the segments, in a STREAMING_FILE_HEADER data extension segment.
+     *
+     * @param dataSource the data source to take NITF structure from.
+     * @param subheaderLengths the length of the subheader for each segment that is described by the header.
+     * @throws IOException on read or write problems
+     * @throws NitfFormatException on TRE parsing problems
+     */
+    public final void writeStreamingModeFileHeader(final DataSource dataSource, final Map<CommonSegment, Long> subheaderLengths)
+            throws IOException, NitfFormatException {
+        writeFileHeader(dataSource, subheaderLengths, true);
+    }
+
+    private void writeFileHeader(final DataSource dataSource, final Map<CommonSegment, Long> subheaderLengths,
+            final boolean streamingMode) throws IOException, NitfFormatException {
         NitfHeader header = dataSource.getNitfHeader();
         writeBytes(header.getFileType().getTextEquivalent(), NitfHeaderConstants.FHDR_LENGTH + NitfHeaderConstants.FVER_LENGTH);
         writeFixedLengthNumber(header.getComplexityLevel(), NitfHeaderConstants.CLEVEL_LENGTH);
@@ -89,11 +150,11 @@ public class NitfHeaderWriter extends AbstractSegmentWriter {
         headerLength += numberOfSymbolSegments * (NitfHeaderConstants.LSSH_LENGTH + NitfHeaderConstants.LS_LENGTH);
         headerLength += numberOfTextSegments * (NitfHeaderConstants.LTSH_LENGTH + NitfHeaderConstants.LT_LENGTH);
 
-        int numberOfDataExtensionSegments = 0;
+        List<DataExtensionSegment> dataExtensionSegments = new ArrayList<>();
         for (DataExtensionSegment desHeader : dataSource.getDataExtensionSegments()) {
-            if (!desHeader.isStreamingMode()) {
+            if (subheaderLengths.containsKey(desHeader)) {
                 headerLength += NitfHeaderConstants.LDSH_LENGTH + NitfHeaderConstants.LD_LENGTH;
-                numberOfDataExtensionSegments++;
+                dataExtensionSegments.add(desHeader);
             }
         }
 
@@ -113,70 +174,67 @@ public class NitfHeaderWriter extends AbstractSegmentWriter {
 
         long fileLength = headerLength;
         for (ImageSegment imageSegment : dataSource.getImageSegments()) {
-            fileLength += imageSegment.getHeaderLength();
+            fileLength += subheaderLengths.get(imageSegment);
             fileLength += imageSegment.getDataLength();
         }
         for (GraphicSegment graphicSegment : dataSource.getGraphicSegments()) {
-            fileLength += graphicSegment.getHeaderLength();
+            fileLength += subheaderLengths.get(graphicSegment);
             fileLength += graphicSegment.getDataLength();
         }
         for (SymbolSegment symbolSegment : dataSource.getSymbolSegments()) {
-            fileLength += symbolSegment.getHeaderLength();
+            fileLength += subheaderLengths.get(symbolSegment);
             fileLength += symbolSegment.getDataLength();
         }
         for (LabelSegment labelSegment : dataSource.getLabelSegments()) {
-            fileLength += labelSegment.getHeaderLength();
+            fileLength += subheaderLengths.get(labelSegment);
             fileLength += labelSegment.getData().length();
         }
         for (TextSegment textSegment : dataSource.getTextSegments()) {
-            fileLength += textSegment.getHeaderLength();
+            fileLength += subheaderLengths.get(textSegment);
             fileLength += textSegment.getData().length();
         }
-        for (int i = 0; i < numberOfDataExtensionSegments; ++i) {
-            DataExtensionSegment desHeader = dataSource.getDataExtensionSegments().get(i);
-            if (!desHeader.isStreamingMode()) {
-                fileLength += dataSource.getDataExtensionSegments().get(i).getHeaderLength();
-                fileLength += dataSource.getDataExtensionSegments().get(i).getDataLength();
-            }
+        for (DataExtensionSegment desHeader : dataExtensionSegments) {
+            fileLength += subheaderLengths.get(desHeader);
+            fileLength += desHeader.getDataLength();
+        }
+        if (streamingMode) {
+            fileLength = NitfHeaderConstants.STREAMING_FILE_MODE;
         }
         writeFixedLengthNumber(fileLength, NitfHeaderConstants.FL_LENGTH);
         writeFixedLengthNumber(headerLength, NitfHeaderConstants.HL_LENGTH);
         writeFixedLengthNumber(numberOfImageSegments, NitfHeaderConstants.NUMI_LENGTH);
         for (ImageSegment imageSegment : dataSource.getImageSegments()) {
-            writeFixedLengthNumber(imageSegment.getHeaderLength(), NitfHeaderConstants.LISH_LENGTH);
+            writeFixedLengthNumber(subheaderLengths.get(imageSegment), NitfHeaderConstants.LISH_LENGTH);
             writeFixedLengthNumber(imageSegment.getDataLength(), NitfHeaderConstants.LI_LENGTH);
         }
         if ((header.getFileType() == FileType.NITF_TWO_ONE) || (header.getFileType() == FileType.NSIF_ONE_ZERO)) {
             writeFixedLengthNumber(numberOfGraphicSegments, NitfHeaderConstants.NUMS_LENGTH);
             for (GraphicSegment graphicSegment : dataSource.getGraphicSegments()) {
-                writeFixedLengthNumber(graphicSegment.getHeaderLength(), NitfHeaderConstants.LSSH_LENGTH);
+                writeFixedLengthNumber(subheaderLengths.get(graphicSegment), NitfHeaderConstants.LSSH_LENGTH);
                 writeFixedLengthNumber(graphicSegment.getDataLength(), NitfHeaderConstants.LS_LENGTH);
             }
             writeFixedLengthNumber(0, NitfHeaderConstants.NUMX_LENGTH);
         } else {
             writeFixedLengthNumber(numberOfSymbolSegments, NitfHeaderConstants.NUMS_LENGTH);
             for (SymbolSegment symbolSegment : dataSource.getSymbolSegments()) {
-                writeFixedLengthNumber(symbolSegment.getHeaderLength(), NitfHeaderConstants.LSSH_LENGTH);
+                writeFixedLengthNumber(subheaderLengths.get(symbolSegment), NitfHeaderConstants.LSSH_LENGTH);
                 writeFixedLengthNumber(symbolSegment.getDataLength(), NitfHeaderConstants.LS_LENGTH);
             }
             writeFixedLengthNumber(numberOfLabelSegments, NitfHeaderConstants.NUML20_LENGTH);
             for (LabelSegment labelSegment : dataSource.getLabelSegments()) {
-                writeFixedLengthNumber(labelSegment.getHeaderLength(), NitfHeaderConstants.LLSH_LENGTH);
+                writeFixedLengthNumber(subheaderLengths.get(labelSegment), NitfHeaderConstants.LLSH_LENGTH);
                 writeFixedLengthNumber(labelSegment.getData().length(), NitfHeaderConstants.LL_LENGTH);
             }
         }
         writeFixedLengthNumber(numberOfTextSegments, NitfHeaderConstants.NUMT_LENGTH);
         for (TextSegment textSegment : dataSource.getTextSegments()) {
-            writeFixedLengthNumber(textSegment.getHeaderLength(), NitfHeaderConstants.LTSH_LENGTH);
+            writeFixedLengthNumber(subheaderLengths.get(textSegment), NitfHeaderConstants.LTSH_LENGTH);
             writeFixedLengthNumber(textSegment.getData().length(), NitfHeaderConstants.LT_LENGTH);
         }
-        writeFixedLengthNumber(numberOfDataExtensionSegments, NitfHeaderConstants.NUMDES_LENGTH);
-        for (int i = 0; i < numberOfDataExtensionSegments; ++i) {
-            DataExtensionSegment desHeader = dataSource.getDataExtensionSegments().get(i);
-            if (!desHeader.isStreamingMode()) {
-                writeFixedLengthNumber(dataSource.getDataExtensionSegments().get(i).getHeaderLength(), NitfHeaderConstants.LDSH_LENGTH);
-                writeFixedLengthNumber(dataSource.getDataExtensionSegments().get(i).getDataLength(), NitfHeaderConstants.LD_LENGTH);
-            }
+        writeFixedLengthNumber(dataExtensionSegments.size(), NitfHeaderConstants.NUMDES_LENGTH);
+        for (DataExtensionSegment desHeader : dataExtensionSegments) {
+            writeFixedLengthNumber(subheaderLengths.get(desHeader), NitfHeaderConstants.LDSH_LENGTH);
+            writeFixedLengthNumber(desHeader.getDataLength(), NitfHeaderConstants.LD_LENGTH);
         }
         writeFixedLengthNumber(0, NitfHeaderConstants.NUMRES_LENGTH);
         writeFixedLengthNumber(userDefinedHeaderDataLength, NitfHeaderConstants.UDHDL_LENGTH);
@@ -191,6 +249,34 @@ public class NitfHeaderWriter extends AbstractSegmentWriter {
         }
     }
 
+    /**
+     * Get the length of the data in a STREAMING_FILE_HEADER data extension segment.
+     *
+     * @param fileHeaderLength the length of the complete file header that the segment holds.
+     * @return the length of the segment data, in bytes.
+     */
+    public static long getStreamingFileHeaderDataLength(final long fileHeaderLength) {
+        return NitfHeaderConstants.SFH_L1_LENGTH + NitfHeaderConstants.SFH_DELIM1_LENGTH + fileHeaderLength
+                + NitfHeaderConstants.SFH_DELIM2_LENGTH + NitfHeaderConstants.SFH_L2_LENGTH;
+    }
+
+    /**
+     * Write out the data of a STREAMING_FILE_HEADER data extension segment.
+     *
+     * This is the complete file header, between the streaming file header delimiters and lengths (see MIL-STD-2500C
+     * Table A-8(B)).
+     *
+     * @param fileHeader the serialised complete file header.
+     * @throws IOException on write problems
+     */
+    public final void writeStreamingFileHeaderData(final byte[] fileHeader) throws IOException {
+        writeFixedLengthNumber(fileHeader.length, NitfHeaderConstants.SFH_L1_LENGTH);
+        mOutput.write(NitfHeaderConstants.SFH_DELIM1);
+        mOutput.write(fileHeader);
+        mOutput.write(NitfHeaderConstants.SFH_DELIM2);
+        writeFixedLengthNumber(fileHeader.length, NitfHeaderConstants.SFH_L2_LENGTH);
+    }
+
     private long getBasicHeaderLength(final NitfHeader header) {
         long headerLength = NitfHeaderConstants.FHDR_LENGTH
                 + NitfHeaderConstants.FVER_LENGTH
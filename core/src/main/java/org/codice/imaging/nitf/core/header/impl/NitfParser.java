@@ -40,6 +40,7 @@ public final class NitfParser extends AbstractSegmentParser {
     private static final Logger LOGGER = LoggerFactory.getLogger(NitfParser.class);
 
     private long nitfFileLength = -1;
+    private boolean readingReplacementHeader = false;
 
     private int numberImageSegments = 0;
     private int numberGraphicSegments = 0;
@@ -116,6 +117,37 @@ public final class NitfParser extends AbstractSegmentParser {
         }
     }
 
+    /**
+     * Read the file header of a NITF file, and work out where each segment is.
+     *
+     * Unlike parse(), this does not read any segments. The parse strategy is given the file header (and any file
+     * header TREs), and the returned table of contents passes individual segments to it on demand.
+     *
+     * @param nitfReader the reader to use. This needs to be seekable to parse segments from the table of contents.
+     * @param parseStrategy the parsing strategy
+     * @return the table of contents.
+     * @throws NitfFormatException if an error occurs during parsing of the file header
+     */
+    public static NitfTableOfContents readTableOfContents(final NitfReader nitfReader, final ParseStrategy parseStrategy)
+            throws NitfFormatException {
+        NitfParser parser = new NitfParser(nitfReader, parseStrategy);
+
+        parser.readBaseHeaders();
+        boolean streamingMode = parser.isStreamingMode();
+        if (streamingMode) {
+            parser.handleStreamingMode();
+        }
+
+        NitfTableOfContents tableOfContents = new NitfTableOfContents(nitfReader, parseStrategy, parser.nitfFileHeader,
+                nitfReader.getCurrentOffset());
+        tableOfContents.setStreamingMode(streamingMode);
+        tableOfContents.addImageSegments(parser.lish, parser.li);
+        tableOfContents.addGraphicOrSymbolSegments(parser.lssh, parser.ls);
+        tableOfContents.addLabelSegments(parser.llsh, parser.ll);
+        tableOfContents.addTextSegments(parser.ltsh, parser.lt);
+        tableOfContents.addDataExtensionSegments(parser.ldsh, parser.ld);
+        return tableOfContents;
+    }
 
     private void readBaseHeaders() throws NitfFormatException {
         readFHDRFVER();
@@ -150,6 +182,9 @@ public final class NitfParser extends AbstractSegmentParser {
     }
 
     private void readBaseHeaderGraphicParts() throws NitfFormatException {
+        // The base headers are read twice in streaming mode
+        lssh.clear();
+        ls.clear();
         readNUMS();
         for (int i = 0; i < numberGraphicSegments; ++i) {
             readLSSH();
@@ -158,6 +193,9 @@ public final class NitfParser extends AbstractSegmentParser {
     }
 
     private void readBaseHeaderLabelParts() throws NitfFormatException {
+        // The base headers are read twice in streaming mode
+        llsh.clear();
+        ll.clear();
         readNUMX();
         for (int i = 0; i < numberLabelSegments; ++i) {
             readLLSH();
@@ -166,6 +204,9 @@ public final class NitfParser extends AbstractSegmentParser {
     }
 
     private void readBaseHeaderTextParts() throws NitfFormatException {
+        // The base headers are read twice in streaming mode
+        ltsh.clear();
+        lt.clear();
         readNUMT();
         for (int i = 0; i < numberTextSegments; ++i) {
             readLTSH();
@@ -209,6 +250,12 @@ public final class NitfParser extends AbstractSegmentParser {
         return nitfFileLength == NitfHeaderConstants.STREAMING_FILE_MODE;
     }
 
+    // The header TREs are read again from the replacement header, so skip them in the initial header to
+    // avoid passing them to the parse strategy twice.
+    private boolean isStreamingModePlaceholderHeader() {
+        return isStreamingMode() && !readingReplacementHeader;
+    }
+
     private void handleStreamingMode() throws NitfFormatException {
         if (reader.canSeek()) {
             readStreamingModeHeader();
@@ -241,7 +288,9 @@ public final class NitfParser extends AbstractSegmentParser {
 
         // Read the replacement header content
         // This assumes that the streaming mode header will contain the full "base" headers from MIL-STD-2500C Table A-1.
+        readingReplacementHeader = true;
         readBaseHeaders();
+        readingReplacementHeader = false;
 
         // Continue to read the subheaders and associated data
         reader.seekToAbsoluteOffset(dataSegmentsOffset);
@@ -437,6 +486,10 @@ public final class NitfParser extends AbstractSegmentParser {
     }
 
     private void readUDHD() throws NitfFormatException {
+        if (isStreamingModePlaceholderHeader()) {
+            reader.skip(userDefinedHeaderDataLength - NitfHeaderConstants.UDHOFL_LENGTH);
+            return;
+        }
         TreCollection userDefinedHeaderTREs = parsingStrategy.parseTREs(reader,
                 userDefinedHeaderDataLength - NitfHeaderConstants.UDHOFL_LENGTH,
                 TreSource.UserDefinedHeaderData);
@@ -452,6 +505,10 @@ public final class NitfParser extends AbstractSegmentParser {
     }
 
     private void readXHD() throws NitfFormatException {
+        if (isStreamingModePlaceholderHeader()) {
+            reader.skip(extendedHeaderDataLength - NitfHeaderConstants.XHDLOFL_LENGTH);
+            return;
+        }
         TreCollection extendedHeaderTres = parsingStrategy.parseTREs(reader,
                 extendedHeaderDataLength - NitfHeaderConstants.XHDLOFL_LENGTH,
                 TreSource.ExtendedHeaderData);
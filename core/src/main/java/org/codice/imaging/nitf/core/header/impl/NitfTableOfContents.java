@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.header.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.codice.imaging.nitf.core.common.FileType;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfReader;
+import org.codice.imaging.nitf.core.common.ParseStrategy;
+import org.codice.imaging.nitf.core.header.NitfHeader;
+
+/**
+ * The location of every segment in a NITF file, worked out from the file header alone.
+ *
+ * The file header lists the subheader and data length of every segment, and the segments follow the header in a
+ * fixed order, so the offset of each segment can be calculated without reading any of the segments. Individual
+ * segments can then be parsed on demand, in any order, by seeking straight to them.
+ *
+ * Each parse method passes the segment to the parse strategy, in the same way as NitfParser.parse() does, so (for
+ * example) a SlottedParseStrategy will hold only the segments that have been parsed. Parsing segments in any order
+ * needs a seekable reader. With a reader that cannot seek, segments can only be parsed in file order, and any
+ * segments (or data) in between are skipped.
+ */
+public final class NitfTableOfContents {
+
+    private final NitfReader mReader;
+    private final ParseStrategy mParseStrategy;
+    private final NitfHeader mNitfHeader;
+    private final List<SegmentLocation> mImageSegments = new ArrayList<>();
+    private final List<SegmentLocation> mGraphicSegments = new ArrayList<>();
+    private final List<SegmentLocation> mSymbolSegments = new ArrayList<>();
+    private final List<SegmentLocation> mLabelSegments = new ArrayList<>();
+    private final List<SegmentLocation> mTextSegments = new ArrayList<>();
+    private final List<SegmentLocation> mDataExtensionSegments = new ArrayList<>();
+    private long mNextOffset;
+    private boolean mStreamingMode = false;
+
+    NitfTableOfContents(final NitfReader nitfReader, final ParseStrategy parseStrategy, final NitfHeader nitfHeader,
+            final long firstSegmentOffset) {
+        mReader = nitfReader;
+        mParseStrategy = parseStrategy;
+        mNitfHeader = nitfHeader;
+        mNextOffset = firstSegmentOffset;
+    }
+
+    void setStreamingMode(final boolean streamingMode) {
+        mStreamingMode = streamingMode;
+    }
+
+    void addImageSegments(final List<Integer> subheaderLengths, final List<Long> dataLengths) {
+        addSegments(mImageSegments, subheaderLengths, dataLengths);
+    }
+
+    void addGraphicOrSymbolSegments(final List<Integer> subheaderLengths, final List<Integer> dataLengths) {
+        if (mNitfHeader.getFileType() == FileType.NITF_TWO_ZERO) {
+            addSegments(mSymbolSegments, subheaderLengths, dataLengths);
+        } else {
+            addSegments(mGraphicSegments, subheaderLengths, dataLengths);
+        }
+    }
+
+    void addLabelSegments(final List<Integer> subheaderLengths, final List<Integer> dataLengths) {
+        addSegments(mLabelSegments, subheaderLengths, dataLengths);
+    }
+
+    void addTextSegments(final List<Integer> subheaderLengths, final List<Integer> dataLengths) {
+        addSegments(mTextSegments, subheaderLengths, dataLengths);
+    }
+
+    void addDataExtensionSegments(final List<Integer> subheaderLengths, final List<Long> dataLengths) {
+        addSegments(mDataExtensionSegments, subheaderLengths, dataLengths);
+    }
+
+    private void addSegments(final List<SegmentLocation> segments, final List<Integer> subheaderLengths,
+            final List<? extends Number> dataLengths) {
+        for (int i = 0; i < subheaderLengths.size(); i++) {
+            SegmentLocation segment = new SegmentLocation(mNextOffset, subheaderLengths.get(i), dataLengths.get(i).longValue());
+            segments.add(segment);
+            mNextOffset = segment.getDataOffset() + segment.getDataLength();
+        }
+    }
+
+    /**
+     * Get the file header.
+     *
+     * @return the parsed file header.
+     */
+    public NitfHeader getNitfHeader() {
+        return mNitfHeader;
+    }
+
+    /**
+     * Check whether the file is in streaming mode.
+     *
+     * In a streaming mode file, the file header at the start of the file has no file length (FL is 999999999999),
+     * and the file header returned by getNitfHeader() is the replacement header from the end of the file.
+     *
+     * @return true if the file is in streaming mode, otherwise false.
+     */
+    public boolean isStreamingMode() {
+        return mStreamingMode;
+    }
+
+    /**
+     * Get the locations of the image segments.
+     *
+     * @return the image segment locations, in file order.
+     */
+    public List<SegmentLocation> getImageSegments() {
+        return Collections.unmodifiableList(mImageSegments);
+    }
+
+    /**
+     * Get the locations of the graphic segments.
+     *
+     * This is always empty for NITF 2.0 files, which have symbol segments instead.
+     *
+     * @return the graphic segment locations, in file order.
+     */
+    public List<SegmentLocation> getGraphicSegments() {
+        return Collections.unmodifiableList(mGraphicSegments);
+    }
+
+    /**
+     * Get the locations of the symbol segments.
+     *
+     * This is always empty except for NITF 2.0 files.
+     *
+     * @return the symbol segment locations, in file order.
+     */
+    public List<SegmentLocation> getSymbolSegments() {
+        return Collections.unmodifiableList(mSymbolSegments);
+    }
+
+    /**
+     * Get the locations of the label segments.
+     *
+     * This is always empty except for NITF 2.0 files.
+     *
+     * @return the label segment locations, in file order.
+     */
+    public List<SegmentLocation> getLabelSegments() {
+        return Collections.unmodifiableList(mLabelSegments);
+    }
+
+    /**
+     * Get the locations of the text segments.
+     *
+     * @return the text segment locations, in file order.
+     */
+    public List<SegmentLocation> getTextSegments() {
+        return Collections.unmodifiableList(mTextSegments);
+    }
+
+    /**
+     * Get the locations of the data extension segments.
+     *
+     * @return the data extension segment locations, in file order.
+     */
+    public List<SegmentLocation> getDataExtensionSegments() {
+        return Collections.unmodifiableList(mDataExtensionSegments);
+    }
+
+    /**
+     * Parse one image segment.
+     *
+     * @param index the index of the image segment (from 0).
+     * @throws NitfFormatException if the segment could not be parsed, or is before the reader and the reader cannot seek.
+     */
+    public void parseImageSegment(final int index) throws NitfFormatException {
+        seekTo(mImageSegments.get(index));
+        mParseStrategy.handleImageSegment(mReader, mImageSegments.get(index).getDataLength());
+    }
+
+    /**
+     * Parse one graphic segment.
+     *
+     * @param index the index of the graphic segment (from 0).
+     * @throws NitfFormatException if the segment could not be parsed, or is before the reader and the reader cannot seek.
+     */
+    public void parseGraphicSegment(final int index) throws NitfFormatException {
+        seekTo(mGraphicSegments.get(index));
+        mParseStrategy.handleGraphicSegment(mReader, mGraphicSegments.get(index).getDataLength());
+    }
+
+    /**
+     * Parse one symbol segment.
+     *
+     * @param index the index of the symbol segment (from 0).
+     * @throws NitfFormatException if the segment could not be parsed, or is before the reader and the reader cannot seek.
+     */
+    public void parseSymbolSegment(final int index) throws NitfFormatException {
+        seekTo(mSymbolSegments.get(index));
+        mParseStrategy.handleSymbolSegment(mReader, mSymbolSegments.get(index).getDataLength());
+    }
+
+    /**
+     * Parse one label segment.
+     *
+     * @param index the index of the label segment (from 0).
+     * @throws NitfFormatException if the segment could not be parsed, or is before the reader and the reader cannot seek.
+     */
+    public void parseLabelSegment(final int index) throws NitfFormatException {
+        seekTo(mLabelSegments.get(index));
+        mParseStrategy.handleLabelSegment(mReader, mLabelSegments.get(index).getDataLength());
+    }
+
+    /**
+     * Parse one text segment.
+     *
+     * @param index the index of the text segment (from 0).
+     * @throws NitfFormatException if the segment could not be parsed, or is before the reader and the reader cannot seek.
+     */
+    public void parseTextSegment(final int index) throws NitfFormatException {
+        seekTo(mTextSegments.get(index));
+        mParseStrategy.handleTextSegment(mReader, mTextSegments.get(index).getDataLength());
+    }
+
+    /**
+     * Parse one data extension segment.
+     *
+     * @param index the index of the data extension segment (from 0).
+     * @throws NitfFormatException if the segment could not be parsed, or is before the reader and the reader cannot seek.
+     */
+    public void parseDataExtensionSegment(final int index) throws NitfFormatException {
+        seekTo(mDataExtensionSegments.get(index));
+        mParseStrategy.handleDataExtensionSegment(mReader, mDataExtensionSegments.get(index).getDataLength());
+    }
+
+    private void seekTo(final SegmentLocation segment) throws NitfFormatException {
+        long offset = segment.getSubheaderOffset();
+        if (mReader.canSeek()) {
+            mReader.seekToAbsoluteOffset(offset);
+        } else if (offset > mReader.getCurrentOffset()) {
+            mReader.skip(offset - mReader.getCurrentOffset());
+        } else if (offset < mReader.getCurrentOffset()) {
+            throw new NitfFormatException("Random access to segments needs a seekable reader");
+        }
+    }
+
+    /**
+     * The location of one segment in the file.
+     */
+    public static final class SegmentLocation {
+
+        private final long mSubheaderOffset;
+        private final int mSubheaderLength;
+        private final long mDataLength;
+
+        private SegmentLocation(final long subheaderOffset, final int subheaderLength, final long dataLength) {
+            mSubheaderOffset = subheaderOffset;
+            mSubheaderLength = subheaderLength;
+            mDataLength = dataLength;
+        }
+
+        /**
+         * Get the offset of the segment subheader from the start of the file.
+         *
+         * @return the subheader offset, in bytes.
+         */
+        public long getSubheaderOffset() {
+            return mSubheaderOffset;
+        }
+
+        /**
+         * Get the length of the segment subheader.
+         *
+         * @return the subheader length, in bytes.
+         */
+        public int getSubheaderLength() {
+            return mSubheaderLength;
+        }
+
+        /**
+         * Get the offset of the segment data from the start of the file.
+         *
+         * @return the data offset, in bytes.
+         */
+        public long getDataOffset() {
+            return mSubheaderOffset + mSubheaderLength;
+        }
+
+        /**
+         * Get the length of the segment data.
+         *
+         * @return the data length, in bytes.
+         */
+        public long getDataLength() {
+            return mDataLength;
+        }
+    }
+}
@@ -96,6 +96,19 @@ public class ImageSegmentWriter extends AbstractSegmentWriter {
      * @throws NitfFormatException on TRE parsing failure.
      */
     public final void writeImageSegment(final ImageSegment imageSegment, final FileType fileType) throws IOException, NitfFormatException {
+        writeImageSubheader(imageSegment, fileType);
+        writeSegmentData(imageSegment.getData());
+    }
+
+    /**
+     * Write out the subheader of the specified image segment, without the segment data.
+     *
+     * @param imageSegment the header content to write out
+     * @param fileType the type of file (NITF version) to write the image header out for.
+     * @throws IOException on write failure.
+     * @throws NitfFormatException on TRE parsing failure.
+     */
+    public final void writeImageSubheader(final ImageSegment imageSegment, final FileType fileType) throws IOException, NitfFormatException {
         writeFixedLengthString(IM, IM.length());
         writeFixedLengthString(imageSegment.getIdentifier(), IID1_LENGTH);
         writeDateTime(imageSegment.getImageDateTime());
@@ -186,8 +199,6 @@ public class ImageSegmentWriter extends AbstractSegmentWriter {
             writeFixedLengthNumber(imageSegment.getExtendedHeaderDataOverflow(), IXSOFL_LENGTH);
             writeBytes(imageExtendedSubheaderData, imageExtendedSubheaderDataLength - IXSOFL_LENGTH);
         }
-
-        writeSegmentData(imageSegment.getData());
     }
 
 }
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import javax.xml.transform.Source;
+
+import org.codice.imaging.nitf.core.DataSource;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfReader;
+import org.codice.imaging.nitf.core.common.ParseStrategy;
+import org.codice.imaging.nitf.core.dataextension.DataExtensionSegment;
+import org.codice.imaging.nitf.core.dataextension.impl.DataExtensionSegmentParser;
+import org.codice.imaging.nitf.core.graphic.impl.GraphicSegmentParser;
+import org.codice.imaging.nitf.core.header.NitfHeader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.image.impl.ImageSegmentParser;
+import org.codice.imaging.nitf.core.label.LabelSegment;
+import org.codice.imaging.nitf.core.label.impl.LabelSegmentParser;
+import org.codice.imaging.nitf.core.symbol.impl.SymbolSegmentParser;
+import org.codice.imaging.nitf.core.text.TextSegment;
+import org.codice.imaging.nitf.core.text.impl.TextSegmentParser;
+import org.codice.imaging.nitf.core.tre.TreCollection;
+import org.codice.imaging.nitf.core.tre.TreSource;
+import org.codice.imaging.nitf.core.tre.impl.TreCollectionImpl;
+
+/**
+ * Parse strategy that passes each part of the file to a listener as it is read, and keeps nothing.
+ *
+ * This suits indexing, where each header field or TRE is sent somewhere else and is not needed afterwards, so
+ * memory use does not grow with the number of segments or TREs. TREs are reported as their raw bytes, and are not
+ * parsed. Image, graphic, symbol and data extension segment data is skipped. Label and text data is passed to the
+ * listener with its segment.
+ *
+ * Use the static parse() method, which reports the file header even when the file has no segments, and reports the
+ * end of the file.
+ */
+public final class EventParseStrategy implements ParseStrategy {
+
+    private static final int TRE_TAG_LENGTH = 6;
+    private static final int TRE_LENGTH_LENGTH = 5;
+
+    private final NitfEventListener mListener;
+    private NitfHeader mNitfHeader = null;
+    private boolean mHeaderReported = false;
+    private int mImageIndex = 0;
+    private int mGraphicIndex = 0;
+    private int mSymbolIndex = 0;
+    private int mLabelIndex = 0;
+    private int mTextIndex = 0;
+    private int mDataExtensionIndex = 0;
+
+    /**
+     * Create a parse strategy that reports to a listener.
+     *
+     * @param listener the listener to report to.
+     */
+    public EventParseStrategy(final NitfEventListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("EventParseStrategy: argument 'listener' may not be null.");
+        }
+        mListener = listener;
+    }
+
+    /**
+     * Parse a file, reporting each part of it to a listener.
+     *
+     * @param reader the reader for the file.
+     * @param listener the listener to report to.
+     * @throws NitfFormatException if the file could not be parsed.
+     */
+    public static void parse(final NitfReader reader, final NitfEventListener listener) throws NitfFormatException {
+        EventParseStrategy parseStrategy = new EventParseStrategy(listener);
+        NitfParser.parse(reader, parseStrategy);
+        parseStrategy.reportHeader();
+        listener.endOfFile();
+    }
+
+    private void reportHeader() {
+        if (!mHeaderReported) {
+            mHeaderReported = true;
+            mListener.fileHeader(mNitfHeader);
+        }
+    }
+
+    @Override
+    public void setFileHeader(final NitfHeader nitfHeader) {
+        mNitfHeader = nitfHeader;
+    }
+
+    @Override
+    public NitfHeader getNitfHeader() {
+        return mNitfHeader;
+    }
+
+    /**
+     * Report the TREs in a TRE area to the listener.
+     *
+     * @param reader the reader, positioned at the start of the TREs.
+     * @param length the length of the TRE area.
+     * @param source the header area that the TREs are in.
+     * @return an empty TRE collection, since the TREs are not kept.
+     * @throws NitfFormatException if the TREs could not be read.
+     */
+    @Override
+    public TreCollection parseTREs(final NitfReader reader, final int length, final TreSource source) throws NitfFormatException {
+        int remaining = length;
+        while (remaining >= TRE_TAG_LENGTH + TRE_LENGTH_LENGTH) {
+            String tag = reader.readTrimmedBytes(TRE_TAG_LENGTH);
+            int dataLength = reader.readBytesAsInteger(TRE_LENGTH_LENGTH);
+            if ((dataLength < 0) || (dataLength > remaining - TRE_TAG_LENGTH - TRE_LENGTH_LENGTH)) {
+                throw new NitfFormatException("Bad length for TRE " + tag, reader.getCurrentOffset());
+            }
+            mListener.tre(source, tag, reader.readBytesRaw(dataLength));
+            remaining -= TRE_TAG_LENGTH + TRE_LENGTH_LENGTH + dataLength;
+        }
+        if (remaining > 0) {
+            reader.skip(remaining);
+        }
+        return new TreCollectionImpl();
+    }
+
+    @Override
+    public void handleImageSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+        reportHeader();
+        mListener.imageSegment(mImageIndex++, new ImageSegmentParser().parse(reader, this, dataLength));
+        skipData(reader, dataLength);
+    }
+
+    @Override
+    public void handleGraphicSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+        reportHeader();
+        mListener.graphicSegment(mGraphicIndex++, new GraphicSegmentParser().parse(reader, this, dataLength));
+        skipData(reader, dataLength);
+    }
+
+    @Override
+    public void handleSymbolSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+        reportHeader();
+        mListener.symbolSegment(mSymbolIndex++, new SymbolSegmentParser().parse(reader, this, dataLength));
+        skipData(reader, dataLength);
+    }
+
+    @Override
+    public void handleLabelSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+        reportHeader();
+        LabelSegment labelSegment = new LabelSegmentParser().parse(reader, this);
+        if (dataLength > 0) {
+            labelSegment.setData(reader.readBytes((int) dataLength));
+        }
+        mListener.labelSegment(mLabelIndex++, labelSegment);
+    }
+
+    @Override
+    public void handleTextSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+        reportHeader();
+        TextSegment textSegment = new TextSegmentParser().parse(reader, this);
+        if (dataLength > 0) {
+            textSegment.setData(reader.readBytes((int) dataLength));
+        } else {
+            textSegment.setData("");
+        }
+        mListener.textSegment(mTextIndex++, textSegment);
+    }
+
+    @Override
+    public void handleDataExtensionSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+        reportHeader();
+        DataExtensionSegment dataExtensionSegment = new DataExtensionSegmentParser().parse(reader, dataLength);
+        if (dataExtensionSegment.isTreOverflow()) {
+            parseTREs(reader, (int) dataLength, TreSource.TreOverflowDES);
+        } else {
+            skipData(reader, dataLength);
+        }
+        mListener.dataExtensionSegment(mDataExtensionIndex++, dataExtensionSegment);
+    }
+
+    private static void skipData(final NitfReader reader, final long dataLength) throws NitfFormatException {
+        if (dataLength > 0) {
+            reader.skip(dataLength);
+        }
+    }
+
+    /**
+     * Does nothing, since TREs are reported as raw bytes without being parsed.
+     *
+     * @param source the TRE descriptor, which is ignored.
+     */
+    @Override
+    public void registerAdditionalTREdescriptor(final Source source) {
+        // TREs are not parsed, so descriptors are not needed.
+    }
+
+    /**
+     * Get the parsed data.
+     *
+     * @return null, since nothing is kept.
+     */
+    @Override
+    public DataSource getDataSource() {
+        return null;
+    }
+}
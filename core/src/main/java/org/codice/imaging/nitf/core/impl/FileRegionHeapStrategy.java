@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import java.nio.channels.FileChannel;
+import javax.imageio.stream.ImageInputStream;
+
+import org.codice.imaging.nitf.core.HeapStrategy;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfReader;
+import org.codice.imaging.nitf.core.common.impl.FileChannelImageInputStream;
+
+/**
+ * An implementation of HeapStrategy that does not read the segment data at all.
+ *
+ * The reader is moved past the data, and the result is a view of the data in the source file. This only makes sense
+ * when the reader is reading the same file as the channel. The channel belongs to the caller, and must stay open for
+ * as long as the data is used.
+ */
+public class FileRegionHeapStrategy implements HeapStrategy<ImageInputStream> {
+
+    private final FileChannel mChannel;
+
+    /**
+     * Create a heap strategy that returns views of a file channel.
+     *
+     * @param channel the channel for the file being parsed.
+     */
+    public FileRegionHeapStrategy(final FileChannel channel) {
+        if (channel == null) {
+            throw new IllegalArgumentException("FileRegionHeapStrategy: argument 'channel' may not be null.");
+        }
+        mChannel = channel;
+    }
+
+    @Override
+    public final ImageInputStream handleSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+        long dataStart = reader.getCurrentOffset();
+        if (reader.canSeek()) {
+            reader.seekToAbsoluteOffset(dataStart + dataLength);
+        } else {
+            reader.skip(dataLength);
+        }
+        return new FileChannelImageInputStream(mChannel, dataStart, dataLength);
+    }
+
+    @Override
+    public final void cleanUp() {
+        // The channel belongs to the caller.
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import org.codice.imaging.nitf.core.dataextension.DataExtensionSegment;
+import org.codice.imaging.nitf.core.graphic.GraphicSegment;
+import org.codice.imaging.nitf.core.header.NitfHeader;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.label.LabelSegment;
+import org.codice.imaging.nitf.core.symbol.SymbolSegment;
+import org.codice.imaging.nitf.core.text.TextSegment;
+import org.codice.imaging.nitf.core.tre.TreSource;
+
+/**
+ * Receives the parts of a NITF file as an EventParseStrategy reads them.
+ *
+ * Events arrive in file order. The TREs of the file header or a segment are reported as they are read, before the
+ * header or segment they belong to. The header and segment objects are not kept by the parse strategy, so they can be
+ * garbage collected as soon as the listener has finished with them.
+ *
+ * Every method does nothing by default, so a listener only needs to implement the events it uses.
+ */
+public interface NitfEventListener {
+
+    /**
+     * Called when the file header has been read.
+     *
+     * The header does not hold any TREs, since those have already been reported.
+     *
+     * @param nitfHeader the file header.
+     */
+    default void fileHeader(final NitfHeader nitfHeader) {
+    }
+
+    /**
+     * Called when an image segment subheader has been read.
+     *
+     * @param index the index of the image segment (from 0).
+     * @param imageSegment the image segment, without data or TREs.
+     */
+    default void imageSegment(final int index, final ImageSegment imageSegment) {
+    }
+
+    /**
+     * Called when a graphic segment subheader has been read.
+     *
+     * @param index the index of the graphic segment (from 0).
+     * @param graphicSegment the graphic segment, without data or TREs.
+     */
+    default void graphicSegment(final int index, final GraphicSegment graphicSegment) {
+    }
+
+    /**
+     * Called when a symbol segment subheader has been read (NITF 2.0 only).
+     *
+     * @param index the index of the symbol segment (from 0).
+     * @param symbolSegment the symbol segment, without data or TREs.
+     */
+    default void symbolSegment(final int index, final SymbolSegment symbolSegment) {
+    }
+
+    /**
+     * Called when a label segment has been read (NITF 2.0 only).
+     *
+     * @param index the index of the label segment (from 0).
+     * @param labelSegment the label segment, with its data but without TREs.
+     */
+    default void labelSegment(final int index, final LabelSegment labelSegment) {
+    }
+
+    /**
+     * Called when a text segment has been read.
+     *
+     * @param index the index of the text segment (from 0).
+     * @param textSegment the text segment, with its data but without TREs.
+     */
+    default void textSegment(final int index, final TextSegment textSegment) {
+    }
+
+    /**
+     * Called when a data extension segment subheader has been read.
+     *
+     * The TREs in a TRE overflow segment are reported before this is called.
+     *
+     * @param index the index of the data extension segment (from 0).
+     * @param dataExtensionSegment the data extension segment, without data or TREs.
+     */
+    default void dataExtensionSegment(final int index, final DataExtensionSegment dataExtensionSegment) {
+    }
+
+    /**
+     * Called for each TRE.
+     *
+     * @param source the header area that the TRE was read from.
+     * @param tag the TRE tag (CETAG), without padding.
+     * @param data the TRE data (CEDATA), as it is in the file.
+     */
+    default void tre(final TreSource source, final String tag, final byte[] data) {
+    }
+
+    /**
+     * Called when the whole file has been read.
+     */
+    default void endOfFile() {
+    }
+}
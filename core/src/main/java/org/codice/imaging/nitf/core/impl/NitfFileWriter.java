@@ -15,22 +15,26 @@
 package org.codice.imaging.nitf.core.impl;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 import org.codice.imaging.nitf.core.DataSource;
 import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.ChannelDataOutput;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * A NitfWriter implementation that works on files.
+ *
+ * The file is written through a FileChannel. Header fields are collected in pooled direct buffers and written with
+ * gathering writes, and file-backed segment data is transferred directly from the source file.
  */
 public class NitfFileWriter extends SharedNitfWriter {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(NitfFileWriter.class);
 
-    static final String WRITE_MODE = "rw";
-
     private String mOutputFileName = null;
 
     /**
@@ -47,9 +51,10 @@ public class NitfFileWriter extends SharedNitfWriter {
     @Override
     public final void write() {
         try {
-            try (RandomAccessFile outputFile = new RandomAccessFile(mOutputFileName, WRITE_MODE)) {
-                outputFile.setLength(0);
-                mOutput = outputFile;
+            try (FileChannel outputChannel = FileChannel.open(Paths.get(mOutputFileName),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                    ChannelDataOutput output = new ChannelDataOutput(outputChannel)) {
+                mOutput = output;
                 writeData();
             }
         } catch (IOException | NitfFormatException ex) {
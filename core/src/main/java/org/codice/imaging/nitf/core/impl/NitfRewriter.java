@@ -0,0 +1,461 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.imageio.stream.ImageInputStream;
+import javax.xml.transform.Source;
+
+import org.codice.imaging.nitf.core.DataSource;
+import org.codice.imaging.nitf.core.common.CommonSegment;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfReader;
+import org.codice.imaging.nitf.core.common.ParseStrategy;
+import org.codice.imaging.nitf.core.common.impl.ChannelDataOutput;
+import org.codice.imaging.nitf.core.common.impl.FileChannelImageInputStream;
+import org.codice.imaging.nitf.core.common.impl.FileReader;
+import org.codice.imaging.nitf.core.dataextension.DataExtensionSegment;
+import org.codice.imaging.nitf.core.graphic.GraphicSegment;
+import org.codice.imaging.nitf.core.header.NitfHeader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.symbol.SymbolSegment;
+import org.codice.imaging.nitf.core.tre.TreCollection;
+import org.codice.imaging.nitf.core.tre.TreSource;
+import org.codice.imaging.nitf.core.tre.impl.TreParser;
+
+/**
+ * Rewrites NITF files where only the metadata has changed, without copying the segment data through the Java heap.
+ *
+ * Opening a source file parses the headers, but the image and data extension segment data is left in the file. The
+ * resulting data source can be edited (for example, to change header fields or TREs), and then written out. Writing
+ * serialises the new headers, and moves any unchanged image or DES data straight from the source file to the target
+ * file with FileChannel.transferTo(). The cost of a metadata edit is then close to the cost of the operating system
+ * copying the file.
+ *
+ * Segments from several source files can be combined with merge() before writing. Graphic, symbol, label and text
+ * segment data is small, and is read into memory in the usual way.
+ *
+ * A data source can also be written back to the file it was opened from with update(). If the edits leave every
+ * header, subheader and segment the same length, only the bytes that changed are overwritten, in place. Otherwise the
+ * file is rewritten.
+ *
+ * The source files stay open until the rewriter is closed, so all writing needs to be done before then.
+ */
+public final class NitfRewriter implements AutoCloseable {
+
+    private final List<Path> mSourcePaths = new ArrayList<>();
+    private final List<FileChannel> mSourceChannels = new ArrayList<>();
+    private final Map<DataSource, SourceLayout> mSourceLayouts = new IdentityHashMap<>();
+    private final TreParser mTreParser;
+
+    /**
+     * Create a rewriter.
+     *
+     * @throws NitfFormatException if the TRE descriptors could not be loaded.
+     */
+    public NitfRewriter() throws NitfFormatException {
+        mTreParser = new TreParser();
+    }
+
+    /**
+     * Parse a source file, leaving the image and DES data in the file.
+     *
+     * @param source the file to parse.
+     * @return the parsed data source.
+     * @throws IOException if the file could not be opened.
+     * @throws NitfFormatException if the file could not be parsed.
+     */
+    public DataSource open(final Path source) throws IOException, NitfFormatException {
+        FileChannel channel = FileChannel.open(source, StandardOpenOption.READ);
+        mSourcePaths.add(source);
+        mSourceChannels.add(channel);
+        FileRegionHeapStrategy heapStrategy = new FileRegionHeapStrategy(channel);
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.ALL_SEGMENT_DATA);
+        parseStrategy.setImageHeapStrategy(heapStrategy);
+        parseStrategy.setDataExtensionSegmentHeapStrategy(heapStrategy);
+        LayoutRecorder layoutRecorder = new LayoutRecorder(parseStrategy);
+        FileReader reader = new FileReader(source.toFile());
+        try {
+            NitfParser.parse(reader, layoutRecorder);
+            mSourceLayouts.put(parseStrategy.getDataSource(), layoutRecorder.getLayout(source, channel, reader.getCurrentOffset()));
+        } finally {
+            reader.close();
+        }
+        return parseStrategy.getDataSource();
+    }
+
+    /**
+     * Get the TRE parser that this rewriter serialises TREs with.
+     *
+     * Callers that write their own plans can pass this to NitfWritePlan.create(DataSource, TreParser), rather than
+     * loading the TRE descriptors again.
+     *
+     * @return the TRE parser.
+     */
+    public TreParser getTreParser() {
+        return mTreParser;
+    }
+
+    /**
+     * Combine the segments of several data sources into a new data source.
+     *
+     * Segments are added in the order of the sources. The segments are shared, not copied, so this is cheap. The
+     * segment counts and lengths in the file header are worked out again when the result is written, but other
+     * fields (such as display and attachment levels) are used as they are, and may need to be adjusted by the caller.
+     *
+     * @param header the file header for the result.
+     * @param sources the data sources to take segments from.
+     * @return the combined data source.
+     */
+    public static DataSource merge(final NitfHeader header, final List<DataSource> sources) {
+        SlottedStorage storage = new SlottedStorage();
+        storage.setNitfHeader(header);
+        for (DataSource source : sources) {
+            storage.getImageSegments().addAll(source.getImageSegments());
+            storage.getGraphicSegments().addAll(source.getGraphicSegments());
+            storage.getSymbolSegments().addAll(source.getSymbolSegments());
+            storage.getLabelSegments().addAll(source.getLabelSegments());
+            storage.getTextSegments().addAll(source.getTextSegments());
+            storage.getDataExtensionSegments().addAll(source.getDataExtensionSegments());
+        }
+        return storage;
+    }
+
+    /**
+     * Write out a data source to a file.
+     *
+     * The target may not be one of the files opened by this rewriter, since it is truncated before the data is copied.
+     *
+     * @param dataSource the data source to write.
+     * @param target the file to write to.
+     * @return the number of bytes written.
+     * @throws IOException if the file could not be written.
+     * @throws NitfFormatException if the headers could not be serialised.
+     */
+    public long write(final DataSource dataSource, final Path target) throws IOException, NitfFormatException {
+        if (Files.exists(target)) {
+            for (Path source : mSourcePaths) {
+                if (Files.isSameFile(source, target)) {
+                    throw new IllegalArgumentException("NitfRewriter: cannot write to source file " + target);
+                }
+            }
+        }
+        return writePlan(NitfWritePlan.create(dataSource, mTreParser), target);
+    }
+
+    /**
+     * Write a data source back to the file it was opened from.
+     *
+     * If every length in the new headers matches the file, and the image and DES data is still the data from the file,
+     * the changed header bytes are overwritten in place. Otherwise the file is rewritten, through a temporary file in
+     * the same directory that then replaces it. After a rewrite, the data source still refers to the old content of the
+     * file, so it should be opened again before any further updates.
+     *
+     * @param dataSource a data source returned by open().
+     * @return true if the file was patched in place, false if it was rewritten.
+     * @throws IOException if the file could not be written.
+     * @throws NitfFormatException if the headers could not be serialised.
+     */
+    public boolean update(final DataSource dataSource) throws IOException, NitfFormatException {
+        SourceLayout layout = mSourceLayouts.get(dataSource);
+        if (layout == null) {
+            throw new IllegalArgumentException("NitfRewriter: data source was not opened by this rewriter.");
+        }
+        NitfWritePlan plan = NitfWritePlan.create(dataSource, mTreParser);
+        if (layout.canPatch(plan)) {
+            layout.patch(plan);
+            return true;
+        }
+        Path directory = layout.mPath.toAbsolutePath().getParent();
+        if (directory == null) {
+            throw new IOException("NitfRewriter: no directory for temporary file next to " + layout.mPath);
+        }
+        Path temporaryFile = Files.createTempFile(directory, "nitf", ".tmp");
+        try {
+            writePlan(plan, temporaryFile);
+            Files.move(temporaryFile, layout.mPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+        mSourceLayouts.remove(dataSource);
+        return false;
+    }
+
+    private long writePlan(final NitfWritePlan plan, final Path target) throws IOException {
+        try (FileChannel outputChannel = FileChannel.open(target,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                ChannelDataOutput output = new ChannelDataOutput(outputChannel)) {
+            plan.writeTo(output);
+        }
+        return plan.getFileLength();
+    }
+
+    /**
+     * Close all of the source files.
+     *
+     * @throws IOException if a source file could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (FileChannel channel : mSourceChannels) {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                failure = ex;
+            }
+        }
+        mSourceChannels.clear();
+        mSourcePaths.clear();
+        mSourceLayouts.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * The position and length of each part of a file, as it was parsed.
+     */
+    private static final class SourceLayout {
+
+        private final Path mPath;
+        private final FileChannel mChannel;
+        private final long mFileLength;
+        private final long mHeaderLength;
+        private final List<SegmentLayout> mSegments;
+
+        SourceLayout(final Path path, final FileChannel channel, final long fileLength, final long headerLength,
+                final List<SegmentLayout> segments) {
+            mPath = path;
+            mChannel = channel;
+            mFileLength = fileLength;
+            mHeaderLength = headerLength;
+            mSegments = segments;
+        }
+
+        boolean canPatch(final NitfWritePlan plan) {
+            List<NitfWritePlan.SegmentPlan> segmentPlans = plan.getSegments();
+            if ((plan.getFileHeaderLength() != mHeaderLength) || (plan.getFileLength() != mFileLength)
+                    || (segmentPlans.size() != mSegments.size())) {
+                return false;
+            }
+            for (int i = 0; i < mSegments.size(); i++) {
+                NitfWritePlan.SegmentPlan segmentPlan = segmentPlans.get(i);
+                SegmentLayout segmentLayout = mSegments.get(i);
+                if ((segmentPlan.getSubheaderOffset() != segmentLayout.mSubheaderOffset)
+                        || (segmentPlan.getSubheaderLength() != segmentLayout.mSubheaderLength)
+                        || (segmentPlan.getDataLength() != segmentLayout.mDataLength)) {
+                    return false;
+                }
+                ImageInputStream data = getFileData(segmentPlan.getSegment());
+                if ((data instanceof FileChannelImageInputStream) && !isInPlace(data, segmentPlan)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void patch(final NitfWritePlan plan) throws IOException {
+            try (FileChannel channel = FileChannel.open(mPath, StandardOpenOption.WRITE)) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                plan.writeFileHeader(new DataOutputStream(bytes));
+                patchRegion(channel, 0, bytes.toByteArray());
+                for (NitfWritePlan.SegmentPlan segmentPlan : plan.getSegments()) {
+                    bytes.reset();
+                    segmentPlan.writeSubheader(new DataOutputStream(bytes));
+                    patchRegion(channel, segmentPlan.getSubheaderOffset(), bytes.toByteArray());
+                    if (!isInPlace(getFileData(segmentPlan.getSegment()), segmentPlan)) {
+                        bytes.reset();
+                        segmentPlan.writeData(new DataOutputStream(bytes));
+                        patchRegion(channel, segmentPlan.getDataOffset(), bytes.toByteArray());
+                    }
+                }
+                channel.force(false);
+            }
+        }
+
+        private boolean isInPlace(final ImageInputStream data, final NitfWritePlan.SegmentPlan segmentPlan) {
+            if (!(data instanceof FileChannelImageInputStream)) {
+                return false;
+            }
+            FileChannelImageInputStream fileData = (FileChannelImageInputStream) data;
+            return (fileData.getChannel() == mChannel) && fileData.isRegion()
+                    && (fileData.getRegionStart() == segmentPlan.getDataOffset());
+        }
+
+        private ImageInputStream getFileData(final CommonSegment segment) {
+            if (segment instanceof ImageSegment) {
+                return ((ImageSegment) segment).getData();
+            } else if (segment instanceof GraphicSegment) {
+                return ((GraphicSegment) segment).getData();
+            } else if (segment instanceof SymbolSegment) {
+                return ((SymbolSegment) segment).getData();
+            } else if (segment instanceof DataExtensionSegment) {
+                ImageInputStream[] data = new ImageInputStream[1];
+                ((DataExtensionSegment) segment).consume(stream -> data[0] = stream);
+                return data[0];
+            }
+            return null;
+        }
+
+        /**
+         * Overwrite the part of a region that differs from what is already in the file.
+         */
+        private void patchRegion(final FileChannel channel, final long offset, final byte[] bytes) throws IOException {
+            ByteBuffer existing = ByteBuffer.allocate(bytes.length);
+            while (existing.hasRemaining() && (mChannel.read(existing, offset + existing.position()) >= 0)) {
+                continue;
+            }
+            byte[] existingBytes = existing.array();
+            int first = 0;
+            while ((first < bytes.length) && (bytes[first] == existingBytes[first])) {
+                first++;
+            }
+            if (first == bytes.length) {
+                return;
+            }
+            int last = bytes.length - 1;
+            while (bytes[last] == existingBytes[last]) {
+                last--;
+            }
+            ByteBuffer changed = ByteBuffer.wrap(bytes, first, last - first + 1);
+            while (changed.hasRemaining()) {
+                channel.write(changed, offset + changed.position());
+            }
+        }
+    }
+
+    /**
+     * The position and length of one segment in a file.
+     */
+    private static final class SegmentLayout {
+
+        private final long mSubheaderOffset;
+        private final long mSubheaderLength;
+        private final long mDataLength;
+
+        SegmentLayout(final long subheaderOffset, final long subheaderLength, final long dataLength) {
+            mSubheaderOffset = subheaderOffset;
+            mSubheaderLength = subheaderLength;
+            mDataLength = dataLength;
+        }
+    }
+
+    /**
+     * A ParseStrategy that passes everything on to another strategy, and records where each segment starts and ends.
+     */
+    private static final class LayoutRecorder implements ParseStrategy {
+
+        private final ParseStrategy mParseStrategy;
+        private final List<SegmentLayout> mSegments = new ArrayList<>();
+
+        LayoutRecorder(final ParseStrategy parseStrategy) {
+            mParseStrategy = parseStrategy;
+        }
+
+        SourceLayout getLayout(final Path path, final FileChannel channel, final long endOffset) throws IOException {
+            long headerLength = endOffset;
+            if (!mSegments.isEmpty()) {
+                headerLength = mSegments.get(0).mSubheaderOffset;
+            }
+            return new SourceLayout(path, channel, channel.size(), headerLength, mSegments);
+        }
+
+        private void record(final long subheaderOffset, final NitfReader reader, final long dataLength) {
+            long subheaderLength = reader.getCurrentOffset() - subheaderOffset - dataLength;
+            mSegments.add(new SegmentLayout(subheaderOffset, subheaderLength, dataLength));
+        }
+
+        @Override
+        public void setFileHeader(final NitfHeader nitfHeader) {
+            mParseStrategy.setFileHeader(nitfHeader);
+        }
+
+        @Override
+        public NitfHeader getNitfHeader() {
+            return mParseStrategy.getNitfHeader();
+        }
+
+        @Override
+        public TreCollection parseTREs(final NitfReader reader, final int length, final TreSource source) throws NitfFormatException {
+            return mParseStrategy.parseTREs(reader, length, source);
+        }
+
+        @Override
+        public void handleTextSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+            long subheaderOffset = reader.getCurrentOffset();
+            mParseStrategy.handleTextSegment(reader, dataLength);
+            record(subheaderOffset, reader, dataLength);
+        }
+
+        @Override
+        public void handleDataExtensionSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+            long subheaderOffset = reader.getCurrentOffset();
+            mParseStrategy.handleDataExtensionSegment(reader, dataLength);
+            record(subheaderOffset, reader, dataLength);
+        }
+
+        @Override
+        public void handleGraphicSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+            long subheaderOffset = reader.getCurrentOffset();
+            mParseStrategy.handleGraphicSegment(reader, dataLength);
+            record(subheaderOffset, reader, dataLength);
+        }
+
+        @Override
+        public void handleImageSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+            long subheaderOffset = reader.getCurrentOffset();
+            mParseStrategy.handleImageSegment(reader, dataLength);
+            record(subheaderOffset, reader, dataLength);
+        }
+
+        @Override
+        public void handleLabelSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+            long subheaderOffset = reader.getCurrentOffset();
+            mParseStrategy.handleLabelSegment(reader, dataLength);
+            record(subheaderOffset, reader, dataLength);
+        }
+
+        @Override
+        public void handleSymbolSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+            long subheaderOffset = reader.getCurrentOffset();
+            mParseStrategy.handleSymbolSegment(reader, dataLength);
+            record(subheaderOffset, reader, dataLength);
+        }
+
+        @Override
+        public void registerAdditionalTREdescriptor(final Source source) throws NitfFormatException {
+            mParseStrategy.registerAdditionalTREdescriptor(source);
+        }
+
+        @Override
+        public DataSource getDataSource() {
+            return mParseStrategy.getDataSource();
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageInputStreamImpl;
+import javax.xml.transform.Source;
+
+import org.codice.imaging.nitf.core.DataSource;
+import org.codice.imaging.nitf.core.HeapStrategy;
+import org.codice.imaging.nitf.core.common.CommonSegment;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfReader;
+import org.codice.imaging.nitf.core.header.NitfHeader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.header.impl.NitfTableOfContents;
+
+/**
+ * Iterates over the segments of a NITF file, parsing each segment only when it is asked for.
+ *
+ * Only the current segment is held, so once the caller has finished with a segment it can be garbage collected
+ * before the next one is read. Segments are returned in file order: image, graphic (or symbol and label, for NITF
+ * 2.0), text, then data extension segments.
+ *
+ * Image and data extension segment data is not read up front. It is read from the NITF reader on demand, and can
+ * only be read while the segment is current: moving to the next segment (or closing the iterator) closes the data
+ * stream, and any data that was not read is skipped. With a reader that cannot seek, the data can only be read
+ * forwards. Graphic, symbol, label and text data is small, and is read with the segment.
+ */
+public final class NitfSegmentIterator implements Iterator<CommonSegment>, AutoCloseable {
+
+    private enum SegmentKind { IMAGE, GRAPHIC, SYMBOL, LABEL, TEXT, DATA_EXTENSION }
+
+    private final SlottedParseStrategy mParseStrategy = new SlottedParseStrategy(SlottedParseStrategy.ALL_SEGMENT_DATA);
+    private final ReaderHeapStrategy mHeapStrategy = new ReaderHeapStrategy();
+    private final NitfTableOfContents mTableOfContents;
+    private final List<SegmentKind> mKinds = new ArrayList<>();
+    private final List<Integer> mIndexes = new ArrayList<>();
+    private int mNext = 0;
+
+    /**
+     * Read the file header, ready to iterate over the segments.
+     *
+     * @param reader the reader for the NITF file.
+     * @throws NitfFormatException if the file header could not be parsed.
+     */
+    public NitfSegmentIterator(final NitfReader reader) throws NitfFormatException {
+        this(reader, Collections.emptyList());
+    }
+
+    /**
+     * Read the file header, ready to iterate over the segments, with additional TRE descriptors.
+     *
+     * @param reader the reader for the NITF file.
+     * @param treDescriptors additional TRE descriptors to register before parsing.
+     * @throws NitfFormatException if a TRE descriptor could not be registered, or the file header could not be parsed.
+     */
+    public NitfSegmentIterator(final NitfReader reader, final List<Source> treDescriptors) throws NitfFormatException {
+        for (Source treDescriptor : treDescriptors) {
+            mParseStrategy.registerAdditionalTREdescriptor(treDescriptor);
+        }
+        mParseStrategy.setImageHeapStrategy(mHeapStrategy);
+        mParseStrategy.setDataExtensionSegmentHeapStrategy(mHeapStrategy);
+        mTableOfContents = NitfParser.readTableOfContents(reader, mParseStrategy);
+        addSegments(SegmentKind.IMAGE, mTableOfContents.getImageSegments().size());
+        addSegments(SegmentKind.GRAPHIC, mTableOfContents.getGraphicSegments().size());
+        addSegments(SegmentKind.SYMBOL, mTableOfContents.getSymbolSegments().size());
+        addSegments(SegmentKind.LABEL, mTableOfContents.getLabelSegments().size());
+        addSegments(SegmentKind.TEXT, mTableOfContents.getTextSegments().size());
+        addSegments(SegmentKind.DATA_EXTENSION, mTableOfContents.getDataExtensionSegments().size());
+    }
+
+    private void addSegments(final SegmentKind kind, final int count) {
+        for (int i = 0; i < count; i++) {
+            mKinds.add(kind);
+            mIndexes.add(i);
+        }
+    }
+
+    /**
+     * Create a sequential stream over the segments of a NITF file.
+     *
+     * Closing the stream closes the data of the current segment. A parse failure is thrown from the stream as an
+     * UncheckedIOException.
+     *
+     * @param reader the reader for the NITF file.
+     * @return the stream of segments, in file order.
+     * @throws NitfFormatException if the file header could not be parsed.
+     */
+    public static Stream<CommonSegment> stream(final NitfReader reader) throws NitfFormatException {
+        NitfSegmentIterator iterator = new NitfSegmentIterator(reader);
+        Spliterator<CommonSegment> spliterator = Spliterators.spliterator(iterator, iterator.mKinds.size(),
+                Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+    }
+
+    /**
+     * Get the file header.
+     *
+     * @return the parsed file header.
+     */
+    public NitfHeader getNitfHeader() {
+        return mTableOfContents.getNitfHeader();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return mNext < mKinds.size();
+    }
+
+    /**
+     * Parse the next segment.
+     *
+     * @return the next segment.
+     * @throws UncheckedIOException if the segment could not be parsed.
+     */
+    @Override
+    public CommonSegment next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("NitfSegmentIterator: no more segments.");
+        }
+        mHeapStrategy.closeCurrentData();
+        SegmentKind kind = mKinds.get(mNext);
+        int index = mIndexes.get(mNext);
+        mNext++;
+        try {
+            return parse(kind, index);
+        } catch (NitfFormatException ex) {
+            throw new UncheckedIOException(new IOException(ex.getMessage(), ex));
+        }
+    }
+
+    private CommonSegment parse(final SegmentKind kind, final int index) throws NitfFormatException {
+        DataSource dataSource = mParseStrategy.getDataSource();
+        switch (kind) {
+            case IMAGE:
+                mTableOfContents.parseImageSegment(index);
+                return dataSource.getImageSegments().remove(0);
+            case GRAPHIC:
+                mTableOfContents.parseGraphicSegment(index);
+                return dataSource.getGraphicSegments().remove(0);
+            case SYMBOL:
+                mTableOfContents.parseSymbolSegment(index);
+                return dataSource.getSymbolSegments().remove(0);
+            case LABEL:
+                mTableOfContents.parseLabelSegment(index);
+                return dataSource.getLabelSegments().remove(0);
+            case TEXT:
+                mTableOfContents.parseTextSegment(index);
+                return dataSource.getTextSegments().remove(0);
+            default:
+                mTableOfContents.parseDataExtensionSegment(index);
+                return dataSource.getDataExtensionSegments().remove(0);
+        }
+    }
+
+    /**
+     * Close the data of the current segment.
+     */
+    @Override
+    public void close() {
+        mHeapStrategy.closeCurrentData();
+    }
+
+    /**
+     * Heap strategy that leaves the data in the reader, and returns a stream that reads it on demand.
+     */
+    private static final class ReaderHeapStrategy implements HeapStrategy<ImageInputStream> {
+
+        private ReaderDataStream mCurrentData = null;
+
+        @Override
+        public ImageInputStream handleSegment(final NitfReader reader, final long length) {
+            mCurrentData = new ReaderDataStream(reader, reader.getCurrentOffset(), length);
+            return mCurrentData;
+        }
+
+        void closeCurrentData() {
+            if (mCurrentData != null) {
+                mCurrentData.mClosed = true;
+                mCurrentData = null;
+            }
+        }
+
+        @Override
+        public void cleanUp() {
+            closeCurrentData();
+        }
+    }
+
+    /**
+     * A view of segment data that reads straight from the NITF reader.
+     */
+    private static final class ReaderDataStream extends ImageInputStreamImpl {
+
+        private static final int BYTE_MASK = 0xFF;
+
+        private final NitfReader mReader;
+        private final long mStart;
+        private final long mLength;
+        private boolean mClosed = false;
+
+        ReaderDataStream(final NitfReader reader, final long start, final long length) {
+            mReader = reader;
+            mStart = start;
+            mLength = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            if (read(single, 0, 1) < 0) {
+                return -1;
+            }
+            return single[0] & BYTE_MASK;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+            if (mClosed) {
+                throw new IOException("NitfSegmentIterator: segment data can only be read while the segment is current.");
+            }
+            bitOffset = 0;
+            if (streamPos >= mLength) {
+                return -1;
+            }
+            int count = (int) Math.min(length, mLength - streamPos);
+            if (count == 0) {
+                return 0;
+            }
+            try {
+                moveReaderTo(mStart + streamPos);
+                System.arraycopy(mReader.readBytesRaw(count), 0, bytes, offset, count);
+            } catch (NitfFormatException ex) {
+                throw new IOException(ex.getMessage(), ex);
+            }
+            streamPos += count;
+            return count;
+        }
+
+        private void moveReaderTo(final long position) throws NitfFormatException, IOException {
+            long current = mReader.getCurrentOffset();
+            if (position == current) {
+                return;
+            }
+            if (mReader.canSeek()) {
+                mReader.seekToAbsoluteOffset(position);
+            } else if (position > current) {
+                mReader.skip(position - current);
+            } else {
+                throw new IOException("NitfSegmentIterator: cannot read segment data backwards without a seekable reader.");
+            }
+        }
+
+        @Override
+        public long length() {
+            return mLength;
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            mClosed = true;
+        }
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.imageio.stream.ImageInputStream;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.FileChannelImageInputStream;
+import org.codice.imaging.nitf.core.common.impl.FileReader;
+import org.codice.imaging.nitf.core.dataextension.DataExtensionSegment;
+import org.codice.imaging.nitf.core.graphic.GraphicSegment;
+import org.codice.imaging.nitf.core.header.NitfHeader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.header.impl.NitfTableOfContents;
+import org.codice.imaging.nitf.core.header.impl.NitfTableOfContents.SegmentLocation;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.label.LabelSegment;
+import org.codice.imaging.nitf.core.symbol.SymbolSegment;
+import org.codice.imaging.nitf.core.text.TextSegment;
+
+/**
+ * A read-only snapshot of the headers of a NITF file, that can be shared between threads.
+ *
+ * The file header and every subheader are parsed once, when the snapshot is opened. The header and segments returned
+ * by the snapshot are read-only views: calling a setter (or any other method that would change them) throws
+ * UnsupportedOperationException. Image bands, TRE collections, TREs and their entries and groups reached through the
+ * views are read-only views too. Label and text segment data is held in the snapshot. Image, graphic, symbol and
+ * data extension segment data stays in the file, and each call to an open method (or to consume() on a data extension
+ * segment) returns a new stream over it, so each thread can read the data with its own stream position.
+ *
+ * The snapshot keeps the file open. It is reference counted: open() returns a snapshot with one reference, each
+ * retain() adds a reference, and each close() releases one. The file is closed when the last reference is released,
+ * and data streams opened from the snapshot cannot be read after that.
+ */
+public final class NitfSnapshot implements AutoCloseable {
+
+    private final Path mPath;
+    private final FileChannel mChannel;
+    private final NitfHeader mNitfHeader;
+    private final List<ImageSegment> mImageSegments = new ArrayList<>();
+    private final List<GraphicSegment> mGraphicSegments = new ArrayList<>();
+    private final List<SymbolSegment> mSymbolSegments = new ArrayList<>();
+    private final List<LabelSegment> mLabelSegments = new ArrayList<>();
+    private final List<TextSegment> mTextSegments = new ArrayList<>();
+    private final List<DataExtensionSegment> mDataExtensionSegments = new ArrayList<>();
+    private final NitfTableOfContents mTableOfContents;
+    private int mReferences = 1;
+
+    private NitfSnapshot(final Path path, final FileChannel channel) throws NitfFormatException {
+        mPath = path;
+        mChannel = channel;
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.LABEL_DATA
+                | SlottedParseStrategy.TEXT_DATA
+                | SlottedParseStrategy.DES_DATA);
+        // DES data is parsed so that TRE overflow is merged, but other DES data is left in the file.
+        parseStrategy.setDataExtensionSegmentHeapStrategy(new FileRegionHeapStrategy(channel));
+        FileReader reader = new FileReader(path.toFile());
+        try {
+            mTableOfContents = NitfParser.readTableOfContents(reader, parseStrategy);
+            for (int i = 0; i < mTableOfContents.getImageSegments().size(); i++) {
+                mTableOfContents.parseImageSegment(i);
+            }
+            for (int i = 0; i < mTableOfContents.getGraphicSegments().size(); i++) {
+                mTableOfContents.parseGraphicSegment(i);
+            }
+            for (int i = 0; i < mTableOfContents.getSymbolSegments().size(); i++) {
+                mTableOfContents.parseSymbolSegment(i);
+            }
+            for (int i = 0; i < mTableOfContents.getLabelSegments().size(); i++) {
+                mTableOfContents.parseLabelSegment(i);
+            }
+            for (int i = 0; i < mTableOfContents.getTextSegments().size(); i++) {
+                mTableOfContents.parseTextSegment(i);
+            }
+            for (int i = 0; i < mTableOfContents.getDataExtensionSegments().size(); i++) {
+                mTableOfContents.parseDataExtensionSegment(i);
+            }
+        } finally {
+            reader.close();
+        }
+        mNitfHeader = new ReadOnlyNitfHeader(mTableOfContents.getNitfHeader());
+        for (ImageSegment segment : parseStrategy.getDataSource().getImageSegments()) {
+            mImageSegments.add(new ReadOnlyImageSegment(segment, null));
+        }
+        for (GraphicSegment segment : parseStrategy.getDataSource().getGraphicSegments()) {
+            mGraphicSegments.add(new ReadOnlyGraphicSegment(segment));
+        }
+        for (SymbolSegment segment : parseStrategy.getDataSource().getSymbolSegments()) {
+            mSymbolSegments.add(new ReadOnlySymbolSegment(segment));
+        }
+        for (LabelSegment segment : parseStrategy.getDataSource().getLabelSegments()) {
+            mLabelSegments.add(new ReadOnlyLabelSegment(segment));
+        }
+        for (TextSegment segment : parseStrategy.getDataSource().getTextSegments()) {
+            mTextSegments.add(new ReadOnlyTextSegment(segment));
+        }
+        List<DataExtensionSegment> dataExtensionSegments = parseStrategy.getDataSource().getDataExtensionSegments();
+        for (int i = 0; i < dataExtensionSegments.size(); i++) {
+            SegmentLocation location = mTableOfContents.getDataExtensionSegments().get(i);
+            mDataExtensionSegments.add(new ReadOnlyDataExtensionSegment(dataExtensionSegments.get(i), () -> openData(location)));
+        }
+    }
+
+    /**
+     * Parse the headers of a NITF file into a snapshot.
+     *
+     * @param path the NITF file.
+     * @return the snapshot, with one reference that belongs to the caller.
+     * @throws IOException if the file could not be opened.
+     * @throws NitfFormatException if the file could not be parsed.
+     */
+    public static NitfSnapshot open(final Path path) throws IOException, NitfFormatException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new NitfSnapshot(path, channel);
+        } catch (NitfFormatException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Get the path of the file the snapshot was parsed from.
+     *
+     * @return the file path.
+     */
+    public Path getPath() {
+        return mPath;
+    }
+
+    /**
+     * Get the file header.
+     *
+     * @return the read-only file header.
+     */
+    public NitfHeader getNitfHeader() {
+        return mNitfHeader;
+    }
+
+    /**
+     * Get the image segments.
+     *
+     * The segments do not have data, see openImageSegment().
+     *
+     * @return the read-only image segments, in file order.
+     */
+    public List<ImageSegment> getImageSegments() {
+        return Collections.unmodifiableList(mImageSegments);
+    }
+
+    /**
+     * Get the graphic segments.
+     *
+     * The segments do not have data, see openGraphicData().
+     *
+     * @return the read-only graphic segments, in file order.
+     */
+    public List<GraphicSegment> getGraphicSegments() {
+        return Collections.unmodifiableList(mGraphicSegments);
+    }
+
+    /**
+     * Get the symbol segments.
+     *
+     * The segments do not have data, see openSymbolData().
+     *
+     * @return the read-only symbol segments, in file order.
+     */
+    public List<SymbolSegment> getSymbolSegments() {
+        return Collections.unmodifiableList(mSymbolSegments);
+    }
+
+    /**
+     * Get the label segments, with their data.
+     *
+     * @return the read-only label segments, in file order.
+     */
+    public List<LabelSegment> getLabelSegments() {
+        return Collections.unmodifiableList(mLabelSegments);
+    }
+
+    /**
+     * Get the text segments, with their data.
+     *
+     * @return the read-only text segments, in file order.
+     */
+    public List<TextSegment> getTextSegments() {
+        return Collections.unmodifiableList(mTextSegments);
+    }
+
+    /**
+     * Get the data extension segments.
+     *
+     * TREs from TRE overflow segments have been merged. For the data of other segments, see openDataExtensionData(). Each
+     * call to consume() on one of these segments also reads the data through a new stream.
+     *
+     * @return the read-only data extension segments, in file order.
+     */
+    public List<DataExtensionSegment> getDataExtensionSegments() {
+        return Collections.unmodifiableList(mDataExtensionSegments);
+    }
+
+    /**
+     * Get an image segment with its own stream over the image data.
+     *
+     * The result can be used (for example, rendered) by one thread, while other threads use their own image segments
+     * from the same snapshot.
+     *
+     * @param index the index of the image segment (from 0).
+     * @return a read-only image segment, with data.
+     */
+    public ImageSegment openImageSegment(final int index) {
+        ImageInputStream data = openData(mTableOfContents.getImageSegments().get(index));
+        return new ReadOnlyImageSegment(((ReadOnlyImageSegment) mImageSegments.get(index)).getTarget(), data);
+    }
+
+    /**
+     * Open a new stream over the data of a graphic segment.
+     *
+     * @param index the index of the graphic segment (from 0).
+     * @return the graphic data.
+     */
+    public ImageInputStream openGraphicData(final int index) {
+        return openData(mTableOfContents.getGraphicSegments().get(index));
+    }
+
+    /**
+     * Open a new stream over the data of a symbol segment.
+     *
+     * @param index the index of the symbol segment (from 0).
+     * @return the symbol data.
+     */
+    public ImageInputStream openSymbolData(final int index) {
+        return openData(mTableOfContents.getSymbolSegments().get(index));
+    }
+
+    /**
+     * Open a new stream over the data of a data extension segment.
+     *
+     * @param index the index of the data extension segment (from 0).
+     * @return the DES data.
+     */
+    public ImageInputStream openDataExtensionData(final int index) {
+        return openData(mTableOfContents.getDataExtensionSegments().get(index));
+    }
+
+    private ImageInputStream openData(final SegmentLocation location) {
+        return new FileChannelImageInputStream(mChannel, location.getDataOffset(), location.getDataLength());
+    }
+
+    /**
+     * Add a reference to the snapshot.
+     *
+     * @return true if the reference was added, or false if the snapshot has already been closed.
+     */
+    public synchronized boolean retain() {
+        if (mReferences == 0) {
+            return false;
+        }
+        mReferences++;
+        return true;
+    }
+
+    /**
+     * Release a reference to the snapshot, closing the file if it was the last one.
+     *
+     * @throws IOException if the file could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (mReferences == 0) {
+                return;
+            }
+            mReferences--;
+            if (mReferences > 0) {
+                return;
+            }
+        }
+        mChannel.close();
+    }
+
+    /**
+     * Create the exception thrown by the read-only views when a method would change them.
+     *
+     * @param typeName the name of the interface that the view implements.
+     * @return the exception to throw.
+     */
+    static UnsupportedOperationException readOnly(final String typeName) {
+        return new UnsupportedOperationException("NitfSnapshot: " + typeName + " is read-only.");
+    }
+}
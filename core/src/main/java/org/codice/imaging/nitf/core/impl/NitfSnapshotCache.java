@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A size-bounded cache of NITF snapshots, for sharing parsed headers between threads.
+ *
+ * Snapshots are keyed by the file path, size and modification time, so a file that changes is parsed again on the
+ * next request, and the snapshot of the old content is evicted. When there are more snapshots than the cache can
+ * hold, the least recently used snapshot is evicted.
+ *
+ * Each snapshot returned by get() has a reference that belongs to the caller, and should be closed when the caller
+ * has finished with it. The cache holds its own reference, which it releases on eviction, after the eviction
+ * listener has been called. The file behind a snapshot is closed once the cache and all callers have released it,
+ * so a snapshot that is evicted while a request is using it stays usable until that request closes it.
+ *
+ * If several threads ask for the same file at once, it is parsed once, and the other threads wait for the result.
+ */
+public final class NitfSnapshotCache implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NitfSnapshotCache.class);
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final int mMaxEntries;
+    private final BiConsumer<Path, NitfSnapshot> mEvictionListener;
+    private final Map<Key, CompletableFuture<NitfSnapshot>> mEntries = new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+
+    /**
+     * Create a cache.
+     *
+     * @param maxEntries the maximum number of snapshots to hold.
+     */
+    public NitfSnapshotCache(final int maxEntries) {
+        this(maxEntries, (path, snapshot) -> { });
+    }
+
+    /**
+     * Create a cache with an eviction listener.
+     *
+     * The listener is called with the file path and snapshot each time a snapshot is evicted, before the cache
+     * releases its reference to the snapshot. A listener that wants to keep using the snapshot needs to call
+     * retain() on it.
+     *
+     * @param maxEntries the maximum number of snapshots to hold.
+     * @param evictionListener the listener to call on eviction.
+     */
+    public NitfSnapshotCache(final int maxEntries, final BiConsumer<Path, NitfSnapshot> evictionListener) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("NitfSnapshotCache: maxEntries must be at least 1.");
+        }
+        if (evictionListener == null) {
+            throw new IllegalArgumentException("NitfSnapshotCache: argument 'evictionListener' may not be null.");
+        }
+        mMaxEntries = maxEntries;
+        mEvictionListener = evictionListener;
+    }
+
+    /**
+     * Get the snapshot of a file, parsing it if it is not in the cache or has changed.
+     *
+     * @param path the NITF file.
+     * @return the snapshot, with a reference that the caller must close.
+     * @throws IOException if the file could not be read.
+     * @throws NitfFormatException if the file could not be parsed.
+     */
+    public NitfSnapshot get(final Path path) throws IOException, NitfFormatException {
+        Path normalisedPath = path.toAbsolutePath().normalize();
+        while (true) {
+            BasicFileAttributes attributes = Files.readAttributes(normalisedPath, BasicFileAttributes.class);
+            Key key = new Key(normalisedPath, attributes.size(), attributes.lastModifiedTime().toMillis());
+            List<Map.Entry<Key, CompletableFuture<NitfSnapshot>>> evicted = new ArrayList<>();
+            CompletableFuture<NitfSnapshot> future;
+            boolean load = false;
+            synchronized (this) {
+                future = mEntries.get(key);
+                if (future == null) {
+                    removeEntries(evicted, entry -> entry.getKey().mPath.equals(normalisedPath));
+                    future = new CompletableFuture<>();
+                    mEntries.put(key, future);
+                    load = true;
+                    Iterator<Map.Entry<Key, CompletableFuture<NitfSnapshot>>> eldest = mEntries.entrySet().iterator();
+                    while (mEntries.size() > mMaxEntries) {
+                        evicted.add(eldest.next());
+                        eldest.remove();
+                    }
+                }
+            }
+            evict(evicted);
+            if (load) {
+                load(key, future);
+            }
+            NitfSnapshot snapshot = await(future);
+            if (snapshot.retain()) {
+                return snapshot;
+            }
+            // The snapshot was evicted and closed after it was found, so look again.
+        }
+    }
+
+    private void load(final Key key, final CompletableFuture<NitfSnapshot> future) throws IOException, NitfFormatException {
+        try {
+            future.complete(NitfSnapshot.open(key.mPath));
+        } catch (IOException | NitfFormatException | RuntimeException ex) {
+            synchronized (this) {
+                mEntries.remove(key, future);
+            }
+            future.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    private static NitfSnapshot await(final CompletableFuture<NitfSnapshot> future) throws IOException, NitfFormatException {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof NitfFormatException) {
+                throw (NitfFormatException) cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Evict the snapshot of a file, if there is one.
+     *
+     * @param path the NITF file.
+     */
+    public void invalidate(final Path path) {
+        Path normalisedPath = path.toAbsolutePath().normalize();
+        List<Map.Entry<Key, CompletableFuture<NitfSnapshot>>> evicted = new ArrayList<>();
+        synchronized (this) {
+            removeEntries(evicted, entry -> entry.getKey().mPath.equals(normalisedPath));
+        }
+        evict(evicted);
+    }
+
+    /**
+     * Evict all snapshots.
+     */
+    public void clear() {
+        List<Map.Entry<Key, CompletableFuture<NitfSnapshot>>> evicted = new ArrayList<>();
+        synchronized (this) {
+            removeEntries(evicted, entry -> true);
+        }
+        evict(evicted);
+    }
+
+    /**
+     * Get the number of snapshots in the cache.
+     *
+     * This includes snapshots that are still being parsed.
+     *
+     * @return the number of snapshots.
+     */
+    public synchronized int size() {
+        return mEntries.size();
+    }
+
+    /**
+     * Evict all snapshots.
+     */
+    @Override
+    public void close() {
+        clear();
+    }
+
+    private void removeEntries(final List<Map.Entry<Key, CompletableFuture<NitfSnapshot>>> evicted,
+            final Predicate<Map.Entry<Key, CompletableFuture<NitfSnapshot>>> filter) {
+        Iterator<Map.Entry<Key, CompletableFuture<NitfSnapshot>>> iterator = mEntries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, CompletableFuture<NitfSnapshot>> entry = iterator.next();
+            if (filter.test(entry)) {
+                evicted.add(entry);
+                iterator.remove();
+            }
+        }
+    }
+
+    private void evict(final List<Map.Entry<Key, CompletableFuture<NitfSnapshot>>> evicted) {
+        for (Map.Entry<Key, CompletableFuture<NitfSnapshot>> entry : evicted) {
+            Path path = entry.getKey().mPath;
+            // A snapshot that is still being parsed is released when parsing finishes.
+            entry.getValue().thenAccept(snapshot -> {
+                try {
+                    mEvictionListener.accept(path, snapshot);
+                } finally {
+                    release(snapshot);
+                }
+            });
+        }
+    }
+
+    private static void release(final NitfSnapshot snapshot) {
+        try {
+            snapshot.close();
+        } catch (IOException ex) {
+            LOGGER.warn("Failed to close evicted snapshot of {}", snapshot.getPath(), ex);
+        }
+    }
+
+    private static final class Key {
+        private final Path mPath;
+        private final long mSize;
+        private final long mLastModified;
+
+        Key(final Path path, final long size, final long lastModified) {
+            mPath = path;
+            mSize = size;
+            mLastModified = lastModified;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return mPath.equals(key.mPath) && (mSize == key.mSize) && (mLastModified == key.mLastModified);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(mPath, mSize, mLastModified);
+        }
+    }
+}
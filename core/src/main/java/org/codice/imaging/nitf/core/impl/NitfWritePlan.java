@@ -0,0 +1,397 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.codice.imaging.nitf.core.DataSource;
+import org.codice.imaging.nitf.core.common.CommonSegment;
+import org.codice.imaging.nitf.core.common.FileType;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.AbstractSegmentWriter;
+import org.codice.imaging.nitf.core.common.impl.ChannelDataOutput;
+import org.codice.imaging.nitf.core.dataextension.DataExtensionSegment;
+import org.codice.imaging.nitf.core.dataextension.impl.DataExtensionSegmentWriter;
+import org.codice.imaging.nitf.core.graphic.GraphicSegment;
+import org.codice.imaging.nitf.core.graphic.impl.GraphicSegmentWriter;
+import org.codice.imaging.nitf.core.header.impl.NitfHeaderWriter;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.image.impl.ImageSegmentWriter;
+import org.codice.imaging.nitf.core.label.LabelSegment;
+import org.codice.imaging.nitf.core.label.impl.LabelSegmentWriter;
+import org.codice.imaging.nitf.core.symbol.SymbolSegment;
+import org.codice.imaging.nitf.core.symbol.impl.SymbolSegmentWriter;
+import org.codice.imaging.nitf.core.text.TextSegment;
+import org.codice.imaging.nitf.core.text.impl.TextSegmentWriter;
+import org.codice.imaging.nitf.core.tre.impl.TreParser;
+
+/**
+ * A plan for writing out a NITF file.
+ *
+ * Creating a plan serialises each segment subheader (including its TREs) once, and then the file header, using the
+ * exact subheader lengths. It records the length and offset of every part of the file. Writing the plan out only
+ * copies the serialised headers and the segment data, so the cost of writing is linear in the size of the output.
+ *
+ * A plan reflects the data source at the time it was created. If the data source is changed, create a new plan.
+ */
+public final class NitfWritePlan {
+
+    private final byte[] mFileHeader;
+    private final List<SegmentPlan> mSegments;
+    private final long mFileLength;
+
+    private NitfWritePlan(final byte[] fileHeader, final byte[] subheaders, final List<SegmentPlan> segments) {
+        mFileHeader = fileHeader;
+        mSegments = Collections.unmodifiableList(segments);
+        long offset = fileHeader.length;
+        for (SegmentPlan segment : segments) {
+            segment.mSubheaders = subheaders;
+            segment.mSubheaderOffset = offset;
+            offset += segment.getSubheaderLength() + segment.getDataLength();
+        }
+        mFileLength = offset;
+    }
+
+    /**
+     * Create a plan for writing out a data source.
+     *
+     * @param dataSource the data source to write out.
+     * @return the plan.
+     * @throws NitfFormatException on TRE serialisation problems.
+     * @throws IOException on problems writing the headers to memory.
+     */
+    public static NitfWritePlan create(final DataSource dataSource) throws NitfFormatException, IOException {
+        return create(dataSource, new TreParser());
+    }
+
+    /**
+     * Create a plan for writing out a data source, using an existing TreParser.
+     *
+     * @param dataSource the data source to write out.
+     * @param treParser the TreParser to serialise TREs with.
+     * @return the plan.
+     * @throws NitfFormatException on TRE serialisation problems.
+     * @throws IOException on problems writing the headers to memory.
+     */
+    public static NitfWritePlan create(final DataSource dataSource, final TreParser treParser) throws NitfFormatException, IOException {
+        FileType fileType = dataSource.getNitfHeader().getFileType();
+        ExposedByteArrayOutputStream subheaderBytes = new ExposedByteArrayOutputStream();
+        DataOutput subheaderOutput = new DataOutputStream(subheaderBytes);
+        List<SegmentPlan> segments = new ArrayList<>();
+
+        ImageSegmentWriter imageSegmentWriter = new ImageSegmentWriter(subheaderOutput, treParser);
+        for (ImageSegment imageSegment : dataSource.getImageSegments()) {
+            int start = subheaderBytes.size();
+            imageSegmentWriter.writeImageSubheader(imageSegment, fileType);
+            segments.add(new SegmentPlan(imageSegment, start, subheaderBytes.size() - start, 0, imageSegment.getDataLength()));
+        }
+        GraphicSegmentWriter graphicSegmentWriter = new GraphicSegmentWriter(subheaderOutput, treParser);
+        for (GraphicSegment graphicSegment : dataSource.getGraphicSegments()) {
+            int start = subheaderBytes.size();
+            graphicSegmentWriter.writeGraphicSubheader(graphicSegment);
+            segments.add(new SegmentPlan(graphicSegment, start, subheaderBytes.size() - start, 0, graphicSegment.getDataLength()));
+        }
+        SymbolSegmentWriter symbolSegmentWriter = new SymbolSegmentWriter(subheaderOutput, treParser);
+        for (SymbolSegment symbolSegment : dataSource.getSymbolSegments()) {
+            int start = subheaderBytes.size();
+            symbolSegmentWriter.writeSymbolSubheader(symbolSegment);
+            segments.add(new SegmentPlan(symbolSegment, start, subheaderBytes.size() - start, 0, symbolSegment.getDataLength()));
+        }
+        LabelSegmentWriter labelSegmentWriter = new LabelSegmentWriter(subheaderOutput, treParser);
+        for (LabelSegment labelSegment : dataSource.getLabelSegments()) {
+            int start = subheaderBytes.size();
+            labelSegmentWriter.writeLabelSubheader(labelSegment);
+            segments.add(new SegmentPlan(labelSegment, start, subheaderBytes.size() - start, 0, labelSegment.getData().length()));
+        }
+        TextSegmentWriter textSegmentWriter = new TextSegmentWriter(subheaderOutput, treParser);
+        for (TextSegment textSegment : dataSource.getTextSegments()) {
+            int start = subheaderBytes.size();
+            textSegmentWriter.writeTextSubheader(textSegment, fileType);
+            segments.add(new SegmentPlan(textSegment, start, subheaderBytes.size() - start, 0, textSegment.getData().length()));
+        }
+        DataExtensionSegmentWriter dataExtensionSegmentWriter = new DataExtensionSegmentWriter(subheaderOutput, treParser);
+        for (DataExtensionSegment des : dataSource.getDataExtensionSegments()) {
+            if (!des.isStreamingMode()) {
+                int start = subheaderBytes.size();
+                dataExtensionSegmentWriter.writeDESSubheader(des);
+                int subheaderLength = subheaderBytes.size() - start;
+                dataExtensionSegmentWriter.writeOverflowedTREs(des);
+                segments.add(new SegmentPlan(des, start, subheaderLength, subheaderBytes.size() - start - subheaderLength,
+                        des.getDataLength()));
+            }
+        }
+
+        Map<CommonSegment, Long> subheaderLengths = new IdentityHashMap<>();
+        for (SegmentPlan segment : segments) {
+            subheaderLengths.put(segment.getSegment(), segment.getSubheaderLength());
+        }
+        ByteArrayOutputStream fileHeader = new ByteArrayOutputStream();
+        NitfHeaderWriter fileHeaderWriter = new NitfHeaderWriter(new DataOutputStream(fileHeader), treParser);
+        fileHeaderWriter.writeFileHeader(dataSource, subheaderLengths);
+        return new NitfWritePlan(fileHeader.toByteArray(), subheaderBytes.getBuffer(), segments);
+    }
+
+    /**
+     * Get the length of the file header.
+     *
+     * @return the file header length, in bytes.
+     */
+    public long getFileHeaderLength() {
+        return mFileHeader.length;
+    }
+
+    /**
+     * Get the length of the whole file.
+     *
+     * @return the file length, in bytes. This is the same as the FL field in the file header.
+     */
+    public long getFileLength() {
+        return mFileLength;
+    }
+
+    /**
+     * Get the plan for each segment, in the order they appear in the file.
+     *
+     * Data extension segments in streaming mode are not written out, so they are not included.
+     *
+     * @return the segment plans.
+     */
+    public List<SegmentPlan> getSegments() {
+        return mSegments;
+    }
+
+    /**
+     * Write out the serialised file header.
+     *
+     * @param output the target to write to.
+     * @throws IOException on write failure.
+     */
+    public void writeFileHeader(final DataOutput output) throws IOException {
+        output.write(mFileHeader);
+    }
+
+    /**
+     * Write out the whole file: the file header, then the subheader and data of each segment.
+     *
+     * @param output the target to write to.
+     * @throws IOException on write failure.
+     */
+    public void writeTo(final DataOutput output) throws IOException {
+        writeFileHeader(output);
+        for (SegmentPlan segment : mSegments) {
+            segment.writeSubheader(output);
+            segment.writeData(output);
+        }
+    }
+
+    /**
+     * Write out the whole file, writing the segments concurrently.
+     *
+     * Every part of the file has a known offset, so each segment (subheader and data) is written by its own task on
+     * the executor, with positional writes to the channel. Producing the segment data (for example, data extension
+     * segment data consumers, or image data streams that encode on demand) then also runs concurrently. The file
+     * header is written by the calling thread, which waits for all of the segments to be written.
+     *
+     * @param channel the file channel to write to. The channel position is not used or changed.
+     * @param executor the executor to write the segments on.
+     * @throws IOException on write failure, or if the data written for a segment does not match the planned length.
+     */
+    public void writeTo(final FileChannel channel, final ExecutorService executor) throws IOException {
+        List<Future<Void>> writes = new ArrayList<>(mSegments.size());
+        for (SegmentPlan segment : mSegments) {
+            writes.add(executor.submit(() -> {
+                segment.writeTo(channel);
+                return null;
+            }));
+        }
+        ByteBuffer fileHeader = ByteBuffer.wrap(mFileHeader);
+        while (fileHeader.hasRemaining()) {
+            channel.write(fileHeader, fileHeader.position());
+        }
+        IOException failure = null;
+        for (Future<Void> write : writes) {
+            try {
+                write.get();
+            } catch (ExecutionException ex) {
+                if (failure == null) {
+                    failure = new IOException("Could not write segment", ex.getCause());
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while writing segments", ex);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * The part of a write plan for one segment.
+     */
+    public static final class SegmentPlan {
+
+        private final CommonSegment mSegment;
+        private final int mSubheaderStart;
+        private final int mSubheaderLength;
+        private final int mDataPrefixLength;
+        private final long mDataLength;
+        private byte[] mSubheaders = null;
+        private long mSubheaderOffset = 0;
+
+        private SegmentPlan(final CommonSegment segment, final int subheaderStart, final int subheaderLength,
+                final int dataPrefixLength, final long dataLength) {
+            mSegment = segment;
+            mSubheaderStart = subheaderStart;
+            mSubheaderLength = subheaderLength;
+            mDataPrefixLength = dataPrefixLength;
+            mDataLength = dataLength;
+        }
+
+        /**
+         * Get the segment that this plan is for.
+         *
+         * @return the segment.
+         */
+        public CommonSegment getSegment() {
+            return mSegment;
+        }
+
+        /**
+         * Get the offset of the segment subheader from the start of the file.
+         *
+         * @return the subheader offset, in bytes.
+         */
+        public long getSubheaderOffset() {
+            return mSubheaderOffset;
+        }
+
+        /**
+         * Get the length of the serialised segment subheader.
+         *
+         * @return the subheader length, in bytes.
+         */
+        public long getSubheaderLength() {
+            return mSubheaderLength;
+        }
+
+        /**
+         * Get the offset of the segment data from the start of the file.
+         *
+         * @return the data offset, in bytes.
+         */
+        public long getDataOffset() {
+            return mSubheaderOffset + mSubheaderLength;
+        }
+
+        /**
+         * Get the length of the segment data.
+         *
+         * @return the data length, in bytes.
+         */
+        public long getDataLength() {
+            return mDataLength;
+        }
+
+        /**
+         * Write out the serialised subheader.
+         *
+         * @param output the target to write to.
+         * @throws IOException on write failure.
+         */
+        public void writeSubheader(final DataOutput output) throws IOException {
+            output.write(mSubheaders, mSubheaderStart, mSubheaderLength);
+        }
+
+        /**
+         * Write out the subheader and data at their planned offsets in a file.
+         *
+         * Writes are limited to the planned region: if the segment has more data than planned, the write fails before
+         * any of the excess is written, so the following segment is never overwritten.
+         *
+         * @param channel the file channel to write to. The channel position is not used or changed.
+         * @throws IOException on write failure, or if the data written does not match the planned length.
+         */
+        public void writeTo(final FileChannel channel) throws IOException {
+            try (ChannelDataOutput output = new ChannelDataOutput(channel, getSubheaderOffset(), mSubheaderLength + mDataLength)) {
+                writeSubheader(output);
+                writeData(output);
+                if (output.getBytesWritten() != mSubheaderLength + mDataLength) {
+                    throw new IOException("Wrote " + output.getBytesWritten() + " bytes for segment at offset "
+                            + getSubheaderOffset() + ", but expected " + (mSubheaderLength + mDataLength));
+                }
+            }
+        }
+
+        /**
+         * Write out the segment data.
+         *
+         * For a data extension segment that holds overflowed TREs, the data starts with the TREs, which were
+         * serialised when the plan was created.
+         *
+         * @param output the target to write to.
+         * @throws IOException on write failure.
+         */
+        public void writeData(final DataOutput output) throws IOException {
+            output.write(mSubheaders, mSubheaderStart + mSubheaderLength, mDataPrefixLength);
+            if (mSegment instanceof ImageSegment) {
+                new SegmentDataWriter(output).writeSegmentData(((ImageSegment) mSegment).getData());
+            } else if (mSegment instanceof GraphicSegment) {
+                new SegmentDataWriter(output).writeSegmentData(((GraphicSegment) mSegment).getData());
+            } else if (mSegment instanceof SymbolSegment) {
+                new SegmentDataWriter(output).writeSegmentData(((SymbolSegment) mSegment).getData());
+            } else if (mSegment instanceof LabelSegment) {
+                output.writeBytes(((LabelSegment) mSegment).getData());
+            } else if (mSegment instanceof TextSegment) {
+                output.writeBytes(((TextSegment) mSegment).getData());
+            } else if (mSegment instanceof DataExtensionSegment) {
+                ((DataExtensionSegment) mSegment).consume(new SegmentDataWriter(output)::writeSegmentData);
+            }
+        }
+    }
+
+    /**
+     * A ByteArrayOutputStream that shares its buffer, rather than copying it.
+     */
+    private static final class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+
+        byte[] getBuffer() {
+            return buf;
+        }
+    }
+
+    /**
+     * Writes segment data, using the shared implementation in AbstractSegmentWriter.
+     */
+    private static final class SegmentDataWriter extends AbstractSegmentWriter {
+
+        SegmentDataWriter(final DataOutput output) {
+            super(output, null);
+        }
+    }
+}
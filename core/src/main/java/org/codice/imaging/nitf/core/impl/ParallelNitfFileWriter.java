@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+
+import org.codice.imaging.nitf.core.DataSource;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A NitfWriter implementation that writes the segments of a file concurrently.
+ *
+ * The headers are serialised first, which fixes the offset of every segment. Each segment is then written by a task on
+ * the executor, with positional writes to the file channel, so slow segment data (such as data that is encoded as it
+ * is read) does not hold up the other segments. File-backed segment data is transferred directly from the source file.
+ */
+public class ParallelNitfFileWriter extends SharedNitfWriter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelNitfFileWriter.class);
+
+    private final String mOutputFileName;
+
+    private final ExecutorService mExecutor;
+
+    /**
+     * Construct a parallel file-based NITF writer.
+     *
+     * @param nitfDataSource the source of data to be written out
+     * @param outputFileName the name (including path) of the target file
+     * @param executor the executor to write the segments on. It is not shut down by the writer.
+     */
+    public ParallelNitfFileWriter(final DataSource nitfDataSource, final String outputFileName, final ExecutorService executor) {
+        super(nitfDataSource);
+        mOutputFileName = outputFileName;
+        mExecutor = executor;
+    }
+
+    @Override
+    public final void write() {
+        try {
+            NitfWritePlan plan = createWritePlan();
+            try (FileChannel outputChannel = FileChannel.open(Paths.get(mOutputFileName),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                plan.writeTo(outputChannel, mExecutor);
+            }
+        } catch (IOException | NitfFormatException ex) {
+            LOGGER.error("Could not write {}", ex.getMessage());
+        }
+    }
+}
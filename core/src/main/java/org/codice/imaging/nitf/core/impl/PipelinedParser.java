@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import org.codice.imaging.nitf.core.common.FileType;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfReader;
+import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.dataextension.DataExtensionSegment;
+import org.codice.imaging.nitf.core.dataextension.impl.DataExtensionSegmentParser;
+import org.codice.imaging.nitf.core.graphic.GraphicSegment;
+import org.codice.imaging.nitf.core.graphic.impl.GraphicSegmentParser;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.header.impl.NitfTableOfContents;
+import org.codice.imaging.nitf.core.header.impl.NitfTableOfContents.SegmentLocation;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.image.impl.ImageSegmentParser;
+import org.codice.imaging.nitf.core.label.LabelSegment;
+import org.codice.imaging.nitf.core.label.impl.LabelSegmentParser;
+import org.codice.imaging.nitf.core.symbol.SymbolSegment;
+import org.codice.imaging.nitf.core.symbol.impl.SymbolSegmentParser;
+import org.codice.imaging.nitf.core.text.TextSegment;
+import org.codice.imaging.nitf.core.text.impl.TextSegmentParser;
+import org.codice.imaging.nitf.core.tre.TreSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Parses a NITF file with the segment subheaders decoded in parallel.
+ *
+ * The file header gives the length of every segment subheader, so the reader can make one sequential sweep through
+ * the file, reading the raw bytes of each subheader and reading (or skipping) the segment data. Each subheader is
+ * handed to a ForkJoinPool to decode (security fields, band information, TREs) while the sweep carries on. The decoded
+ * segments are then added to the parse strategy in file order, so the result is the same as NitfParser.parse().
+ *
+ * Data extension segment subheaders are decoded during the sweep, because how the data is read depends on the
+ * subheader. TRE overflow data is read as raw bytes during the sweep, and its TREs are decoded in parallel too.
+ *
+ * As with NitfParser.parse(), a segment that fails to parse is logged, and the segments before it are kept.
+ */
+public final class PipelinedParser {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PipelinedParser.class);
+
+    private PipelinedParser() {
+    }
+
+    /**
+     * Parse a NITF file, decoding the segment subheaders on the common ForkJoinPool.
+     *
+     * @param nitfReader the reader to use.
+     * @param parseStrategy the parsing strategy, which stores the parse results.
+     * @throws NitfFormatException if an error occurs during parsing of the file header.
+     */
+    public static void parse(final NitfReader nitfReader, final SlottedParseStrategy parseStrategy) throws NitfFormatException {
+        parse(nitfReader, parseStrategy, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parse a NITF file, decoding the segment subheaders on the specified ForkJoinPool.
+     *
+     * The reader and parse strategy are only used from the calling thread, apart from parseTREs(), which the decoding
+     * tasks call concurrently. That relies on the thread safety of TreCollectionParser: the strategy's parser can parse
+     * from several threads at once, and its TRE descriptors cannot be changed by any other parser.
+     *
+     * @param nitfReader the reader to use.
+     * @param parseStrategy the parsing strategy, which stores the parse results.
+     * @param pool the pool to decode the subheaders on.
+     * @throws NitfFormatException if an error occurs during parsing of the file header.
+     */
+    public static void parse(final NitfReader nitfReader, final SlottedParseStrategy parseStrategy, final ForkJoinPool pool)
+            throws NitfFormatException {
+        NitfTableOfContents tableOfContents = NitfParser.readTableOfContents(nitfReader, parseStrategy);
+        parseStrategy.initialiseTreCollectionParserIfRequired();
+        Sweep sweep = new Sweep(nitfReader, parseStrategy, pool, tableOfContents.getNitfHeader().getFileType());
+        try {
+            sweep.readSegments(tableOfContents);
+        } catch (NitfFormatException ex) {
+            LOGGER.error(ex.getMessage(), ex);
+        }
+        sweep.assemble();
+    }
+
+    private static final class Sweep {
+
+        private final NitfReader mReader;
+        private final SlottedParseStrategy mParseStrategy;
+        private final ForkJoinPool mPool;
+        private final FileType mFileType;
+        private final List<PendingSegment<?>> mPendingSegments = new ArrayList<>();
+
+        Sweep(final NitfReader reader, final SlottedParseStrategy parseStrategy, final ForkJoinPool pool, final FileType fileType) {
+            mReader = reader;
+            mParseStrategy = parseStrategy;
+            mPool = pool;
+            mFileType = fileType;
+        }
+
+        void readSegments(final NitfTableOfContents tableOfContents) throws NitfFormatException {
+            for (SegmentLocation location : tableOfContents.getImageSegments()) {
+                Future<ImageSegment> segment = decode(location,
+                        reader -> new ImageSegmentParser().parse(reader, mParseStrategy, location.getDataLength()));
+                add(segment, mParseStrategy.readImageSegmentData(mReader, location.getDataLength()),
+                        mParseStrategy.getDataSource().getImageSegments());
+            }
+            for (SegmentLocation location : tableOfContents.getGraphicSegments()) {
+                Future<GraphicSegment> segment = decode(location,
+                        reader -> new GraphicSegmentParser().parse(reader, mParseStrategy, location.getDataLength()));
+                add(segment, mParseStrategy.readGraphicSegmentData(mReader, location.getDataLength()),
+                        mParseStrategy.getDataSource().getGraphicSegments());
+            }
+            for (SegmentLocation location : tableOfContents.getSymbolSegments()) {
+                Future<SymbolSegment> segment = decode(location,
+                        reader -> new SymbolSegmentParser().parse(reader, mParseStrategy, location.getDataLength()));
+                add(segment, mParseStrategy.readSymbolSegmentData(mReader, location.getDataLength()),
+                        mParseStrategy.getDataSource().getSymbolSegments());
+            }
+            for (SegmentLocation location : tableOfContents.getLabelSegments()) {
+                Future<LabelSegment> segment = decode(location, reader -> new LabelSegmentParser().parse(reader, mParseStrategy));
+                add(segment, mParseStrategy.readLabelSegmentData(mReader, location.getDataLength()),
+                        mParseStrategy.getDataSource().getLabelSegments());
+            }
+            for (SegmentLocation location : tableOfContents.getTextSegments()) {
+                Future<TextSegment> segment = decode(location, reader -> new TextSegmentParser().parse(reader, mParseStrategy));
+                add(segment, mParseStrategy.readTextSegmentData(mReader, location.getDataLength()),
+                        mParseStrategy.getDataSource().getTextSegments());
+            }
+            for (SegmentLocation location : tableOfContents.getDataExtensionSegments()) {
+                add(readDataExtensionSegment(location), SlottedParseStrategy.noData(),
+                        mParseStrategy.getDataSource().getDataExtensionSegments());
+            }
+        }
+
+        private <T> Future<T> decode(final SegmentLocation location, final SubheaderDecoder<T> decoder) throws NitfFormatException {
+            moveTo(location.getSubheaderOffset());
+            NitfReader subheaderReader = memoryReader(mReader.readBytesRaw(location.getSubheaderLength()));
+            return mPool.submit(() -> decoder.decode(subheaderReader));
+        }
+
+        private Future<DataExtensionSegment> readDataExtensionSegment(final SegmentLocation location) throws NitfFormatException {
+            moveTo(location.getSubheaderOffset());
+            long dataLength = location.getDataLength();
+            DataExtensionSegment segment = new DataExtensionSegmentParser().parse(mReader, dataLength);
+            if (segment.isTreOverflow() && mParseStrategy.isExtracting(SlottedParseStrategy.DES_DATA) && (dataLength > 0)) {
+                NitfReader treReader = memoryReader(mReader.readBytesRaw((int) dataLength));
+                return mPool.submit(() -> {
+                    segment.mergeTREs(mParseStrategy.parseTREs(treReader, (int) dataLength, TreSource.TreOverflowDES));
+                    return segment;
+                });
+            }
+            mParseStrategy.readDataExtensionSegmentData(segment, mReader, dataLength);
+            return CompletableFuture.completedFuture(segment);
+        }
+
+        private void moveTo(final long offset) throws NitfFormatException {
+            if (offset == mReader.getCurrentOffset()) {
+                return;
+            }
+            if (mReader.canSeek()) {
+                mReader.seekToAbsoluteOffset(offset);
+            } else {
+                mReader.skip(offset - mReader.getCurrentOffset());
+            }
+        }
+
+        private NitfReader memoryReader(final byte[] bytes) {
+            NitfReader reader = new NitfInputStreamReader(new ByteArrayInputStream(bytes));
+            reader.setFileType(mFileType);
+            return reader;
+        }
+
+        private <T> void add(final Future<T> segment, final Consumer<T> data, final List<T> destination) {
+            mPendingSegments.add(new PendingSegment<>(segment, data, destination));
+        }
+
+        void assemble() {
+            for (PendingSegment<?> pendingSegment : mPendingSegments) {
+                try {
+                    pendingSegment.complete();
+                } catch (NitfFormatException ex) {
+                    LOGGER.error(ex.getMessage(), ex);
+                    return;
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface SubheaderDecoder<T> {
+        T decode(NitfReader reader) throws NitfFormatException;
+    }
+
+    private static final class PendingSegment<T> {
+
+        private final Future<T> mSegment;
+        private final Consumer<T> mData;
+        private final List<T> mDestination;
+
+        PendingSegment(final Future<T> segment, final Consumer<T> data, final List<T> destination) {
+            mSegment = segment;
+            mData = data;
+            mDestination = destination;
+        }
+
+        void complete() throws NitfFormatException {
+            T segment;
+            try {
+                segment = mSegment.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new NitfFormatException("Interrupted while decoding segment subheader", ex);
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof NitfFormatException) {
+                    throw (NitfFormatException) ex.getCause();
+                }
+                throw new NitfFormatException("Failed to decode segment subheader", ex.getCause());
+            }
+            mData.accept(segment);
+            mDestination.add(segment);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import org.codice.imaging.nitf.core.common.CommonBasicSegment;
+
+/**
+ * Common parts of the read-only views of image, graphic, symbol, label and text segments.
+ *
+ * @param <T> the type of segment that is wrapped.
+ */
+abstract class ReadOnlyCommonBasicSegment<T extends CommonBasicSegment> extends ReadOnlyCommonSegment<T>
+        implements CommonBasicSegment {
+
+    ReadOnlyCommonBasicSegment(final T target, final String typeName) {
+        super(target, typeName);
+    }
+
+    @Override
+    public final int getExtendedHeaderDataOverflow() {
+        return getTarget().getExtendedHeaderDataOverflow();
+    }
+
+    @Override
+    public final void setExtendedHeaderDataOverflow(final int overflow) {
+        throw readOnly();
+    }
+
+    @Override
+    public final int getAttachmentLevel() {
+        return getTarget().getAttachmentLevel();
+    }
+
+    @Override
+    public final void setAttachmentLevel(final int attachmentLevel) {
+        throw readOnly();
+    }
+}
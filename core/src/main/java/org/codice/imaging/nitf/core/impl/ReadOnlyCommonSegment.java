@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.codice.imaging.nitf.core.common.CommonSegment;
+import org.codice.imaging.nitf.core.common.FileType;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.security.SecurityMetadata;
+import org.codice.imaging.nitf.core.tre.TreCollection;
+
+/**
+ * Common parts of the read-only segment views returned by NitfSnapshot.
+ *
+ * Getters return the values of the wrapped segment, setters throw UnsupportedOperationException. Two views are equal
+ * if they are the same kind of view of the same segment.
+ *
+ * @param <T> the type of segment that is wrapped.
+ */
+abstract class ReadOnlyCommonSegment<T extends CommonSegment> implements CommonSegment {
+
+    private final T mTarget;
+    private final String mTypeName;
+
+    ReadOnlyCommonSegment(final T target, final String typeName) {
+        mTarget = target;
+        mTypeName = typeName;
+    }
+
+    /**
+     * Get the wrapped segment.
+     *
+     * @return the segment this is a view of.
+     */
+    protected final T getTarget() {
+        return mTarget;
+    }
+
+    /**
+     * Create the exception thrown by methods that would change the segment.
+     *
+     * @return the exception to throw.
+     */
+    protected final UnsupportedOperationException readOnly() {
+        return NitfSnapshot.readOnly(mTypeName);
+    }
+
+    @Override
+    public final Map<String, String> getTREsFlat() {
+        return mTarget.getTREsFlat();
+    }
+
+    @Override
+    public final TreCollection getTREsRawStructure() {
+        return new ReadOnlyTreCollection(mTarget.getTREsRawStructure());
+    }
+
+    @Override
+    public final String getIdentifier() {
+        return mTarget.getIdentifier();
+    }
+
+    @Override
+    public final void setIdentifier(final String identifier) {
+        throw readOnly();
+    }
+
+    @Override
+    public final SecurityMetadata getSecurityMetadata() {
+        return mTarget.getSecurityMetadata();
+    }
+
+    @Override
+    public final void setSecurityMetadata(final SecurityMetadata securityMetadata) {
+        throw readOnly();
+    }
+
+    @Override
+    public final long getHeaderLength() throws NitfFormatException, IOException {
+        return mTarget.getHeaderLength();
+    }
+
+    @Override
+    public final FileType getFileType() {
+        return mTarget.getFileType();
+    }
+
+    @Override
+    public final void setFileType(final FileType fileType) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        return (obj != null) && (obj.getClass() == getClass()) && (((ReadOnlyCommonSegment<?>) obj).mTarget == mTarget);
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(mTarget);
+    }
+}
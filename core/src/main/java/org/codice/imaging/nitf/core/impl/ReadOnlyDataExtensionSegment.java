@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javax.imageio.stream.ImageInputStream;
+
+import org.codice.imaging.nitf.core.dataextension.DataExtensionSegment;
+import org.codice.imaging.nitf.core.tre.TreCollection;
+
+/**
+ * A read-only view of a data extension segment.
+ *
+ * Each call to consume() passes a new stream over the segment data, so threads that share the view do not share a
+ * stream position.
+ */
+final class ReadOnlyDataExtensionSegment extends ReadOnlyCommonSegment<DataExtensionSegment> implements DataExtensionSegment {
+
+    private final Supplier<ImageInputStream> mDataOpener;
+
+    ReadOnlyDataExtensionSegment(final DataExtensionSegment target, final Supplier<ImageInputStream> dataOpener) {
+        super(target, "DataExtensionSegment");
+        mDataOpener = dataOpener;
+    }
+
+    @Override
+    public void setDESVersion(final int version) {
+        throw readOnly();
+    }
+
+    @Override
+    public int getDESVersion() {
+        return getTarget().getDESVersion();
+    }
+
+    @Override
+    public String getOverflowedHeaderType() {
+        return getTarget().getOverflowedHeaderType();
+    }
+
+    @Override
+    public int getItemOverflowed() {
+        return getTarget().getItemOverflowed();
+    }
+
+    @Override
+    public void setUserDefinedSubheaderField(final String userDefinedSubheaderField) {
+        throw readOnly();
+    }
+
+    @Override
+    public String getUserDefinedSubheaderField() {
+        return getTarget().getUserDefinedSubheaderField();
+    }
+
+    @Override
+    public boolean isTreOverflowNitf21() {
+        return getTarget().isTreOverflowNitf21();
+    }
+
+    @Override
+    public boolean isTreOverflowNitf20() {
+        return getTarget().isTreOverflowNitf20();
+    }
+
+    @Override
+    public boolean isTreOverflow() {
+        return getTarget().isTreOverflow();
+    }
+
+    @Override
+    public void mergeTREs(final TreCollection treCollection) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean isStreamingMode() {
+        return getTarget().isStreamingMode();
+    }
+
+    @Override
+    public long getDataLength() {
+        return getTarget().getDataLength();
+    }
+
+    @Override
+    public void setDataLength(final long dataLength) {
+        throw readOnly();
+    }
+
+    @Override
+    public void consume(final Consumer<ImageInputStream> consumer) {
+        consumer.accept(mDataOpener.get());
+    }
+
+    @Override
+    public void setDataConsumer(final Consumer<Consumer<ImageInputStream>> dataConsumer) {
+        throw readOnly();
+    }
+}
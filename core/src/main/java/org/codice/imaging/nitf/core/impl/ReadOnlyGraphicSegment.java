@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import javax.imageio.stream.ImageInputStream;
+
+import org.codice.imaging.nitf.core.graphic.GraphicColour;
+import org.codice.imaging.nitf.core.graphic.GraphicSegment;
+
+/**
+ * A read-only view of a graphic segment.
+ */
+final class ReadOnlyGraphicSegment extends ReadOnlyCommonBasicSegment<GraphicSegment> implements GraphicSegment {
+
+    ReadOnlyGraphicSegment(final GraphicSegment target) {
+        super(target, "GraphicSegment");
+    }
+
+    @Override
+    public String getGraphicName() {
+        return getTarget().getGraphicName();
+    }
+
+    @Override
+    public int getGraphicDisplayLevel() {
+        return getTarget().getGraphicDisplayLevel();
+    }
+
+    @Override
+    public int getGraphicLocationRow() {
+        return getTarget().getGraphicLocationRow();
+    }
+
+    @Override
+    public int getGraphicLocationColumn() {
+        return getTarget().getGraphicLocationColumn();
+    }
+
+    @Override
+    public int getBoundingBox1Row() {
+        return getTarget().getBoundingBox1Row();
+    }
+
+    @Override
+    public int getBoundingBox1Column() {
+        return getTarget().getBoundingBox1Column();
+    }
+
+    @Override
+    public GraphicColour getGraphicColour() {
+        return getTarget().getGraphicColour();
+    }
+
+    @Override
+    public int getBoundingBox2Row() {
+        return getTarget().getBoundingBox2Row();
+    }
+
+    @Override
+    public int getBoundingBox2Column() {
+        return getTarget().getBoundingBox2Column();
+    }
+
+    @Override
+    public ImageInputStream getData() {
+        return getTarget().getData();
+    }
+
+    @Override
+    public void setData(final ImageInputStream data) {
+        throw readOnly();
+    }
+
+    @Override
+    public long getDataLength() {
+        return getTarget().getDataLength();
+    }
+
+    @Override
+    public void setDataLength(final long dataLength) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setGraphicColour(final GraphicColour graphicColour) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setGraphicName(final String graphicName) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setBoundingBox1Column(final int boundingBox1Column) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setBoundingBox1Row(final int boundingBox1Row) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setBoundingBox2Column(final int boundingBox2Column) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setBoundingBox2Row(final int boundingBox2Row) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setGraphicDisplayLevel(final int graphicDisplayLevel) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setGraphicLocationColumn(final int graphicLocationColumn) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setGraphicLocationRow(final int graphicLocationRow) {
+        throw readOnly();
+    }
+}
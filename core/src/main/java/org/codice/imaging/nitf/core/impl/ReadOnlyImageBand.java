@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import org.codice.imaging.nitf.core.image.ImageBand;
+import org.codice.imaging.nitf.core.image.ImageBandLUT;
+
+/**
+ * A read-only view of an image band.
+ */
+final class ReadOnlyImageBand implements ImageBand {
+
+    private final ImageBand mTarget;
+
+    ReadOnlyImageBand(final ImageBand target) {
+        mTarget = target;
+    }
+
+    @Override
+    public String getImageRepresentation() {
+        return mTarget.getImageRepresentation();
+    }
+
+    @Override
+    public String getSubCategory() {
+        return mTarget.getSubCategory();
+    }
+
+    @Override
+    public int getNumLUTs() {
+        return mTarget.getNumLUTs();
+    }
+
+    @Override
+    public int getNumLUTEntries() {
+        return mTarget.getNumLUTEntries();
+    }
+
+    @Override
+    public ImageBandLUT getLUT(final int index) {
+        return mTarget.getLUT(index);
+    }
+
+    @Override
+    public ImageBandLUT getLUTZeroBase(final int index) {
+        return mTarget.getLUTZeroBase(index);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        return (obj instanceof ReadOnlyImageBand) && (((ReadOnlyImageBand) obj).mTarget == mTarget);
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(mTarget);
+    }
+}
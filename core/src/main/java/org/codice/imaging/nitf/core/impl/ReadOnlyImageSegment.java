@@ -0,0 +1,375 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import java.util.Collections;
+import java.util.List;
+import javax.imageio.stream.ImageInputStream;
+
+import org.codice.imaging.nitf.core.common.DateTime;
+import org.codice.imaging.nitf.core.image.ImageBand;
+import org.codice.imaging.nitf.core.image.ImageCategory;
+import org.codice.imaging.nitf.core.image.ImageCompression;
+import org.codice.imaging.nitf.core.image.ImageCoordinates;
+import org.codice.imaging.nitf.core.image.ImageCoordinatesRepresentation;
+import org.codice.imaging.nitf.core.image.ImageMode;
+import org.codice.imaging.nitf.core.image.ImageRepresentation;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.image.PixelJustification;
+import org.codice.imaging.nitf.core.image.PixelValueType;
+import org.codice.imaging.nitf.core.image.TargetId;
+
+/**
+ * A read-only view of an image segment, optionally with its own stream over the image data.
+ */
+final class ReadOnlyImageSegment extends ReadOnlyCommonBasicSegment<ImageSegment> implements ImageSegment {
+
+    private final ImageInputStream mData;
+
+    ReadOnlyImageSegment(final ImageSegment target, final ImageInputStream data) {
+        super(target, "ImageSegment");
+        mData = data;
+    }
+
+    @Override
+    public DateTime getImageDateTime() {
+        return getTarget().getImageDateTime();
+    }
+
+    @Override
+    public TargetId getImageTargetId() {
+        return getTarget().getImageTargetId();
+    }
+
+    @Override
+    public String getImageIdentifier2() {
+        return getTarget().getImageIdentifier2();
+    }
+
+    @Override
+    public String getImageSource() {
+        return getTarget().getImageSource();
+    }
+
+    @Override
+    public long getNumberOfRows() {
+        return getTarget().getNumberOfRows();
+    }
+
+    @Override
+    public long getNumberOfColumns() {
+        return getTarget().getNumberOfColumns();
+    }
+
+    @Override
+    public PixelValueType getPixelValueType() {
+        return getTarget().getPixelValueType();
+    }
+
+    @Override
+    public ImageRepresentation getImageRepresentation() {
+        return getTarget().getImageRepresentation();
+    }
+
+    @Override
+    public ImageCategory getImageCategory() {
+        return getTarget().getImageCategory();
+    }
+
+    @Override
+    public void setImageCategory(final ImageCategory imageCategory) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setActualBitsPerPixelPerBand(final int actualBitsPerPixelPerBand) {
+        throw readOnly();
+    }
+
+    @Override
+    public int getActualBitsPerPixelPerBand() {
+        return getTarget().getActualBitsPerPixelPerBand();
+    }
+
+    @Override
+    public void setPixelJustification(final PixelJustification pixelJustification) {
+        throw readOnly();
+    }
+
+    @Override
+    public PixelJustification getPixelJustification() {
+        return getTarget().getPixelJustification();
+    }
+
+    @Override
+    public void setImageCoordinatesRepresentation(final ImageCoordinatesRepresentation imageCoordinatesRepresentation) {
+        throw readOnly();
+    }
+
+    @Override
+    public ImageCoordinatesRepresentation getImageCoordinatesRepresentation() {
+        return getTarget().getImageCoordinatesRepresentation();
+    }
+
+    @Override
+    public void addImageComment(final String comment) {
+        throw readOnly();
+    }
+
+    @Override
+    public List<String> getImageComments() {
+        return Collections.unmodifiableList(getTarget().getImageComments());
+    }
+
+    @Override
+    public void setImageCompression(final ImageCompression imageCompression) {
+        throw readOnly();
+    }
+
+    @Override
+    public ImageCompression getImageCompression() {
+        return getTarget().getImageCompression();
+    }
+
+    @Override
+    public void setCompressionRate(final String compressionRate) {
+        throw readOnly();
+    }
+
+    @Override
+    public String getCompressionRate() {
+        return getTarget().getCompressionRate();
+    }
+
+    @Override
+    public void addImageBand(final ImageBand imageBand) {
+        throw readOnly();
+    }
+
+    @Override
+    public int getNumBands() {
+        return getTarget().getNumBands();
+    }
+
+    @Override
+    public ImageBand getImageBand(final int index) {
+        return new ReadOnlyImageBand(getTarget().getImageBand(index));
+    }
+
+    @Override
+    public ImageBand getImageBandZeroBase(final int index) {
+        return new ReadOnlyImageBand(getTarget().getImageBandZeroBase(index));
+    }
+
+    @Override
+    public void setImageMode(final ImageMode imageMode) {
+        throw readOnly();
+    }
+
+    @Override
+    public ImageMode getImageMode() {
+        return getTarget().getImageMode();
+    }
+
+    @Override
+    public void setNumberOfBlocksPerRow(final int numberOfBlocksPerRow) {
+        throw readOnly();
+    }
+
+    @Override
+    public int getNumberOfBlocksPerRow() {
+        return getTarget().getNumberOfBlocksPerRow();
+    }
+
+    @Override
+    public void setNumberOfBlocksPerColumn(final int numberOfBlocksPerColumn) {
+        throw readOnly();
+    }
+
+    @Override
+    public int getNumberOfBlocksPerColumn() {
+        return getTarget().getNumberOfBlocksPerColumn();
+    }
+
+    @Override
+    public void setNumberOfPixelsPerBlockHorizontalRaw(final int numberOfPixelsPerBlockHorizontalRaw) {
+        throw readOnly();
+    }
+
+    @Override
+    public int getNumberOfPixelsPerBlockHorizontalRaw() {
+        return getTarget().getNumberOfPixelsPerBlockHorizontalRaw();
+    }
+
+    @Override
+    public long getNumberOfPixelsPerBlockHorizontal() {
+        return getTarget().getNumberOfPixelsPerBlockHorizontal();
+    }
+
+    @Override
+    public void setNumberOfPixelsPerBlockVerticalRaw(final int numberOfPixelsPerBlockVerticalRaw) {
+        throw readOnly();
+    }
+
+    @Override
+    public int getNumberOfPixelsPerBlockVerticalRaw() {
+        return getTarget().getNumberOfPixelsPerBlockVerticalRaw();
+    }
+
+    @Override
+    public long getNumberOfPixelsPerBlockVertical() {
+        return getTarget().getNumberOfPixelsPerBlockVertical();
+    }
+
+    @Override
+    public void setNumberOfBitsPerPixelPerBand(final int numberOfBitsPerPixelPerBand) {
+        throw readOnly();
+    }
+
+    @Override
+    public int getNumberOfBitsPerPixelPerBand() {
+        return getTarget().getNumberOfBitsPerPixelPerBand();
+    }
+
+    @Override
+    public void setImageDisplayLevel(final int imageDisplayLevel) {
+        throw readOnly();
+    }
+
+    @Override
+    public int getImageDisplayLevel() {
+        return getTarget().getImageDisplayLevel();
+    }
+
+    @Override
+    public void setImageLocationRow(final int imageLocationRow) {
+        throw readOnly();
+    }
+
+    @Override
+    public int getImageLocationRow() {
+        return getTarget().getImageLocationRow();
+    }
+
+    @Override
+    public void setImageLocationColumn(final int imageLocationColumn) {
+        throw readOnly();
+    }
+
+    @Override
+    public int getImageLocationColumn() {
+        return getTarget().getImageLocationColumn();
+    }
+
+    @Override
+    public void setImageDateTime(final DateTime imageDateTime) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setImageTargetId(final TargetId imageTargetId) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setImageIdentifier2(final String imageIdentifier2) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setImageSource(final String imageSource) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setNumberOfColumns(final long numberOfColumns) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setNumberOfRows(final long numberOfRows) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setImageMagnification(final String imageMagnification) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setPixelValueType(final PixelValueType pixelValueType) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setImageRepresentation(final ImageRepresentation imageRepresentation) {
+        throw readOnly();
+    }
+
+    @Override
+    public String getImageMagnification() {
+        return getTarget().getImageMagnification();
+    }
+
+    @Override
+    public double getImageMagnificationAsDouble() {
+        return getTarget().getImageMagnificationAsDouble();
+    }
+
+    @Override
+    public void setImageCoordinates(final ImageCoordinates imageCoordinates) {
+        throw readOnly();
+    }
+
+    @Override
+    public ImageCoordinates getImageCoordinates() {
+        return getTarget().getImageCoordinates();
+    }
+
+    @Override
+    public int getUserDefinedHeaderOverflow() {
+        return getTarget().getUserDefinedHeaderOverflow();
+    }
+
+    @Override
+    public void setUserDefinedHeaderOverflow(final int userDefinedHeaderOverflow) {
+        throw readOnly();
+    }
+
+    @Override
+    public long getNumberOfBytesPerBlock() {
+        return getTarget().getNumberOfBytesPerBlock();
+    }
+
+    @Override
+    public ImageInputStream getData() {
+        return mData;
+    }
+
+    @Override
+    public void setData(final ImageInputStream data) {
+        throw readOnly();
+    }
+
+    @Override
+    public long getDataLength() {
+        return getTarget().getDataLength();
+    }
+
+    @Override
+    public void setDataLength(final long dataLength) {
+        throw readOnly();
+    }
+}
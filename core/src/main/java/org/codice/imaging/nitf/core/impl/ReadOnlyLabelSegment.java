@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import org.codice.imaging.nitf.core.RGBColour;
+import org.codice.imaging.nitf.core.label.LabelSegment;
+
+/**
+ * A read-only view of a label segment.
+ */
+final class ReadOnlyLabelSegment extends ReadOnlyCommonBasicSegment<LabelSegment> implements LabelSegment {
+
+    ReadOnlyLabelSegment(final LabelSegment target) {
+        super(target, "LabelSegment");
+    }
+
+    @Override
+    public void setLabelLocationColumn(final int labelLocationColumn) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setLabelLocationRow(final int labelLocationRow) {
+        throw readOnly();
+    }
+
+    @Override
+    public int getLabelLocationRow() {
+        return getTarget().getLabelLocationRow();
+    }
+
+    @Override
+    public int getLabelLocationColumn() {
+        return getTarget().getLabelLocationColumn();
+    }
+
+    @Override
+    public void setLabelCellHeight(final int labelCellHeight) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setLabelCellWidth(final int labelCellWidth) {
+        throw readOnly();
+    }
+
+    @Override
+    public int getLabelCellWidth() {
+        return getTarget().getLabelCellWidth();
+    }
+
+    @Override
+    public int getLabelCellHeight() {
+        return getTarget().getLabelCellHeight();
+    }
+
+    @Override
+    public void setLabelDisplayLevel(final int labelDisplayLevel) {
+        throw readOnly();
+    }
+
+    @Override
+    public int getLabelDisplayLevel() {
+        return getTarget().getLabelDisplayLevel();
+    }
+
+    @Override
+    public void setLabelTextColour(final RGBColour labelTextColour) {
+        throw readOnly();
+    }
+
+    @Override
+    public RGBColour getLabelTextColour() {
+        return getTarget().getLabelTextColour();
+    }
+
+    @Override
+    public void setLabelBackgroundColour(final RGBColour labelBackgroundColour) {
+        throw readOnly();
+    }
+
+    @Override
+    public RGBColour getLabelBackgroundColour() {
+        return getTarget().getLabelBackgroundColour();
+    }
+
+    @Override
+    public String getData() {
+        return getTarget().getData();
+    }
+
+    @Override
+    public void setData(final String data) {
+        throw readOnly();
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import java.util.Map;
+
+import org.codice.imaging.nitf.core.RGBColour;
+import org.codice.imaging.nitf.core.common.DateTime;
+import org.codice.imaging.nitf.core.common.FileType;
+import org.codice.imaging.nitf.core.header.NitfHeader;
+import org.codice.imaging.nitf.core.security.FileSecurityMetadata;
+import org.codice.imaging.nitf.core.tre.TreCollection;
+
+/**
+ * A read-only view of a NITF file header.
+ */
+final class ReadOnlyNitfHeader implements NitfHeader {
+
+    private final NitfHeader mTarget;
+
+    ReadOnlyNitfHeader(final NitfHeader target) {
+        mTarget = target;
+    }
+
+    @Override
+    public Map<String, String> getTREsFlat() {
+        return mTarget.getTREsFlat();
+    }
+
+    @Override
+    public TreCollection getTREsRawStructure() {
+        return new ReadOnlyTreCollection(mTarget.getTREsRawStructure());
+    }
+
+    @Override
+    public int getComplexityLevel() {
+        return mTarget.getComplexityLevel();
+    }
+
+    @Override
+    public int getExtendedHeaderDataOverflow() {
+        return mTarget.getExtendedHeaderDataOverflow();
+    }
+
+    @Override
+    public RGBColour getFileBackgroundColour() {
+        return mTarget.getFileBackgroundColour();
+    }
+
+    @Override
+    public DateTime getFileDateTime() {
+        return mTarget.getFileDateTime();
+    }
+
+    @Override
+    public FileSecurityMetadata getFileSecurityMetadata() {
+        return mTarget.getFileSecurityMetadata();
+    }
+
+    @Override
+    public String getFileTitle() {
+        return mTarget.getFileTitle();
+    }
+
+    @Override
+    public FileType getFileType() {
+        return mTarget.getFileType();
+    }
+
+    @Override
+    public String getOriginatingStationId() {
+        return mTarget.getOriginatingStationId();
+    }
+
+    @Override
+    public String getOriginatorsName() {
+        return mTarget.getOriginatorsName();
+    }
+
+    @Override
+    public String getOriginatorsPhoneNumber() {
+        return mTarget.getOriginatorsPhoneNumber();
+    }
+
+    @Override
+    public String getStandardType() {
+        return mTarget.getStandardType();
+    }
+
+    @Override
+    public int getUserDefinedHeaderOverflow() {
+        return mTarget.getUserDefinedHeaderOverflow();
+    }
+
+    @Override
+    public void setComplexityLevel(final int complexityLevel) {
+        throw NitfSnapshot.readOnly("NitfHeader");
+    }
+
+    @Override
+    public void setFileTitle(final String fileTitle) {
+        throw NitfSnapshot.readOnly("NitfHeader");
+    }
+
+    @Override
+    public void setOriginatingStationId(final String originatingStationId) {
+        throw NitfSnapshot.readOnly("NitfHeader");
+    }
+
+    @Override
+    public void setFileBackgroundColour(final RGBColour fileBackgroundColour) {
+        throw NitfSnapshot.readOnly("NitfHeader");
+    }
+
+    @Override
+    public void setFileDateTime(final DateTime fileDateTime) {
+        throw NitfSnapshot.readOnly("NitfHeader");
+    }
+
+    @Override
+    public void setFileSecurityMetadata(final FileSecurityMetadata fileSecurityMetadata) {
+        throw NitfSnapshot.readOnly("NitfHeader");
+    }
+
+    @Override
+    public void setFileType(final FileType fileType) {
+        throw NitfSnapshot.readOnly("NitfHeader");
+    }
+
+    @Override
+    public void setOriginatorsName(final String originatorsName) {
+        throw NitfSnapshot.readOnly("NitfHeader");
+    }
+
+    @Override
+    public void setOriginatorsPhoneNumber(final String originatorsPhoneNumber) {
+        throw NitfSnapshot.readOnly("NitfHeader");
+    }
+
+    @Override
+    public void setSecurityMetadata(final FileSecurityMetadata securityMetadata) {
+        throw NitfSnapshot.readOnly("NitfHeader");
+    }
+
+    @Override
+    public void setStandardType(final String standardType) {
+        throw NitfSnapshot.readOnly("NitfHeader");
+    }
+
+    @Override
+    public void setUserDefinedHeaderOverflow(final int userDefinedHeaderOverflow) {
+        throw NitfSnapshot.readOnly("NitfHeader");
+    }
+
+    @Override
+    public void setExtendedHeaderDataOverflow(final int extendedHeaderDataOverflow) {
+        throw NitfSnapshot.readOnly("NitfHeader");
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        return (obj instanceof ReadOnlyNitfHeader) && (((ReadOnlyNitfHeader) obj).mTarget == mTarget);
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(mTarget);
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import javax.imageio.stream.ImageInputStream;
+
+import org.codice.imaging.nitf.core.symbol.SymbolColour;
+import org.codice.imaging.nitf.core.symbol.SymbolSegment;
+import org.codice.imaging.nitf.core.symbol.SymbolType;
+
+/**
+ * A read-only view of a symbol segment.
+ */
+final class ReadOnlySymbolSegment extends ReadOnlyCommonBasicSegment<SymbolSegment> implements SymbolSegment {
+
+    ReadOnlySymbolSegment(final SymbolSegment target) {
+        super(target, "SymbolSegment");
+    }
+
+    @Override
+    public void setSymbolName(final String symbolName) {
+        throw readOnly();
+    }
+
+    @Override
+    public String getSymbolName() {
+        return getTarget().getSymbolName();
+    }
+
+    @Override
+    public void setSymbolType(final SymbolType symbolType) {
+        throw readOnly();
+    }
+
+    @Override
+    public SymbolType getSymbolType() {
+        return getTarget().getSymbolType();
+    }
+
+    @Override
+    public void setSymbolColourFormat(final SymbolColour symbolColourFormat) {
+        throw readOnly();
+    }
+
+    @Override
+    public SymbolColour getSymbolColour() {
+        return getTarget().getSymbolColour();
+    }
+
+    @Override
+    public void setNumberOfLinesPerSymbol(final int numberOfLinesPerSymbol) {
+        throw readOnly();
+    }
+
+    @Override
+    public int getNumberOfLinesPerSymbol() {
+        return getTarget().getNumberOfLinesPerSymbol();
+    }
+
+    @Override
+    public void setNumberOfPixelsPerLine(final int numberOfPixelsPerLine) {
+        throw readOnly();
+    }
+
+    @Override
+    public int getNumberOfPixelsPerLine() {
+        return getTarget().getNumberOfPixelsPerLine();
+    }
+
+    @Override
+    public void setLineWidth(final int lineWidth) {
+        throw readOnly();
+    }
+
+    @Override
+    public int getLineWidth() {
+        return getTarget().getLineWidth();
+    }
+
+    @Override
+    public void setNumberOfBitsPerPixel(final int numberOfBitsPerPixel) {
+        throw readOnly();
+    }
+
+    @Override
+    public int getNumberOfBitsPerPixel() {
+        return getTarget().getNumberOfBitsPerPixel();
+    }
+
+    @Override
+    public void setSymbolDisplayLevel(final int symbolDisplayLevel) {
+        throw readOnly();
+    }
+
+    @Override
+    public int getSymbolDisplayLevel() {
+        return getTarget().getSymbolDisplayLevel();
+    }
+
+    @Override
+    public void setSymbolLocationRow(final int symbolLocationRow) {
+        throw readOnly();
+    }
+
+    @Override
+    public int getSymbolLocationRow() {
+        return getTarget().getSymbolLocationRow();
+    }
+
+    @Override
+    public void setSymbolLocationColumn(final int symbolLocationColumn) {
+        throw readOnly();
+    }
+
+    @Override
+    public int getSymbolLocationColumn() {
+        return getTarget().getSymbolLocationColumn();
+    }
+
+    @Override
+    public void setSymbolLocation2Row(final int symbolLocation2Row) {
+        throw readOnly();
+    }
+
+    @Override
+    public int getSymbolLocation2Row() {
+        return getTarget().getSymbolLocation2Row();
+    }
+
+    @Override
+    public void setSymbolLocation2Column(final int symbolLocation2Column) {
+        throw readOnly();
+    }
+
+    @Override
+    public int getSymbolLocation2Column() {
+        return getTarget().getSymbolLocation2Column();
+    }
+
+    @Override
+    public void setSymbolNumber(final String symbolNumber) {
+        throw readOnly();
+    }
+
+    @Override
+    public String getSymbolNumber() {
+        return getTarget().getSymbolNumber();
+    }
+
+    @Override
+    public void setSymbolRotation(final int symbolRotation) {
+        throw readOnly();
+    }
+
+    @Override
+    public int getSymbolRotation() {
+        return getTarget().getSymbolRotation();
+    }
+
+    @Override
+    public ImageInputStream getData() {
+        return getTarget().getData();
+    }
+
+    @Override
+    public void setData(final ImageInputStream data) {
+        throw readOnly();
+    }
+
+    @Override
+    public long getDataLength() {
+        return getTarget().getDataLength();
+    }
+
+    @Override
+    public void setDataLength(final long dataLength) {
+        throw readOnly();
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import org.codice.imaging.nitf.core.common.DateTime;
+import org.codice.imaging.nitf.core.text.TextFormat;
+import org.codice.imaging.nitf.core.text.TextSegment;
+
+/**
+ * A read-only view of a text segment.
+ */
+final class ReadOnlyTextSegment extends ReadOnlyCommonBasicSegment<TextSegment> implements TextSegment {
+
+    ReadOnlyTextSegment(final TextSegment target) {
+        super(target, "TextSegment");
+    }
+
+    @Override
+    public DateTime getTextDateTime() {
+        return getTarget().getTextDateTime();
+    }
+
+    @Override
+    public void setTextDateTime(final DateTime textDateTime) {
+        throw readOnly();
+    }
+
+    @Override
+    public String getTextTitle() {
+        return getTarget().getTextTitle();
+    }
+
+    @Override
+    public void setTextTitle(final String textTitle) {
+        throw readOnly();
+    }
+
+    @Override
+    public TextFormat getTextFormat() {
+        return getTarget().getTextFormat();
+    }
+
+    @Override
+    public void setTextFormat(final TextFormat textFormat) {
+        throw readOnly();
+    }
+
+    @Override
+    public String getData() {
+        return getTarget().getData();
+    }
+
+    @Override
+    public void setData(final String data) {
+        throw readOnly();
+    }
+}
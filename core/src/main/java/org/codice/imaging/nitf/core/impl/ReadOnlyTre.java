@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.codice.imaging.nitf.core.tre.Tre;
+import org.codice.imaging.nitf.core.tre.TreSource;
+
+/**
+ * A read-only view of a TRE.
+ */
+final class ReadOnlyTre extends ReadOnlyTreGroup<Tre> implements Tre {
+
+    ReadOnlyTre(final Tre target) {
+        super(target, "Tre");
+    }
+
+    /**
+     * Wrap a list of TREs.
+     *
+     * @param tres the TREs to wrap.
+     * @return an unmodifiable list of read-only views of the TREs.
+     */
+    static List<Tre> wrap(final List<Tre> tres) {
+        List<Tre> views = new ArrayList<>(tres.size());
+        for (Tre tre : tres) {
+            views.add(new ReadOnlyTre(tre));
+        }
+        return Collections.unmodifiableList(views);
+    }
+
+    @Override
+    public String getName() {
+        return getTarget().getName();
+    }
+
+    @Override
+    public void setPrefix(final String prefix) {
+        throw readOnly();
+    }
+
+    @Override
+    public String getPrefix() {
+        return getTarget().getPrefix();
+    }
+
+    @Override
+    public void setRawData(final byte[] rawData) {
+        throw readOnly();
+    }
+
+    @Override
+    public byte[] getRawData() {
+        byte[] rawData = getTarget().getRawData();
+        if (rawData == null) {
+            return null;
+        }
+        return rawData.clone();
+    }
+
+    @Override
+    public TreSource getSource() {
+        return getTarget().getSource();
+    }
+}
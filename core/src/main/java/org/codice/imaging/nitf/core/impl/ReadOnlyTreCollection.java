@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.codice.imaging.nitf.core.tre.Tre;
+import org.codice.imaging.nitf.core.tre.TreCollection;
+import org.codice.imaging.nitf.core.tre.TreSource;
+
+/**
+ * A read-only view of a TRE collection.
+ *
+ * The TREs in the collection, and their entries and groups, are returned as read-only views too.
+ */
+final class ReadOnlyTreCollection implements TreCollection {
+
+    private final TreCollection mTarget;
+
+    ReadOnlyTreCollection(final TreCollection target) {
+        mTarget = target;
+    }
+
+    @Override
+    public List<Tre> getTREs() {
+        return ReadOnlyTre.wrap(mTarget.getTREs());
+    }
+
+    @Override
+    public void add(final Tre tre) {
+        throw NitfSnapshot.readOnly("TreCollection");
+    }
+
+    @Override
+    public void add(final TreCollection treCollection) {
+        throw NitfSnapshot.readOnly("TreCollection");
+    }
+
+    @Override
+    public boolean remove(final Tre tre) {
+        throw NitfSnapshot.readOnly("TreCollection");
+    }
+
+    @Override
+    public List<String> getUniqueNamesOfTRE() {
+        return Collections.unmodifiableList(mTarget.getUniqueNamesOfTRE());
+    }
+
+    @Override
+    public List<Tre> getTREsWithName(final String name) {
+        return ReadOnlyTre.wrap(mTarget.getTREsWithName(name));
+    }
+
+    @Override
+    public boolean hasTREs() {
+        return mTarget.hasTREs();
+    }
+
+    @Override
+    public String toString() {
+        return mTarget.toString();
+    }
+
+    @Override
+    public List<Tre> getTREsForSource(final TreSource treSource) {
+        return ReadOnlyTre.wrap(mTarget.getTREsForSource(treSource));
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        return (obj instanceof ReadOnlyTreCollection) && (((ReadOnlyTreCollection) obj).mTarget == mTarget);
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(mTarget);
+    }
+}
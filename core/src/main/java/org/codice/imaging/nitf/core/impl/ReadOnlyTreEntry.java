@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.codice.imaging.nitf.core.tre.TreEntry;
+import org.codice.imaging.nitf.core.tre.TreGroup;
+
+/**
+ * A read-only view of a TRE entry.
+ */
+final class ReadOnlyTreEntry implements TreEntry {
+
+    private final TreEntry mTarget;
+
+    ReadOnlyTreEntry(final TreEntry target) {
+        mTarget = target;
+    }
+
+    @Override
+    public String getName() {
+        return mTarget.getName();
+    }
+
+    @Override
+    public String getFieldValue() {
+        return mTarget.getFieldValue();
+    }
+
+    @Override
+    public List<TreGroup> getGroups() {
+        List<TreGroup> groups = new ArrayList<>();
+        for (TreGroup group : mTarget.getGroups()) {
+            groups.add(new ReadOnlyTreGroup<>(group, "TreGroup"));
+        }
+        return Collections.unmodifiableList(groups);
+    }
+
+    @Override
+    public boolean isSimpleField() {
+        return mTarget.isSimpleField();
+    }
+
+    @Override
+    public boolean hasGroups() {
+        return mTarget.hasGroups();
+    }
+
+    @Override
+    public String getDataType() {
+        return mTarget.getDataType();
+    }
+
+    @Override
+    public void dump() {
+        mTarget.dump();
+    }
+
+    @Override
+    public String toString() {
+        return mTarget.toString();
+    }
+
+    @Override
+    public void setFieldValue(final String fieldValue) {
+        throw NitfSnapshot.readOnly("TreEntry");
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        return (obj instanceof ReadOnlyTreEntry) && (((ReadOnlyTreEntry) obj).mTarget == mTarget);
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(mTarget);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.tre.TreEntry;
+import org.codice.imaging.nitf.core.tre.TreGroup;
+
+/**
+ * A read-only view of a TRE group, or the base of a read-only view of a TRE.
+ *
+ * The entries in the group are returned as read-only views too.
+ *
+ * @param <T> the type of group that is wrapped.
+ */
+class ReadOnlyTreGroup<T extends TreGroup> implements TreGroup {
+
+    private final T mTarget;
+    private final String mTypeName;
+
+    ReadOnlyTreGroup(final T target, final String typeName) {
+        mTarget = target;
+        mTypeName = typeName;
+    }
+
+    /**
+     * Get the wrapped group.
+     *
+     * @return the group this is a view of.
+     */
+    protected final T getTarget() {
+        return mTarget;
+    }
+
+    /**
+     * Create the exception thrown by methods that would change the group.
+     *
+     * @return the exception to throw.
+     */
+    protected final UnsupportedOperationException readOnly() {
+        return NitfSnapshot.readOnly(mTypeName);
+    }
+
+    @Override
+    public final List<TreEntry> getEntries() {
+        List<TreEntry> entries = new ArrayList<>();
+        for (TreEntry entry : mTarget.getEntries()) {
+            entries.add(new ReadOnlyTreEntry(entry));
+        }
+        return Collections.unmodifiableList(entries);
+    }
+
+    @Override
+    public final void add(final TreEntry treEntry) {
+        throw readOnly();
+    }
+
+    @Override
+    public final void addAll(final TreGroup group) {
+        throw readOnly();
+    }
+
+    @Override
+    public final void setEntries(final List<TreEntry> entries) {
+        throw readOnly();
+    }
+
+    @Override
+    public final TreEntry getEntry(final String fieldName) throws NitfFormatException {
+        return new ReadOnlyTreEntry(mTarget.getEntry(fieldName));
+    }
+
+    @Override
+    public final String getFieldValue(final String fieldName) throws NitfFormatException {
+        return mTarget.getFieldValue(fieldName);
+    }
+
+    @Override
+    public final int getIntValue(final String fieldName) throws NitfFormatException {
+        return mTarget.getIntValue(fieldName);
+    }
+
+    @Override
+    public final long getLongValue(final String fieldName) throws NitfFormatException {
+        return mTarget.getLongValue(fieldName);
+    }
+
+    @Override
+    public final BigInteger getBigIntegerValue(final String fieldName) throws NitfFormatException {
+        return mTarget.getBigIntegerValue(fieldName);
+    }
+
+    @Override
+    public final double getDoubleValue(final String fieldName) throws NitfFormatException {
+        return mTarget.getDoubleValue(fieldName);
+    }
+
+    @Override
+    public final void dump() {
+        mTarget.dump();
+    }
+
+    @Override
+    public final boolean equals(final Object obj) {
+        return (obj != null) && (obj.getClass() == getClass()) && (((ReadOnlyTreGroup<?>) obj).mTarget == mTarget);
+    }
+
+    @Override
+    public final int hashCode() {
+        return System.identityHashCode(mTarget);
+    }
+}
@@ -15,6 +15,7 @@
 package org.codice.imaging.nitf.core.impl;
 
 import java.io.ByteArrayInputStream;
+import java.util.function.Consumer;
 import javax.imageio.stream.ImageInputStream;
 import javax.imageio.stream.MemoryCacheImageInputStream;
 import javax.xml.transform.Source;
@@ -172,7 +173,14 @@ public class SlottedParseStrategy implements ParseStrategy {
         return nitfStorage;
     }
 
-    private void initialiseTreCollectionParserIfRequired() throws NitfFormatException {
+    /**
+     * Create the TRE parser, if it has not already been created.
+     *
+     * Once the TRE parser exists, parseTREs() can be called from more than one thread at a time.
+     *
+     * @throws NitfFormatException if the TRE parser could not be created.
+     */
+    final void initialiseTreCollectionParserIfRequired() throws NitfFormatException {
         if (treCollectionParser == null) {
             treCollectionParser = new TreCollectionParser();
         }
@@ -185,16 +193,7 @@ public class SlottedParseStrategy implements ParseStrategy {
     public final void handleImageSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
         ImageSegmentParser imageSegmentParser = new ImageSegmentParser();
         ImageSegment imageSegment = imageSegmentParser.parse(reader, this, dataLength);
-        if ((segmentsToExtract & IMAGE_DATA) == IMAGE_DATA) {
-            if (dataLength > 0) {
-                ImageInputStream iis = imageHeapStrategy.handleSegment(reader, dataLength);
-                imageSegment.setData(iis);
-            }
-        } else {
-            if (dataLength > 0) {
-                reader.skip(dataLength);
-            }
-        }
+        readImageSegmentData(reader, dataLength).accept(imageSegment);
         nitfStorage.getImageSegments().add(imageSegment);
     }
 
@@ -205,17 +204,7 @@ public class SlottedParseStrategy implements ParseStrategy {
     public final void handleGraphicSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
         GraphicSegmentParser graphicSegmentParser = new GraphicSegmentParser();
         GraphicSegment graphicSegment = graphicSegmentParser.parse(reader, this, dataLength);
-        if ((segmentsToExtract & GRAPHIC_DATA) == GRAPHIC_DATA) {
-            if (dataLength > 0) {
-                // TODO: [IMG-77] this implementation probably should have a file-backed option
-                byte[] bytes = reader.readBytesRaw((int) dataLength);
-                graphicSegment.setData(new MemoryCacheImageInputStream(new ByteArrayInputStream(bytes)));
-            }
-        } else {
-            if (dataLength > 0) {
-                reader.skip(dataLength);
-            }
-        }
+        readGraphicSegmentData(reader, dataLength).accept(graphicSegment);
         nitfStorage.getGraphicSegments().add(graphicSegment);
     }
 
@@ -226,16 +215,7 @@ public class SlottedParseStrategy implements ParseStrategy {
     public final void handleSymbolSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
         SymbolSegmentParser symbolSegmentParser = new SymbolSegmentParser();
         SymbolSegment symbolSegment = symbolSegmentParser.parse(reader, this, dataLength);
-        if ((segmentsToExtract & SYMBOL_DATA) == SYMBOL_DATA) {
-            if (dataLength > 0) {
-                byte[] bytes = reader.readBytesRaw((int) dataLength);
-                symbolSegment.setData(new MemoryCacheImageInputStream(new ByteArrayInputStream(bytes)));
-            }
-        } else {
-            if (dataLength > 0) {
-                reader.skip(dataLength);
-            }
-        }
+        readSymbolSegmentData(reader, dataLength).accept(symbolSegment);
         nitfStorage.getSymbolSegments().add(symbolSegment);
     }
 
@@ -246,15 +226,7 @@ public class SlottedParseStrategy implements ParseStrategy {
     public final void handleLabelSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
         LabelSegmentParser labelSegmentParser = new LabelSegmentParser();
         LabelSegment labelSegment = labelSegmentParser.parse(reader, this);
-        if ((segmentsToExtract & LABEL_DATA) == LABEL_DATA) {
-            if (dataLength > 0) {
-                labelSegment.setData(reader.readBytes((int) dataLength));
-            }
-        } else {
-            if (dataLength > 0) {
-                reader.skip(dataLength);
-            }
-        }
+        readLabelSegmentData(reader, dataLength).accept(labelSegment);
         nitfStorage.getLabelSegments().add(labelSegment);
     }
 
@@ -265,18 +237,7 @@ public class SlottedParseStrategy implements ParseStrategy {
     public final void handleTextSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
         TextSegmentParser textSegmentParser = new TextSegmentParser();
         TextSegment textSegment = textSegmentParser.parse(reader, this);
-        if ((segmentsToExtract & TEXT_DATA) == TEXT_DATA) {
-            if (dataLength > 0) {
-                String text = reader.readBytes((int) dataLength);
-                textSegment.setData(text);
-            } else {
-                textSegment.setData("");
-            }
-        } else {
-            if (dataLength > 0) {
-                reader.skip(dataLength);
-            }
-        }
+        readTextSegmentData(reader, dataLength).accept(textSegment);
         nitfStorage.getTextSegments().add(textSegment);
     }
 
@@ -288,20 +249,89 @@ public class SlottedParseStrategy implements ParseStrategy {
 
         DataExtensionSegmentParser dataExtensionSegmentParser = new DataExtensionSegmentParser();
         DataExtensionSegment dataExtensionSegment = dataExtensionSegmentParser.parse(reader, dataLength);
-        if ((segmentsToExtract & DES_DATA) == DES_DATA) {
-            if (dataLength > 0) {
-                readDataExtensionSegmentData(dataExtensionSegment, reader, dataLength);
-            }
-        } else {
+        readDataExtensionSegmentData(dataExtensionSegment, reader, dataLength);
+        nitfStorage.getDataExtensionSegments().add(dataExtensionSegment);
+    }
+
+    /**
+     * Check whether the data for a type of segment is extracted.
+     *
+     * @param segmentData the segment data flag (e.g. IMAGE_DATA).
+     * @return true if the data is extracted, false if it is skipped.
+     */
+    final boolean isExtracting(final int segmentData) {
+        return (segmentsToExtract & segmentData) == segmentData;
+    }
+
+    /*
+     * The readXSegmentData() methods read (or skip) the data that follows a segment subheader. They do not need the
+     * segment itself, so the data can be read before the subheader is decoded: the returned action attaches the data
+     * to the segment once it is available.
+     */
+    final Consumer<ImageSegment> readImageSegmentData(final NitfReader reader, final long dataLength) throws NitfFormatException {
+        if (isExtracting(IMAGE_DATA) && (dataLength > 0)) {
+            ImageInputStream iis = imageHeapStrategy.handleSegment(reader, dataLength);
+            return imageSegment -> imageSegment.setData(iis);
+        }
+        skipData(reader, dataLength);
+        return noData();
+    }
+
+    final Consumer<GraphicSegment> readGraphicSegmentData(final NitfReader reader, final long dataLength) throws NitfFormatException {
+        if (isExtracting(GRAPHIC_DATA) && (dataLength > 0)) {
+            // TODO: [IMG-77] this implementation probably should have a file-backed option
+            byte[] bytes = reader.readBytesRaw((int) dataLength);
+            return graphicSegment -> graphicSegment.setData(new MemoryCacheImageInputStream(new ByteArrayInputStream(bytes)));
+        }
+        skipData(reader, dataLength);
+        return noData();
+    }
+
+    final Consumer<SymbolSegment> readSymbolSegmentData(final NitfReader reader, final long dataLength) throws NitfFormatException {
+        if (isExtracting(SYMBOL_DATA) && (dataLength > 0)) {
+            byte[] bytes = reader.readBytesRaw((int) dataLength);
+            return symbolSegment -> symbolSegment.setData(new MemoryCacheImageInputStream(new ByteArrayInputStream(bytes)));
+        }
+        skipData(reader, dataLength);
+        return noData();
+    }
+
+    final Consumer<LabelSegment> readLabelSegmentData(final NitfReader reader, final long dataLength) throws NitfFormatException {
+        if (isExtracting(LABEL_DATA) && (dataLength > 0)) {
+            String label = reader.readBytes((int) dataLength);
+            return labelSegment -> labelSegment.setData(label);
+        }
+        skipData(reader, dataLength);
+        return noData();
+    }
+
+    final Consumer<TextSegment> readTextSegmentData(final NitfReader reader, final long dataLength) throws NitfFormatException {
+        if (isExtracting(TEXT_DATA)) {
+            String text = "";
             if (dataLength > 0) {
-                reader.skip(dataLength);
+                text = reader.readBytes((int) dataLength);
             }
+            final String segmentText = text;
+            return textSegment -> textSegment.setData(segmentText);
         }
-        nitfStorage.getDataExtensionSegments().add(dataExtensionSegment);
+        skipData(reader, dataLength);
+        return noData();
+    }
+
+    private static void skipData(final NitfReader reader, final long dataLength) throws NitfFormatException {
+        if (dataLength > 0) {
+            reader.skip(dataLength);
+        }
+    }
+
+    static <T> Consumer<T> noData() {
+        return segment -> {
+            // No data to attach
+        };
     }
 
     /**
-     * Read the data extension segment data.
+     * Read (or skip) the data extension segment data.
      *
      * The reader is assumed to be positioned at the end of the segment header before this call, and will be positioned
      * at the start of the next header after this call.
@@ -310,9 +340,11 @@ public class SlottedParseStrategy implements ParseStrategy {
      * @param reader the reader to use to read the data.
      * @throws NitfFormatException if there is a problem reading the segment header or data
      */
-    private void readDataExtensionSegmentData(final DataExtensionSegment dataExtensionSegment,
+    final void readDataExtensionSegmentData(final DataExtensionSegment dataExtensionSegment,
             final NitfReader reader, final long dataLength) throws NitfFormatException {
-        if (dataLength > 0) {
+        if (!isExtracting(DES_DATA)) {
+            skipData(reader, dataLength);
+        } else if (dataLength > 0) {
             if (dataExtensionSegment.isTreOverflow()) {
                 initialiseTreCollectionParserIfRequired();
                 TreCollection overflowTres = treCollectionParser.parse(reader,
@@ -0,0 +1,345 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import org.codice.imaging.nitf.core.common.CommonSegment;
+import org.codice.imaging.nitf.core.common.FileType;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.ChannelDataOutput;
+import org.codice.imaging.nitf.core.dataextension.DataExtensionSegment;
+import org.codice.imaging.nitf.core.dataextension.impl.DataExtensionSegmentFactory;
+import org.codice.imaging.nitf.core.dataextension.impl.DataExtensionSegmentWriter;
+import org.codice.imaging.nitf.core.graphic.GraphicSegment;
+import org.codice.imaging.nitf.core.graphic.impl.GraphicSegmentWriter;
+import org.codice.imaging.nitf.core.header.NitfHeader;
+import org.codice.imaging.nitf.core.header.impl.NitfHeaderWriter;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.image.impl.ImageSegmentWriter;
+import org.codice.imaging.nitf.core.label.LabelSegment;
+import org.codice.imaging.nitf.core.label.impl.LabelSegmentWriter;
+import org.codice.imaging.nitf.core.symbol.SymbolSegment;
+import org.codice.imaging.nitf.core.symbol.impl.SymbolSegmentWriter;
+import org.codice.imaging.nitf.core.text.TextSegment;
+import org.codice.imaging.nitf.core.text.impl.TextSegmentWriter;
+import org.codice.imaging.nitf.core.tre.impl.TreParser;
+
+/**
+ * A NITF writer for producers that generate segments (or the data for a segment) incrementally.
+ *
+ * The usual writers need every segment length before the first byte is written, because the file header holds the
+ * file length and a table of segment lengths. This writer uses streaming mode instead (MIL-STD-2500C Section 5.8.3.2).
+ * The initial file header has the streaming mode file length (999999999999), and declares no segments, because none
+ * are known yet. Segments are written as they are added, and when the writer is closed, the complete file header is
+ * written in a STREAMING_FILE_HEADER data extension segment at the end of the file. NitfParser reads the complete
+ * header back from there.
+ *
+ * Segments have to be added in the order they appear in a NITF file: images, then graphics (or symbols and then labels
+ * for NITF 2.0), then text, and then data extension segments.
+ *
+ * Only the segment subheaders are kept until the writer is closed. Segment data is written straight to the output, so
+ * memory use does not depend on the size of the data. The data length of each image, graphic, symbol and data extension
+ * segment is set to the number of bytes that were actually written for it.
+ *
+ * Closing the writer does not close the output.
+ */
+public final class StreamingNitfWriter implements AutoCloseable {
+
+    private static final int IMAGE_ORDER = 0;
+    private static final int GRAPHIC_ORDER = 1;
+    private static final int LABEL_ORDER = 2;
+    private static final int TEXT_ORDER = 3;
+    private static final int DES_ORDER = 4;
+
+    private final DataOutput mOutput;
+    private final LongSupplier mPosition;
+    private final TreParser mTreParser;
+    private final FileType mFileType;
+    private final SlottedStorage mSegments = new SlottedStorage();
+    private final Map<CommonSegment, Long> mSubheaderLengths = new IdentityHashMap<>();
+    private ImageSegment mOpenImageSegment = null;
+    private long mOpenImageDataStart = 0;
+    private int mSegmentOrder = IMAGE_ORDER;
+    private boolean mClosed = false;
+
+    /**
+     * Create a streaming writer that writes to an output stream, and write the initial file header.
+     *
+     * @param header the file header.
+     * @param outputStream the stream to write to.
+     * @throws IOException on write failure.
+     * @throws NitfFormatException on TRE serialisation problems.
+     */
+    public StreamingNitfWriter(final NitfHeader header, final OutputStream outputStream) throws IOException, NitfFormatException {
+        CountingOutputStream countingStream = new CountingOutputStream(outputStream);
+        mOutput = new DataOutputStream(countingStream);
+        mPosition = countingStream::getCount;
+        mTreParser = new TreParser();
+        mFileType = header.getFileType();
+        mSegments.setNitfHeader(header);
+        writeInitialHeader();
+    }
+
+    /**
+     * Create a streaming writer that writes to a channel, and write the initial file header.
+     *
+     * File-backed segment data is transferred to the channel without copying it through the Java heap.
+     *
+     * @param header the file header.
+     * @param output the channel output to write to.
+     * @throws IOException on write failure.
+     * @throws NitfFormatException on TRE serialisation problems.
+     */
+    public StreamingNitfWriter(final NitfHeader header, final ChannelDataOutput output) throws IOException, NitfFormatException {
+        mOutput = output;
+        mPosition = output::getBytesWritten;
+        mTreParser = new TreParser();
+        mFileType = header.getFileType();
+        mSegments.setNitfHeader(header);
+        writeInitialHeader();
+    }
+
+    private void writeInitialHeader() throws IOException, NitfFormatException {
+        SlottedStorage emptyDataSource = new SlottedStorage();
+        emptyDataSource.setNitfHeader(mSegments.getNitfHeader());
+        new NitfHeaderWriter(mOutput, mTreParser).writeStreamingModeFileHeader(emptyDataSource, new IdentityHashMap<>());
+    }
+
+    /**
+     * Start an image segment whose data will be produced incrementally.
+     *
+     * The image subheader is written immediately. The image data (for example, each block in turn) is then written to
+     * the returned output. The segment is finished when the next segment is started or added, or when the writer is
+     * closed.
+     *
+     * @param imageSegment the image segment. Its data is not used.
+     * @return the output to write the image data to.
+     * @throws IOException on write failure.
+     * @throws NitfFormatException on TRE serialisation problems.
+     */
+    public DataOutput startImageSegment(final ImageSegment imageSegment) throws IOException, NitfFormatException {
+        startSegment(IMAGE_ORDER);
+        long subheaderStart = mPosition.getAsLong();
+        new ImageSegmentWriter(mOutput, mTreParser).writeImageSubheader(imageSegment, mFileType);
+        mSubheaderLengths.put(imageSegment, mPosition.getAsLong() - subheaderStart);
+        mSegments.getImageSegments().add(imageSegment);
+        mOpenImageSegment = imageSegment;
+        mOpenImageDataStart = mPosition.getAsLong();
+        return mOutput;
+    }
+
+    /**
+     * Add an image segment, including its data.
+     *
+     * @param imageSegment the image segment.
+     * @throws IOException on write failure.
+     * @throws NitfFormatException on TRE serialisation problems.
+     */
+    public void addImageSegment(final ImageSegment imageSegment) throws IOException, NitfFormatException {
+        ImageSegmentWriter writer = new ImageSegmentWriter(mOutput, mTreParser);
+        startImageSegment(imageSegment);
+        writer.writeSegmentData(imageSegment.getData());
+        finishImageSegment();
+    }
+
+    /**
+     * Add a graphic segment, including its data.
+     *
+     * @param graphicSegment the graphic segment.
+     * @throws IOException on write failure.
+     * @throws NitfFormatException on TRE serialisation problems.
+     */
+    public void addGraphicSegment(final GraphicSegment graphicSegment) throws IOException, NitfFormatException {
+        startSegment(GRAPHIC_ORDER);
+        GraphicSegmentWriter writer = new GraphicSegmentWriter(mOutput, mTreParser);
+        long subheaderStart = mPosition.getAsLong();
+        writer.writeGraphicSubheader(graphicSegment);
+        long dataStart = recordSubheader(graphicSegment, subheaderStart);
+        writer.writeSegmentData(graphicSegment.getData());
+        graphicSegment.setDataLength(mPosition.getAsLong() - dataStart);
+        mSegments.getGraphicSegments().add(graphicSegment);
+    }
+
+    /**
+     * Add a symbol segment, including its data.
+     *
+     * @param symbolSegment the symbol segment.
+     * @throws IOException on write failure.
+     * @throws NitfFormatException on TRE serialisation problems.
+     */
+    public void addSymbolSegment(final SymbolSegment symbolSegment) throws IOException, NitfFormatException {
+        startSegment(GRAPHIC_ORDER);
+        SymbolSegmentWriter writer = new SymbolSegmentWriter(mOutput, mTreParser);
+        long subheaderStart = mPosition.getAsLong();
+        writer.writeSymbolSubheader(symbolSegment);
+        long dataStart = recordSubheader(symbolSegment, subheaderStart);
+        writer.writeSegmentData(symbolSegment.getData());
+        symbolSegment.setDataLength(mPosition.getAsLong() - dataStart);
+        mSegments.getSymbolSegments().add(symbolSegment);
+    }
+
+    /**
+     * Add a label segment, including its data.
+     *
+     * @param labelSegment the label segment.
+     * @throws IOException on write failure.
+     * @throws NitfFormatException on TRE serialisation problems.
+     */
+    public void addLabelSegment(final LabelSegment labelSegment) throws IOException, NitfFormatException {
+        startSegment(LABEL_ORDER);
+        long subheaderStart = mPosition.getAsLong();
+        new LabelSegmentWriter(mOutput, mTreParser).writeLabelSubheader(labelSegment);
+        recordSubheader(labelSegment, subheaderStart);
+        mOutput.writeBytes(labelSegment.getData());
+        mSegments.getLabelSegments().add(labelSegment);
+    }
+
+    /**
+     * Add a text segment, including its data.
+     *
+     * @param textSegment the text segment.
+     * @throws IOException on write failure.
+     * @throws NitfFormatException on TRE serialisation problems.
+     */
+    public void addTextSegment(final TextSegment textSegment) throws IOException, NitfFormatException {
+        startSegment(TEXT_ORDER);
+        long subheaderStart = mPosition.getAsLong();
+        new TextSegmentWriter(mOutput, mTreParser).writeTextSubheader(textSegment, mFileType);
+        recordSubheader(textSegment, subheaderStart);
+        mOutput.writeBytes(textSegment.getData());
+        mSegments.getTextSegments().add(textSegment);
+    }
+
+    /**
+     * Add a data extension segment, including its data.
+     *
+     * @param des the data extension segment. This may not be a streaming file header segment, since the writer adds
+     * that itself.
+     * @throws IOException on write failure.
+     * @throws NitfFormatException on TRE serialisation problems.
+     */
+    public void addDataExtensionSegment(final DataExtensionSegment des) throws IOException, NitfFormatException {
+        if (des.isStreamingMode()) {
+            throw new IllegalArgumentException("StreamingNitfWriter: the streaming file header is written on close.");
+        }
+        startSegment(DES_ORDER);
+        DataExtensionSegmentWriter writer = new DataExtensionSegmentWriter(mOutput, mTreParser);
+        long subheaderStart = mPosition.getAsLong();
+        writer.writeDESSubheader(des);
+        long dataStart = recordSubheader(des, subheaderStart);
+        writer.writeOverflowedTREs(des);
+        des.consume(writer::writeSegmentData);
+        des.setDataLength(mPosition.getAsLong() - dataStart);
+        mSegments.getDataExtensionSegments().add(des);
+    }
+
+    private long recordSubheader(final CommonSegment segment, final long subheaderStart) {
+        long dataStart = mPosition.getAsLong();
+        mSubheaderLengths.put(segment, dataStart - subheaderStart);
+        return dataStart;
+    }
+
+    private void startSegment(final int segmentOrder) {
+        if (mClosed) {
+            throw new IllegalStateException("StreamingNitfWriter: writer has been closed.");
+        }
+        if (segmentOrder < mSegmentOrder) {
+            throw new IllegalStateException("StreamingNitfWriter: segments must be added in file order.");
+        }
+        mSegmentOrder = segmentOrder;
+        finishImageSegment();
+    }
+
+    private void finishImageSegment() {
+        if (mOpenImageSegment != null) {
+            mOpenImageSegment.setDataLength(mPosition.getAsLong() - mOpenImageDataStart);
+            mOpenImageSegment = null;
+        }
+    }
+
+    /**
+     * Finish the last segment, and write the streaming file header segment holding the complete file header.
+     *
+     * @throws IOException on write failure, or on TRE serialisation problems.
+     */
+    @Override
+    public void close() throws IOException {
+        if (mClosed) {
+            return;
+        }
+        finishImageSegment();
+        mClosed = true;
+        try {
+            DataExtensionSegment streamingFileHeader = DataExtensionSegmentFactory.getStreamingFileHeader(mFileType);
+            long subheaderStart = mPosition.getAsLong();
+            new DataExtensionSegmentWriter(mOutput, mTreParser).writeDESSubheader(streamingFileHeader);
+            recordSubheader(streamingFileHeader, subheaderStart);
+            mSegments.getDataExtensionSegments().add(streamingFileHeader);
+
+            // The header length does not depend on the field values, so the segment length can be worked out first.
+            streamingFileHeader.setDataLength(NitfHeaderWriter.getStreamingFileHeaderDataLength(serialiseFileHeader().length));
+            new NitfHeaderWriter(mOutput, mTreParser).writeStreamingFileHeaderData(serialiseFileHeader());
+        } catch (NitfFormatException ex) {
+            throw new IOException(ex);
+        }
+        if (mOutput instanceof Flushable) {
+            ((Flushable) mOutput).flush();
+        }
+    }
+
+    private byte[] serialiseFileHeader() throws IOException, NitfFormatException {
+        ByteArrayOutputStream fileHeader = new ByteArrayOutputStream();
+        new NitfHeaderWriter(new DataOutputStream(fileHeader), mTreParser).writeFileHeader(mSegments, mSubheaderLengths);
+        return fileHeader.toByteArray();
+    }
+
+    /**
+     * An output stream that counts the bytes written through it.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long mCount = 0;
+
+        CountingOutputStream(final OutputStream outputStream) {
+            super(outputStream);
+        }
+
+        long getCount() {
+            return mCount;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            out.write(b);
+            mCount++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+            mCount += len;
+        }
+    }
+}
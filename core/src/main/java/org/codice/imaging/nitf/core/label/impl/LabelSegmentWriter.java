@@ -58,6 +58,18 @@ public class LabelSegmentWriter extends AbstractSegmentWriter {
      * @throws NitfFormatException on TRE parsing failure.
      */
     public final void writeLabel(final LabelSegment labelSegment) throws IOException, NitfFormatException {
+        writeLabelSubheader(labelSegment);
+        mOutput.writeBytes(labelSegment.getData());
+    }
+
+    /**
+     * Write out the subheader of the specified label segment, without the segment data.
+     *
+     * @param labelSegment the content to write out
+     * @throws IOException on write failure.
+     * @throws NitfFormatException on TRE parsing failure.
+     */
+    public final void writeLabelSubheader(final LabelSegment labelSegment) throws IOException, NitfFormatException {
         writeFixedLengthString(LA, LA.length());
         writeFixedLengthString(labelSegment.getIdentifier(), LID_LENGTH);
         writeSecurityMetadata(labelSegment.getSecurityMetadata());
@@ -81,7 +93,6 @@ public class LabelSegmentWriter extends AbstractSegmentWriter {
             writeFixedLengthNumber(labelSegment.getExtendedHeaderDataOverflow(), LXSOFL_LENGTH);
             writeBytes(labelExtendedSubheaderData, labelExtendedSubheaderDataLength - LXSOFL_LENGTH);
         }
-        mOutput.writeBytes(labelSegment.getData());
     }
 }
 
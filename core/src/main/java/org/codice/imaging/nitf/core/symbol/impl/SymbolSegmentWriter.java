@@ -63,6 +63,18 @@ public class SymbolSegmentWriter extends AbstractSegmentWriter {
      * @throws NitfFormatException on TRE parsing failure.
      */
     public final void writeSymbolSegment(final SymbolSegment header) throws IOException, NitfFormatException {
+        writeSymbolSubheader(header);
+        writeSegmentData(header.getData());
+    }
+
+    /**
+     * Write out the subheader of the specified symbol segment, without the segment data.
+     *
+     * @param header the header content to write out
+     * @throws IOException on write failure.
+     * @throws NitfFormatException on TRE parsing failure.
+     */
+    public final void writeSymbolSubheader(final SymbolSegment header) throws IOException, NitfFormatException {
         writeFixedLengthString(SY, SY.length());
         writeFixedLengthString(header.getIdentifier(), SID_LENGTH);
         writeFixedLengthString(header.getSymbolName(), SNAME_LENGTH);
@@ -94,6 +106,5 @@ public class SymbolSegmentWriter extends AbstractSegmentWriter {
             writeFixedLengthNumber(header.getExtendedHeaderDataOverflow(), SXSOFL_LENGTH);
             writeBytes(symbolExtendedSubheaderData, symbolExtendedSubheaderDataLength - SXSOFL_LENGTH);
         }
-        writeSegmentData(header.getData());
     }
 }
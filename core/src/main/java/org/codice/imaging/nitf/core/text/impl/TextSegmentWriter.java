@@ -56,6 +56,19 @@ public class TextSegmentWriter extends AbstractSegmentWriter {
      * @throws NitfFormatException on TRE parsing failure.
      */
     public final void writeTextSegment(final TextSegment textSegment, final FileType fileType) throws IOException, NitfFormatException {
+        writeTextSubheader(textSegment, fileType);
+        mOutput.writeBytes(textSegment.getData());
+    }
+
+    /**
+     * Write out the subheader of the specified text segment, without the segment data.
+     *
+     * @param textSegment the content to write out
+     * @param fileType the type of file (NITF version) to write the text header out for.
+     * @throws IOException on write failure.
+     * @throws NitfFormatException on TRE parsing failure.
+     */
+    public final void writeTextSubheader(final TextSegment textSegment, final FileType fileType) throws IOException, NitfFormatException {
         writeFixedLengthString(TE, TE.length());
         if (fileType == FileType.NITF_TWO_ZERO) {
             writeFixedLengthString(textSegment.getIdentifier(), TEXTID20_LENGTH);
@@ -78,6 +91,5 @@ public class TextSegmentWriter extends AbstractSegmentWriter {
             writeFixedLengthNumber(textSegment.getExtendedHeaderDataOverflow(), TXSOFL_LENGTH);
             writeBytes(textExtendedSubheaderData, textExtendedSubheaderDataLength - TXSOFL_LENGTH);
         }
-        mOutput.writeBytes(textSegment.getData());
     }
 }
@@ -27,6 +27,8 @@ import org.codice.imaging.nitf.core.tre.TreSource;
 
 /**
  * Parser for a TreCollectionImpl.
+ * <p>
+ * Like TreParser, each instance has its own TRE descriptors, and parse() can be called from several threads at once.
  */
 public class TreCollectionParser {
 
@@ -19,6 +19,8 @@ import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.codice.imaging.nitf.core.common.impl.FixedWidthFieldEncoder;
+
 class TreParams {
 
     private final Map<String, TreParameter> parameters = new HashMap<>();
@@ -27,33 +29,57 @@ class TreParams {
 
     int getIntValue(final String key) {
         TreParameter parameter = parameters.get(key);
+        String fieldValue = parameter.getFieldValue();
         if ("UINT".equals(parameter.mFieldType)) {
             int res = 0;
-            for (int i = 0; i < parameter.mFieldValue.length(); ++i) {
-                res = (res << Byte.SIZE) + Byte.toUnsignedInt(parameter.mFieldValue.getBytes(StandardCharsets.ISO_8859_1)[i]);
+            for (int i = 0; i < fieldValue.length(); ++i) {
+                res = (res << Byte.SIZE) + Byte.toUnsignedInt(fieldValue.getBytes(StandardCharsets.ISO_8859_1)[i]);
             }
             return res;
         } else {
-            return Integer.parseInt(parameter.mFieldValue, DECIMAL_BASE);
+            return Integer.parseInt(fieldValue, DECIMAL_BASE);
         }
     }
 
     String getFieldValue(final String key) {
-        return parameters.get(key).mFieldValue;
+        return parameters.get(key).getFieldValue();
     }
 
     void addParameter(final String fieldKey, final String fieldValue, final String fieldType) {
-        parameters.put(fieldKey, new TreParameter(fieldValue, fieldType));
+        parameters.put(fieldKey, new TreParameter(fieldValue, null, 0, 0, fieldType));
+    }
+
+    /**
+     * Add a parameter whose value has been written to an encoder.
+     *
+     * The value is only decoded if the parameter is used, which most are not.
+     */
+    void addParameter(final String fieldKey, final FixedWidthFieldEncoder encoder, final int start, final int end, final String fieldType) {
+        parameters.put(fieldKey, new TreParameter(null, encoder, start, end, fieldType));
     }
 
     private static final class TreParameter {
 
-        private final String mFieldValue;
+        private String mFieldValue;
+        private final FixedWidthFieldEncoder mEncoder;
+        private final int mStart;
+        private final int mEnd;
         private final String mFieldType;
 
-        private TreParameter(final String fieldValue, final String fieldType) {
+        private TreParameter(final String fieldValue, final FixedWidthFieldEncoder encoder, final int start, final int end,
+                final String fieldType) {
             mFieldValue = fieldValue;
+            mEncoder = encoder;
+            mStart = start;
+            mEnd = end;
             mFieldType = fieldType;
         }
+
+        private String getFieldValue() {
+            if ((mFieldValue == null) && (mEncoder != null)) {
+                mFieldValue = mEncoder.getString(mStart, mEnd);
+            }
+            return mFieldValue;
+        }
     }
 }
@@ -20,11 +20,12 @@ import static org.codice.imaging.nitf.core.tre.impl.TreConstants.TAG_LENGTH;
 import static org.codice.imaging.nitf.core.tre.impl.TreConstants.UNSUPPORTED_IFTYPE_FORMAT_MESSAGE;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import javax.xml.XMLConstants;
@@ -39,6 +40,7 @@ import javax.xml.transform.Source;
 import org.codice.imaging.nitf.core.common.NitfFormatException;
 import org.codice.imaging.nitf.core.common.NitfReader;
 import org.codice.imaging.nitf.core.common.TaggedRecordExtensionHandler;
+import org.codice.imaging.nitf.core.common.impl.FixedWidthFieldEncoder;
 import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
 import org.codice.imaging.nitf.core.schema.FieldType;
 import org.codice.imaging.nitf.core.schema.IfType;
@@ -56,6 +58,11 @@ import org.xml.sax.SAXException;
 
 /**
     Parser for Tagged Registered Extension (TRE) data.
+    <p>
+    Each instance has its own set of TRE descriptors, so descriptors registered with one parser do not affect any other.
+    Parsing and serialisation do not modify the parser, so one instance can be used from several threads at once.
+    Additional descriptors can be registered while other threads are parsing; those threads will see either the old or
+    the new set of descriptors.
 */
 public class TreParser {
 
@@ -78,7 +85,7 @@ public class TreParser {
     // We seem unlikely to hit this: 10^9 - 2
     private static final int MAX_DES_DATA_LEN = 999999998;
 
-    private static Tres tresStructure = null;
+    private volatile List<TreType> treTypes = Collections.emptyList();
 
     /**
         Constructor for TRE parser.
@@ -121,7 +128,8 @@ public class TreParser {
             LOG.debug("Error creating DocumentBuilder. {}", e);
             throw new JAXBException(e);
         }
-        tresStructure = (Tres) getUnmarshaller().unmarshal(document);
+        Tres tresStructure = (Tres) getUnmarshaller().unmarshal(document);
+        treTypes = Collections.unmodifiableList(new ArrayList<>(tresStructure.getTre()));
     }
 
     private Unmarshaller getUnmarshaller() throws JAXBException {
@@ -130,15 +138,17 @@ public class TreParser {
     }
 
     /**
-     * Add one or more TRE descriptor to the existing descriptor set.
+     * Add one or more TRE descriptor to the descriptor set of this parser.
      *
      * @param source the Source to read the TRE descriptors from
      * @throws NitfFormatException if parsing fails (typically invalid descriptors)
      */
-    public final void registerAdditionalTREdescriptor(final Source source) throws NitfFormatException {
+    public final synchronized void registerAdditionalTREdescriptor(final Source source) throws NitfFormatException {
         try {
             Tres extraTres = (Tres) getUnmarshaller().unmarshal(source);
-            tresStructure.getTre().addAll(extraTres.getTre());
+            List<TreType> updatedTreTypes = new ArrayList<>(treTypes);
+            updatedTreTypes.addAll(extraTres.getTre());
+            treTypes = Collections.unmodifiableList(updatedTreTypes);
         } catch (JAXBException ex) {
             LOG.warn("JAXBException parsing additional TRE XML specification", ex);
             throw new NitfFormatException(TRE_XML_LOAD_ERROR_MESSAGE + ex.getMessage());
@@ -281,7 +291,7 @@ public class TreParser {
     }
 
     private TreType getTreTypeForTag(final String tag) {
-        for (TreType treType : tresStructure.getTre()) {
+        for (TreType treType : treTypes) {
             if (treType.getName().equals(tag.trim())) {
                 return treType;
             }
@@ -393,42 +403,20 @@ public class TreParser {
      * @throws IOException on reading or writing problems.
      */
     public final byte[] getTREs(final TaggedRecordExtensionHandler handler, final TreSource source) throws NitfFormatException, IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        FixedWidthFieldEncoder output = new FixedWidthFieldEncoder();
         for (Tre tre : handler.getTREsRawStructure().getTREsForSource(source)) {
-            String name = padStringToLength(tre.getName(), TAG_LENGTH);
-            baos.write(name.getBytes(StandardCharsets.ISO_8859_1));
-            if (tre.getRawData() != null) {
-                String tagLen = padIntegerToLength(tre.getRawData().length, TAGLEN_LENGTH);
-                baos.write(tagLen.getBytes(StandardCharsets.ISO_8859_1));
-                baos.write(tre.getRawData());
-            } else {
-                byte[] treData = serializeTRE(tre);
-                baos.write(padIntegerToLength(treData.length, TAGLEN_LENGTH).getBytes(StandardCharsets.ISO_8859_1));
-                baos.write(treData);
+            output.appendSpacePaddedString(tre.getName(), TAG_LENGTH);
+            byte[] treData = tre.getRawData();
+            if (treData == null) {
+                treData = serializeTRE(tre);
             }
+            output.appendZeroPaddedInteger(treData.length, TAGLEN_LENGTH);
+            output.append(treData);
         }
-        if (baos.size() > getValidSizeForTreSource(source)) {
+        if (output.length() > getValidSizeForTreSource(source)) {
             throw new NitfFormatException("TREs exceed valid limit for source");
         }
-        return baos.toByteArray();
-    }
-
-    private String padIntegerToLength(final long number, final int length) {
-        return String.format("%0" + length + "d", number);
-    }
-
-    private String padStringToLength(final String s, final int length) {
-        return String.format("%1$-" + length + "s", s);
-    }
-
-    private String padRealToLength(final double number, final String format, final int length) {
-        if ((format != null) && (format.equals("UE"))) {
-            if (Double.isNaN(number)) {
-                return padStringToLength("NaN", length);
-            }
-            return String.format("%0" + length + "." + (length - "X.".length() - "E+ZZ".length()) + "E", number);
-        }
-        return String.format("%" + length + "f", number);
+        return output.toByteArray();
     }
 
     /**
@@ -442,52 +430,48 @@ public class TreParser {
         TreType treType = getTreTypeForTag(tre.getName());
         checkTreLocationMatchesTreSource(treType.getLocation(), tre.getSource());
         TreParams parameters = new TreParams();
-        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        FixedWidthFieldEncoder output = new FixedWidthFieldEncoder();
         serializeFieldOrLoopOrIf(treType.getFieldOrLoopOrIf(), tre, output, parameters);
         return output.toByteArray();
     }
 
     private void serializeFieldOrLoopOrIf(final List<Object> fieldOrLoopOrIf,
             final TreGroup treGroup,
-            final ByteArrayOutputStream baos,
+            final FixedWidthFieldEncoder output,
             final TreParams params) throws NitfFormatException {
-        try {
-            for (Object fieldLoopIf : fieldOrLoopOrIf) {
-                if (fieldLoopIf instanceof FieldType) {
-                    byte[] field = getFieldValue((FieldType) fieldLoopIf, treGroup, params);
-                    baos.write(field);
-                } else if (fieldLoopIf instanceof LoopType) {
-                    LoopType loopType = (LoopType) fieldLoopIf;
-                    TreEntry loopDataEntry = treGroup.getEntry(loopType.getName());
-                    for (TreGroup subGroup : loopDataEntry.getGroups()) {
-                        serializeFieldOrLoopOrIf(loopType.getFieldOrLoopOrIf(), subGroup, baos, params);
-                    }
-                } else if (fieldLoopIf instanceof IfType) {
-                    IfType ifType = (IfType) fieldLoopIf;
-                    if (evaluateCondition(ifType.getCond(), params)) {
-                        serializeFieldOrLoopOrIf(ifType.getFieldOrLoopOrIf(), treGroup, baos, params);
-                    }
-                } else {
-                    throw new NitfFormatException("Unexpected TRE structure type");
+        for (Object fieldLoopIf : fieldOrLoopOrIf) {
+            if (fieldLoopIf instanceof FieldType) {
+                appendFieldValue((FieldType) fieldLoopIf, treGroup, output, params);
+            } else if (fieldLoopIf instanceof LoopType) {
+                LoopType loopType = (LoopType) fieldLoopIf;
+                TreEntry loopDataEntry = treGroup.getEntry(loopType.getName());
+                for (TreGroup subGroup : loopDataEntry.getGroups()) {
+                    serializeFieldOrLoopOrIf(loopType.getFieldOrLoopOrIf(), subGroup, output, params);
+                }
+            } else if (fieldLoopIf instanceof IfType) {
+                IfType ifType = (IfType) fieldLoopIf;
+                if (evaluateCondition(ifType.getCond(), params)) {
+                    serializeFieldOrLoopOrIf(ifType.getFieldOrLoopOrIf(), treGroup, output, params);
                 }
+            } else {
+                throw new NitfFormatException("Unexpected TRE structure type");
             }
-        } catch (IOException ex) {
-            throw new NitfFormatException("Failed to write TRE:" + ex.getMessage());
         }
     }
 
-    private byte[] getFieldValue(final FieldType fieldType, final TreGroup treGroup, final TreParams params) throws NitfFormatException {
+    private void appendFieldValue(final FieldType fieldType, final TreGroup treGroup, final FixedWidthFieldEncoder output,
+            final TreParams params) throws NitfFormatException {
         String fieldTypeName = getFieldTypeName(fieldType);
         if (fieldTypeName != null) {
             TreEntry entry = treGroup.getEntry(fieldTypeName);
-            return getValueForEntry(params, fieldType, entry);
+            appendValueForEntry(params, fieldType, entry, output);
         } else {
             // This is a pad field
             String value = fieldType.getFixedValue();
             if ((value != null) && (!value.isEmpty())) {
-                return value.getBytes(StandardCharsets.ISO_8859_1);
+                output.appendSpacePaddedString(value, 0);
             } else {
-                return padStringToLength("", fieldType.getLength().intValueExact()).getBytes(StandardCharsets.ISO_8859_1);
+                output.appendSpaces(fieldType.getLength().intValueExact());
             }
         }
     }
@@ -500,8 +484,8 @@ public class TreParser {
         return fieldTypeName;
     }
 
-    private byte[] getValueForEntry(final TreParams params, final FieldType fieldType, final TreEntry entry)
-            throws NitfFormatException {
+    private void appendValueForEntry(final TreParams params, final FieldType fieldType, final TreEntry entry,
+            final FixedWidthFieldEncoder output) throws NitfFormatException {
         String value = entry.getFieldValue();
         if (value == null) {
             throw new NitfFormatException("Cannot serialize null entry for: " + fieldType.getName());
@@ -517,7 +501,8 @@ public class TreParser {
         }
         if ((fieldType.getLength() == null) || (fieldType.getLength().intValueExact() == value.length())) {
             params.addParameter(getFieldTypeName(fieldType), value, entry.getDataType());
-            return value.getBytes(StandardCharsets.ISO_8859_1);
+            output.appendSpacePaddedString(value, 0);
+            return;
         }
         // Try to pad out to the required length.
         if (fieldType.getType() == null) {
@@ -525,42 +510,32 @@ public class TreParser {
             LOG.error(err);
             throw new NitfFormatException(err);
         }
+        int start = output.length();
         if (fieldType.getType().equals("integer")) {
-            value = getValidatedIntegerValue(value, fieldType);
-            params.addParameter(getFieldTypeName(fieldType), value, entry.getDataType());
-            return value.getBytes(StandardCharsets.ISO_8859_1);
-        }
-
-        if (fieldType.getType().equals("string")) {
-            value = padStringToLength(value, fieldType.getLength().intValue());
+            appendValidatedIntegerValue(value, fieldType, output);
+        } else if (fieldType.getType().equals("string")) {
             if (value.length() > fieldType.getLength().intValue()) {
                throw new NitfFormatException("Incorrect length serialising out: " + fieldType.getName());
             }
+            output.appendSpacePaddedString(value, fieldType.getLength().intValue());
+        } else if (fieldType.getType().equals("real")) {
+            appendValidatedRealValue(value, fieldType, output);
+        } else if (fieldType.getType().equals("UINT")) {
+            output.append(getValidatedUINTValue(entry.getFieldValue().getBytes(StandardCharsets.ISO_8859_1), fieldType));
             params.addParameter(getFieldTypeName(fieldType), value, entry.getDataType());
-            return value.getBytes(StandardCharsets.ISO_8859_1);
-        }
-
-        if (fieldType.getType().equals("real")) {
-            value = getValidatedRealValue(value, fieldType);
-            params.addParameter(getFieldTypeName(fieldType), value, entry.getDataType());
-            return value.getBytes(StandardCharsets.ISO_8859_1);
-        }
-        if (fieldType.getType().equals("UINT")) {
-            byte[] result = getValidatedUINTValue(entry.getFieldValue().getBytes(StandardCharsets.ISO_8859_1), fieldType);
-            params.addParameter(getFieldTypeName(fieldType), value, entry.getDataType());
-            // params.addUintParameter(getFieldTypeName(fieldType), result);
-            return result;
+            return;
+        } else {
+            throw new UnsupportedOperationException("Unsupported field type for serialisation:" + fieldType.getType());
         }
-        throw new UnsupportedOperationException("Unsupported field type for serialisation:" + fieldType.getType());
+        params.addParameter(getFieldTypeName(fieldType), output, start, output.length(), entry.getDataType());
     }
 
 
-    private String getValidatedIntegerValue(final String value, final FieldType fieldType) throws NitfFormatException {
-        String paddedValue;
-
+    private void appendValidatedIntegerValue(final String value, final FieldType fieldType, final FixedWidthFieldEncoder output)
+            throws NitfFormatException {
         // Allow null values for TREs that require them.
         if (value == null || value.trim().length() == 0) {
-            paddedValue = padStringToLength("", fieldType.getLength().intValue());
+            output.appendSpaces(fieldType.getLength().intValue());
         } else {
             if (value.length() > fieldType.getLength()
                     .intValue()) {
@@ -569,7 +544,7 @@ public class TreParser {
             try {
                 int intValue = Integer.parseInt(value);
                 validateIntegerValueRange(intValue, fieldType);
-                paddedValue = padIntegerToLength(intValue,
+                output.appendZeroPaddedInteger(intValue,
                         fieldType.getLength()
                                 .intValue());
             } catch (NumberFormatException ex) {
@@ -578,7 +553,6 @@ public class TreParser {
                 throw new NitfFormatException(err);
             }
         }
-        return paddedValue;
     }
 
     private void validateIntegerValueRange(final int intValue, final FieldType fieldType) throws NitfFormatException {
@@ -596,26 +570,35 @@ public class TreParser {
         }
     }
 
-    private String getValidatedRealValue(final String value, final FieldType fieldType) throws NitfFormatException {
-        String paddedValue;
+    private void appendValidatedRealValue(final String value, final FieldType fieldType, final FixedWidthFieldEncoder output)
+            throws NitfFormatException {
+        int length = fieldType.getLength().intValue();
         // allow null values for TREs that require them, such as the PIATGB in the TGTLAT and TGTLON fields
         if (value == null || value.trim().length() == 0) {
-            paddedValue = padStringToLength("", fieldType.getLength().intValue());
+            output.appendSpaces(length);
         } else {
             try {
                 double realValue = Double.parseDouble(value);
                 validateRealValueRange(realValue, fieldType);
-                paddedValue = padRealToLength(realValue,
-                        fieldType.getFormat(),
-                        fieldType.getLength()
-                                .intValue());
+                appendRealValue(realValue, fieldType.getFormat(), length, output);
             } catch (NumberFormatException ex) {
                 String err = "Could not parse " + fieldType.getName() + " value " + value + " as a floating point number.";
                 LOG.error(err);
                 throw new NitfFormatException(err);
             }
         }
-        return paddedValue;
+    }
+
+    private void appendRealValue(final double number, final String format, final int length, final FixedWidthFieldEncoder output) {
+        if ((format != null) && (format.equals("UE"))) {
+            if (Double.isNaN(number)) {
+                output.appendSpacePaddedString("NaN", length);
+            } else {
+                output.appendExponentReal(number, length);
+            }
+        } else {
+            output.appendFixedPointReal(number, length);
+        }
     }
 
     private void validateRealValueRange(final double realValue, final FieldType fieldType) throws NitfFormatException {
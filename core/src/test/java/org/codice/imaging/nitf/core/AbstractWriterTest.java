@@ -21,12 +21,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URISyntaxException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.imageio.stream.FileImageInputStream;
 import javax.imageio.stream.ImageInputStream;
 import javax.imageio.stream.MemoryCacheImageInputStream;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.FileChannelImageInputStream;
 import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
 import org.codice.imaging.nitf.core.common.NitfReader;
 import org.codice.imaging.nitf.core.header.impl.NitfParser;
@@ -34,6 +37,7 @@ import org.codice.imaging.nitf.core.impl.ConfigurableHeapStrategy;
 import org.codice.imaging.nitf.core.impl.HeapStrategyConfiguration;
 import org.codice.imaging.nitf.core.impl.NitfFileWriter;
 import org.codice.imaging.nitf.core.impl.NitfOutputStreamWriter;
+import org.codice.imaging.nitf.core.impl.ParallelNitfFileWriter;
 import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
 
 import static org.junit.Assert.assertNotNull;
@@ -74,5 +78,27 @@ class AbstractWriterTest {
             assertTrue(FileUtils.contentEquals(new File(getClass().getResource(sourceFileName).toURI()), new File(outputFile)));
         }
         assertTrue(new File(outputFile).delete());
+
+        // And again, with file-backed data that can be transferred from file to file
+        reader = new NitfInputStreamReader(new BufferedInputStream(getInputStream(sourceFileName)));
+        parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.ALL_SEGMENT_DATA);
+        parseStrategy.setImageHeapStrategy(new ConfigurableHeapStrategy<>(heapStrategyConfiguration,
+                file -> new FileChannelImageInputStream(file), is -> new MemoryCacheImageInputStream(is)));
+        NitfParser.parse(reader, parseStrategy);
+        writer = new NitfFileWriter(parseStrategy.getDataSource(), outputFile);
+        writer.write();
+        assertTrue(FileUtils.contentEquals(new File(getClass().getResource(sourceFileName).toURI()), new File(outputFile)));
+        assertTrue(new File(outputFile).delete());
+
+        // And once more, writing the segments in parallel
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            writer = new ParallelNitfFileWriter(parseStrategy.getDataSource(), outputFile, executor);
+            writer.write();
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(FileUtils.contentEquals(new File(getClass().getResource(sourceFileName).toURI()), new File(outputFile)));
+        assertTrue(new File(outputFile).delete());
     }
 }
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.codice.imaging.nitf.core.common.CommonSegment;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfReader;
+import org.codice.imaging.nitf.core.common.impl.FileReader;
+import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.dataextension.DataExtensionSegment;
+import org.codice.imaging.nitf.core.graphic.GraphicSegment;
+import org.codice.imaging.nitf.core.header.NitfHeader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.impl.EventParseStrategy;
+import org.codice.imaging.nitf.core.impl.NitfEventListener;
+import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
+import org.codice.imaging.nitf.core.label.LabelSegment;
+import org.codice.imaging.nitf.core.symbol.SymbolSegment;
+import org.codice.imaging.nitf.core.text.TextSegment;
+import org.codice.imaging.nitf.core.tre.Tre;
+import org.codice.imaging.nitf.core.tre.TreSource;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for EventParseStrategy.
+ */
+public class EventParseStrategyTest {
+
+    private static final int FL_OFFSET = 342;
+    private static final int HL_OFFSET = 354;
+    private static final int HL_LENGTH = 6;
+    private static final int SFH_DELIM1 = 0x0a6e1d97;
+    private static final int SFH_DELIM2 = 0x0eca14bf;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testMultipleImages() throws NitfFormatException, URISyntaxException {
+        checkAgainstSlottedParse("/JitcNitf21Samples/ns3361c.nsf");
+    }
+
+    @Test
+    public void testStreamingMode() throws NitfFormatException, URISyntaxException {
+        checkAgainstSlottedParse("/JitcNitf21Samples/ns3321a.nsf");
+    }
+
+    @Test
+    public void testStreamingModeHeaderTresReportedOnce() throws IOException, NitfFormatException, URISyntaxException {
+        final String fileName = "/JitcNitf21Samples/i_3128b.ntf";
+        RecordingListener expected = new RecordingListener();
+        EventParseStrategy.parse(getReader(fileName), expected);
+        assertTrue(expected.mTreTags.size() > 0);
+
+        File streamingFile = createStreamingModeCopy(fileName);
+        RecordingListener listener = new RecordingListener();
+        EventParseStrategy.parse(new FileReader(streamingFile), listener);
+        assertEquals(expected.mTreTags, listener.mTreTags);
+
+        assertEquals(headerTreNames(getReader(fileName)), headerTreNames(new FileReader(streamingFile)));
+    }
+
+    private static List<String> headerTreNames(final NitfReader reader) throws NitfFormatException {
+        SlottedParseStrategy slottedParseStrategy = new SlottedParseStrategy(SlottedParseStrategy.HEADERS_ONLY);
+        NitfParser.parse(reader, slottedParseStrategy);
+        List<String> names = new ArrayList<>();
+        addTreNames(names, slottedParseStrategy.getDataSource().getNitfHeader().getTREsRawStructure().getTREs());
+        assertTrue(names.size() > 0);
+        return names;
+    }
+
+    @Test
+    public void testTres() throws NitfFormatException, URISyntaxException {
+        checkAgainstSlottedParse("/WithBE.ntf");
+        checkAgainstSlottedParse("/fromVTS/GHSarNITF21_good.ntf");
+    }
+
+    @Test
+    public void testNitf20SymbolsAndLabels() throws NitfFormatException, URISyntaxException {
+        checkAgainstSlottedParse("/JitcNitf20Samples/U_1060A.NTF");
+        checkAgainstSlottedParse("/JitcNitf20Samples/U_1122A.NTF");
+    }
+
+    @Test
+    public void testNothingRetained() throws NitfFormatException {
+        EventParseStrategy parseStrategy = new EventParseStrategy(new NitfEventListener() { });
+        NitfParser.parse(new NitfInputStreamReader(getClass().getResourceAsStream("/JitcNitf21Samples/ns3361c.nsf")), parseStrategy);
+        assertNull(parseStrategy.getDataSource());
+    }
+
+    private void checkAgainstSlottedParse(final String fileName) throws NitfFormatException, URISyntaxException {
+        SlottedParseStrategy slottedParseStrategy = new SlottedParseStrategy(SlottedParseStrategy.HEADERS_ONLY
+                | SlottedParseStrategy.TEXT_DATA | SlottedParseStrategy.LABEL_DATA | SlottedParseStrategy.DES_DATA);
+        NitfParser.parse(getReader(fileName), slottedParseStrategy);
+        DataSource expected = slottedParseStrategy.getDataSource();
+
+        RecordingListener listener = new RecordingListener();
+        EventParseStrategy.parse(getReader(fileName), listener);
+
+        assertEquals(1, listener.mHeaders.size());
+        assertEquals(expected.getNitfHeader().getFileTitle(), listener.mHeaders.get(0).getFileTitle());
+        assertTrue(listener.mEnded);
+        assertEquals(identifiers(expected.getImageSegments()), identifiers(listener.mImageSegments));
+        assertEquals(identifiers(expected.getGraphicSegments()), identifiers(listener.mGraphicSegments));
+        assertEquals(identifiers(expected.getSymbolSegments()), identifiers(listener.mSymbolSegments));
+        assertEquals(identifiers(expected.getLabelSegments()), identifiers(listener.mLabelSegments));
+        assertEquals(identifiers(expected.getTextSegments()), identifiers(listener.mTextSegments));
+        assertEquals(identifiers(expected.getDataExtensionSegments()), identifiers(listener.mDataExtensionSegments));
+        for (int i = 0; i < expected.getTextSegments().size(); i++) {
+            assertEquals(expected.getTextSegments().get(i).getData(), listener.mTextSegments.get(i).getData());
+        }
+        for (int i = 0; i < expected.getLabelSegments().size(); i++) {
+            assertEquals(expected.getLabelSegments().get(i).getData(), listener.mLabelSegments.get(i).getData());
+        }
+
+        List<String> expectedTres = new ArrayList<>();
+        addTreNames(expectedTres, expected.getNitfHeader().getTREsRawStructure().getTREs());
+        addAllTreNames(expectedTres, expected.getImageSegments());
+        addAllTreNames(expectedTres, expected.getGraphicSegments());
+        addAllTreNames(expectedTres, expected.getSymbolSegments());
+        addAllTreNames(expectedTres, expected.getLabelSegments());
+        addAllTreNames(expectedTres, expected.getTextSegments());
+        addAllTreNames(expectedTres, expected.getDataExtensionSegments());
+        Collections.sort(expectedTres);
+        Collections.sort(listener.mTreTags);
+        assertEquals(expectedTres, listener.mTreTags);
+    }
+
+    /**
+     * Copy a NITF 2.1 file, converting it to streaming mode with the original file header as the replacement header.
+     */
+    private File createStreamingModeCopy(final String fileName) throws IOException {
+        byte[] original;
+        try (InputStream inputStream = getClass().getResourceAsStream(fileName)) {
+            original = inputStream.readAllBytes();
+        }
+        int headerLength = Integer.parseInt(new String(original, HL_OFFSET, HL_LENGTH, StandardCharsets.US_ASCII));
+        String sfhLength = String.format("%07d", headerLength);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.write(original, 0, FL_OFFSET);
+        output.writeBytes("999999999999");
+        output.write(original, HL_OFFSET, original.length - HL_OFFSET);
+        output.writeBytes(sfhLength);
+        output.writeInt(SFH_DELIM1);
+        output.write(original, 0, headerLength);
+        output.writeInt(SFH_DELIM2);
+        output.writeBytes(sfhLength);
+        output.flush();
+
+        File streamingFile = temporaryFolder.newFile("streaming.ntf");
+        Files.write(streamingFile.toPath(), bytes.toByteArray());
+        return streamingFile;
+    }
+
+    private NitfReader getReader(final String fileName) throws NitfFormatException, URISyntaxException {
+        assertNotNull("Test file missing: " + fileName, getClass().getResource(fileName));
+        return new FileReader(new File(getClass().getResource(fileName).toURI().getPath()));
+    }
+
+    private static List<String> identifiers(final List<? extends CommonSegment> segments) {
+        List<String> identifiers = new ArrayList<>();
+        for (CommonSegment segment : segments) {
+            identifiers.add(segment.getIdentifier());
+        }
+        return identifiers;
+    }
+
+    private static void addAllTreNames(final List<String> names, final List<? extends CommonSegment> segments) {
+        for (CommonSegment segment : segments) {
+            addTreNames(names, segment.getTREsRawStructure().getTREs());
+        }
+    }
+
+    private static void addTreNames(final List<String> names, final List<Tre> tres) {
+        for (Tre tre : tres) {
+            names.add(tre.getName().trim());
+        }
+    }
+
+    private static final class RecordingListener implements NitfEventListener {
+        private final List<NitfHeader> mHeaders = new ArrayList<>();
+        private final List<ImageSegment> mImageSegments = new ArrayList<>();
+        private final List<GraphicSegment> mGraphicSegments = new ArrayList<>();
+        private final List<SymbolSegment> mSymbolSegments = new ArrayList<>();
+        private final List<LabelSegment> mLabelSegments = new ArrayList<>();
+        private final List<TextSegment> mTextSegments = new ArrayList<>();
+        private final List<DataExtensionSegment> mDataExtensionSegments = new ArrayList<>();
+        private final List<String> mTreTags = new ArrayList<>();
+        private boolean mEnded = false;
+
+        @Override
+        public void fileHeader(final NitfHeader nitfHeader) {
+            assertTrue(nitfHeader.getTREsRawStructure().getTREs().isEmpty());
+            mHeaders.add(nitfHeader);
+        }
+
+        @Override
+        public void imageSegment(final int index, final ImageSegment imageSegment) {
+            assertEquals(mImageSegments.size(), index);
+            assertNull(imageSegment.getData());
+            mImageSegments.add(imageSegment);
+        }
+
+        @Override
+        public void graphicSegment(final int index, final GraphicSegment graphicSegment) {
+            assertEquals(mGraphicSegments.size(), index);
+            mGraphicSegments.add(graphicSegment);
+        }
+
+        @Override
+        public void symbolSegment(final int index, final SymbolSegment symbolSegment) {
+            assertEquals(mSymbolSegments.size(), index);
+            mSymbolSegments.add(symbolSegment);
+        }
+
+        @Override
+        public void labelSegment(final int index, final LabelSegment labelSegment) {
+            assertEquals(mLabelSegments.size(), index);
+            mLabelSegments.add(labelSegment);
+        }
+
+        @Override
+        public void textSegment(final int index, final TextSegment textSegment) {
+            assertEquals(mTextSegments.size(), index);
+            mTextSegments.add(textSegment);
+        }
+
+        @Override
+        public void dataExtensionSegment(final int index, final DataExtensionSegment dataExtensionSegment) {
+            assertEquals(mDataExtensionSegments.size(), index);
+            mDataExtensionSegments.add(dataExtensionSegment);
+        }
+
+        @Override
+        public void tre(final TreSource source, final String tag, final byte[] data) {
+            assertTrue(data.length > 0);
+            mTreTags.add(tag);
+        }
+
+        @Override
+        public void endOfFile() {
+            mEnded = true;
+        }
+    }
+}
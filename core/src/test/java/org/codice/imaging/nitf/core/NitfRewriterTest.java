@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core;
+
+import static org.codice.imaging.nitf.core.TestUtils.copyResource;
+import static org.codice.imaging.nitf.core.TestUtils.parse;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import javax.imageio.stream.ImageInputStream;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.impl.NitfRewriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for NitfRewriter.
+ */
+public class NitfRewriterTest {
+
+    private static final String MULTIPLE_IMAGES = "/JitcNitf21Samples/ns3361c.nsf";
+    private static final String SINGLE_IMAGE = "/JitcNitf21Samples/i_3301a.ntf";
+    private static final int FILE_TITLE_LENGTH = 80;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testUnchangedRewrite() throws IOException, NitfFormatException {
+        Path source = copyResource(temporaryFolder, MULTIPLE_IMAGES);
+        Path target = temporaryFolder.newFile().toPath();
+        try (NitfRewriter rewriter = new NitfRewriter()) {
+            DataSource dataSource = rewriter.open(source);
+            assertEquals(Files.size(source), rewriter.write(dataSource, target));
+        }
+        assertArrayEquals(Files.readAllBytes(source), Files.readAllBytes(target));
+    }
+
+    @Test
+    public void testHeaderEdit() throws IOException, NitfFormatException {
+        Path source = copyResource(temporaryFolder, MULTIPLE_IMAGES);
+        Path target = temporaryFolder.newFile().toPath();
+        try (NitfRewriter rewriter = new NitfRewriter()) {
+            DataSource dataSource = rewriter.open(source);
+            dataSource.getNitfHeader().setFileTitle("Rewritten title");
+            rewriter.write(dataSource, target);
+        }
+
+        DataSource original = parse(source);
+        DataSource rewritten = parse(target);
+        assertEquals("Rewritten title", rewritten.getNitfHeader().getFileTitle());
+        assertEquals(original.getImageSegments().size(), rewritten.getImageSegments().size());
+        for (int i = 0; i < original.getImageSegments().size(); i++) {
+            assertArrayEquals(getData(original.getImageSegments().get(i)), getData(rewritten.getImageSegments().get(i)));
+        }
+    }
+
+    @Test
+    public void testMerge() throws IOException, NitfFormatException {
+        Path first = copyResource(temporaryFolder, MULTIPLE_IMAGES);
+        Path second = copyResource(temporaryFolder, SINGLE_IMAGE);
+        Path target = temporaryFolder.newFile().toPath();
+        try (NitfRewriter rewriter = new NitfRewriter()) {
+            DataSource firstSource = rewriter.open(first);
+            DataSource secondSource = rewriter.open(second);
+            DataSource merged = NitfRewriter.merge(firstSource.getNitfHeader(), Arrays.asList(firstSource, secondSource));
+            rewriter.write(merged, target);
+        }
+
+        DataSource firstSource = parse(first);
+        DataSource secondSource = parse(second);
+        DataSource merged = parse(target);
+        int firstCount = firstSource.getImageSegments().size();
+        assertEquals(firstCount + secondSource.getImageSegments().size(), merged.getImageSegments().size());
+        for (int i = 0; i < firstCount; i++) {
+            assertArrayEquals(getData(firstSource.getImageSegments().get(i)), getData(merged.getImageSegments().get(i)));
+        }
+        assertArrayEquals(getData(secondSource.getImageSegments().get(0)), getData(merged.getImageSegments().get(firstCount)));
+    }
+
+    @Test
+    public void testUpdateInPlace() throws IOException, NitfFormatException {
+        Path source = copyResource(temporaryFolder, MULTIPLE_IMAGES);
+        byte[] original = Files.readAllBytes(source);
+        try (NitfRewriter rewriter = new NitfRewriter()) {
+            DataSource dataSource = rewriter.open(source);
+            dataSource.getNitfHeader().setFileTitle("Patched title");
+            assertTrue(rewriter.update(dataSource));
+        }
+
+        byte[] patched = Files.readAllBytes(source);
+        assertEquals(original.length, patched.length);
+        int changedBytes = 0;
+        for (int i = 0; i < original.length; i++) {
+            if (original[i] != patched[i]) {
+                changedBytes++;
+            }
+        }
+        assertTrue(changedBytes > 0);
+        assertTrue(changedBytes <= FILE_TITLE_LENGTH);
+        assertEquals("Patched title", parse(source).getNitfHeader().getFileTitle());
+    }
+
+    @Test
+    public void testUpdateWithLengthChange() throws IOException, NitfFormatException {
+        Path source = copyResource(temporaryFolder, SINGLE_IMAGE);
+        byte[] originalData = getData(parse(source).getImageSegments().get(0));
+        try (NitfRewriter rewriter = new NitfRewriter()) {
+            DataSource dataSource = rewriter.open(source);
+            dataSource.getImageSegments().get(0).addImageComment("Added comment");
+            assertFalse(rewriter.update(dataSource));
+        }
+
+        ImageSegment imageSegment = parse(source).getImageSegments().get(0);
+        assertTrue(imageSegment.getImageComments().contains("Added comment"));
+        assertArrayEquals(originalData, getData(imageSegment));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWriteToSource() throws IOException, NitfFormatException {
+        Path source = copyResource(temporaryFolder, SINGLE_IMAGE);
+        try (NitfRewriter rewriter = new NitfRewriter()) {
+            rewriter.write(rewriter.open(source), source);
+        }
+    }
+
+    private byte[] getData(final ImageSegment imageSegment) throws IOException {
+        ImageInputStream data = imageSegment.getData();
+        byte[] bytes = new byte[(int) imageSegment.getDataLength()];
+        data.seek(0);
+        data.readFully(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.imageio.stream.ImageInputStream;
+import org.codice.imaging.nitf.core.common.CommonSegment;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfReader;
+import org.codice.imaging.nitf.core.common.impl.FileReader;
+import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.impl.NitfSegmentIterator;
+import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
+import org.codice.imaging.nitf.core.text.TextSegment;
+import org.junit.Test;
+
+/**
+ * Tests for NitfSegmentIterator.
+ */
+public class NitfSegmentIteratorTest {
+
+    @Test
+    public void testSeekableReader() throws NitfFormatException, URISyntaxException, IOException {
+        checkAgainstFullParse("/JitcNitf21Samples/ns3361c.nsf", true);
+    }
+
+    @Test
+    public void testStreamReader() throws NitfFormatException, URISyntaxException, IOException {
+        checkAgainstFullParse("/JitcNitf21Samples/ns3361c.nsf", false);
+    }
+
+    @Test
+    public void testStreamingMode() throws NitfFormatException, URISyntaxException, IOException {
+        checkAgainstFullParse("/JitcNitf21Samples/ns3321a.nsf", true);
+    }
+
+    @Test
+    public void testNitf20SymbolsAndLabels() throws NitfFormatException, URISyntaxException, IOException {
+        checkAgainstFullParse("/JitcNitf20Samples/U_1060A.NTF", false);
+        checkAgainstFullParse("/JitcNitf20Samples/U_1122A.NTF", false);
+    }
+
+    @Test
+    public void testDataOnlyReadableWhileCurrent() throws NitfFormatException, URISyntaxException, IOException {
+        NitfSegmentIterator iterator = new NitfSegmentIterator(getReader("/JitcNitf21Samples/ns3361c.nsf", false));
+        ImageInputStream firstData = ((ImageSegment) iterator.next()).getData();
+        firstData.readByte();
+        ImageSegment second = (ImageSegment) iterator.next();
+        try {
+            firstData.readByte();
+            fail("Expected IOException reading the data of a segment that is no longer current");
+        } catch (IOException ex) {
+            // Expected
+        }
+        // Part of the data is read, and the rest is skipped by the next segment
+        second.getData().readFully(new byte[10]);
+        ImageSegment third = (ImageSegment) iterator.next();
+        assertEquals(segments(parse("/JitcNitf21Samples/ns3361c.nsf")).get(2).getIdentifier(), third.getIdentifier());
+        iterator.close();
+    }
+
+    @Test
+    public void testStream() throws NitfFormatException, URISyntaxException {
+        try (Stream<CommonSegment> segments = NitfSegmentIterator.stream(getReader("/JitcNitf21Samples/ns3361c.nsf", false))) {
+            List<String> identifiers = segments.map(CommonSegment::getIdentifier).collect(Collectors.toList());
+            assertEquals(identifiers(parse("/JitcNitf21Samples/ns3361c.nsf")), identifiers);
+        }
+    }
+
+    private void checkAgainstFullParse(final String fileName, final boolean seekable)
+            throws NitfFormatException, URISyntaxException, IOException {
+        DataSource expected = parse(fileName);
+        List<CommonSegment> expectedSegments = segments(expected);
+        NitfSegmentIterator iterator = new NitfSegmentIterator(getReader(fileName, seekable));
+        assertEquals(expected.getNitfHeader().getFileTitle(), iterator.getNitfHeader().getFileTitle());
+        int i = 0;
+        while (iterator.hasNext()) {
+            CommonSegment segment = iterator.next();
+            CommonSegment expectedSegment = expectedSegments.get(i++);
+            assertEquals(expectedSegment.getClass(), segment.getClass());
+            assertEquals(expectedSegment.getIdentifier(), segment.getIdentifier());
+            if (segment instanceof ImageSegment) {
+                ImageSegment imageSegment = (ImageSegment) segment;
+                ImageSegment expectedImage = (ImageSegment) expectedSegment;
+                byte[] expectedData = new byte[(int) expectedImage.getDataLength()];
+                expectedImage.getData().readFully(expectedData);
+                byte[] data = new byte[(int) imageSegment.getDataLength()];
+                imageSegment.getData().readFully(data);
+                assertArrayEquals(expectedData, data);
+                assertEquals(-1, imageSegment.getData().read());
+            } else if (segment instanceof TextSegment) {
+                assertEquals(((TextSegment) expectedSegment).getData(), ((TextSegment) segment).getData());
+            }
+        }
+        iterator.close();
+        assertEquals(expectedSegments.size(), i);
+        assertFalse(iterator.hasNext());
+    }
+
+    private DataSource parse(final String fileName) throws NitfFormatException, URISyntaxException {
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.ALL_SEGMENT_DATA);
+        NitfParser.parse(getReader(fileName, true), parseStrategy);
+        return parseStrategy.getDataSource();
+    }
+
+    private static List<CommonSegment> segments(final DataSource dataSource) {
+        List<CommonSegment> segments = new ArrayList<>();
+        segments.addAll(dataSource.getImageSegments());
+        segments.addAll(dataSource.getGraphicSegments());
+        segments.addAll(dataSource.getSymbolSegments());
+        segments.addAll(dataSource.getLabelSegments());
+        segments.addAll(dataSource.getTextSegments());
+        segments.addAll(dataSource.getDataExtensionSegments());
+        return segments;
+    }
+
+    private static List<String> identifiers(final DataSource dataSource) {
+        return segments(dataSource).stream().map(CommonSegment::getIdentifier).collect(Collectors.toList());
+    }
+
+    private NitfReader getReader(final String fileName, final boolean seekable) throws NitfFormatException, URISyntaxException {
+        assertNotNull("Test file missing: " + fileName, getClass().getResource(fileName));
+        if (seekable) {
+            return new FileReader(new File(getClass().getResource(fileName).toURI().getPath()));
+        }
+        return new NitfInputStreamReader(getClass().getResourceAsStream(fileName));
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core;
+
+import static org.codice.imaging.nitf.core.TestUtils.copyResource;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.impl.NitfSnapshot;
+import org.codice.imaging.nitf.core.impl.NitfSnapshotCache;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for NitfSnapshotCache.
+ */
+public class NitfSnapshotCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<NitfSnapshot> mEvicted = new ArrayList<>();
+
+    @Test
+    public void testSameFileSharesSnapshot() throws IOException, NitfFormatException {
+        Path file = copyResource(temporaryFolder, "/JitcNitf21Samples/ns3361c.nsf");
+        try (NitfSnapshotCache cache = new NitfSnapshotCache(2, this::evicted)) {
+            NitfSnapshot first = cache.get(file);
+            NitfSnapshot second = cache.get(file.getParent().resolve(".").resolve(file.getFileName()));
+            assertSame(first, second);
+            assertEquals(1, cache.size());
+            first.close();
+            second.close();
+        }
+        assertEquals(1, mEvicted.size());
+    }
+
+    @Test
+    public void testChangedFileIsParsedAgain() throws IOException, NitfFormatException {
+        Path file = copyResource(temporaryFolder, "/JitcNitf21Samples/ns3361c.nsf");
+        try (NitfSnapshotCache cache = new NitfSnapshotCache(2, this::evicted)) {
+            NitfSnapshot first = cache.get(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+            NitfSnapshot second = cache.get(file);
+            assertNotSame(first, second);
+            assertEquals(1, cache.size());
+            assertEquals(1, mEvicted.size());
+            assertSame(first, mEvicted.get(0));
+
+            // Still usable by the caller, since the caller holds a reference
+            first.openImageSegment(0).getData().readByte();
+            first.close();
+            second.close();
+        }
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() throws IOException, NitfFormatException {
+        Path first = copyResource(temporaryFolder, "/JitcNitf21Samples/ns3361c.nsf");
+        Path second = copyResource(temporaryFolder, "/JitcNitf21Samples/i_3301a.ntf");
+        Path third = copyResource(temporaryFolder, "/JitcNitf21Samples/ns3302a.nsf");
+        try (NitfSnapshotCache cache = new NitfSnapshotCache(2, this::evicted)) {
+            cache.get(first).close();
+            cache.get(second).close();
+            cache.get(first).close();
+            cache.get(third).close();
+            assertEquals(2, cache.size());
+            assertEquals(1, mEvicted.size());
+            assertEquals(second.toAbsolutePath(), mEvicted.get(0).getPath());
+        }
+        assertEquals(3, mEvicted.size());
+    }
+
+    @Test
+    public void testConcurrentRequestsParseOnce() throws Exception {
+        Path file = copyResource(temporaryFolder, "/JitcNitf21Samples/ns3361c.nsf");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (NitfSnapshotCache cache = new NitfSnapshotCache(1, this::evicted)) {
+            List<Future<NitfSnapshot>> results = new ArrayList<>();
+            Callable<NitfSnapshot> request = () -> cache.get(file);
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(request));
+            }
+            NitfSnapshot expected = results.get(0).get();
+            for (Future<NitfSnapshot> result : results) {
+                assertSame(expected, result.get());
+                result.get().close();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, mEvicted.size());
+    }
+
+    @Test
+    public void testParseFailureIsNotCached() throws IOException {
+        Path file = temporaryFolder.newFile().toPath();
+        Files.write(file, "not a NITF file".getBytes("US-ASCII"));
+        try (NitfSnapshotCache cache = new NitfSnapshotCache(2, this::evicted)) {
+            try {
+                cache.get(file);
+                fail("Expected NitfFormatException");
+            } catch (NitfFormatException ex) {
+                assertEquals(0, cache.size());
+            }
+        }
+        assertTrue(mEvicted.isEmpty());
+    }
+
+    private synchronized void evicted(final Path path, final NitfSnapshot snapshot) {
+        assertEquals(path, snapshot.getPath());
+        mEvicted.add(snapshot);
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core;
+
+import static org.codice.imaging.nitf.core.TestUtils.copyResource;
+import static org.codice.imaging.nitf.core.TestUtils.parse;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.imageio.stream.ImageInputStream;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.dataextension.DataExtensionSegment;
+import org.codice.imaging.nitf.core.image.ImageBand;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.image.impl.ImageBandImpl;
+import org.codice.imaging.nitf.core.impl.NitfSnapshot;
+import org.codice.imaging.nitf.core.tre.Tre;
+import org.codice.imaging.nitf.core.tre.TreCollection;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for NitfSnapshot.
+ */
+public class NitfSnapshotTest {
+
+    private static final String TEST_FILE = "/JitcNitf21Samples/ns3361c.nsf";
+
+    private static final String TRE_OVERFLOW_FILE = "/JitcNitf20Samples/U_1130F.NTF";
+
+    private static final String TRE_FILE = "/fromVTS/GHSarNITF21_good.ntf";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testMatchesFullParse() throws IOException, NitfFormatException {
+        Path file = copyResource(temporaryFolder, TEST_FILE);
+        DataSource parsed = parse(file);
+        try (NitfSnapshot snapshot = NitfSnapshot.open(file)) {
+            assertEquals(parsed.getNitfHeader().getFileTitle(), snapshot.getNitfHeader().getFileTitle());
+            assertEquals(parsed.getImageSegments().size(), snapshot.getImageSegments().size());
+            assertEquals(parsed.getTextSegments().size(), snapshot.getTextSegments().size());
+            assertEquals(parsed.getDataExtensionSegments().size(), snapshot.getDataExtensionSegments().size());
+            for (int i = 0; i < parsed.getImageSegments().size(); i++) {
+                ImageSegment expected = parsed.getImageSegments().get(i);
+                assertEquals(expected.getIdentifier(), snapshot.getImageSegments().get(i).getIdentifier());
+                assertNull(snapshot.getImageSegments().get(i).getData());
+                ImageSegment view = snapshot.openImageSegment(i);
+                assertEquals(expected.getNumberOfRows(), view.getNumberOfRows());
+                assertArrayEquals(readAll(expected), readAll(view));
+            }
+            for (int i = 0; i < parsed.getTextSegments().size(); i++) {
+                assertEquals(parsed.getTextSegments().get(i).getData(), snapshot.getTextSegments().get(i).getData());
+            }
+        }
+    }
+
+    @Test
+    public void testReadOnly() throws IOException, NitfFormatException {
+        try (NitfSnapshot snapshot = NitfSnapshot.open(copyResource(temporaryFolder, TEST_FILE))) {
+            try {
+                snapshot.getImageSegments().get(0).setNumberOfRows(1);
+                fail("Expected UnsupportedOperationException");
+            } catch (UnsupportedOperationException ex) {
+                assertTrue(ex.getMessage().contains("ImageSegment"));
+            }
+            try {
+                snapshot.getNitfHeader().setFileTitle("changed");
+                fail("Expected UnsupportedOperationException");
+            } catch (UnsupportedOperationException ex) {
+                assertTrue(ex.getMessage().contains("NitfHeader"));
+            }
+            try {
+                snapshot.getImageSegments().clear();
+                fail("Expected UnsupportedOperationException");
+            } catch (UnsupportedOperationException ex) {
+                assertEquals(4, snapshot.getImageSegments().size());
+            }
+        }
+    }
+
+    @Test
+    public void testNestedObjectsReadOnly() throws IOException, NitfFormatException {
+        try (NitfSnapshot snapshot = NitfSnapshot.open(copyResource(temporaryFolder, TRE_FILE))) {
+            ImageSegment imageSegment = snapshot.getImageSegments().get(0);
+            ImageBand band = imageSegment.getImageBandZeroBase(0);
+            assertFalse(band instanceof ImageBandImpl);
+            TreCollection tres = imageSegment.getTREsRawStructure();
+            assertTrue(tres.hasTREs());
+            Tre tre = tres.getTREs().get(0);
+            try {
+                tres.getTREs().clear();
+                fail("Expected UnsupportedOperationException");
+            } catch (UnsupportedOperationException ex) {
+                assertTrue(tres.hasTREs());
+            }
+            try {
+                tres.remove(tre);
+                fail("Expected UnsupportedOperationException");
+            } catch (UnsupportedOperationException ex) {
+                assertTrue(ex.getMessage().contains("TreCollection"));
+            }
+            try {
+                tre.setPrefix("changed");
+                fail("Expected UnsupportedOperationException");
+            } catch (UnsupportedOperationException ex) {
+                assertTrue(ex.getMessage().contains("Tre"));
+            }
+            Tre parsedTre = null;
+            for (Tre candidate : tres.getTREs()) {
+                if (!candidate.getEntries().isEmpty()) {
+                    parsedTre = candidate;
+                }
+            }
+            assertNotNull(parsedTre);
+            try {
+                parsedTre.getEntries().get(0).setFieldValue("changed");
+                fail("Expected UnsupportedOperationException");
+            } catch (UnsupportedOperationException ex) {
+                assertTrue(ex.getMessage().contains("TreEntry"));
+            }
+            try {
+                snapshot.getNitfHeader().getTREsRawStructure().add(tre);
+                fail("Expected UnsupportedOperationException");
+            } catch (UnsupportedOperationException ex) {
+                assertTrue(ex.getMessage().contains("TreCollection"));
+            }
+        }
+    }
+
+    @Test
+    public void testEquality() throws IOException, NitfFormatException {
+        try (NitfSnapshot snapshot = NitfSnapshot.open(copyResource(temporaryFolder, TEST_FILE))) {
+            ImageSegment imageSegment = snapshot.getImageSegments().get(0);
+            assertEquals(imageSegment, imageSegment);
+            assertEquals(imageSegment, snapshot.getImageSegments().get(0));
+            assertEquals(imageSegment.hashCode(), snapshot.getImageSegments().get(0).hashCode());
+            assertNotEquals(imageSegment, snapshot.getImageSegments().get(1));
+            assertEquals(snapshot.getNitfHeader(), snapshot.getNitfHeader());
+            assertEquals(imageSegment.getTREsRawStructure(), imageSegment.getTREsRawStructure());
+        }
+    }
+
+    @Test
+    public void testDataExtensionConsumeHasOwnStream() throws IOException, NitfFormatException {
+        try (NitfSnapshot snapshot = NitfSnapshot.open(copyResource(temporaryFolder, TRE_OVERFLOW_FILE))) {
+            DataExtensionSegment segment = snapshot.getDataExtensionSegments().get(0);
+            AtomicLong firstPosition = new AtomicLong(-1);
+            segment.consume(first -> {
+                try {
+                    first.readByte();
+                    segment.consume(second -> {
+                        try {
+                            firstPosition.set(second.getStreamPosition());
+                        } catch (IOException ex) {
+                            throw new AssertionError(ex);
+                        }
+                    });
+                    assertEquals(1, first.getStreamPosition());
+                } catch (IOException ex) {
+                    throw new AssertionError(ex);
+                }
+            });
+            assertEquals(0, firstPosition.get());
+        }
+    }
+
+    @Test
+    public void testConcurrentViews() throws Exception {
+        Path file = copyResource(temporaryFolder, TEST_FILE);
+        byte[] expected = readAll(parse(file).getImageSegments().get(2));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (NitfSnapshot snapshot = NitfSnapshot.open(file)) {
+            List<Future<byte[]>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> readAll(snapshot.openImageSegment(2))));
+            }
+            for (Future<byte[]> result : results) {
+                assertArrayEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testReferenceCounting() throws IOException, NitfFormatException {
+        NitfSnapshot snapshot = NitfSnapshot.open(copyResource(temporaryFolder, TEST_FILE));
+        assertTrue(snapshot.retain());
+        snapshot.close();
+        snapshot.openImageSegment(0).getData().readByte();
+        snapshot.close();
+        assertFalse(snapshot.retain());
+        try {
+            snapshot.openImageSegment(0).getData().readByte();
+            fail("Expected IOException after the last reference was released");
+        } catch (IOException ex) {
+            // Expected, the file is closed
+        }
+    }
+
+    private static byte[] readAll(final ImageSegment imageSegment) throws IOException {
+        ImageInputStream data = imageSegment.getData();
+        data.seek(0);
+        byte[] bytes = new byte[(int) imageSegment.getDataLength()];
+        data.readFully(bytes);
+        return bytes;
+    }
+}
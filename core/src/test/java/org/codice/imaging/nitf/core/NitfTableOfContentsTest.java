@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.codice.imaging.nitf.core.common.CommonSegment;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfReader;
+import org.codice.imaging.nitf.core.common.impl.FileReader;
+import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.header.impl.NitfTableOfContents;
+import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
+import org.junit.Test;
+
+/**
+ * Tests for NitfTableOfContents.
+ */
+public class NitfTableOfContentsTest {
+
+    @Test
+    public void testMultipleImages() throws NitfFormatException, URISyntaxException {
+        checkAgainstFullParse("/JitcNitf21Samples/ns3361c.nsf");
+    }
+
+    @Test
+    public void testStreamingMode() throws NitfFormatException, URISyntaxException {
+        checkAgainstFullParse("/JitcNitf21Samples/ns3321a.nsf");
+    }
+
+    @Test
+    public void testNitf20Symbols() throws NitfFormatException, URISyntaxException {
+        checkAgainstFullParse("/JitcNitf20Samples/U_1060A.NTF");
+    }
+
+    @Test
+    public void testNitf20Labels() throws NitfFormatException, URISyntaxException {
+        checkAgainstFullParse("/JitcNitf20Samples/U_1122A.NTF");
+    }
+
+    @Test
+    public void testSingleSegment() throws NitfFormatException, URISyntaxException {
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.ALL_SEGMENT_DATA);
+        NitfTableOfContents tableOfContents = NitfParser.readTableOfContents(getReader("/JitcNitf21Samples/ns3361c.nsf"), parseStrategy);
+        int last = tableOfContents.getImageSegments().size() - 1;
+        tableOfContents.parseImageSegment(last);
+        assertEquals(1, parseStrategy.getDataSource().getImageSegments().size());
+        assertTrue(parseStrategy.getDataSource().getTextSegments().isEmpty());
+        assertEquals(tableOfContents.getImageSegments().get(last).getDataLength(),
+                parseStrategy.getDataSource().getImageSegments().get(0).getDataLength());
+    }
+
+    @Test(expected = NitfFormatException.class)
+    public void testNotSeekable() throws NitfFormatException {
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.HEADERS_ONLY);
+        NitfReader reader = new NitfInputStreamReader(getClass().getResourceAsStream("/JitcNitf21Samples/ns3361c.nsf"));
+        NitfTableOfContents tableOfContents = NitfParser.readTableOfContents(reader, parseStrategy);
+        tableOfContents.parseImageSegment(1);
+        assertEquals(1, parseStrategy.getDataSource().getImageSegments().size());
+        tableOfContents.parseImageSegment(0);
+    }
+
+    private void checkAgainstFullParse(final String fileName) throws NitfFormatException, URISyntaxException {
+        SlottedParseStrategy fullParseStrategy = new SlottedParseStrategy(SlottedParseStrategy.HEADERS_ONLY);
+        NitfParser.parse(getReader(fileName), fullParseStrategy);
+        DataSource full = fullParseStrategy.getDataSource();
+
+        // Parse every segment, last first, to check that segments can be read in any order
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.HEADERS_ONLY);
+        NitfTableOfContents tableOfContents = NitfParser.readTableOfContents(getReader(fileName), parseStrategy);
+        assertEquals(full.getNitfHeader().getFileTitle(), tableOfContents.getNitfHeader().getFileTitle());
+        for (int i = tableOfContents.getImageSegments().size() - 1; i >= 0; i--) {
+            tableOfContents.parseImageSegment(i);
+        }
+        for (int i = tableOfContents.getGraphicSegments().size() - 1; i >= 0; i--) {
+            tableOfContents.parseGraphicSegment(i);
+        }
+        for (int i = tableOfContents.getSymbolSegments().size() - 1; i >= 0; i--) {
+            tableOfContents.parseSymbolSegment(i);
+        }
+        for (int i = tableOfContents.getLabelSegments().size() - 1; i >= 0; i--) {
+            tableOfContents.parseLabelSegment(i);
+        }
+        for (int i = tableOfContents.getTextSegments().size() - 1; i >= 0; i--) {
+            tableOfContents.parseTextSegment(i);
+        }
+        for (int i = tableOfContents.getDataExtensionSegments().size() - 1; i >= 0; i--) {
+            tableOfContents.parseDataExtensionSegment(i);
+        }
+        DataSource random = parseStrategy.getDataSource();
+
+        checkSameSegments(full.getImageSegments(), random.getImageSegments());
+        checkSameSegments(full.getGraphicSegments(), random.getGraphicSegments());
+        checkSameSegments(full.getSymbolSegments(), random.getSymbolSegments());
+        checkSameSegments(full.getLabelSegments(), random.getLabelSegments());
+        checkSameSegments(full.getTextSegments(), random.getTextSegments());
+        checkSameSegments(full.getDataExtensionSegments(), random.getDataExtensionSegments());
+    }
+
+    private static void checkSameSegments(final List<? extends CommonSegment> expected, final List<? extends CommonSegment> reversed) {
+        List<CommonSegment> actual = new ArrayList<>(reversed);
+        Collections.reverse(actual);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getIdentifier(), actual.get(i).getIdentifier());
+        }
+    }
+
+    private NitfReader getReader(final String fileName) throws NitfFormatException, URISyntaxException {
+        assertNotNull("Test file missing: " + fileName, getClass().getResource(fileName));
+        return new FileReader(new File(getClass().getResource(fileName).toURI().getPath()));
+    }
+}
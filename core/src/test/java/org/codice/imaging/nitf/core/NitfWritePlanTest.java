@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import org.apache.commons.io.IOUtils;
+import org.codice.imaging.nitf.core.common.CommonSegment;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.impl.NitfWritePlan;
+import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for NitfWritePlan.
+ */
+public class NitfWritePlanTest {
+
+    private static final int OVERSIZE = 100000;
+
+    private static final byte FILL = 0x55;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testMultipleImages() throws IOException, NitfFormatException {
+        checkPlan("/JitcNitf21Samples/ns3361c.nsf");
+    }
+
+    @Test
+    public void testGraphic() throws IOException, NitfFormatException {
+        checkPlan("/JitcNitf21Samples/ns3101b.nsf");
+    }
+
+    @Test
+    public void testAllSegmentTypesWithTreOverflow() throws IOException, NitfFormatException {
+        checkPlan("/JitcNitf20Samples/U_1130F.NTF");
+    }
+
+    @Test
+    public void testOversizedSegmentDoesNotOverwriteNextSegment() throws IOException, NitfFormatException {
+        String fileName = "/JitcNitf21Samples/ns3361c.nsf";
+        byte[] original = getBytes(fileName);
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.ALL_SEGMENT_DATA);
+        NitfParser.parse(new NitfInputStreamReader(getClass().getResourceAsStream(fileName)), parseStrategy);
+        NitfWritePlan plan = NitfWritePlan.create(parseStrategy.getDataSource());
+        List<NitfWritePlan.SegmentPlan> segments = plan.getSegments();
+
+        ImageSegment firstImage = parseStrategy.getDataSource().getImageSegments().get(0);
+        byte[] oversizedData = new byte[(int) segments.get(0).getDataLength() + OVERSIZE];
+        Arrays.fill(oversizedData, FILL);
+        firstImage.setData(new MemoryCacheImageInputStream(new ByteArrayInputStream(oversizedData)));
+
+        Path outputFile = temporaryFolder.newFile().toPath();
+        Files.write(outputFile, original);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (FileChannel channel = FileChannel.open(outputFile, StandardOpenOption.WRITE)) {
+            plan.writeTo(channel, executor);
+            fail("Expected the oversized segment to be rejected");
+        } catch (IOException ex) {
+            // expected
+        } finally {
+            executor.shutdown();
+        }
+
+        byte[] written = Files.readAllBytes(outputFile);
+        assertEquals(original.length, written.length);
+        int nextSegmentOffset = (int) segments.get(1).getSubheaderOffset();
+        assertArrayEquals(Arrays.copyOfRange(original, nextSegmentOffset, original.length),
+                Arrays.copyOfRange(written, nextSegmentOffset, written.length));
+    }
+
+    private void checkPlan(final String fileName) throws IOException, NitfFormatException {
+        byte[] original = getBytes(fileName);
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.ALL_SEGMENT_DATA);
+        NitfParser.parse(new NitfInputStreamReader(getClass().getResourceAsStream(fileName)), parseStrategy);
+        NitfWritePlan plan = NitfWritePlan.create(parseStrategy.getDataSource());
+
+        assertEquals(original.length, plan.getFileLength());
+        List<NitfWritePlan.SegmentPlan> segments = plan.getSegments();
+        assertFalse(segments.isEmpty());
+        long offset = plan.getFileHeaderLength();
+        for (NitfWritePlan.SegmentPlan segment : segments) {
+            CommonSegment commonSegment = segment.getSegment();
+            assertEquals(commonSegment.getHeaderLength(), segment.getSubheaderLength());
+            assertEquals(offset, segment.getSubheaderOffset());
+            assertEquals(offset + segment.getSubheaderLength(), segment.getDataOffset());
+            offset = segment.getDataOffset() + segment.getDataLength();
+
+            ByteArrayOutputStream subheader = new ByteArrayOutputStream();
+            segment.writeSubheader(new DataOutputStream(subheader));
+            byte[] expected = new byte[(int) segment.getSubheaderLength()];
+            System.arraycopy(original, (int) segment.getSubheaderOffset(), expected, 0, expected.length);
+            assertArrayEquals(expected, subheader.toByteArray());
+        }
+        assertEquals(plan.getFileLength(), offset);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        plan.writeTo(new DataOutputStream(output));
+        assertArrayEquals(original, output.toByteArray());
+    }
+
+    private byte[] getBytes(final String fileName) throws IOException {
+        assertNotNull("Test file missing: " + fileName, getClass().getResource(fileName));
+        try (InputStream inputStream = getClass().getResourceAsStream(fileName)) {
+            return IOUtils.toByteArray(inputStream);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.codice.imaging.nitf.core.common.CommonSegment;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfReader;
+import org.codice.imaging.nitf.core.common.impl.FileReader;
+import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.impl.PipelinedParser;
+import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
+import org.codice.imaging.nitf.core.label.LabelSegment;
+import org.codice.imaging.nitf.core.text.TextSegment;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests for PipelinedParser.
+ */
+public class PipelinedParserTest {
+
+    private static ForkJoinPool pool;
+
+    @BeforeClass
+    public static void createPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testMultipleImages() throws NitfFormatException, URISyntaxException, IOException {
+        checkAgainstSerialParse("/JitcNitf21Samples/ns3361c.nsf", true, SlottedParseStrategy.ALL_SEGMENT_DATA);
+        checkAgainstSerialParse("/JitcNitf21Samples/ns3361c.nsf", false, SlottedParseStrategy.ALL_SEGMENT_DATA);
+    }
+
+    @Test
+    public void testTres() throws NitfFormatException, URISyntaxException, IOException {
+        checkAgainstSerialParse("/WithBE.ntf", false, SlottedParseStrategy.ALL_SEGMENT_DATA);
+        checkAgainstSerialParse("/fromVTS/GHSarNITF21_good.ntf", false, SlottedParseStrategy.ALL_SEGMENT_DATA);
+    }
+
+    @Test
+    public void testHeadersOnly() throws NitfFormatException, URISyntaxException, IOException {
+        checkAgainstSerialParse("/JitcNitf21Samples/ns3361c.nsf", false, SlottedParseStrategy.HEADERS_ONLY);
+    }
+
+    @Test
+    public void testStreamingMode() throws NitfFormatException, URISyntaxException, IOException {
+        checkAgainstSerialParse("/JitcNitf21Samples/ns3321a.nsf", true, SlottedParseStrategy.ALL_SEGMENT_DATA);
+    }
+
+    @Test
+    public void testNitf20SymbolsAndLabels() throws NitfFormatException, URISyntaxException, IOException {
+        checkAgainstSerialParse("/JitcNitf20Samples/U_1060A.NTF", false, SlottedParseStrategy.ALL_SEGMENT_DATA);
+        checkAgainstSerialParse("/JitcNitf20Samples/U_1122A.NTF", false, SlottedParseStrategy.ALL_SEGMENT_DATA);
+    }
+
+    private void checkAgainstSerialParse(final String fileName, final boolean seekable, final int segmentData)
+            throws NitfFormatException, URISyntaxException, IOException {
+        SlottedParseStrategy serialStrategy = new SlottedParseStrategy(segmentData);
+        NitfParser.parse(getReader(fileName, seekable), serialStrategy);
+        DataSource expected = serialStrategy.getDataSource();
+
+        SlottedParseStrategy pipelinedStrategy = new SlottedParseStrategy(segmentData);
+        PipelinedParser.parse(getReader(fileName, seekable), pipelinedStrategy, pool);
+        DataSource actual = pipelinedStrategy.getDataSource();
+
+        assertEquals(expected.getNitfHeader().getFileTitle(), actual.getNitfHeader().getFileTitle());
+        checkSegments(expected.getImageSegments(), actual.getImageSegments());
+        checkSegments(expected.getGraphicSegments(), actual.getGraphicSegments());
+        checkSegments(expected.getSymbolSegments(), actual.getSymbolSegments());
+        checkSegments(expected.getLabelSegments(), actual.getLabelSegments());
+        checkSegments(expected.getTextSegments(), actual.getTextSegments());
+        checkSegments(expected.getDataExtensionSegments(), actual.getDataExtensionSegments());
+
+        for (int i = 0; i < expected.getImageSegments().size(); i++) {
+            ImageSegment expectedImage = expected.getImageSegments().get(i);
+            ImageSegment actualImage = actual.getImageSegments().get(i);
+            assertEquals(expectedImage.getNumBands(), actualImage.getNumBands());
+            assertEquals(expectedImage.getImageRepresentation(), actualImage.getImageRepresentation());
+            if (expectedImage.getData() == null) {
+                assertEquals(null, actualImage.getData());
+            } else {
+                byte[] expectedData = new byte[(int) expectedImage.getDataLength()];
+                expectedImage.getData().readFully(expectedData);
+                byte[] actualData = new byte[(int) actualImage.getDataLength()];
+                actualImage.getData().readFully(actualData);
+                assertArrayEquals(expectedData, actualData);
+            }
+        }
+        for (int i = 0; i < expected.getLabelSegments().size(); i++) {
+            LabelSegment expectedLabel = expected.getLabelSegments().get(i);
+            assertEquals(expectedLabel.getData(), actual.getLabelSegments().get(i).getData());
+        }
+        for (int i = 0; i < expected.getTextSegments().size(); i++) {
+            TextSegment expectedText = expected.getTextSegments().get(i);
+            assertEquals(expectedText.getData(), actual.getTextSegments().get(i).getData());
+        }
+    }
+
+    private static void checkSegments(final List<? extends CommonSegment> expected, final List<? extends CommonSegment> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getIdentifier(), actual.get(i).getIdentifier());
+            assertEquals(expected.get(i).getTREsRawStructure().getTREs().size(), actual.get(i).getTREsRawStructure().getTREs().size());
+            assertEquals(expected.get(i).getSecurityMetadata().getSecurityClassification(),
+                    actual.get(i).getSecurityMetadata().getSecurityClassification());
+        }
+    }
+
+    private NitfReader getReader(final String fileName, final boolean seekable) throws NitfFormatException, URISyntaxException {
+        assertNotNull("Test file missing: " + fileName, getClass().getResource(fileName));
+        if (seekable) {
+            return new FileReader(new File(getClass().getResource(fileName).toURI().getPath()));
+        }
+        return new NitfInputStreamReader(getClass().getResourceAsStream(fileName));
+    }
+}
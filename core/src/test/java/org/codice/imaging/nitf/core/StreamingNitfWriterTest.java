@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import javax.imageio.stream.ImageInputStream;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.FileReader;
+import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
+import org.codice.imaging.nitf.core.impl.StreamingNitfWriter;
+import org.codice.imaging.nitf.core.text.TextSegment;
+import org.codice.imaging.nitf.core.text.impl.TextSegmentFactory;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for StreamingNitfWriter.
+ */
+public class StreamingNitfWriterTest {
+
+    private static final String TEST_FILE = "/JitcNitf21Samples/i_3301a.ntf";
+    private static final int TILE_SIZE = 1000;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testStreamingRoundTrip() throws IOException, NitfFormatException {
+        DataSource first = parse();
+        DataSource second = parse();
+        ImageSegment incrementalImage = first.getImageSegments().get(0);
+        byte[] imageData = getData(incrementalImage);
+        incrementalImage.setDataLength(0);
+
+        File file = temporaryFolder.newFile();
+        try (OutputStream outputStream = new FileOutputStream(file);
+                StreamingNitfWriter writer = new StreamingNitfWriter(first.getNitfHeader(), outputStream)) {
+            DataOutput imageOutput = writer.startImageSegment(incrementalImage);
+            for (int offset = 0; offset < imageData.length; offset += TILE_SIZE) {
+                imageOutput.write(imageData, offset, Math.min(TILE_SIZE, imageData.length - offset));
+            }
+            writer.addImageSegment(second.getImageSegments().get(0));
+            TextSegment textSegment = TextSegmentFactory.getDefault(first.getNitfHeader().getFileType());
+            textSegment.setData("Streamed text");
+            writer.addTextSegment(textSegment);
+        }
+        assertEquals(imageData.length, incrementalImage.getDataLength());
+
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.ALL_SEGMENT_DATA);
+        FileReader reader = new FileReader(file);
+        NitfParser.parse(reader, parseStrategy);
+        reader.close();
+        DataSource streamed = parseStrategy.getDataSource();
+
+        assertEquals(first.getNitfHeader().getFileTitle(), streamed.getNitfHeader().getFileTitle());
+        assertEquals(2, streamed.getImageSegments().size());
+        assertArrayEquals(imageData, getData(streamed.getImageSegments().get(0)));
+        assertArrayEquals(imageData, getData(streamed.getImageSegments().get(1)));
+        assertEquals(1, streamed.getTextSegments().size());
+        assertEquals("Streamed text", streamed.getTextSegments().get(0).getData());
+        assertEquals(1, streamed.getDataExtensionSegments().size());
+        assertTrue(streamed.getDataExtensionSegments().get(0).isStreamingMode());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSegmentOrder() throws IOException, NitfFormatException {
+        DataSource dataSource = parse();
+        try (StreamingNitfWriter writer = new StreamingNitfWriter(dataSource.getNitfHeader(), new ByteArrayOutputStream())) {
+            TextSegment textSegment = TextSegmentFactory.getDefault(dataSource.getNitfHeader().getFileType());
+            textSegment.setData("Text");
+            writer.addTextSegment(textSegment);
+            writer.addImageSegment(dataSource.getImageSegments().get(0));
+        }
+    }
+
+    private DataSource parse() throws NitfFormatException {
+        assertNotNull("Test file missing: " + TEST_FILE, getClass().getResource(TEST_FILE));
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.ALL_SEGMENT_DATA);
+        NitfParser.parse(new NitfInputStreamReader(getClass().getResourceAsStream(TEST_FILE)), parseStrategy);
+        return parseStrategy.getDataSource();
+    }
+
+    private byte[] getData(final ImageSegment imageSegment) throws IOException {
+        ImageInputStream data = imageSegment.getData();
+        byte[] bytes = new byte[(int) imageSegment.getDataLength()];
+        data.seek(0);
+        data.readFully(bytes);
+        return bytes;
+    }
+}
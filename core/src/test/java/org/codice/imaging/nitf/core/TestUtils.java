@@ -14,11 +14,21 @@
  */
 package org.codice.imaging.nitf.core;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.FileReader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
 import org.codice.imaging.nitf.core.security.SecurityClassification;
 import org.codice.imaging.nitf.core.security.SecurityMetadata;
 import org.junit.Assert;
+import org.junit.rules.TemporaryFolder;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -76,4 +86,47 @@ public class TestUtils {
         assertEquals("", securityMetadata.getSecurityControlNumber());
     }
 
+    /**
+     * Copy a test resource to a new file in a temporary folder.
+     *
+     * @param temporaryFolder the folder to create the file in.
+     * @param resourceName the name of the resource, relative to the root of the test resources.
+     * @return the path to the copy.
+     * @throws IOException if the copy fails.
+     */
+    public static Path copyResource(final TemporaryFolder temporaryFolder, final String resourceName) throws IOException {
+        assertNotNull("Test file missing: " + resourceName, TestUtils.class.getResource(resourceName));
+        Path file = temporaryFolder.newFile().toPath();
+        try (InputStream inputStream = TestUtils.class.getResourceAsStream(resourceName)) {
+            Files.copy(inputStream, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return file;
+    }
+
+    /**
+     * Parse a file, keeping all of the segment data in memory.
+     *
+     * @param file the file to parse.
+     * @return the parsed file.
+     * @throws NitfFormatException if the file could not be parsed.
+     */
+    public static DataSource parse(final Path file) throws NitfFormatException {
+        return parse(file, SlottedParseStrategy.ALL_SEGMENT_DATA);
+    }
+
+    /**
+     * Parse a file, keeping the specified segment data in memory.
+     *
+     * @param file the file to parse.
+     * @param segmentData the segment data to keep, as for SlottedParseStrategy.
+     * @return the parsed file.
+     * @throws NitfFormatException if the file could not be parsed.
+     */
+    public static DataSource parse(final Path file, final int segmentData) throws NitfFormatException {
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(segmentData);
+        try (FileReader reader = new FileReader(file.toFile())) {
+            NitfParser.parse(reader, parseStrategy);
+        }
+        return parseStrategy.getDataSource();
+    }
 }
@@ -14,7 +14,10 @@
  */
 package org.codice.imaging.nitf.core.common.impl;
 
+import java.io.ByteArrayOutputStream;
 import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import static org.hamcrest.Matchers.is;
 import org.junit.After;
@@ -50,44 +53,50 @@ public class AbstractSegmentWriterTest {
 
     @Test
     public void testWriteENCRYP() throws Exception {
-        DataOutput mockOutput = mock(DataOutput.class);
-        AbstractSegmentWriter testWriter = new AbstractSegmentWriterImpl(mockOutput);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        AbstractSegmentWriter testWriter = new AbstractSegmentWriterImpl(new DataOutputStream(output));
         testWriter.writeENCRYP();
-        verify(mockOutput).writeBytes("0");
+        assertThat(output.toString(StandardCharsets.ISO_8859_1.name()), is("0"));
     }
 
     @Test
     public void testWriteFixedLengthString() throws Exception {
-        DataOutput mockOutput = mock(DataOutput.class);
-        AbstractSegmentWriter testWriter = new AbstractSegmentWriterImpl(mockOutput);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        AbstractSegmentWriter testWriter = new AbstractSegmentWriterImpl(new DataOutputStream(output));
         testWriter.writeFixedLengthString("Test", 4);
-        verify(mockOutput).writeBytes("Test");
+        assertThat(output.toString(StandardCharsets.ISO_8859_1.name()), is("Test"));
 
         assertThat(LOGGER.getLoggingEvents().isEmpty(), is(true));
+        output.reset();
         testWriter.writeFixedLengthString("Too Long", 6);
-        verify(mockOutput).writeBytes("Too Lo");
+        assertThat(output.toString(StandardCharsets.ISO_8859_1.name()), is("Too Lo"));
         assertThat(LOGGER.getLoggingEvents(), is(Arrays.asList(
                 LoggingEvent.warn("Truncated string \"Too Long\", max length is 6"))));
         LOGGER.clear();
 
+        output.reset();
         testWriter.writeFixedLengthString("Short", 7);
-        verify(mockOutput).writeBytes("Short  ");
+        assertThat(output.toString(StandardCharsets.ISO_8859_1.name()), is("Short  "));
         assertThat(LOGGER.getLoggingEvents().isEmpty(), is(true));
 
+        output.reset();
+        testWriter.writeFixedLengthString(null, 3);
+        assertThat(output.toString(StandardCharsets.ISO_8859_1.name()), is("   "));
     }
 
     @Test
     public void testWriteFixedLengthNumber() throws Exception {
-        DataOutput mockOutput = mock(DataOutput.class);
-        AbstractSegmentWriter testWriter = new AbstractSegmentWriterImpl(mockOutput);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        AbstractSegmentWriter testWriter = new AbstractSegmentWriterImpl(new DataOutputStream(output));
         assertThat(LOGGER.getLoggingEvents().isEmpty(), is(true));
 
         testWriter.writeFixedLengthNumber(3, 2);
-        verify(mockOutput).writeBytes("03");
+        assertThat(output.toString(StandardCharsets.ISO_8859_1.name()), is("03"));
         assertThat(LOGGER.getLoggingEvents().isEmpty(), is(true));
 
+        output.reset();
         testWriter.writeFixedLengthNumber(23, 2);
-        verify(mockOutput).writeBytes("23");
+        assertThat(output.toString(StandardCharsets.ISO_8859_1.name()), is("23"));
         assertThat(LOGGER.getLoggingEvents().isEmpty(), is(true));
 
         try {
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.common.impl;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for ChannelDataOutput and FileChannelImageInputStream.
+ */
+public class ChannelDataOutputTest {
+
+    private static final int SMALL_BUFFER_SIZE = 16;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testMatchesDataOutputStream() throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        try (DataOutputStream dataOutputStream = new DataOutputStream(expected)) {
+            writeSample(dataOutputStream);
+        }
+
+        File file = temporaryFolder.newFile();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+                ChannelDataOutput output = new ChannelDataOutput(channel, new DirectBufferPool(SMALL_BUFFER_SIZE, 2))) {
+            writeSample(output);
+            assertEquals(expected.size(), output.getBytesWritten());
+        }
+        assertArrayEquals(expected.toByteArray(), Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void testTransferFrom() throws IOException {
+        byte[] payload = new byte[100000];
+        new Random(1).nextBytes(payload);
+        File source = temporaryFolder.newFile();
+        Files.write(source.toPath(), payload);
+
+        File target = temporaryFolder.newFile();
+        try (FileChannel channel = FileChannel.open(target.toPath(), StandardOpenOption.WRITE);
+                ChannelDataOutput output = new ChannelDataOutput(channel);
+                FileChannelImageInputStream sourceStream = new FileChannelImageInputStream(new RandomAccessFile(source, "r"))) {
+            output.writeBytes("HEADER");
+            output.transferFrom(sourceStream.getChannel(), 0, sourceStream.length());
+            output.writeBytes("TRAILER");
+            assertEquals(payload.length + "HEADER".length() + "TRAILER".length(), output.getBytesWritten());
+        }
+
+        byte[] written = Files.readAllBytes(target.toPath());
+        assertThat(new String(written, 0, "HEADER".length(), "US-ASCII"), is("HEADER"));
+        byte[] transferred = new byte[payload.length];
+        System.arraycopy(written, "HEADER".length(), transferred, 0, payload.length);
+        assertArrayEquals(payload, transferred);
+        assertThat(new String(written, written.length - "TRAILER".length(), "TRAILER".length(), "US-ASCII"), is("TRAILER"));
+    }
+
+    @Test
+    public void testFileChannelImageInputStream() throws IOException {
+        byte[] payload = new byte[20000];
+        new Random(2).nextBytes(payload);
+        File source = temporaryFolder.newFile();
+        Files.write(source.toPath(), payload);
+
+        try (FileChannelImageInputStream stream = new FileChannelImageInputStream(new RandomAccessFile(source, "r"))) {
+            assertEquals(payload.length, stream.length());
+            assertEquals(payload[0] & 0xFF, stream.read());
+            stream.seek(15000);
+            assertEquals(payload[15000] & 0xFF, stream.read());
+            assertEquals(((payload[15001] & 0xFF) << 8) | (payload[15002] & 0xFF), stream.readUnsignedShort());
+
+            byte[] large = new byte[10000];
+            stream.seek(100);
+            stream.readFully(large);
+            for (int i = 0; i < large.length; i++) {
+                assertEquals(payload[100 + i], large[i]);
+            }
+
+            stream.seek(payload.length - 1);
+            assertEquals(payload[payload.length - 1] & 0xFF, stream.read());
+            assertEquals(-1, stream.read());
+        }
+    }
+
+    @Test
+    public void testFileChannelImageInputStreamRegion() throws IOException {
+        byte[] payload = new byte[20000];
+        new Random(4).nextBytes(payload);
+        File source = temporaryFolder.newFile();
+        Files.write(source.toPath(), payload);
+
+        try (FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+            FileChannelImageInputStream stream = new FileChannelImageInputStream(channel, 5000, 12000);
+            assertEquals(12000, stream.length());
+            assertEquals(payload[5000] & 0xFF, stream.read());
+
+            byte[] large = new byte[10000];
+            stream.seek(100);
+            stream.readFully(large);
+            for (int i = 0; i < large.length; i++) {
+                assertEquals(payload[5100 + i], large[i]);
+            }
+
+            stream.seek(11999);
+            assertEquals(payload[16999] & 0xFF, stream.read());
+            assertEquals(-1, stream.read());
+            stream.close();
+            assertThat(channel.isOpen(), is(true));
+
+            File target = temporaryFolder.newFile();
+            try (FileChannel targetChannel = FileChannel.open(target.toPath(), StandardOpenOption.WRITE);
+                    ChannelDataOutput output = new ChannelDataOutput(targetChannel)) {
+                new AbstractSegmentWriter(output, null) { }.writeSegmentData(new FileChannelImageInputStream(channel, 5000, 12000));
+            }
+            byte[] expected = new byte[12000];
+            System.arraycopy(payload, 5000, expected, 0, expected.length);
+            assertArrayEquals(expected, Files.readAllBytes(target.toPath()));
+        }
+    }
+
+    @Test
+    public void testPositionalWrites() throws IOException {
+        byte[] payload = new byte[30000];
+        new Random(5).nextBytes(payload);
+        File source = temporaryFolder.newFile();
+        Files.write(source.toPath(), payload);
+
+        File target = temporaryFolder.newFile();
+        try (FileChannel sourceChannel = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+                FileChannel channel = FileChannel.open(target.toPath(), StandardOpenOption.WRITE)) {
+            try (ChannelDataOutput second = new ChannelDataOutput(channel, 10006)) {
+                second.writeBytes("SECOND");
+                second.transferFrom(sourceChannel, 20000, 10000);
+            }
+            try (ChannelDataOutput first = new ChannelDataOutput(channel, 0)) {
+                first.writeBytes("FIRST!");
+                first.transferFrom(sourceChannel, 0, 10000);
+                assertEquals(10006, first.getBytesWritten());
+            }
+            assertEquals(0, channel.position());
+        }
+
+        byte[] written = Files.readAllBytes(target.toPath());
+        assertEquals(20012, written.length);
+        assertThat(new String(written, 0, 6, "US-ASCII"), is("FIRST!"));
+        assertThat(new String(written, 10006, 6, "US-ASCII"), is("SECOND"));
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(payload[i], written[6 + i]);
+            assertEquals(payload[20000 + i], written[10012 + i]);
+        }
+    }
+
+    private void writeSample(final DataOutput output) throws IOException {
+        output.writeBytes("NITF02.10");
+        output.writeInt(0x12345678);
+        output.writeShort(0x7FFE);
+        output.writeLong(Long.MIN_VALUE + 3);
+        output.writeBoolean(true);
+        output.writeByte(0x81);
+        output.writeChar('Z');
+        output.writeFloat(1.5f);
+        output.writeDouble(-2.25);
+        output.writeUTF("café");
+        output.writeChars("ab");
+        byte[] medium = new byte[SMALL_BUFFER_SIZE * 3 + 5];
+        new Random(3).nextBytes(medium);
+        output.write(medium, 2, SMALL_BUFFER_SIZE - 3);
+        output.write(medium);
+        for (int i = 0; i < SMALL_BUFFER_SIZE * 20; i++) {
+            output.write(i);
+        }
+    }
+}
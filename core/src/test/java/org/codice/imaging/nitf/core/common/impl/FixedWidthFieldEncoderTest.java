@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.common.impl;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests for FixedWidthFieldEncoder.
+ */
+public class FixedWidthFieldEncoderTest {
+
+    private static final int RANDOM_SAMPLES = 20000;
+
+    private static final double[] SPECIAL_VALUES = {
+        0.0, -0.0, 1.0, -1.0, 0.5, 1.5, 2.5, 0.0000005, 0.0000015, -0.0000005, 0.1234565, 9.9999995, 99.9999999,
+        123.456, -45.125, 179.9999999, -89.9999999, 999999.999999, 0.001, 1.0E-10, -1.0E-10, 1.0E9, 1.0E15, 1.0E20,
+        123456789.123456, Double.MIN_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, Double.NaN,
+        Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 9.99999995E10, 1.0E100, 1.0E-100, 6.02214076E23
+    };
+
+    @Test
+    public void testIntegers() {
+        long[] values = {0, 1, 7, -7, 42, 99, 100, 12345, -12345, 999999999999L, Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long value : values) {
+            assertEquals(String.format("%d", value).length(), FixedWidthFieldEncoder.getIntegerWidth(value));
+            for (int width = 1; width < 25; width++) {
+                FixedWidthFieldEncoder encoder = new FixedWidthFieldEncoder(1);
+                encoder.appendZeroPaddedInteger(value, width);
+                assertEquals(String.format("%0" + width + "d", value), encoder.getString(0, encoder.length()));
+            }
+        }
+    }
+
+    @Test
+    public void testStrings() {
+        FixedWidthFieldEncoder encoder = new FixedWidthFieldEncoder();
+        encoder.appendSpacePaddedString("ABC", 6);
+        encoder.appendSpacePaddedString("Longer", 3);
+        encoder.appendSpacePaddedString(null, 2);
+        encoder.appendSpacePaddedString("é€", 2);
+        encoder.appendSpaces(0);
+        encoder.appendSpaces(1);
+        encoder.append(new byte[] {'X', 'Y'});
+        assertThat(encoder.getString(0, encoder.length()), is("ABC   Longer  é? XY"));
+        assertThat(encoder.getString(6, 12), is("Longer"));
+    }
+
+    @Test
+    public void testFixedPointReals() {
+        for (double value : SPECIAL_VALUES) {
+            checkFixedPointReal(value);
+        }
+        Random random = new Random(1);
+        for (int i = 0; i < RANDOM_SAMPLES; i++) {
+            checkFixedPointReal((random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(12) - 3));
+            checkFixedPointReal(random.nextInt(20000000) / 10000.0 - 1000.0);
+        }
+    }
+
+    @Test
+    public void testExponentReals() {
+        for (double value : SPECIAL_VALUES) {
+            checkExponentReal(value);
+        }
+        Random random = new Random(2);
+        for (int i = 0; i < RANDOM_SAMPLES; i++) {
+            checkExponentReal((random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(80) - 40));
+            checkExponentReal(random.nextInt(20000000) / 1000.0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExponentRealTooNarrow() {
+        new FixedWidthFieldEncoder().appendExponentReal(1.0, 5);
+    }
+
+    @Test
+    public void testReuseAndWrite() throws IOException {
+        FixedWidthFieldEncoder encoder = new FixedWidthFieldEncoder(4);
+        encoder.appendZeroPaddedInteger(3, 8);
+        encoder.clear();
+        encoder.appendZeroPaddedInteger(12, 3);
+        encoder.appendSpacePaddedString("A", 2);
+        encoder.appendExponentReal(-1.25, 13);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        encoder.writeTo(new DataOutputStream(output));
+        assertThat(new String(output.toByteArray(), StandardCharsets.ISO_8859_1), is("012A -1.2500000E+00"));
+        assertThat(new String(encoder.toByteArray(), StandardCharsets.ISO_8859_1), is("012A -1.2500000E+00"));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetStringOutOfRange() {
+        FixedWidthFieldEncoder encoder = new FixedWidthFieldEncoder();
+        encoder.appendSpaces(2);
+        encoder.getString(1, 3);
+    }
+
+    private void checkFixedPointReal(final double value) {
+        for (int width : new int[] {1, 7, 10, 15, 21}) {
+            FixedWidthFieldEncoder encoder = new FixedWidthFieldEncoder(1);
+            encoder.appendFixedPointReal(value, width);
+            assertEquals("Value " + value, String.format("%" + width + "f", value), encoder.getString(0, encoder.length()));
+        }
+    }
+
+    private void checkExponentReal(final double value) {
+        for (int width : new int[] {7, 10, 13, 20, 21, 25}) {
+            FixedWidthFieldEncoder encoder = new FixedWidthFieldEncoder(1);
+            encoder.appendExponentReal(value, width);
+            String expected = String.format("%0" + width + "." + (width - "X.E+ZZ".length()) + "E", value);
+            assertEquals("Value " + value, expected, encoder.getString(0, encoder.length()));
+        }
+    }
+}
@@ -14,16 +14,26 @@
  */
 package org.codice.imaging.nitf.core.tre.impl;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.xml.transform.stream.StreamSource;
 import org.codice.imaging.nitf.core.common.NitfFormatException;
 import org.codice.imaging.nitf.core.common.TaggedRecordExtensionHandler;
+import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
 import org.codice.imaging.nitf.core.tre.Tre;
 import org.codice.imaging.nitf.core.tre.TreCollection;
 import org.codice.imaging.nitf.core.tre.TreSource;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -311,4 +321,40 @@ public class TreParser_Test {
         collection.add(tre1);
         assertCollectionCanBeSerialised(collection, TreSource.ExtendedHeaderData, 2);
     }
+
+    @Test
+    public void checkDescriptorsArePerParserWithConcurrentParsing() throws Exception {
+        TreCollectionParser registeredParser = new TreCollectionParser();
+        registeredParser.registerAdditionalTREdescriptor(new StreamSource(new StringReader(
+                "<?xml version=\"1.0\"?><tres><tre name=\"TSTTRE\" location=\"image\"><field name=\"VALUE\" length=\"8\"/></tre></tres>")));
+        byte[] treBytes = "TSTTRE00008ABCDEFGH".getBytes(StandardCharsets.US_ASCII);
+
+        // Creating other parsers while the registered parser is in use must not drop its extra descriptor
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Tre>> registeredResults = new ArrayList<>();
+            List<Future<Tre>> otherResults = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                registeredResults.add(executor.submit(() -> parseOne(registeredParser, treBytes)));
+                otherResults.add(executor.submit(() -> parseOne(new TreCollectionParser(), treBytes)));
+                registeredResults.add(executor.submit(() -> parseOne(registeredParser, treBytes)));
+            }
+            for (Future<Tre> result : registeredResults) {
+                assertEquals("ABCDEFGH", result.get().getFieldValue("VALUE"));
+            }
+            for (Future<Tre> result : otherResults) {
+                assertNotNull(result.get().getRawData());
+                assertTrue(result.get().getEntries().isEmpty());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Tre parseOne(final TreCollectionParser parser, final byte[] treBytes) throws NitfFormatException {
+        TreCollection tres = parser.parse(new NitfInputStreamReader(new ByteArrayInputStream(treBytes)), treBytes.length,
+                TreSource.ImageExtendedSubheaderData);
+        assertEquals(1, tres.getTREs().size());
+        return tres.getTREs().get(0);
+    }
 }
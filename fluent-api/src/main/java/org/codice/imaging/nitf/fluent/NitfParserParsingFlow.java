@@ -15,6 +15,8 @@
 package org.codice.imaging.nitf.fluent;
 
 import java.net.URI;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 import java.util.function.Supplier;
 
 import javax.imageio.stream.ImageInputStream;
@@ -87,4 +89,28 @@ public interface NitfParserParsingFlow {
      */
     NitfSegmentsFlow build(ParseStrategy parseStrategy)
             throws NitfFormatException;
+
+    /**
+     * Creates a publisher that parses the NITF file one segment at a time, as the subscriber asks for them.
+     *
+     * Segments are only read when there is outstanding demand, so a slow subscriber throttles the reads. Image and
+     * data extension segment data is read on demand, and is only readable until the subscriber asks for the next
+     * item. The configured image data strategy is not used. The publisher accepts a single subscriber, and owns the
+     * input: it is closed when the publisher completes, fails, or is cancelled.
+     *
+     * @param executor the executor that runs the parsing. The parsing task waits for demand on its thread.
+     * @return the segment publisher.
+     */
+    Flow.Publisher<NitfPublishedItem> publishSegments(Executor executor);
+
+    /**
+     * Creates a publisher that parses the NITF file one segment at a time, and decodes each image segment into strips.
+     *
+     * This is the same as publishSegments(), except that each image segment is followed by its decoded image strips.
+     * Each strip is only decoded when there is outstanding demand for it.
+     *
+     * @param executor the executor that runs the parsing and decoding. The task waits for demand on its thread.
+     * @return the segment and image strip publisher.
+     */
+    Flow.Publisher<NitfPublishedItem> publishSegmentsAndImageStrips(Executor executor);
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.fluent;
+
+import java.awt.image.BufferedImage;
+
+import org.codice.imaging.nitf.core.common.CommonSegment;
+
+/**
+ * An item published by a NITF segment publisher.
+ *
+ * Each segment is published once as a segment item. When image strips are requested, each image segment item is
+ * followed by its decoded strips, in row order. Each strip covers one row of image blocks and the full image width.
+ */
+public interface NitfPublishedItem {
+
+    /**
+     * Get the segment this item belongs to.
+     *
+     * For an image strip, this is the image segment that the strip was decoded from.
+     *
+     * @return the segment.
+     */
+    CommonSegment getSegment();
+
+    /**
+     * Get the (zero-based) position of the segment in the file, counting all segment types in file order.
+     *
+     * @return the segment position.
+     */
+    int getSegmentIndex();
+
+    /**
+     * Check whether this item is a decoded image strip, rather than a segment.
+     *
+     * @return true if this item is an image strip, otherwise false.
+     */
+    boolean isImageStrip();
+
+    /**
+     * Get the decoded image strip.
+     *
+     * The strip belongs to the subscriber, and is not re-used by the publisher.
+     *
+     * @return the image strip, or null if this item is a segment.
+     */
+    BufferedImage getImageStrip();
+
+    /**
+     * Get the (zero-based) image segment row that corresponds to the top row of the strip.
+     *
+     * @return the first row of the strip, or 0 if this item is a segment.
+     */
+    int getFirstRow();
+}
@@ -1,11 +1,11 @@
 package org.codice.imaging.nitf.fluent.impl;
 
 import java.util.function.Supplier;
-import javax.imageio.stream.FileImageInputStream;
 import javax.imageio.stream.ImageInputStream;
 import javax.imageio.stream.MemoryCacheImageInputStream;
 
 import org.codice.imaging.nitf.core.HeapStrategy;
+import org.codice.imaging.nitf.core.common.impl.FileChannelImageInputStream;
 import org.codice.imaging.nitf.core.impl.ConfigurableHeapStrategy;
 import org.codice.imaging.nitf.core.impl.FileBackedHeapStrategy;
 import org.codice.imaging.nitf.core.impl.HeapStrategyConfiguration;
@@ -45,12 +45,12 @@ public class ImageDataStrategySupplier implements Supplier<HeapStrategy<ImageInp
      * Creates an instance of FileBackedHeapStrategy.
      *
      * Segment data is stored in temporary files until required. This method decreases heap usage, but increases
-     * rendering time.
+     * rendering time. When the data is written out to a file, it is copied directly from the temporary file.
      *
      * @return this ImageDataStrategySupplier.
      */
     public final ImageDataStrategySupplier file() {
-        this.imageDataStrategy = new FileBackedHeapStrategy<>(FileImageInputStream::new);
+        this.imageDataStrategy = new FileBackedHeapStrategy<>(FileChannelImageInputStream::new);
         return this;
     }
 
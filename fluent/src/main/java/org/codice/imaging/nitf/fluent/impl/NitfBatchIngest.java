@@ -0,0 +1,380 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.fluent.impl;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import javax.imageio.stream.ImageInputStream;
+import javax.xml.transform.Source;
+
+import org.codice.imaging.nitf.core.DataSource;
+import org.codice.imaging.nitf.core.HeapStrategy;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfReader;
+import org.codice.imaging.nitf.core.common.impl.FileReader;
+import org.codice.imaging.nitf.core.dataextension.DataExtensionSegment;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.impl.FileRegionHeapStrategy;
+import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
+import org.codice.imaging.nitf.core.tre.impl.TreCollectionParser;
+import org.codice.imaging.nitf.render.NitfRenderer;
+import org.codice.imaging.nitf.render.statistics.BandStatistics;
+import org.codice.imaging.nitf.render.statistics.ImageStatisticsCalculator;
+
+/**
+ * Parses many NITF files in parallel, with optional thumbnail and statistics tasks for each image segment.
+ *
+ * Files are processed on a fixed pool of worker threads, and no more files are taken from the input than there are
+ * workers, so a directory walk does not run ahead of the parsing. Each file is read through its own seekable reader,
+ * and image data is read straight from the file when a thumbnail or statistics task needs it, rather than being
+ * copied into memory.
+ *
+ * The memory budget limits the estimated working set of the files in progress. A file reserves a small amount while
+ * it is parsed, and each image segment reserves one row of blocks (plus the thumbnail) while it is decoded. A worker
+ * waits while the budget is used up, and never holds one reservation while it waits for another. A reservation
+ * larger than the whole budget is reduced to the budget, so a very large image is still processed, just not alongside
+ * anything else.
+ *
+ * All the files share one TRE parser, so the TRE descriptors are loaded once, and any additional descriptors apply to
+ * every file. The descriptors belong to that parser, so other parsers created while the batch runs do not change
+ * them. TRE overflow data extension segments are read, so the results have the same TREs as a full parse, but
+ * the data of other data extension segments is skipped.
+ */
+public final class NitfBatchIngest {
+
+    private static final long PARSE_RESERVATION = 1024 * 1024;
+
+    private int concurrency = Runtime.getRuntime().availableProcessors();
+
+    private long memoryBudget = Runtime.getRuntime().maxMemory() / 2;
+
+    private final List<Source> treDescriptors = new ArrayList<>();
+
+    private Predicate<Path> fileFilter = path -> true;
+
+    private boolean thumbnails = false;
+
+    private int thumbnailWidth = 0;
+
+    private int thumbnailHeight = 0;
+
+    private boolean statistics = false;
+
+    /**
+     * Set the number of files to process at the same time.
+     *
+     * The default is the number of available processors.
+     *
+     * @param numberOfWorkers the number of worker threads.
+     * @return this NitfBatchIngest.
+     */
+    public NitfBatchIngest concurrency(final int numberOfWorkers) {
+        if (numberOfWorkers < 1) {
+            throw new IllegalArgumentException("NitfBatchIngest: concurrency must be at least 1.");
+        }
+        concurrency = numberOfWorkers;
+        return this;
+    }
+
+    /**
+     * Set the memory budget for the files in progress.
+     *
+     * The default is half of the maximum heap size.
+     *
+     * @param bytes the memory budget, in bytes.
+     * @return this NitfBatchIngest.
+     */
+    public NitfBatchIngest memoryBudget(final long bytes) {
+        if (bytes < 1) {
+            throw new IllegalArgumentException("NitfBatchIngest: memory budget must be at least 1 byte.");
+        }
+        memoryBudget = bytes;
+        return this;
+    }
+
+    /**
+     * Add a TRE descriptor, shared by every file in the batch.
+     *
+     * @param xmlDescriptor XML Source containing the TRE (or TREs) format.
+     * @return this NitfBatchIngest.
+     */
+    public NitfBatchIngest treDescriptor(final Source xmlDescriptor) {
+        treDescriptors.add(xmlDescriptor);
+        return this;
+    }
+
+    /**
+     * Set the filter for the files found by a directory walk.
+     *
+     * The default accepts every regular file.
+     *
+     * @param filter the filter, which returns true for the files to process.
+     * @return this NitfBatchIngest.
+     */
+    public NitfBatchIngest fileFilter(final Predicate<Path> filter) {
+        fileFilter = filter;
+        return this;
+    }
+
+    /**
+     * Render a thumbnail of each image segment.
+     *
+     * @param maxWidth the maximum width of each thumbnail, in pixels.
+     * @param maxHeight the maximum height of each thumbnail, in pixels.
+     * @return this NitfBatchIngest.
+     */
+    public NitfBatchIngest thumbnails(final int maxWidth, final int maxHeight) {
+        if ((maxWidth < 1) || (maxHeight < 1)) {
+            throw new IllegalArgumentException("NitfBatchIngest: thumbnail size must be at least one pixel in each direction.");
+        }
+        thumbnails = true;
+        thumbnailWidth = maxWidth;
+        thumbnailHeight = maxHeight;
+        return this;
+    }
+
+    /**
+     * Calculate the per-band statistics of each image segment.
+     *
+     * @return this NitfBatchIngest.
+     */
+    public NitfBatchIngest statistics() {
+        statistics = true;
+        return this;
+    }
+
+    /**
+     * Process every file under a directory.
+     *
+     * This returns once every file has been reported to the sink.
+     *
+     * @param directory the directory to walk.
+     * @param sink the sink for the per-file results and errors.
+     * @throws IOException if the directory could not be walked.
+     * @throws NitfFormatException if a TRE descriptor could not be loaded.
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the files to be processed.
+     */
+    public void ingestDirectory(final Path directory, final NitfBatchSink sink)
+            throws IOException, NitfFormatException, InterruptedException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            ingest(paths.filter(Files::isRegularFile).filter(fileFilter).iterator(), sink);
+        }
+    }
+
+    /**
+     * Process a set of files.
+     *
+     * The file filter is not applied. This returns once every file has been reported to the sink.
+     *
+     * @param files the files to process.
+     * @param sink the sink for the per-file results and errors.
+     * @throws NitfFormatException if a TRE descriptor could not be loaded.
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the files to be processed.
+     */
+    public void ingest(final Collection<Path> files, final NitfBatchSink sink) throws NitfFormatException, InterruptedException {
+        ingest(files.iterator(), sink);
+    }
+
+    private void ingest(final Iterator<Path> files, final NitfBatchSink sink) throws NitfFormatException, InterruptedException {
+        TreCollectionParser treParser = new TreCollectionParser();
+        for (Source treDescriptor : treDescriptors) {
+            treParser.registerAdditionalTREdescriptor(treDescriptor);
+        }
+        MemoryBudget budget = new MemoryBudget(memoryBudget);
+        Semaphore workers = new Semaphore(concurrency);
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            while (files.hasNext()) {
+                Path file = files.next();
+                workers.acquire();
+                executor.execute(() -> {
+                    try {
+                        process(file, treParser, budget, sink);
+                    } finally {
+                        workers.release();
+                    }
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void process(final Path file, final TreCollectionParser treParser, final MemoryBudget budget,
+            final NitfBatchSink sink) {
+        NitfBatchResult result;
+        try {
+            result = parse(file, treParser, budget);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            sink.onError(file, ex);
+            return;
+        } catch (Exception ex) {
+            sink.onError(file, ex);
+            return;
+        }
+        sink.onResult(result);
+    }
+
+    private NitfBatchResult parse(final Path file, final TreCollectionParser treParser, final MemoryBudget budget)
+            throws IOException, NitfFormatException, InterruptedException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            SharedTreParseStrategy parseStrategy = new SharedTreParseStrategy(getSegmentData(), treParser);
+            parseStrategy.setImageHeapStrategy(new FileRegionHeapStrategy(channel));
+            parseStrategy.setDataExtensionSegmentHeapStrategy(new SkippingHeapStrategy());
+            long parseReservation = budget.reserve(PARSE_RESERVATION);
+            try {
+                FileReader reader = new FileReader(file.toFile());
+                try {
+                    NitfParser.parse(reader, parseStrategy);
+                } finally {
+                    reader.close();
+                }
+            } finally {
+                budget.release(parseReservation);
+            }
+            DataSource dataSource = parseStrategy.getDataSource();
+            List<BufferedImage> imageThumbnails = new ArrayList<>();
+            List<List<BandStatistics>> imageStatistics = new ArrayList<>();
+            for (ImageSegment imageSegment : dataSource.getImageSegments()) {
+                processImage(imageSegment, budget, imageThumbnails, imageStatistics);
+                imageSegment.setData(null);
+            }
+            for (DataExtensionSegment dataExtensionSegment : dataSource.getDataExtensionSegments()) {
+                dataExtensionSegment.setDataConsumer(null);
+            }
+            return new NitfBatchResult(file, dataSource, imageThumbnails, imageStatistics);
+        }
+    }
+
+    private int getSegmentData() {
+        // DES data is needed for the TRE overflow segments. Other DES data goes to the SkippingHeapStrategy.
+        int segmentData = SlottedParseStrategy.TEXT_DATA | SlottedParseStrategy.LABEL_DATA | SlottedParseStrategy.DES_DATA;
+        if (thumbnails || statistics) {
+            segmentData |= SlottedParseStrategy.IMAGE_DATA;
+        }
+        return segmentData;
+    }
+
+    private void processImage(final ImageSegment imageSegment, final MemoryBudget budget, final List<BufferedImage> imageThumbnails,
+            final List<List<BandStatistics>> imageStatistics) throws IOException, InterruptedException {
+        ImageInputStream data = imageSegment.getData();
+        if (data == null) {
+            if (thumbnails) {
+                imageThumbnails.add(null);
+            }
+            if (statistics) {
+                imageStatistics.add(null);
+            }
+            return;
+        }
+        long decodeReservation = budget.reserve(estimateDecodeBytes(imageSegment));
+        try {
+            if (thumbnails) {
+                data.seek(0);
+                imageThumbnails.add(new NitfRenderer().renderThumbnail(imageSegment, thumbnailWidth, thumbnailHeight));
+            }
+            if (statistics) {
+                data.seek(0);
+                imageStatistics.add(new ImageStatisticsCalculator().calculate(imageSegment));
+            }
+        } finally {
+            budget.release(decodeReservation);
+        }
+    }
+
+    private long estimateDecodeBytes(final ImageSegment imageSegment) {
+        long bytesPerPixel = imageSegment.getNumBands()
+                * ((imageSegment.getNumberOfBitsPerPixelPerBand() + Byte.SIZE - 1) / Byte.SIZE);
+        long pixels = imageSegment.getNumberOfColumns() * imageSegment.getNumberOfPixelsPerBlockVertical();
+        if (thumbnails) {
+            pixels += (long) thumbnailWidth * thumbnailHeight;
+        }
+        return pixels * bytesPerPixel;
+    }
+
+    /**
+     * A SlottedParseStrategy that uses the TRE parser shared by the whole batch.
+     */
+    private static final class SharedTreParseStrategy extends SlottedParseStrategy {
+        SharedTreParseStrategy(final int segmentData, final TreCollectionParser sharedTreParser) {
+            super(segmentData);
+            treCollectionParser = sharedTreParser;
+        }
+    }
+
+    /**
+     * A heap strategy that skips the data, for the data extension segments that are not TRE overflow.
+     */
+    private static final class SkippingHeapStrategy implements HeapStrategy<ImageInputStream> {
+        @Override
+        public ImageInputStream handleSegment(final NitfReader reader, final long length) throws NitfFormatException {
+            reader.skip(length);
+            return null;
+        }
+
+        @Override
+        public void cleanUp() {
+            // Nothing is kept.
+        }
+    }
+
+    /**
+     * Tracks the estimated memory used by the files in progress.
+     */
+    private static final class MemoryBudget {
+
+        private final long capacity;
+
+        private long available;
+
+        MemoryBudget(final long budget) {
+            capacity = budget;
+            available = budget;
+        }
+
+        synchronized long reserve(final long bytes) throws InterruptedException {
+            long amount = Math.min(bytes, capacity);
+            while (available < amount) {
+                wait();
+            }
+            available -= amount;
+            return amount;
+        }
+
+        synchronized void release(final long amount) {
+            available += amount;
+            notifyAll();
+        }
+    }
+}
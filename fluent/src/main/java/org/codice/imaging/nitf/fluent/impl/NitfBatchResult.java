@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.fluent.impl;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import org.codice.imaging.nitf.core.DataSource;
+import org.codice.imaging.nitf.render.statistics.BandStatistics;
+
+/**
+ * The result of processing one file in NitfBatchIngest.
+ */
+public final class NitfBatchResult {
+
+    private final Path file;
+
+    private final DataSource dataSource;
+
+    private final List<BufferedImage> thumbnails;
+
+    private final List<List<BandStatistics>> statistics;
+
+    NitfBatchResult(final Path nitfFile, final DataSource parsed, final List<BufferedImage> imageThumbnails,
+            final List<List<BandStatistics>> imageStatistics) {
+        file = nitfFile;
+        dataSource = parsed;
+        thumbnails = Collections.unmodifiableList(imageThumbnails);
+        statistics = Collections.unmodifiableList(imageStatistics);
+    }
+
+    /**
+     * Get the file that was processed.
+     *
+     * @return the path to the file.
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Get the parsed file.
+     *
+     * This holds the file header and every segment subheader, along with any TREs, and the text and label data. Image
+     * and data extension segment data is not retained.
+     *
+     * @return the parse results.
+     */
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Get the thumbnail of each image segment.
+     *
+     * @return the thumbnails, in image segment order, or an empty list if thumbnails were not requested.
+     */
+    public List<BufferedImage> getThumbnails() {
+        return thumbnails;
+    }
+
+    /**
+     * Get the per-band statistics of each image segment.
+     *
+     * @return the statistics, in image segment order, or an empty list if statistics were not requested.
+     */
+    public List<List<BandStatistics>> getStatistics() {
+        return statistics;
+    }
+}
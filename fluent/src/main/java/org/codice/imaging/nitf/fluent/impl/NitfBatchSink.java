@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.fluent.impl;
+
+import java.nio.file.Path;
+
+/**
+ * Receives the outcome of each file processed by NitfBatchIngest.
+ *
+ * Exactly one of the methods is called for each file. The calls are made from the batch worker threads, so an
+ * implementation must be thread-safe.
+ */
+public interface NitfBatchSink {
+
+    /**
+     * Accept the result for a file that was processed successfully.
+     *
+     * @param result the result for the file.
+     */
+    void onResult(NitfBatchResult result);
+
+    /**
+     * Accept the failure for a file that could not be processed.
+     *
+     * @param file the file that could not be processed.
+     * @param error the reason the file could not be processed.
+     */
+    void onError(Path file, Exception error);
+}
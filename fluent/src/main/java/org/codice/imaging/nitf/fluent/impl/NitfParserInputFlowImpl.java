@@ -52,9 +52,10 @@ public class NitfParserInputFlowImpl implements NitfParserInputFlow {
     @Override
     public final NitfParserParsingFlow file(final File inputFile, final long skipTimeout)
         throws FileNotFoundException {
-        NitfInputStreamReader nitfReader = new NitfInputStreamReader(new FileInputStream(inputFile));
+        FileInputStream fileInputStream = new FileInputStream(inputFile);
+        NitfInputStreamReader nitfReader = new NitfInputStreamReader(fileInputStream);
         nitfReader.setSkipTimeout(skipTimeout);
-        return new NitfParserParsingFlowImpl(nitfReader);
+        return new NitfParserParsingFlowImpl(nitfReader, fileInputStream);
     }
 
     /**
@@ -74,6 +75,6 @@ public class NitfParserInputFlowImpl implements NitfParserInputFlow {
     public final NitfParserParsingFlow inputStream(final InputStream inputStream, final long skipTimeout) {
         NitfInputStreamReader nitfReader = new NitfInputStreamReader(inputStream);
         nitfReader.setSkipTimeout(skipTimeout);
-        return new NitfParserParsingFlowImpl(nitfReader);
+        return new NitfParserParsingFlowImpl(nitfReader, inputStream);
     }
 }
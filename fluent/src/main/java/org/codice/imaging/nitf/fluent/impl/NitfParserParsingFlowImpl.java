@@ -19,6 +19,8 @@ import java.io.StringReader;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 import java.util.function.Supplier;
 
 import javax.imageio.stream.ImageInputStream;
@@ -34,7 +36,9 @@ import org.codice.imaging.nitf.core.common.NitfFormatException;
 import org.codice.imaging.nitf.core.common.NitfReader;
 import org.codice.imaging.nitf.core.header.impl.NitfParser;
 import org.codice.imaging.nitf.fluent.NitfParserParsingFlow;
+import org.codice.imaging.nitf.fluent.NitfPublishedItem;
 import org.codice.imaging.nitf.fluent.NitfSegmentsFlow;
+import org.codice.imaging.nitf.render.NitfRenderer;
 
 /**
  * A builder class that handles parsing.
@@ -42,13 +46,16 @@ import org.codice.imaging.nitf.fluent.NitfSegmentsFlow;
 public class NitfParserParsingFlowImpl implements NitfParserParsingFlow {
     private final NitfReader reader;
 
+    private final AutoCloseable input;
+
     private HeapStrategy<ImageInputStream> imageDataStrategy =
             new InMemoryHeapStrategy<>(MemoryCacheImageInputStream::new);
 
     private final List<Source> treDescriptors = new ArrayList<>();
 
-    NitfParserParsingFlowImpl(final NitfReader nitfReader) {
+    NitfParserParsingFlowImpl(final NitfReader nitfReader, final AutoCloseable nitfInput) {
         reader = nitfReader;
+        input = nitfInput;
     }
 
     /**
@@ -128,4 +135,22 @@ public class NitfParserParsingFlowImpl implements NitfParserParsingFlow {
         NitfParser.parse(reader, parseStrategy);
         return new NitfSegmentsFlowImpl(parseStrategy.getDataSource(), imageDataStrategy::cleanUp);
     }
+
+    /**
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public final Flow.Publisher<NitfPublishedItem> publishSegments(final Executor executor) {
+        return new NitfSegmentPublisher(reader, input, treDescriptors, null, executor);
+    }
+
+    /**
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public final Flow.Publisher<NitfPublishedItem> publishSegmentsAndImageStrips(final Executor executor) {
+        return new NitfSegmentPublisher(reader, input, treDescriptors, new NitfRenderer(), executor);
+    }
 }
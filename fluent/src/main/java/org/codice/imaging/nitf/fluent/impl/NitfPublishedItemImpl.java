@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.fluent.impl;
+
+import java.awt.image.BufferedImage;
+
+import org.codice.imaging.nitf.core.common.CommonSegment;
+import org.codice.imaging.nitf.fluent.NitfPublishedItem;
+
+/**
+ * An item published by NitfSegmentPublisher.
+ */
+final class NitfPublishedItemImpl implements NitfPublishedItem {
+
+    private final CommonSegment segment;
+
+    private final int segmentIndex;
+
+    private final BufferedImage imageStrip;
+
+    private final int firstRow;
+
+    NitfPublishedItemImpl(final CommonSegment commonSegment, final int index) {
+        this(commonSegment, index, null, 0);
+    }
+
+    NitfPublishedItemImpl(final CommonSegment commonSegment, final int index, final BufferedImage strip, final int row) {
+        segment = commonSegment;
+        segmentIndex = index;
+        imageStrip = strip;
+        firstRow = row;
+    }
+
+    @Override
+    public CommonSegment getSegment() {
+        return segment;
+    }
+
+    @Override
+    public int getSegmentIndex() {
+        return segmentIndex;
+    }
+
+    @Override
+    public boolean isImageStrip() {
+        return imageStrip != null;
+    }
+
+    @Override
+    public BufferedImage getImageStrip() {
+        return imageStrip;
+    }
+
+    @Override
+    public int getFirstRow() {
+        return firstRow;
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.fluent.impl;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.xml.transform.Source;
+
+import org.codice.imaging.nitf.core.common.CommonSegment;
+import org.codice.imaging.nitf.core.common.NitfReader;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.impl.NitfSegmentIterator;
+import org.codice.imaging.nitf.fluent.NitfPublishedItem;
+import org.codice.imaging.nitf.render.NitfRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A Flow.Publisher that parses a NITF file one segment at a time, as the subscriber asks for them.
+ *
+ * Nothing is read ahead of demand: each segment is parsed (and, with a renderer, each image strip is decoded) only
+ * once the subscriber has requested it. The work runs as a single task on the supplied executor, and that task waits
+ * on its thread while there is no outstanding demand.
+ *
+ * The publisher owns the input, and closes it when the publisher completes or fails. Cancelling the subscription
+ * closes the input straight away, which also interrupts any read that is in progress.
+ */
+public final class NitfSegmentPublisher implements Flow.Publisher<NitfPublishedItem> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NitfSegmentPublisher.class);
+
+    private final NitfReader reader;
+
+    private final AutoCloseable input;
+
+    private final List<Source> treDescriptors;
+
+    private final NitfRenderer renderer;
+
+    private final Executor executor;
+
+    private final AtomicBoolean subscribed = new AtomicBoolean(false);
+
+    /**
+     * Constructor.
+     *
+     * @param nitfReader the reader for the NITF file.
+     * @param nitfInput the input behind the reader, which is closed when the publisher is finished with it.
+     * @param descriptors additional TRE descriptors to register before parsing.
+     * @param imageRenderer the renderer used to decode image strips, or null to publish segments only.
+     * @param taskExecutor the executor that runs the parsing and decoding.
+     */
+    public NitfSegmentPublisher(final NitfReader nitfReader, final AutoCloseable nitfInput, final List<Source> descriptors,
+            final NitfRenderer imageRenderer, final Executor taskExecutor) {
+        reader = Objects.requireNonNull(nitfReader, "nitfReader");
+        input = Objects.requireNonNull(nitfInput, "nitfInput");
+        treDescriptors = new ArrayList<>(descriptors);
+        renderer = imageRenderer;
+        executor = Objects.requireNonNull(taskExecutor, "taskExecutor");
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Only one subscriber is supported, because the input can only be read once. Any later subscriber is signalled
+     * an IllegalStateException.
+     */
+    @Override
+    public void subscribe(final Flow.Subscriber<? super NitfPublishedItem> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new EmptySubscription());
+            subscriber.onError(new IllegalStateException("NitfSegmentPublisher only supports a single subscriber."));
+            return;
+        }
+        SegmentSubscription subscription = new SegmentSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        try {
+            executor.execute(subscription);
+        } catch (RejectedExecutionException ex) {
+            subscription.finish(ex);
+        }
+    }
+
+    private void closeInput() {
+        try {
+            input.close();
+        } catch (Exception ex) {
+            LOGGER.debug("Failed to close NITF input: {}", ex.getMessage(), ex);
+        }
+    }
+
+    private static BufferedImage copyOf(final BufferedImage strip) {
+        return new BufferedImage(strip.getColorModel(), strip.copyData(null), strip.isAlphaPremultiplied(), null);
+    }
+
+    private static final class EmptySubscription implements Flow.Subscription {
+
+        @Override
+        public void request(final long n) {
+            // Intentionally Empty
+        }
+
+        @Override
+        public void cancel() {
+            // Intentionally Empty
+        }
+    }
+
+    private final class SegmentSubscription implements Flow.Subscription, Runnable {
+
+        private final Flow.Subscriber<? super NitfPublishedItem> subscriber;
+
+        private final Object lock = new Object();
+
+        private final AtomicBoolean finished = new AtomicBoolean(false);
+
+        private long demand = 0;
+
+        private boolean cancelled = false;
+
+        private IllegalArgumentException requestError = null;
+
+        SegmentSubscription(final Flow.Subscriber<? super NitfPublishedItem> segmentSubscriber) {
+            subscriber = segmentSubscriber;
+        }
+
+        @Override
+        public void request(final long n) {
+            synchronized (lock) {
+                if (cancelled) {
+                    return;
+                }
+                if (n <= 0) {
+                    requestError = new IllegalArgumentException("Subscription.request() requires a positive count, not " + n);
+                } else {
+                    demand += n;
+                    if (demand < 0) {
+                        demand = Long.MAX_VALUE;
+                    }
+                }
+                lock.notifyAll();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (lock) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                lock.notifyAll();
+            }
+            if (finished.compareAndSet(false, true)) {
+                closeInput();
+            }
+        }
+
+        @Override
+        public void run() {
+            try (NitfSegmentIterator iterator = new NitfSegmentIterator(reader, treDescriptors)) {
+                int segmentIndex = 0;
+                while (iterator.hasNext() && awaitDemand()) {
+                    CommonSegment segment = iterator.next();
+                    subscriber.onNext(new NitfPublishedItemImpl(segment, segmentIndex));
+                    if ((renderer != null) && (segment instanceof ImageSegment)) {
+                        publishStrips((ImageSegment) segment, segmentIndex);
+                    }
+                    segmentIndex++;
+                }
+                finish(null);
+            } catch (Exception ex) {
+                finish(ex);
+            }
+        }
+
+        private void publishStrips(final ImageSegment imageSegment, final int segmentIndex) throws IOException {
+            renderer.renderToStrips(imageSegment, (strip, firstRow) -> {
+                if (!awaitDemand()) {
+                    throw new CancellationException("Subscription cancelled.");
+                }
+                subscriber.onNext(new NitfPublishedItemImpl(imageSegment, segmentIndex, copyOf(strip), firstRow));
+            });
+        }
+
+        private boolean awaitDemand() throws InterruptedIOException {
+            synchronized (lock) {
+                while ((demand == 0) && !cancelled && (requestError == null)) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while waiting for demand.");
+                    }
+                }
+                if (cancelled || (requestError != null)) {
+                    return false;
+                }
+                if (demand != Long.MAX_VALUE) {
+                    demand--;
+                }
+                return true;
+            }
+        }
+
+        private void finish(final Exception failure) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            closeInput();
+            Throwable error;
+            synchronized (lock) {
+                if (cancelled) {
+                    return;
+                }
+                error = requestError;
+            }
+            if (error == null) {
+                error = failure;
+            }
+            if (error == null) {
+                subscriber.onComplete();
+            } else {
+                subscriber.onError(error);
+            }
+        }
+    }
+}
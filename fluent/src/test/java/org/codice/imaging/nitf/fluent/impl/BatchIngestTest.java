@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.fluent.impl;
+
+import static org.codice.imaging.nitf.fluent.impl.TestUtils.copyResource;
+import static org.codice.imaging.nitf.fluent.impl.TestUtils.parse;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.xml.transform.stream.StreamSource;
+import org.codice.imaging.nitf.core.DataSource;
+import org.codice.imaging.nitf.core.common.CommonSegment;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.dataextension.DataExtensionSegment;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
+import org.codice.imaging.nitf.core.tre.Tre;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for NitfBatchIngest.
+ */
+public class BatchIngestTest {
+
+    private static final String[] TEST_FILES = {
+        "/JitcNitf21Samples/ns3361c.nsf",
+        "/JitcNitf21Samples/i_3301h.ntf",
+        "/WithBE.ntf",
+        "/fromVTS/GHSarNITF21_good.ntf",
+        "/JitcNitf20Samples/U_1122A.NTF",
+        "/JitcNitf20Samples/U_1130F.NTF"
+    };
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testDirectoryWithThumbnailsAndStatistics() throws IOException, NitfFormatException, InterruptedException {
+        Path directory = copyTestFiles();
+        Files.write(directory.resolve("not-a-nitf.txt"), "This is not a NITF file".getBytes("UTF-8"));
+
+        CollectingSink sink = new CollectingSink();
+        new NitfBatchIngest()
+                .concurrency(2)
+                .thumbnails(64, 64)
+                .statistics()
+                .ingestDirectory(directory, sink);
+
+        assertEquals(TEST_FILES.length, sink.results.size());
+        assertEquals(1, sink.errors.size());
+        assertTrue(sink.errors.containsKey(directory.resolve("not-a-nitf.txt")));
+
+        NitfBatchResult result = sink.results.get(directory.resolve("i_3301h.ntf"));
+        assertNotNull(result);
+        assertEquals(1, result.getThumbnails().size());
+        BufferedImage thumbnail = result.getThumbnails().get(0);
+        assertTrue(thumbnail.getWidth() <= 64);
+        assertTrue(thumbnail.getHeight() <= 64);
+        ImageSegment imageSegment = result.getDataSource().getImageSegments().get(0);
+        assertNull(imageSegment.getData());
+        assertEquals(imageSegment.getNumBands(), result.getStatistics().get(0).size());
+        assertEquals(imageSegment.getNumberOfRows() * imageSegment.getNumberOfColumns(),
+                result.getStatistics().get(0).get(0).getSampleCount());
+    }
+
+    @Test
+    public void testFileListHeadersOnly() throws IOException, NitfFormatException, InterruptedException {
+        Path directory = copyTestFiles();
+        CollectingSink sink = new CollectingSink();
+        new NitfBatchIngest()
+                .concurrency(3)
+                .ingest(Arrays.asList(directory.resolve("ns3361c.nsf"), directory.resolve("GHSarNITF21_good.ntf"),
+                        directory.resolve("U_1130F.NTF"), directory.resolve("missing.ntf")), sink);
+
+        assertEquals(3, sink.results.size());
+        assertEquals(1, sink.errors.size());
+        NitfBatchResult result = sink.results.get(directory.resolve("ns3361c.nsf"));
+        assertEquals(4, result.getDataSource().getImageSegments().size());
+        assertTrue(result.getThumbnails().isEmpty());
+        assertTrue(result.getStatistics().isEmpty());
+
+        // TREs are parsed by the shared TRE parser, with the same results as a full parse
+        checkTresMatchFullParse(sink.results.get(directory.resolve("GHSarNITF21_good.ntf")));
+        NitfBatchResult overflowResult = sink.results.get(directory.resolve("U_1130F.NTF"));
+        checkTresMatchFullParse(overflowResult);
+
+        // Only the TRE overflow segments are read
+        boolean foundOverflow = false;
+        for (DataExtensionSegment dataExtensionSegment : overflowResult.getDataSource().getDataExtensionSegments()) {
+            if (dataExtensionSegment.isTreOverflow()) {
+                assertFalse(dataExtensionSegment.getTREsRawStructure().getTREs().isEmpty());
+                foundOverflow = true;
+            }
+            dataExtensionSegment.consume(data -> fail("DES data should not be kept"));
+        }
+        assertTrue(foundOverflow);
+    }
+
+    private static void checkTresMatchFullParse(final NitfBatchResult result) throws NitfFormatException {
+        List<Tre> expected = getAllTres(parse(result.getFile(), SlottedParseStrategy.ALL_SEGMENT_DATA));
+        List<Tre> tres = getAllTres(result.getDataSource());
+        assertFalse(expected.isEmpty());
+        assertEquals(expected.size(), tres.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getName(), tres.get(i).getName());
+            assertEquals(expected.get(i).getEntries().size(), tres.get(i).getEntries().size());
+        }
+    }
+
+    @Test
+    public void testTreDescriptorWithConcurrentParse() throws IOException, NitfFormatException, InterruptedException {
+        // The PIX011 TRE in the file header has no built in descriptor
+        final String fileName = "/gdal3453.ntf";
+        Path directory = temporaryFolder.newFolder().toPath();
+        for (int i = 0; i < 8; i++) {
+            copyResource(fileName, directory.resolve("copy" + i + ".ntf"));
+        }
+
+        // The filter runs while the workers parse the files accepted before, so each file is also parsed (with a new
+        // TRE parser, and without the extra descriptor) during the batch
+        CollectingSink sink = new CollectingSink();
+        new NitfBatchIngest()
+                .concurrency(4)
+                .treDescriptor(new StreamSource(new StringReader(
+                        "<?xml version=\"1.0\"?><tres><tre name=\"PIX011\" location=\"header\"><field name=\"Info\" length=\"312\"/></tre></tres>")))
+                .fileFilter(path -> getHeaderTre(path).getRawData() != null)
+                .ingestDirectory(directory, sink);
+
+        assertTrue(sink.errors.isEmpty());
+        assertEquals(8, sink.results.size());
+        for (NitfBatchResult result : sink.results.values()) {
+            Tre pix011 = result.getDataSource().getNitfHeader().getTREsRawStructure().getTREs().get(0);
+            assertNull(pix011.getRawData());
+            assertEquals(1, pix011.getEntries().size());
+        }
+    }
+
+    private static Tre getHeaderTre(final Path file) {
+        try {
+            return parse(file, SlottedParseStrategy.HEADERS_ONLY).getNitfHeader().getTREsRawStructure().getTREs().get(0);
+        } catch (NitfFormatException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Test
+    public void testSmallMemoryBudget() throws IOException, NitfFormatException, InterruptedException {
+        Path directory = copyTestFiles();
+        CollectingSink sink = new CollectingSink();
+        new NitfBatchIngest()
+                .concurrency(4)
+                .memoryBudget(1)
+                .fileFilter(path -> path.toString().endsWith(".ntf"))
+                .statistics()
+                .ingestDirectory(directory, sink);
+
+        assertEquals(3, sink.results.size());
+        assertTrue(sink.errors.isEmpty());
+    }
+
+    private static List<Tre> getAllTres(final DataSource dataSource) {
+        List<Tre> tres = new ArrayList<>(dataSource.getNitfHeader().getTREsRawStructure().getTREs());
+        addSegmentTres(tres, dataSource.getImageSegments());
+        addSegmentTres(tres, dataSource.getGraphicSegments());
+        addSegmentTres(tres, dataSource.getSymbolSegments());
+        addSegmentTres(tres, dataSource.getLabelSegments());
+        addSegmentTres(tres, dataSource.getTextSegments());
+        addSegmentTres(tres, dataSource.getDataExtensionSegments());
+        return tres;
+    }
+
+    private static void addSegmentTres(final List<Tre> tres, final List<? extends CommonSegment> segments) {
+        for (CommonSegment segment : segments) {
+            tres.addAll(segment.getTREsRawStructure().getTREs());
+        }
+    }
+
+    private Path copyTestFiles() throws IOException {
+        Path directory = temporaryFolder.newFolder().toPath();
+        for (String fileName : TEST_FILES) {
+            copyResource(fileName, directory.resolve(fileName.substring(fileName.lastIndexOf('/') + 1)));
+        }
+        return directory;
+    }
+
+    private static final class CollectingSink implements NitfBatchSink {
+        private final Map<Path, NitfBatchResult> results = new ConcurrentHashMap<>();
+        private final Map<Path, Exception> errors = new ConcurrentHashMap<>();
+
+        @Override
+        public void onResult(final NitfBatchResult result) {
+            results.put(result.getFile(), result);
+        }
+
+        @Override
+        public void onError(final Path file, final Exception error) {
+            errors.put(file, error);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.fluent.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.codice.imaging.nitf.core.common.CommonSegment;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
+import org.codice.imaging.nitf.fluent.NitfPublishedItem;
+import org.codice.imaging.nitf.render.NitfRenderer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for NitfSegmentPublisher.
+ */
+public class PublisherFlowTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private static final long QUIET_MILLIS = 200;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testPublishAllSegments() throws Exception {
+        final String fileName = "/JitcNitf21Samples/ns3361c.nsf";
+        TrackingInputStream input = open(fileName);
+        TestSubscriber subscriber = new TestSubscriber();
+        new NitfParserInputFlowImpl().inputStream(input).publishSegments(executor).subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertTrue(subscriber.done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertNull(subscriber.error);
+        assertTrue(subscriber.completed);
+        assertTrue(input.closed);
+
+        List<String> identifiers = subscriber.items.stream()
+                .map(item -> item.getSegment().getIdentifier())
+                .collect(Collectors.toList());
+        List<String> expected = parseImageSegments(fileName).stream()
+                .map(CommonSegment::getIdentifier)
+                .collect(Collectors.toList());
+        assertEquals(expected, identifiers.subList(0, expected.size()));
+        for (int i = 0; i < subscriber.items.size(); i++) {
+            assertEquals(i, subscriber.items.get(i).getSegmentIndex());
+            assertFalse(subscriber.items.get(i).isImageStrip());
+        }
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        TrackingInputStream input = open("/JitcNitf21Samples/ns3361c.nsf");
+        TestSubscriber subscriber = new TestSubscriber();
+        new NitfParserInputFlowImpl().inputStream(input).publishSegments(executor).subscribe(subscriber);
+        assertNull(subscriber.received.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS));
+
+        subscriber.subscription.request(1);
+        NitfPublishedItem first = subscriber.received.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertNotNull(first);
+        assertNull(subscriber.received.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS));
+        long bytesRead = input.bytesRead;
+
+        // Image data is read on demand, while the segment is current
+        ImageSegment imageSegment = (ImageSegment) first.getSegment();
+        imageSegment.getData().readFully(new byte[(int) imageSegment.getDataLength()]);
+        assertEquals(bytesRead + imageSegment.getDataLength(), input.bytesRead);
+
+        subscriber.subscription.request(1);
+        assertNotNull(subscriber.received.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertFalse(subscriber.completed);
+        subscriber.subscription.cancel();
+    }
+
+    @Test
+    public void testCancelClosesInput() throws Exception {
+        TrackingInputStream input = open("/JitcNitf21Samples/ns3361c.nsf");
+        TestSubscriber subscriber = new TestSubscriber();
+        new NitfParserInputFlowImpl().inputStream(input).publishSegments(executor).subscribe(subscriber);
+        subscriber.subscription.request(1);
+        assertNotNull(subscriber.received.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        subscriber.subscription.cancel();
+        assertTrue(input.closed);
+        subscriber.subscription.request(1);
+        assertNull(subscriber.received.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS));
+        assertFalse(subscriber.completed);
+        assertNull(subscriber.error);
+    }
+
+    @Test
+    public void testImageStrips() throws Exception {
+        final String fileName = "/JitcNitf21Samples/i_3301h.ntf";
+        ImageSegment expectedSegment = parseImageSegments(fileName).get(0);
+        BufferedImage expected = new NitfRenderer().renderToClosestDataModel(expectedSegment);
+
+        TestSubscriber subscriber = new TestSubscriber();
+        new NitfParserInputFlowImpl().inputStream(open(fileName)).publishSegmentsAndImageStrips(executor).subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertTrue(subscriber.done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertNull(subscriber.error);
+
+        assertFalse(subscriber.items.get(0).isImageStrip());
+        int nextRow = 0;
+        for (NitfPublishedItem item : subscriber.items.subList(1, subscriber.items.size())) {
+            assertTrue(item.isImageStrip());
+            assertEquals(0, item.getSegmentIndex());
+            assertEquals(nextRow, item.getFirstRow());
+            BufferedImage strip = item.getImageStrip();
+            for (int row = 0; row < strip.getHeight(); row++) {
+                for (int column = 0; column < strip.getWidth(); column++) {
+                    assertEquals(expected.getRGB(column, nextRow + row), strip.getRGB(column, row));
+                }
+            }
+            nextRow += strip.getHeight();
+        }
+        assertEquals(expectedSegment.getNumberOfRows(), nextRow);
+    }
+
+    @Test
+    public void testNonPositiveRequest() throws Exception {
+        TrackingInputStream input = open("/JitcNitf21Samples/ns3361c.nsf");
+        TestSubscriber subscriber = new TestSubscriber();
+        new NitfParserInputFlowImpl().inputStream(input).publishSegments(executor).subscribe(subscriber);
+        subscriber.subscription.request(0);
+        assertTrue(subscriber.done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+        assertTrue(input.closed);
+    }
+
+    @Test
+    public void testSecondSubscriberRejected() throws Exception {
+        Flow.Publisher<NitfPublishedItem> publisher =
+                new NitfParserInputFlowImpl().inputStream(open("/JitcNitf21Samples/ns3361c.nsf")).publishSegments(executor);
+        TestSubscriber first = new TestSubscriber();
+        publisher.subscribe(first);
+        TestSubscriber second = new TestSubscriber();
+        publisher.subscribe(second);
+        assertTrue(second.done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(second.error instanceof IllegalStateException);
+        first.subscription.cancel();
+    }
+
+    private TrackingInputStream open(final String fileName) {
+        assertNotNull("Test file missing: " + fileName, getClass().getResource(fileName));
+        return new TrackingInputStream(getClass().getResourceAsStream(fileName));
+    }
+
+    private List<ImageSegment> parseImageSegments(final String fileName) throws NitfFormatException {
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.IMAGE_DATA);
+        NitfParser.parse(new NitfInputStreamReader(getClass().getResourceAsStream(fileName)), parseStrategy);
+        return parseStrategy.getDataSource().getImageSegments();
+    }
+
+    private static final class TrackingInputStream extends FilterInputStream {
+        private volatile long bytesRead = 0;
+        private volatile boolean closed = false;
+
+        TrackingInputStream(final InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) {
+                bytesRead++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            int count = super.read(b, off, len);
+            if (count > 0) {
+                bytesRead += count;
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            long count = super.skip(n);
+            bytesRead += count;
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+
+    private static final class TestSubscriber implements Flow.Subscriber<NitfPublishedItem> {
+        private final BlockingQueue<NitfPublishedItem> received = new LinkedBlockingQueue<>();
+        private final List<NitfPublishedItem> items = new CopyOnWriteArrayList<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Flow.Subscription subscription;
+        private volatile boolean completed = false;
+        private volatile Throwable error;
+
+        @Override
+        public void onSubscribe(final Flow.Subscription flowSubscription) {
+            subscription = flowSubscription;
+        }
+
+        @Override
+        public void onNext(final NitfPublishedItem item) {
+            items.add(item);
+            received.add(item);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            done.countDown();
+        }
+    }
+}
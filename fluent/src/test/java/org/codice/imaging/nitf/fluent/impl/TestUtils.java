@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.fluent.impl;
+
+import static org.junit.Assert.assertNotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.codice.imaging.nitf.core.DataSource;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.FileReader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
+
+/**
+ * Test utilities for working with NITF files.
+ */
+public class TestUtils {
+
+    public TestUtils() {
+    }
+
+    /**
+     * Copy a test resource to a file.
+     *
+     * @param resourceName the name of the resource, relative to the root of the test resources.
+     * @param target the file to copy to, which must not already exist.
+     * @throws IOException if the copy fails.
+     */
+    public static void copyResource(final String resourceName, final Path target) throws IOException {
+        assertNotNull("Test file missing: " + resourceName, TestUtils.class.getResource(resourceName));
+        try (InputStream inputStream = TestUtils.class.getResourceAsStream(resourceName)) {
+            Files.copy(inputStream, target);
+        }
+    }
+
+    /**
+     * Parse a file, keeping the specified segment data in memory.
+     *
+     * @param file the file to parse.
+     * @param segmentData the segment data to keep, as for SlottedParseStrategy.
+     * @return the parsed file.
+     * @throws NitfFormatException if the file could not be parsed.
+     */
+    public static DataSource parse(final Path file, final int segmentData) throws NitfFormatException {
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(segmentData);
+        try (FileReader reader = new FileReader(file.toFile())) {
+            NitfParser.parse(reader, parseStrategy);
+        }
+        return parseStrategy.getDataSource();
+    }
+}
@@ -14,9 +14,10 @@
  */
 package org.codice.imaging.nitf.render;
 
+import java.awt.Graphics2D;
 import java.io.IOException;
 
 @FunctionalInterface
 interface BlockConsumer {
-    void acccept(int rowIndex, int columnIndex) throws IOException;
+    void acccept(Graphics2D targetGraphic, int rowIndex, int columnIndex) throws IOException;
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.Graphics2D;
+import org.codice.imaging.nitf.render.imagemode.BlockRowTarget;
+
+/**
+ * BlockRowTarget that renders every row of blocks to the same Graphics2D.
+ */
+class GraphicsBlockRowTarget implements BlockRowTarget {
+
+    private final Graphics2D mTargetGraphic;
+
+    GraphicsBlockRowTarget(final Graphics2D targetGraphic) {
+        mTargetGraphic = targetGraphic;
+    }
+
+    @Override
+    public Graphics2D beginBlockRow(final int blockRowIndex) {
+        return mTargetGraphic;
+    }
+
+    @Override
+    public void endBlockRow(final int blockRowIndex) {
+        // Nothing to do, the rows are drawn directly on the target.
+    }
+}
@@ -0,0 +1,401 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.Rectangle;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import javax.imageio.stream.ImageInputStream;
+import org.codice.imaging.nitf.core.DataSource;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.ChannelDataOutput;
+import org.codice.imaging.nitf.core.common.impl.FileChannelImageInputStream;
+import org.codice.imaging.nitf.core.image.ImageMode;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.impl.NitfRewriter;
+import org.codice.imaging.nitf.core.impl.NitfWritePlan;
+import org.codice.imaging.nitf.core.impl.SlottedStorage;
+import org.codice.imaging.nitf.core.tre.Tre;
+import org.codice.imaging.nitf.core.tre.TreSource;
+import org.codice.imaging.nitf.core.tre.impl.TreEntryImpl;
+import org.codice.imaging.nitf.core.tre.impl.TreFactory;
+
+/**
+ * Extracts chips from image segments by copying whole blocks.
+ *
+ * A chip is made from the blocks that intersect the requested region. The block data is copied as it is recorded in
+ * the source file, without being decoded, so this is much cheaper than rendering and re-encoding the region. The
+ * blocks are moved straight from the source file to the chip file with FileChannel transfers, so memory use does not
+ * depend on the size of the chip. Because
+ * blocks are not split, the chip starts at the top left corner of the first block it uses. The right and bottom edges
+ * are trimmed to the requested region by reducing the number of columns and rows, which does not need any change to
+ * the block data.
+ *
+ * Uncompressed (NC and NM) and JPEG (C3 and M3) image segments are supported. Blocks that are masked in the source
+ * are masked in the chip.
+ *
+ * The chip is written as a NITF file with the source file header and a single image segment. The image subheader
+ * is the source subheader with the image structure updated, and an ICHIPB TRE that maps chip pixels to full image
+ * pixels. Other fields (including IGEOLO, and any TREs that refer to full image pixels) are not changed, and the
+ * ICHIPB TRE is how they relate to the chip. If the source is itself a chip, the new ICHIPB TRE maps back to the
+ * original full image.
+ */
+public final class ImageChipper implements AutoCloseable {
+
+    private static final String ICHIPB = "ICHIPB";
+    private static final String INTEGER_TYPE = "integer";
+    private static final String REAL_TYPE = "real";
+    private static final String COORDINATE_FORMAT = "%012.3f";
+    private static final String SCALE_FACTOR_FORMAT = "%010.5f";
+    private static final String FULL_IMAGE_SIZE_FORMAT = "%08d";
+    private static final String NOT_TRANSFORMED = "00";
+    private static final double PIXEL_CENTRE = 0.5;
+
+    private static final int MAX_BLOCK_SIZE_FIELD = 9999;
+    // IMDATOFF (4 bytes), BMRLNTH, TMRLNTH and TPXCDLNTH (2 bytes each)
+    private static final int MASK_HEADER_LENGTH = 10;
+    private static final int BLOCK_MASK_RECORD_LENGTH = 4;
+    private static final int BLOCK_NOT_RECORDED = 0xFFFFFFFF;
+    private static final long MAX_BLOCK_OFFSET = 0xFFFFFFFEL;
+
+    private final NitfRewriter mRewriter;
+
+    /**
+     * Create a chipper.
+     *
+     * @throws NitfFormatException if the TRE descriptions could not be loaded.
+     */
+    public ImageChipper() throws NitfFormatException {
+        mRewriter = new NitfRewriter();
+    }
+
+    /**
+     * Write a chip of an image segment to a new file.
+     *
+     * @param source the NITF file that holds the image segment.
+     * @param imageIndex the index of the image segment in the source file (from 0).
+     * @param region the region of the image to chip, in pixels. This is clipped to the image.
+     * @param target the file to write the chip to.
+     * @return the area of the full image that the chip covers, in pixels.
+     * @throws IOException if the source could not be read or the chip could not be written.
+     * @throws NitfFormatException if the source could not be parsed, or the chip headers could not be serialised.
+     */
+    public Rectangle chip(final Path source, final int imageIndex, final Rectangle region, final Path target)
+            throws IOException, NitfFormatException {
+        DataSource dataSource = mRewriter.open(source);
+        ImageSegment imageSegment = dataSource.getImageSegments().get(imageIndex);
+        checkSupported(imageSegment);
+        Rectangle chipArea = getChipArea(imageSegment, region);
+        ChipBlocks chipBlocks = new ChipBlocks(imageSegment, chipArea);
+
+        Tre chipTre = createChipTre(imageSegment, chipArea);
+        for (Tre sourceChipTre : imageSegment.getTREsRawStructure().getTREsWithName(ICHIPB)) {
+            imageSegment.getTREsRawStructure().remove(sourceChipTre);
+        }
+        imageSegment.getTREsRawStructure().add(chipTre);
+        setChipStructure(imageSegment, chipArea);
+        imageSegment.setDataLength(chipBlocks.getDataLength());
+
+        SlottedStorage chip = new SlottedStorage();
+        chip.setNitfHeader(dataSource.getNitfHeader());
+        chip.getImageSegments().add(imageSegment);
+        write(NitfWritePlan.create(chip, mRewriter.getTreParser()), chipBlocks, target);
+        return chipArea;
+    }
+
+    private static void write(final NitfWritePlan plan, final ChipBlocks chipBlocks, final Path target) throws IOException {
+        try (FileChannel channel = FileChannel.open(target,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                ChannelDataOutput output = new ChannelDataOutput(channel)) {
+            plan.writeFileHeader(output);
+            NitfWritePlan.SegmentPlan segment = plan.getSegments().get(0);
+            segment.writeSubheader(output);
+            chipBlocks.writeTo(output);
+            if (output.getBytesWritten() != plan.getFileLength()) {
+                throw new IOException("ImageChipper: wrote " + output.getBytesWritten() + " bytes, but expected " + plan.getFileLength());
+            }
+        }
+    }
+
+    private static void checkSupported(final ImageSegment imageSegment) {
+        switch (imageSegment.getImageCompression()) {
+            case NOTCOMPRESSED:
+            case NOTCOMPRESSEDMASK:
+                break;
+            case JPEG:
+            case JPEGMASK:
+                if (imageSegment.getImageMode() == ImageMode.BANDSEQUENTIAL) {
+                    throw new UnsupportedOperationException("ImageChipper: band sequential JPEG images are not supported");
+                }
+                break;
+            default:
+                throw new UnsupportedOperationException("ImageChipper: unsupported image compression: "
+                        + imageSegment.getImageCompression());
+        }
+    }
+
+    private static boolean isJpeg(final ImageSegment imageSegment) {
+        switch (imageSegment.getImageCompression()) {
+            case JPEG:
+            case JPEGMASK:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isMasked(final ImageSegment imageSegment) {
+        switch (imageSegment.getImageCompression()) {
+            case NOTCOMPRESSEDMASK:
+            case JPEGMASK:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static Rectangle getChipArea(final ImageSegment imageSegment, final Rectangle region) {
+        Rectangle clipped = region.intersection(
+                new Rectangle(0, 0, (int) imageSegment.getNumberOfColumns(), (int) imageSegment.getNumberOfRows()));
+        if (clipped.isEmpty()) {
+            throw new IllegalArgumentException("ImageChipper: region " + region + " is outside the image");
+        }
+        int blockWidth = (int) imageSegment.getNumberOfPixelsPerBlockHorizontal();
+        int blockHeight = (int) imageSegment.getNumberOfPixelsPerBlockVertical();
+        int left = (clipped.x / blockWidth) * blockWidth;
+        int top = (clipped.y / blockHeight) * blockHeight;
+        int right = clipped.x + clipped.width;
+        int bottom = clipped.y + clipped.height;
+        // A block size that does not fit in NPPBH or NPPBV means a single block the size of the image, so it can't be trimmed
+        if (blockWidth > MAX_BLOCK_SIZE_FIELD) {
+            right = (int) imageSegment.getNumberOfColumns();
+        }
+        if (blockHeight > MAX_BLOCK_SIZE_FIELD) {
+            bottom = (int) imageSegment.getNumberOfRows();
+        }
+        return new Rectangle(left, top, right - left, bottom - top);
+    }
+
+    private static long getBytesPerRecordedBlock(final ImageSegment imageSegment) {
+        if (imageSegment.getImageMode() == ImageMode.BANDSEQUENTIAL) {
+            return imageSegment.getNumberOfBytesPerBlock() / imageSegment.getNumBands();
+        }
+        return imageSegment.getNumberOfBytesPerBlock();
+    }
+
+    private static byte[] readPadPixelCode(final ImageSegment imageSegment, final ImageInputStream data) throws IOException {
+        if (!isMasked(imageSegment)) {
+            return new byte[0];
+        }
+        // Skip IMDATOFF, BMRLNTH and TMRLNTH
+        data.skipBytes(Integer.BYTES + Short.BYTES + Short.BYTES);
+        int padPixelCodeLength = data.readUnsignedShort();
+        byte[] padPixelCode = new byte[(padPixelCodeLength + Byte.SIZE - 1) / Byte.SIZE];
+        data.readFully(padPixelCode);
+        return padPixelCode;
+    }
+
+    private static void setChipStructure(final ImageSegment imageSegment, final Rectangle chipArea) {
+        int blockWidth = (int) imageSegment.getNumberOfPixelsPerBlockHorizontal();
+        int blockHeight = (int) imageSegment.getNumberOfPixelsPerBlockVertical();
+        imageSegment.setNumberOfColumns(chipArea.width);
+        imageSegment.setNumberOfRows(chipArea.height);
+        imageSegment.setNumberOfBlocksPerRow((chipArea.width + blockWidth - 1) / blockWidth);
+        imageSegment.setNumberOfBlocksPerColumn((chipArea.height + blockHeight - 1) / blockHeight);
+        if (blockWidth <= MAX_BLOCK_SIZE_FIELD) {
+            imageSegment.setNumberOfPixelsPerBlockHorizontalRaw(blockWidth);
+        }
+        if (blockHeight <= MAX_BLOCK_SIZE_FIELD) {
+            imageSegment.setNumberOfPixelsPerBlockVerticalRaw(blockHeight);
+        }
+    }
+
+    private static Tre createChipTre(final ImageSegment imageSegment, final Rectangle chipArea) throws NitfFormatException {
+        // Full image coordinates of the source pixel centres are fullImage + (source - sourceOrigin) * scale
+        double fullImageRowOrigin = PIXEL_CENTRE;
+        double fullImageColumnOrigin = PIXEL_CENTRE;
+        double sourceRowOrigin = PIXEL_CENTRE;
+        double sourceColumnOrigin = PIXEL_CENTRE;
+        double scale = 1.0;
+        long fullImageRows = imageSegment.getNumberOfRows();
+        long fullImageColumns = imageSegment.getNumberOfColumns();
+        List<Tre> sourceChipTres = imageSegment.getTREsRawStructure().getTREsWithName(ICHIPB);
+        if (!sourceChipTres.isEmpty() && (sourceChipTres.get(0).getIntValue("XFRM_FLAG") == 0)) {
+            Tre sourceChipTre = sourceChipTres.get(0);
+            fullImageRowOrigin = sourceChipTre.getDoubleValue("FI_ROW_11");
+            fullImageColumnOrigin = sourceChipTre.getDoubleValue("FI_COL_11");
+            sourceRowOrigin = sourceChipTre.getDoubleValue("OP_ROW_11");
+            sourceColumnOrigin = sourceChipTre.getDoubleValue("OP_COL_11");
+            scale = sourceChipTre.getDoubleValue("SCALE_FACTOR");
+            fullImageRows = sourceChipTre.getLongValue("FI_ROW");
+            fullImageColumns = sourceChipTre.getLongValue("FI_COL");
+        }
+
+        Tre tre = TreFactory.getDefault(ICHIPB, TreSource.ImageExtendedSubheaderData);
+        tre.add(new TreEntryImpl("XFRM_FLAG", NOT_TRANSFORMED, INTEGER_TYPE));
+        tre.add(new TreEntryImpl("SCALE_FACTOR", String.format(Locale.ROOT, SCALE_FACTOR_FORMAT, scale), REAL_TYPE));
+        tre.add(new TreEntryImpl("ANAMRPH_CORR", NOT_TRANSFORMED, INTEGER_TYPE));
+        tre.add(new TreEntryImpl("SCANBLK_NUM", NOT_TRANSFORMED, INTEGER_TYPE));
+        double firstRow = PIXEL_CENTRE;
+        double firstColumn = PIXEL_CENTRE;
+        double lastRow = chipArea.height - PIXEL_CENTRE;
+        double lastColumn = chipArea.width - PIXEL_CENTRE;
+        double[][] corners = {{firstRow, firstColumn}, {firstRow, lastColumn}, {lastRow, firstColumn}, {lastRow, lastColumn}};
+        String[] cornerNames = {"11", "12", "21", "22"};
+        for (int corner = 0; corner < corners.length; corner++) {
+            tre.add(new TreEntryImpl("OP_ROW_" + cornerNames[corner], formatCoordinate(corners[corner][0]), REAL_TYPE));
+            tre.add(new TreEntryImpl("OP_COL_" + cornerNames[corner], formatCoordinate(corners[corner][1]), REAL_TYPE));
+        }
+        for (int corner = 0; corner < corners.length; corner++) {
+            double row = fullImageRowOrigin + (chipArea.y + corners[corner][0] - sourceRowOrigin) * scale;
+            double column = fullImageColumnOrigin + (chipArea.x + corners[corner][1] - sourceColumnOrigin) * scale;
+            tre.add(new TreEntryImpl("FI_ROW_" + cornerNames[corner], formatCoordinate(row), REAL_TYPE));
+            tre.add(new TreEntryImpl("FI_COL_" + cornerNames[corner], formatCoordinate(column), REAL_TYPE));
+        }
+        tre.add(new TreEntryImpl("FI_ROW", String.format(Locale.ROOT, FULL_IMAGE_SIZE_FORMAT, fullImageRows), INTEGER_TYPE));
+        tre.add(new TreEntryImpl("FI_COL", String.format(Locale.ROOT, FULL_IMAGE_SIZE_FORMAT, fullImageColumns), INTEGER_TYPE));
+        return tre;
+    }
+
+    private static String formatCoordinate(final double value) {
+        return String.format(Locale.ROOT, COORDINATE_FORMAT, value);
+    }
+
+    @Override
+    public void close() throws IOException {
+        mRewriter.close();
+    }
+
+    /**
+     * The blocks of the source image that make up a chip, and where they are in the source file.
+     */
+    private static final class ChipBlocks {
+
+        private final FileChannel mSourceChannel;
+        private final long[] mSourceOffsets;
+        private final long[] mLengths;
+        private final byte[] mMaskTable;
+        private final long mDataLength;
+
+        ChipBlocks(final ImageSegment imageSegment, final Rectangle chipArea) throws IOException {
+            ImageInputStream data = imageSegment.getData();
+            if (!(data instanceof FileChannelImageInputStream) || !((FileChannelImageInputStream) data).isRegion()) {
+                throw new IllegalStateException("ImageChipper: image data is not a region of the source file");
+            }
+            FileChannelImageInputStream fileData = (FileChannelImageInputStream) data;
+            mSourceChannel = fileData.getChannel();
+            int blockWidth = (int) imageSegment.getNumberOfPixelsPerBlockHorizontal();
+            int blockHeight = (int) imageSegment.getNumberOfPixelsPerBlockVertical();
+            int firstColumn = chipArea.x / blockWidth;
+            int firstRow = chipArea.y / blockHeight;
+            int chipBlocksPerRow = (chipArea.width + blockWidth - 1) / blockWidth;
+            int chipBlocksPerColumn = (chipArea.height + blockHeight - 1) / blockHeight;
+            int numBandsToCopy = 1;
+            if (imageSegment.getImageMode() == ImageMode.BANDSEQUENTIAL) {
+                numBandsToCopy = imageSegment.getNumBands();
+            }
+
+            data.seek(0);
+            byte[] padPixelCode = readPadPixelCode(imageSegment, data);
+            data.seek(0);
+            ImageMask imageMask;
+            if (isMasked(imageSegment)) {
+                imageMask = new ImageMask(imageSegment, data);
+            } else {
+                imageMask = new ImageMask(imageSegment);
+            }
+            JpegBlockLocator jpegBlocks = null;
+            if (isJpeg(imageSegment)) {
+                jpegBlocks = new JpegBlockLocator(imageSegment, imageMask);
+            }
+
+            int numChipBlocks = chipBlocksPerRow * chipBlocksPerColumn * numBandsToCopy;
+            mSourceOffsets = new long[numChipBlocks];
+            mLengths = new long[numChipBlocks];
+            long[] blockOffsets = new long[numChipBlocks];
+            long blockDataLength = 0;
+            int chipBlockIndex = 0;
+            for (int band = 0; band < numBandsToCopy; band++) {
+                for (int row = 0; row < chipBlocksPerColumn; row++) {
+                    for (int column = 0; column < chipBlocksPerRow; column++) {
+                        int blockNumber = (firstRow + row) * imageSegment.getNumberOfBlocksPerRow() + firstColumn + column;
+                        if (imageMask.isMaskedBlock(blockNumber, band)) {
+                            blockOffsets[chipBlockIndex++] = -1;
+                            continue;
+                        }
+                        blockOffsets[chipBlockIndex] = blockDataLength;
+                        if (jpegBlocks != null) {
+                            mSourceOffsets[chipBlockIndex] = jpegBlocks.getBlockOffset(blockNumber);
+                            mLengths[chipBlockIndex] = jpegBlocks.getBlockLength(blockNumber);
+                        } else {
+                            mSourceOffsets[chipBlockIndex] = imageMask.getBlockOffset(blockNumber, band);
+                            mLengths[chipBlockIndex] = getBytesPerRecordedBlock(imageSegment);
+                        }
+                        mSourceOffsets[chipBlockIndex] += fileData.getRegionStart();
+                        blockDataLength += mLengths[chipBlockIndex];
+                        chipBlockIndex++;
+                    }
+                }
+            }
+
+            mMaskTable = createMaskTable(imageSegment, padPixelCode, blockOffsets);
+            mDataLength = mMaskTable.length + blockDataLength;
+        }
+
+        private static byte[] createMaskTable(final ImageSegment imageSegment, final byte[] padPixelCode,
+                final long[] blockOffsets) throws IOException {
+            if (!isMasked(imageSegment)) {
+                return new byte[0];
+            }
+            ByteArrayOutputStream maskTable = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(maskTable);
+            output.writeInt(MASK_HEADER_LENGTH + padPixelCode.length + BLOCK_MASK_RECORD_LENGTH * blockOffsets.length);
+            output.writeShort(BLOCK_MASK_RECORD_LENGTH);
+            output.writeShort(0);
+            output.writeShort(padPixelCode.length * Byte.SIZE);
+            output.write(padPixelCode);
+            for (long blockOffset : blockOffsets) {
+                if (blockOffset < 0) {
+                    output.writeInt(BLOCK_NOT_RECORDED);
+                } else if (blockOffset > MAX_BLOCK_OFFSET) {
+                    throw new IOException("ImageChipper: chip is too large for a masked image");
+                } else {
+                    output.writeInt((int) blockOffset);
+                }
+            }
+            output.flush();
+            return maskTable.toByteArray();
+        }
+
+        long getDataLength() {
+            return mDataLength;
+        }
+
+        void writeTo(final ChannelDataOutput output) throws IOException {
+            output.write(mMaskTable);
+            for (int i = 0; i < mLengths.length; i++) {
+                if (mLengths[i] > 0) {
+                    output.transferFrom(mSourceChannel, mSourceOffsets[i], mLengths[i]);
+                }
+            }
+        }
+    }
+}
@@ -38,12 +38,17 @@ public final class ImageMask {
 
     private ImageSegment mImageSegment = null;
 
+    private long imdatoff = 0;
+    private boolean blockMaskRead = false;
     private int[][] bmrnbndm = null;
     private final List<Integer> tmrnbndm = new ArrayList<>();
     private int tpxcd = -1;
+    private int tpxcdSample = -1;
 
     private static final int BLOCK_NOT_RECORDED = 0xFFFFFFFF;
 
+    private static final long UNSIGNED_INT_MASK = 0xFFFFFFFFL;
+
     /**
      * Create an image mask based on reading from an image segment and associated stream.
      *
@@ -81,8 +86,15 @@ public final class ImageMask {
         }
     }
 
+    private long getNumberOfBytesPerRecordedBlock() {
+        if (mImageSegment.getImageMode() == ImageMode.BANDSEQUENTIAL) {
+            return mImageSegment.getNumberOfBytesPerBlock() / mImageSegment.getNumBands();
+        }
+        return mImageSegment.getNumberOfBytesPerBlock();
+    }
+
     private void readImageMask(final ImageInputStream imageInputStream) throws IOException {
-        int imdatoff = imageInputStream.readInt();
+        imdatoff = imageInputStream.readInt() & UNSIGNED_INT_MASK;
         int bmrlnth = imageInputStream.readShort();
         int tmrlnth = imageInputStream.readShort();
         int tpxcdlnth = imageInputStream.readShort();
@@ -95,6 +107,7 @@ public final class ImageMask {
             int numBytesToRead = (tpxcdlnth + Byte.SIZE - 1) / Byte.SIZE;
             LOGGER.debug("Reading TPXCD at length: {}", numBytesToRead);
             int bandBits = (int) imageInputStream.readBits(numBytesToRead * Byte.SIZE);
+            tpxcdSample = bandBits;
             for (int i = 0; i < mImageSegment.getNumBands(); ++i) {
                 tpxcd |= (bandBits << (Byte.SIZE * i));
             }
@@ -105,6 +118,7 @@ public final class ImageMask {
             numBandsToRead = mImageSegment.getNumBands();
         }
         if (bmrlnth > 0) {
+            blockMaskRead = true;
             bmrnbndm = new int[mImageSegment.getNumberOfBlocksPerRow() * mImageSegment.getNumberOfBlocksPerColumn()][mImageSegment.getNumBands()];
             for (int m = 0; m < numBandsToRead; ++m) {
                 for (int n = 0; n < mImageSegment.getNumberOfBlocksPerRow() * mImageSegment.getNumberOfBlocksPerColumn(); ++n) {
@@ -151,6 +165,31 @@ public final class ImageMask {
         return (BLOCK_NOT_RECORDED == bmrnbndm[blockNumber][bandNumber]);
     }
 
+    /**
+     * Get the offset of the specified block within the image data.
+     *
+     * The offset is measured in bytes from the start of the image segment data (i.e. it includes the length of any
+     * image data mask table). Image blocks are counted in the same order as for isMaskedBlock().
+     *
+     * The result is not meaningful for a masked block, and is only valid for image data that is stored in fixed size
+     * blocks (i.e. not compressed).
+     *
+     * @param blockNumber the block number to get the offset for.
+     * @param bandNumber the band to get the offset for (only used for Band Sequential).
+     * @return the offset of the block in bytes.
+     */
+    public long getBlockOffset(final int blockNumber, final int bandNumber) {
+        int bandIndex = 0;
+        if (mImageSegment.getImageMode() == ImageMode.BANDSEQUENTIAL) {
+            bandIndex = bandNumber;
+        }
+        if (!blockMaskRead) {
+            int numBlocks = mImageSegment.getNumberOfBlocksPerRow() * mImageSegment.getNumberOfBlocksPerColumn();
+            return imdatoff + getNumberOfBytesPerRecordedBlock() * ((long) bandIndex * numBlocks + blockNumber);
+        }
+        return imdatoff + (bmrnbndm[blockNumber][bandIndex] & UNSIGNED_INT_MASK);
+    }
+
     /**
      * Test if the specified pixel value indicates "no data".
      *
@@ -167,10 +206,37 @@ public final class ImageMask {
         return (tpxcd == value);
     }
 
+    /**
+     * Test if the specified sample value (for a single band) indicates "no data".
+     *
+     * This differs from isPadPixel(), which tests a pixel value that combines all of the bands. The sample value is
+     * compared as recorded in the file.
+     *
+     * @param value the sample value to test.
+     * @return true if this is a pad ("no data") sample value, otherwise false.
+     */
+    public boolean isPadSample(final int value) {
+        if (tpxcd == -1) {
+            return false;
+        }
+        return (tpxcdSample == value);
+    }
+
+    /**
+     * Get the sample value (for a single band) that indicates "no data".
+     *
+     * This is the value that isPadSample() matches, as recorded in the file.
+     *
+     * @return the pad sample value, or -1 if there is no valid per-pixel masking.
+     */
+    public int getPadSample() {
+        return tpxcdSample;
+    }
+
     /**
      * Check whether this image mask has valid per-pixel masking.
      *
-     * If this is false, isPadPixel() will always return false.
+     * If this is false, isPadPixel() and isPadSample() will always return false.
      *
      * @return true if there is valid per-pixel masking, otherwise false
      */
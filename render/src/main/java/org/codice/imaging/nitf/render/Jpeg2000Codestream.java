@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Minimal reader for the main header of a JPEG 2000 codestream.
+ *
+ * This handles both a raw codestream (as used by NITF), and a codestream wrapped in the JP2 file format.
+ */
+final class Jpeg2000Codestream {
+
+    /**
+     * Value returned when the number of decomposition levels could not be determined.
+     */
+    static final int UNKNOWN = -1;
+
+    private static final int START_OF_CODESTREAM = 0xFF4F;
+    private static final int CODING_STYLE_DEFAULT = 0xFF52;
+    private static final int START_OF_TILE = 0xFF90;
+    private static final int END_OF_CODESTREAM = 0xFFD9;
+    private static final int CONTIGUOUS_CODESTREAM_BOX = 0x6A703263;
+    private static final int BOX_HEADER_LENGTH = 8;
+    private static final int EXTENDED_BOX_HEADER_LENGTH = 16;
+    private static final int MARKER_LENGTH_FIELD_LENGTH = 2;
+    private static final int CODING_STYLE_BYTES_BEFORE_LEVELS = 5;
+    private static final int MARKER_LENGTH = 2;
+
+    private Jpeg2000Codestream() {
+    }
+
+    /**
+     * Get the number of wavelet decomposition levels from the COD marker segment.
+     *
+     * The stream position is not changed by this method.
+     *
+     * @param imageInputStream the stream, positioned at the start of the codestream or JP2 file.
+     * @return the number of decomposition levels, or UNKNOWN if the header could not be read.
+     * @throws IOException if reading from the stream fails.
+     */
+    static int getDecompositionLevels(final ImageInputStream imageInputStream) throws IOException {
+        imageInputStream.mark();
+        try {
+            if (imageInputStream.readUnsignedShort() != START_OF_CODESTREAM) {
+                imageInputStream.reset();
+                imageInputStream.mark();
+                if (!skipToCodestreamBox(imageInputStream) || (imageInputStream.readUnsignedShort() != START_OF_CODESTREAM)) {
+                    return UNKNOWN;
+                }
+            }
+            while (true) {
+                int marker = imageInputStream.readUnsignedShort();
+                if ((marker == START_OF_TILE) || (marker == END_OF_CODESTREAM)) {
+                    return UNKNOWN;
+                }
+                int length = imageInputStream.readUnsignedShort();
+                if (marker == CODING_STYLE_DEFAULT) {
+                    imageInputStream.skipBytes(CODING_STYLE_BYTES_BEFORE_LEVELS);
+                    return imageInputStream.readUnsignedByte();
+                }
+                imageInputStream.skipBytes(length - MARKER_LENGTH_FIELD_LENGTH);
+            }
+        } catch (EOFException e) {
+            return UNKNOWN;
+        } finally {
+            imageInputStream.reset();
+        }
+    }
+
+    /**
+     * Find the tile-parts in a raw codestream.
+     *
+     * Each tile-part starts with an SOT marker segment that gives the tile number and the length of the tile-part,
+     * so the tile-parts are found by jumping from one SOT marker to the next, without reading the coded data.
+     *
+     * @param imageInputStream the stream containing the codestream.
+     * @param start the offset of the start of codestream marker.
+     * @param end the offset of the end of the codestream.
+     * @return the tile-parts, in codestream order.
+     * @throws IOException if reading from the stream fails, or the codestream is not valid.
+     */
+    static List<TilePart> findTileParts(final ImageInputStream imageInputStream, final long start, final long end)
+            throws IOException {
+        imageInputStream.seek(start);
+        if (imageInputStream.readUnsignedShort() != START_OF_CODESTREAM) {
+            throw new IOException("Jpeg2000Codestream: no start of codestream marker at offset " + start);
+        }
+        List<TilePart> tileParts = new ArrayList<>();
+        while (true) {
+            long markerOffset = imageInputStream.getStreamPosition();
+            int marker = imageInputStream.readUnsignedShort();
+            if (marker == END_OF_CODESTREAM) {
+                return tileParts;
+            }
+            int length = imageInputStream.readUnsignedShort();
+            if (marker != START_OF_TILE) {
+                imageInputStream.skipBytes(length - MARKER_LENGTH_FIELD_LENGTH);
+                continue;
+            }
+            int tileNumber = imageInputStream.readUnsignedShort();
+            long tilePartLength = imageInputStream.readUnsignedInt();
+            if (tilePartLength == 0) {
+                // Last tile-part, which runs up to the end of codestream marker
+                tilePartLength = end - MARKER_LENGTH - markerOffset;
+            }
+            tileParts.add(new TilePart(tileNumber, markerOffset, tilePartLength));
+            imageInputStream.seek(markerOffset + tilePartLength);
+        }
+    }
+
+    private static boolean skipToCodestreamBox(final ImageInputStream imageInputStream) throws IOException {
+        while (true) {
+            long boxLength = imageInputStream.readUnsignedInt();
+            int boxType = imageInputStream.readInt();
+            long headerLength = BOX_HEADER_LENGTH;
+            if (boxLength == 1) {
+                boxLength = imageInputStream.readLong();
+                headerLength = EXTENDED_BOX_HEADER_LENGTH;
+            }
+            if (boxType == CONTIGUOUS_CODESTREAM_BOX) {
+                return true;
+            }
+            if (boxLength < headerLength) {
+                return false;
+            }
+            imageInputStream.seek(imageInputStream.getStreamPosition() + boxLength - headerLength);
+        }
+    }
+
+    /**
+     * The location of one tile-part in a codestream.
+     */
+    static final class TilePart {
+        private final int mTileNumber;
+        private final long mOffset;
+        private final long mLength;
+
+        TilePart(final int tileNumber, final long offset, final long length) {
+            mTileNumber = tileNumber;
+            mOffset = offset;
+            mLength = length;
+        }
+
+        int getTileNumber() {
+            return mTileNumber;
+        }
+
+        long getOffset() {
+            return mOffset;
+        }
+
+        long getLength() {
+            return mLength;
+        }
+    }
+}
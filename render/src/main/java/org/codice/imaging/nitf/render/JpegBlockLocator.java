@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.io.EOFException;
+import java.io.IOException;
+import javax.imageio.stream.ImageInputStream;
+import org.codice.imaging.nitf.core.image.ImageCompression;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+
+/**
+ * Finds the JPEG stream for each block of a C3 or M3 image.
+ *
+ * For M3, the block mask gives the start of each recorded block. For C3, the blocks follow each other, so each
+ * block starts where the previous one ends. In both cases the end of a block is found by walking the JPEG markers
+ * up to the end of image marker.
+ */
+final class JpegBlockLocator {
+    private static final int MARKER_PREFIX = 0xFF;
+    private static final int MARKER_MASK = 0xFF;
+    private static final int STUFFED_ZERO = 0x00;
+    private static final int TEMPORARY_MARKER = 0x01;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ImageMask mImageMask;
+    private final boolean mMasked;
+    private final ImageInputStream mData;
+    private final byte[] mBuffer = new byte[BUFFER_SIZE];
+    private long mBufferStart = 0;
+    private int mBufferLength = 0;
+    private int mLastSequentialBlock = -1;
+    private long mLastSequentialBlockEnd = 0;
+
+    JpegBlockLocator(final ImageSegment imageSegment, final ImageMask imageMask) {
+        mMasked = imageSegment.getImageCompression() == ImageCompression.JPEGMASK;
+        mImageMask = imageMask;
+        mData = imageSegment.getData();
+    }
+
+    long getBlockOffset(final int blockNumber) throws IOException {
+        if (mMasked) {
+            return mImageMask.getBlockOffset(blockNumber, 0);
+        }
+        if (blockNumber <= mLastSequentialBlock) {
+            mLastSequentialBlock = -1;
+            mLastSequentialBlockEnd = 0;
+        }
+        while (mLastSequentialBlock < blockNumber - 1) {
+            mLastSequentialBlockEnd = findEndOfStream(mLastSequentialBlockEnd);
+            mLastSequentialBlock++;
+        }
+        return mLastSequentialBlockEnd;
+    }
+
+    long getBlockLength(final int blockNumber) throws IOException {
+        long offset = getBlockOffset(blockNumber);
+        long end = findEndOfStream(offset);
+        if (!mMasked) {
+            mLastSequentialBlock = blockNumber;
+            mLastSequentialBlockEnd = end;
+        }
+        return end - offset;
+    }
+
+    /**
+     * Find the end of the JPEG stream that starts at the given offset.
+     *
+     * @param start the offset of the start of image marker.
+     * @return the offset just after the end of image marker.
+     * @throws IOException if the data is not a complete JPEG stream.
+     */
+    long findEndOfStream(final long start) throws IOException {
+        if (!isMarker(start, JpegMarkerCode.START_OF_IMAGE)) {
+            throw new IOException("JpegBlockLocator: no JPEG start of image marker at offset " + start);
+        }
+        long position = start + Short.BYTES;
+        while (true) {
+            if (byteAt(position) != MARKER_PREFIX) {
+                throw new IOException("JpegBlockLocator: expected JPEG marker at offset " + position);
+            }
+            int code = byteAt(position + 1);
+            if (code == MARKER_PREFIX) {
+                // Fill byte
+                position++;
+                continue;
+            }
+            if (isMarker(position, JpegMarkerCode.END_OF_IMAGE)) {
+                return position + Short.BYTES;
+            }
+            boolean startOfScan = isMarker(position, JpegMarkerCode.START_OF_SCAN);
+            position += Short.BYTES;
+            if ((code == TEMPORARY_MARKER) || isRestartMarker(code)) {
+                continue;
+            }
+            position += (byteAt(position) << Byte.SIZE) | byteAt(position + 1);
+            if (startOfScan) {
+                position = skipEntropyCodedData(position);
+            }
+        }
+    }
+
+    private long skipEntropyCodedData(final long start) throws IOException {
+        long position = start;
+        while (true) {
+            if (byteAt(position) != MARKER_PREFIX) {
+                position++;
+                continue;
+            }
+            int code = byteAt(position + 1);
+            if ((code == STUFFED_ZERO) || isRestartMarker(code)) {
+                position += Short.BYTES;
+            } else if (code == MARKER_PREFIX) {
+                position++;
+            } else {
+                return position;
+            }
+        }
+    }
+
+    private boolean isMarker(final long position, final JpegMarkerCode marker) throws IOException {
+        return (byteAt(position) == MARKER_PREFIX) && (byteAt(position + 1) == (marker.getValue() & MARKER_MASK));
+    }
+
+    private static boolean isRestartMarker(final int code) {
+        return (code >= (JpegMarkerCode.RESTART_WITH_MODULO_8_COUNT_0.getValue() & MARKER_MASK))
+                && (code <= (JpegMarkerCode.RESTART_WITH_MODULO_8_COUNT_7.getValue() & MARKER_MASK));
+    }
+
+    private int byteAt(final long position) throws IOException {
+        if ((position < mBufferStart) || (position >= mBufferStart + mBufferLength)) {
+            mData.seek(position);
+            mBufferStart = position;
+            mBufferLength = Math.max(mData.read(mBuffer), 0);
+            if (mBufferLength == 0) {
+                throw new EOFException("JpegBlockLocator: JPEG stream ends at offset " + position);
+            }
+        }
+        return mBuffer[(int) (position - mBufferStart)] & MARKER_MASK;
+    }
+}
@@ -15,9 +15,12 @@
 package org.codice.imaging.nitf.render;
 
 import java.awt.Graphics2D;
+import java.awt.Point;
 import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
@@ -31,6 +34,8 @@ import javax.imageio.stream.ImageInputStream;
 import org.codice.imaging.nitf.core.image.ImageBand;
 import org.codice.imaging.nitf.core.image.ImageRepresentation;
 import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.render.dra.DraLookupTable;
+import org.codice.imaging.nitf.render.imagemode.BlockRowTarget;
 import org.codice.imaging.nitf.render.imagemode.ImageModeHandler;
 import org.codice.imaging.nitf.render.imagemode.ImageModeHandlerFactory;
 import org.codice.imaging.nitf.render.imagerep.ImageRepresentationHandler;
@@ -49,6 +54,9 @@ public class NitfRenderer {
             {"M"}
     };
 
+    private int[] selectedBands = null;
+    private DraLookupTable draLookupTable = null;
+
     /**
      * Constructor.
      */
@@ -56,6 +64,40 @@ public class NitfRenderer {
         // Intentionally Empty
     }
 
+    /**
+     * Select the bands to render.
+     *
+     * By default, the bands to render are chosen from the image representation and band representations. Setting
+     * one band will render that band as greyscale, and setting three bands will render an RGB composite (in red,
+     * green, blue order). For uncompressed images, the data for bands that are not selected is skipped instead of
+     * being decoded, which makes rendering a composite from a multispectral or hyperspectral image much cheaper.
+     *
+     * The selection applies to uncompressed and JPEG 2000 compressed images.
+     *
+     * @param bandIndices the zero-based indices of the bands to render, or null to restore the default selection.
+     */
+    public final void setSelectedBands(final int... bandIndices) {
+        if (bandIndices == null) {
+            selectedBands = null;
+        } else {
+            selectedBands = bandIndices.clone();
+        }
+    }
+
+    /**
+     * Set the dynamic range adjustment to apply.
+     *
+     * Uncompressed integer images are then rendered as 8 bit display values, with the lookup table applied to each
+     * sample as it is unpacked. This avoids both the dark appearance of bit-shifted 11 to 16 bit data, and a second
+     * pass over the image to stretch it. The lookup table must have been built for the image segment that is being
+     * rendered (see DraLookupTableCache). Other compression types are rendered without adjustment.
+     *
+     * @param lookupTable the lookup table, or null to render without adjustment.
+     */
+    public final void setDynamicRangeAdjustment(final DraLookupTable lookupTable) {
+        draLookupTable = lookupTable;
+    }
+
     /**
      * Render to the specified Graphics2D target.
      *
@@ -65,39 +107,67 @@ public class NitfRenderer {
      */
     public final void render(final ImageSegment imageSegment, final Graphics2D targetGraphic) throws IOException {
         switch (imageSegment.getImageCompression()) {
-        case BILEVEL:
-            render(new BilevelBlockRenderer(), imageSegment, targetGraphic);
-            break;
         case NOTCOMPRESSED:
         case NOTCOMPRESSEDMASK:
-            ImageModeHandler modeHandler = ImageModeHandlerFactory.forImageSegment(imageSegment);
+            getUncompressedImageModeHandler(imageSegment).handleImage(imageSegment, targetGraphic);
+            break;
+        default:
+            render(imageSegment, new GraphicsBlockRowTarget(targetGraphic),
+                    new Point(imageSegment.getImageLocationColumn(), imageSegment.getImageLocationRow()));
+            break;
+        }
+    }
 
-            if (modeHandler != null) {
-                modeHandler.handleImage(imageSegment, targetGraphic);
-            } else {
-                throw new UnsupportedOperationException("Unhandled NC/NM format");
-            }
+    /**
+     * Render the segment as a sequence of horizontal strips, using a data model that matches the NITF data as close as
+     * possible.
+     *
+     * Each strip covers one row of image blocks (or less for the last strip), and the full image width. Only one strip
+     * (and the blocks that make it up) is held in memory at any time, so this is suitable for images that are too
+     * large to render in one piece.
+     *
+     * The strip image is re-used, so the consumer must copy any data it wants to keep before returning. The strips
+     * are in image segment pixel coordinates - the image location (ILOC) is not applied.
+     *
+     * @param imageSegment the image segment header for the segment to be rendered
+     * @param consumer the consumer for each rendered strip
+     * @throws IOException if the source data could not be read from, or the consumer failed
+     */
+    public final void renderToStrips(final ImageSegment imageSegment, final StripConsumer consumer) throws IOException {
+        ImageRepresentationHandler handler = getImageRepresentationHandler(imageSegment);
+
+        render(imageSegment, new StripBuffer(imageSegment, handler, consumer), new Point(0, 0));
+    }
 
+    private void render(final ImageSegment imageSegment, final BlockRowTarget target, final Point imageLocation) throws IOException {
+        switch (imageSegment.getImageCompression()) {
+        case BILEVEL:
+            render(new BilevelBlockRenderer(), imageSegment, target, imageLocation);
+            break;
+        case NOTCOMPRESSED:
+        case NOTCOMPRESSEDMASK:
+            getUncompressedImageModeHandler(imageSegment).handleImageByBlockRows(imageSegment, target);
             break;
         case DOWNSAMPLEDJPEG:
         case JPEG:
             skipToMarker(imageSegment.getData(), JpegMarkerCode.START_OF_IMAGE);
-            renderJPEG(imageSegment, targetGraphic, null);
+            renderJPEG(imageSegment, target, null, 1);
             break;
         case VECTORQUANTIZATION:
         case VECTORQUANTIZATIONMASK:
             render(new VectorQuantizationBlockRenderer(),
                     imageSegment,
-                    targetGraphic);
+                    target,
+                    imageLocation);
             break;
         case JPEGMASK:
-            renderJPEG(imageSegment, targetGraphic, new ImageMask(imageSegment, imageSegment.getData()));
+            renderJPEG(imageSegment, target, new ImageMask(imageSegment, imageSegment.getData()), 1);
             break;
         case JPEG2000:
-            renderJPEG2k(imageSegment, targetGraphic, null);
+            renderJPEG2k(imageSegment, target, null);
             break;
         case JPEG2000MASK:
-            renderJPEG2k(imageSegment, targetGraphic, new ImageMask(imageSegment, imageSegment.getData()));
+            renderJPEG2k(imageSegment, target, new ImageMask(imageSegment, imageSegment.getData()));
             break;
         default:
             throw new UnsupportedOperationException("Unhandled image compression format: "
@@ -132,8 +202,7 @@ public class NitfRenderer {
      * @throws IOException if the source data could not be read from
      */
     public final BufferedImage renderToClosestDataModel(final ImageSegment imageSegment) throws IOException {
-        ImageRepresentationHandler handler =
-                ImageRepresentationHandlerFactory.forImageSegment(imageSegment);
+        ImageRepresentationHandler handler = getImageRepresentationHandler(imageSegment);
 
         BufferedImage img = handler.createBufferedImage(imageSegment.getImageLocationColumn()
                         + (int) imageSegment.getNumberOfColumns(),
@@ -146,56 +215,159 @@ public class NitfRenderer {
         return img;
     }
 
-    private void render(final BlockRenderer renderer, final ImageSegment imageSegment, final Graphics2D target) throws IOException {
+    /**
+     * Render a reduced size preview of the segment.
+     *
+     * The preview is subsampled by a whole number factor, chosen so that the result fits within the specified size
+     * while keeping the aspect ratio of the segment. This is much cheaper than rendering the full image and then
+     * scaling it, because the cheapest available method is used for each compression type:
+     * <ul>
+     * <li>uncompressed images only read the pixels that appear in the preview, and seek past the rest</li>
+     * <li>JPEG images use subsampled decoding, and blocks that have no pixels in the preview are not decoded</li>
+     * <li>JPEG 2000 images (with or without a block mask) are decoded from a reduced resolution level where the reader
+     * supports it</li>
+     * <li>other compression types are rendered one strip at a time, and decimated</li>
+     * </ul>
+     *
+     * The preview uses a data model that matches the NITF data as close as possible.
+     *
+     * @param imageSegment the image segment header for the segment to be rendered
+     * @param maxWidth the maximum width of the preview, in pixels
+     * @param maxHeight the maximum height of the preview, in pixels
+     * @return rendered preview image
+     * @throws IOException if the source data could not be read from
+     */
+    public final BufferedImage renderThumbnail(final ImageSegment imageSegment, final int maxWidth, final int maxHeight)
+            throws IOException {
+        if ((maxWidth < 1) || (maxHeight < 1)) {
+            throw new IllegalArgumentException("Thumbnail size must be at least one pixel in each direction");
+        }
+        int subsampling = Math.max(1, Math.max(divideRoundingUp(imageSegment.getNumberOfColumns(), maxWidth),
+                divideRoundingUp(imageSegment.getNumberOfRows(), maxHeight)));
+
+        ImageRepresentationHandler handler = getImageRepresentationHandler(imageSegment);
+        BufferedImage img = handler.createBufferedImage(divideRoundingUp(imageSegment.getNumberOfColumns(), subsampling),
+                divideRoundingUp(imageSegment.getNumberOfRows(), subsampling));
+        Graphics2D targetGraphic = img.createGraphics();
+
+        switch (imageSegment.getImageCompression()) {
+        case NOTCOMPRESSED:
+        case NOTCOMPRESSEDMASK:
+            ImageModeHandler modeHandler = getImageModeHandler(imageSegment);
+
+            if (modeHandler != null) {
+                modeHandler.handleImageSubsampled(imageSegment, subsampling, img);
+            } else {
+                throw new UnsupportedOperationException("Unhandled NC/NM format");
+            }
+
+            break;
+        case DOWNSAMPLEDJPEG:
+        case JPEG:
+            skipToMarker(imageSegment.getData(), JpegMarkerCode.START_OF_IMAGE);
+            renderJPEG(imageSegment, new GraphicsBlockRowTarget(targetGraphic), null, subsampling);
+            break;
+        case JPEGMASK:
+            renderJPEG(imageSegment, new GraphicsBlockRowTarget(targetGraphic),
+                    new ImageMask(imageSegment, imageSegment.getData()), subsampling);
+            break;
+        case JPEG2000:
+            renderJPEG2kThumbnail(imageSegment, targetGraphic, null, subsampling);
+            break;
+        case JPEG2000MASK:
+            renderJPEG2kThumbnail(imageSegment, targetGraphic, new ImageMask(imageSegment, imageSegment.getData()), subsampling);
+            break;
+        default:
+            renderDecimatedStrips(imageSegment, img, subsampling);
+            break;
+        }
+
+        targetGraphic.dispose();
+        return img;
+    }
+
+    private ImageRepresentationHandler getImageRepresentationHandler(final ImageSegment imageSegment) {
+        switch (imageSegment.getImageCompression()) {
+        case NOTCOMPRESSED:
+        case NOTCOMPRESSEDMASK:
+            return ImageRepresentationHandlerFactory.forImageSegment(imageSegment, selectedBands, draLookupTable);
+        default:
+            return ImageRepresentationHandlerFactory.forImageSegment(imageSegment, selectedBands);
+        }
+    }
+
+    private ImageModeHandler getImageModeHandler(final ImageSegment imageSegment) {
+        return ImageModeHandlerFactory.forImageSegment(imageSegment, getImageRepresentationHandler(imageSegment));
+    }
+
+    private ImageModeHandler getUncompressedImageModeHandler(final ImageSegment imageSegment) {
+        ImageModeHandler modeHandler = getImageModeHandler(imageSegment);
+        if (modeHandler == null) {
+            throw new UnsupportedOperationException("Unhandled NC/NM format");
+        }
+        return modeHandler;
+    }
+
+    private void render(final BlockRenderer renderer, final ImageSegment imageSegment, final BlockRowTarget target,
+            final Point imageLocation) throws IOException {
         renderer.setImageSegment(imageSegment, imageSegment.getData());
 
-        processBlocks(imageSegment, (rowIndex, columnIndex) -> {
+        processBlocks(imageSegment, target, (targetGraphic, rowIndex, columnIndex) -> {
             BufferedImage img = renderer.getImageBlock(rowIndex, columnIndex);
-            target.drawImage(img,
-                    imageSegment.getImageLocationColumn() + columnIndex
+            targetGraphic.drawImage(img,
+                    imageLocation.x + columnIndex
                             * (int) imageSegment.getNumberOfPixelsPerBlockHorizontal(),
-                    imageSegment.getImageLocationRow()
+                    imageLocation.y
                             + rowIndex * (int) imageSegment.getNumberOfPixelsPerBlockVertical(),
                     null);
         });
     }
 
-    private void renderJPEG(final ImageSegment imageSegment, final Graphics2D targetGraphic, final ImageMask imageMask) throws IOException {
+    private void renderJPEG(final ImageSegment imageSegment, final BlockRowTarget target, final ImageMask imageMask,
+            final int subsampling) throws IOException {
         ImageReader reader = getImageReader("image/jpeg");
         reader.setInput(imageSegment.getData());
         ThreadLocal<Integer> maskedBlocks = new ThreadLocal<>();
         maskedBlocks.set(0);
+        final ImageReadParam param = reader.getDefaultReadParam();
 
-        processBlocks(imageSegment, (rowIndex, columnIndex) -> {
+        processBlocks(imageSegment, target, (targetGraphic, rowIndex, columnIndex) -> {
             if (imageMask != null && imageMask.isMaskedBlock((rowIndex * imageSegment.getNumberOfBlocksPerRow() + columnIndex), 0)) {
                 maskedBlocks.set(maskedBlocks.get() + 1);
                 return;
             }
 
+            // Align the subsampling grid of each block with the grid for the whole image
+            int blockColumn = columnIndex * (int) imageSegment.getNumberOfPixelsPerBlockHorizontal();
+            int blockRow = rowIndex * (int) imageSegment.getNumberOfPixelsPerBlockVertical();
+            int columnOffset = (subsampling - blockColumn % subsampling) % subsampling;
+            int rowOffset = (subsampling - blockRow % subsampling) % subsampling;
+            if ((columnOffset >= imageSegment.getNumberOfPixelsPerBlockHorizontal())
+                    || (rowOffset >= imageSegment.getNumberOfPixelsPerBlockVertical())) {
+                // No pixels in this block are part of the subsampled image
+                return;
+            }
+            param.setSourceSubsampling(subsampling, subsampling, columnOffset, rowOffset);
+
             BufferedImage img = reader.read(
-                    (columnIndex + rowIndex * imageSegment.getNumberOfBlocksPerRow()) - maskedBlocks.get());
+                    (columnIndex + rowIndex * imageSegment.getNumberOfBlocksPerRow()) - maskedBlocks.get(), param);
 
             targetGraphic.drawImage(img,
-                    columnIndex * (int) imageSegment.getNumberOfPixelsPerBlockHorizontal(),
-                    rowIndex * (int) imageSegment.getNumberOfPixelsPerBlockVertical(),
+                    (blockColumn + columnOffset) / subsampling,
+                    (blockRow + rowOffset) / subsampling,
                     null);
         });
     }
 
-    private void renderJPEG2k(final ImageSegment imageSegment, final Graphics2D targetGraphic, final ImageMask imageMask) throws IOException {
+    private void renderJPEG2k(final ImageSegment imageSegment, final BlockRowTarget target, final ImageMask imageMask) throws IOException {
         final ImageReader reader = getImageReader("image/jp2");
         reader.setInput(imageSegment.getData(), true, true);
         ThreadLocal<Integer> maskedBlocks = new ThreadLocal<>();
         maskedBlocks.set(0);
 
-        final ImageReadParam param = reader.getDefaultReadParam();
+        final ImageReadParam param = getJpeg2000ReadParam(reader, imageSegment);
 
-        if (ImageRepresentation.MULTIBAND.equals(imageSegment.getImageRepresentation())) {
-            final int[] sourceBands = getSourceBands(imageSegment);
-            param.setSourceBands(sourceBands);
-        }
-
-        processBlocks(imageSegment, (r, c) -> {
+        processBlocks(imageSegment, target, (targetGraphic, r, c) -> {
                     if (imageMask != null && imageMask.isMaskedBlock((r * imageSegment.getNumberOfBlocksPerRow() + c), 0)) {
                         maskedBlocks.set(maskedBlocks.get() + 1);
                         return;
@@ -212,14 +384,115 @@ public class NitfRenderer {
                     BufferedImage renderedBlock = reader.read(0, param);
 
                     param.setDestination(renderedBlock);
-                    targetGraphic.drawImage(renderedBlock, (int) (c * imageSegment.getNumberOfPixelsPerBlockVertical()),
-                            (int) (r * imageSegment.getNumberOfPixelsPerBlockHorizontal()),
+                    targetGraphic.drawImage(renderedBlock, (int) (c * imageSegment.getNumberOfPixelsPerBlockHorizontal()),
+                            (int) (r * imageSegment.getNumberOfPixelsPerBlockVertical()),
                             null);
 
                 }
         );
     }
 
+    private void renderJPEG2kThumbnail(final ImageSegment imageSegment, final Graphics2D targetGraphic, final ImageMask imageMask,
+            final int subsampling) throws IOException {
+        final int decompositionLevels = Jpeg2000Codestream.getDecompositionLevels(imageSegment.getData());
+        final ImageReader reader = getImageReader("image/jp2");
+        reader.setInput(imageSegment.getData(), true, true);
+
+        final ImageReadParam param = getJpeg2000ReadParam(reader, imageSegment);
+        final int width = reader.getWidth(0);
+        final int height = reader.getHeight(0);
+
+        // Each resolution level below the full resolution halves the width and height
+        int reduction = Math.min(decompositionLevels, Integer.SIZE - 1 - Integer.numberOfLeadingZeros(subsampling));
+        if ((reduction <= 0) || !setResolution(param, decompositionLevels - reduction)) {
+            param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+        }
+
+        BufferedImage img = reader.read(0, param);
+        targetGraphic.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        if (imageMask == null) {
+            targetGraphic.drawImage(img, 0, 0, divideRoundingUp(width, subsampling), divideRoundingUp(height, subsampling), null);
+        } else {
+            drawRecordedJPEG2kBlocks(imageSegment, imageMask, img, (double) img.getWidth() / width, targetGraphic, subsampling);
+        }
+    }
+
+    /**
+     * Draw the blocks of a masked JPEG 2000 image at their place in a preview.
+     *
+     * The codestream only holds the recorded blocks, in order, so the place of a block in the decoded image skips the
+     * masked blocks before it (as in renderJPEG2k()). Masked blocks are left empty.
+     */
+    private static void drawRecordedJPEG2kBlocks(final ImageSegment imageSegment, final ImageMask imageMask, final BufferedImage decoded,
+            final double scale, final Graphics2D targetGraphic, final int subsampling) {
+        int blocksPerRow = imageSegment.getNumberOfBlocksPerRow();
+        long blockWidth = imageSegment.getNumberOfPixelsPerBlockHorizontal();
+        long blockHeight = imageSegment.getNumberOfPixelsPerBlockVertical();
+        int recordedBlocks = 0;
+        for (int blockNumber = 0; blockNumber < blocksPerRow * imageSegment.getNumberOfBlocksPerColumn(); blockNumber++) {
+            if (imageMask.isMaskedBlock(blockNumber, 0)) {
+                continue;
+            }
+            long sourceX = (recordedBlocks % blocksPerRow) * blockWidth;
+            long sourceY = (recordedBlocks / blocksPerRow) * blockHeight;
+            long targetX = (blockNumber % blocksPerRow) * blockWidth;
+            long targetY = (blockNumber / blocksPerRow) * blockHeight;
+            targetGraphic.drawImage(decoded,
+                    divideRoundingUp(targetX, subsampling), divideRoundingUp(targetY, subsampling),
+                    divideRoundingUp(targetX + blockWidth, subsampling), divideRoundingUp(targetY + blockHeight, subsampling),
+                    (int) Math.round(sourceX * scale), (int) Math.round(sourceY * scale),
+                    (int) Math.round((sourceX + blockWidth) * scale), (int) Math.round((sourceY + blockHeight) * scale),
+                    null);
+            recordedBlocks++;
+        }
+    }
+
+    private ImageReadParam getJpeg2000ReadParam(final ImageReader reader, final ImageSegment imageSegment) {
+        final ImageReadParam param = reader.getDefaultReadParam();
+
+        if (selectedBands != null) {
+            param.setSourceBands(selectedBands.clone());
+        } else if (ImageRepresentation.MULTIBAND.equals(imageSegment.getImageRepresentation())) {
+            final int[] sourceBands = getSourceBands(imageSegment);
+            param.setSourceBands(sourceBands);
+        }
+        return param;
+    }
+
+    /**
+     * Select a reduced resolution level to decode.
+     *
+     * This is not part of the standard ImageReadParam, so it is only available if the installed JPEG 2000 reader
+     * provides it (as the JAI Image I/O reader does).
+     */
+    private static boolean setResolution(final ImageReadParam param, final int resolution) {
+        try {
+            Method setResolution = param.getClass().getMethod("setResolution", int.class);
+            setResolution.invoke(param, resolution);
+            return true;
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+
+    private void renderDecimatedStrips(final ImageSegment imageSegment, final BufferedImage targetImage, final int subsampling)
+            throws IOException {
+        renderToStrips(imageSegment, (strip, firstRow) -> {
+            Object pixel = null;
+            int firstTargetRow = divideRoundingUp(firstRow, subsampling);
+            for (int targetRow = firstTargetRow; targetRow * subsampling < firstRow + strip.getHeight(); targetRow++) {
+                for (int targetColumn = 0; targetColumn * subsampling < strip.getWidth(); targetColumn++) {
+                    pixel = strip.getRaster().getDataElements(targetColumn * subsampling, targetRow * subsampling - firstRow, pixel);
+                    targetImage.getRaster().setDataElements(targetColumn, targetRow, pixel);
+                }
+            }
+        });
+    }
+
+    private static int divideRoundingUp(final long dividend, final int divisor) {
+        return (int) ((dividend + divisor - 1) / divisor);
+    }
+
     // CSOFF: DesignForExtension
     int[] getSourceBands(final ImageSegment imageSegment) {
     // CSON: DesignForExtension
@@ -255,12 +528,14 @@ public class NitfRenderer {
         return imageBandAry;
     }
 
-    private void processBlocks(final ImageSegment imageSegment, final BlockConsumer consumer)
+    private void processBlocks(final ImageSegment imageSegment, final BlockRowTarget target, final BlockConsumer consumer)
             throws IOException {
         for (int rowIndex = 0; rowIndex < imageSegment.getNumberOfBlocksPerColumn(); ++rowIndex) {
+            Graphics2D targetGraphic = target.beginBlockRow(rowIndex);
             for (int columnIndex = 0; columnIndex < imageSegment.getNumberOfBlocksPerRow(); ++columnIndex) {
-                consumer.acccept(rowIndex, columnIndex);
+                consumer.acccept(targetGraphic, rowIndex, columnIndex);
             }
+            target.endBlockRow(rowIndex);
         }
     }
 
@@ -0,0 +1,828 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import javax.imageio.stream.ImageInputStream;
+import javax.xml.transform.Source;
+import org.codice.imaging.nitf.core.DataSource;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfReader;
+import org.codice.imaging.nitf.core.common.ParseStrategy;
+import org.codice.imaging.nitf.core.common.impl.FileChannelImageInputStream;
+import org.codice.imaging.nitf.core.common.impl.FileReader;
+import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.header.NitfHeader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.header.impl.NitfTableOfContents;
+import org.codice.imaging.nitf.core.header.impl.NitfTableOfContents.SegmentLocation;
+import org.codice.imaging.nitf.core.image.ImageCompression;
+import org.codice.imaging.nitf.core.image.ImageMode;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.image.impl.ImageSegmentParser;
+import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
+import org.codice.imaging.nitf.core.tre.TreCollection;
+import org.codice.imaging.nitf.core.tre.TreSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A persistent index of the layout of a NITF file, kept in a small sidecar file next to it.
+ *
+ * The index holds the offset and length of every segment, the encoded file header and image subheaders, the offset
+ * of every TRE in those headers, and the offset of every block of JPEG (C3 and M3) and JPEG 2000 (C8 and M8) image
+ * segments. Finding the blocks of a compressed image normally means walking the codestream, so for large files this
+ * is most of the cost of opening them.
+ *
+ * An image segment can be rebuilt from the index by decoding the stored subheader in memory, with the data read
+ * straight from the NITF file. Nothing else in the NITF file is read.
+ *
+ * The index is keyed by the size and modification time of the NITF file, and a CRC of its file header, which is
+ * worked out when the index is built and stored in the sidecar. The open() method uses the sidecar if the key still
+ * matches, and otherwise builds the index again and replaces the sidecar. Streaming mode files, where the real file
+ * header is at the end of the file, cannot be indexed, and building an index for one fails.
+ */
+public final class NitfSidecarIndex {
+
+    /**
+     * The file name suffix of the sidecar index file.
+     */
+    public static final String SIDECAR_SUFFIX = ".nidx";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NitfSidecarIndex.class);
+
+    private static final int MAGIC = 0x4E494458;
+    private static final int VERSION = 2;
+    private static final int TRE_TAG_LENGTH = 6;
+    private static final int TRE_LENGTH_LENGTH = 5;
+
+    private final long mFileSize;
+    private final long mLastModified;
+    private final byte[] mHeader;
+    private final long mHeaderHash;
+    private final List<ImageSegmentEntry> mImageSegments = new ArrayList<>();
+    private final List<SegmentEntry> mGraphicSegments = new ArrayList<>();
+    private final List<SegmentEntry> mSymbolSegments = new ArrayList<>();
+    private final List<SegmentEntry> mLabelSegments = new ArrayList<>();
+    private final List<SegmentEntry> mTextSegments = new ArrayList<>();
+    private final List<SegmentEntry> mDataExtensionSegments = new ArrayList<>();
+    private final List<TreLocation> mTreLocations = new ArrayList<>();
+    private volatile NitfHeader mNitfHeader = null;
+
+    private NitfSidecarIndex(final long fileSize, final long lastModified, final byte[] header, final long headerHash) {
+        mFileSize = fileSize;
+        mLastModified = lastModified;
+        mHeader = header;
+        mHeaderHash = headerHash;
+    }
+
+    /**
+     * Get the path of the sidecar index for a NITF file.
+     *
+     * @param nitfFile the NITF file.
+     * @return the sidecar path, in the same directory as the NITF file.
+     */
+    public static Path getSidecarPath(final Path nitfFile) {
+        return nitfFile.resolveSibling(nitfFile.getFileName() + SIDECAR_SUFFIX);
+    }
+
+    /**
+     * Get the index for a NITF file, from its sidecar if that is still current.
+     *
+     * If the sidecar is missing, out of date or unreadable, the index is built from the NITF file and the sidecar is
+     * written. Failing to write the sidecar (for example, in a read-only directory) is not an error, but the index
+     * will then be built again on the next open.
+     *
+     * @param nitfFile the NITF file.
+     * @return the index.
+     * @throws IOException if the NITF file could not be read.
+     * @throws NitfFormatException if the NITF file could not be parsed, or is a streaming mode file.
+     */
+    public static NitfSidecarIndex open(final Path nitfFile) throws IOException, NitfFormatException {
+        Path sidecar = getSidecarPath(nitfFile);
+        if (Files.exists(sidecar)) {
+            try {
+                NitfSidecarIndex index = read(sidecar);
+                if (index.isCurrent(nitfFile)) {
+                    return index;
+                }
+            } catch (IOException ex) {
+                LOGGER.debug("Ignoring unreadable sidecar index {}", sidecar, ex);
+            }
+        }
+        NitfSidecarIndex index = build(nitfFile);
+        try {
+            index.write(sidecar);
+        } catch (IOException ex) {
+            LOGGER.warn("Could not write sidecar index {}", sidecar, ex);
+        }
+        return index;
+    }
+
+    /**
+     * Build the index for a NITF file.
+     *
+     * @param nitfFile the NITF file.
+     * @return the index.
+     * @throws IOException if the NITF file could not be read.
+     * @throws NitfFormatException if the NITF file could not be parsed, or is a streaming mode file.
+     */
+    public static NitfSidecarIndex build(final Path nitfFile) throws IOException, NitfFormatException {
+        long fileSize = Files.size(nitfFile);
+        long lastModified = Files.getLastModifiedTime(nitfFile).toMillis();
+        FileReader reader = new FileReader(nitfFile.toFile());
+        try (FileChannel channel = FileChannel.open(nitfFile, StandardOpenOption.READ)) {
+            NitfTableOfContents tableOfContents = NitfParser.readTableOfContents(reader,
+                    new SlottedParseStrategy(SlottedParseStrategy.HEADERS_ONLY));
+            if (tableOfContents.isStreamingMode()) {
+                throw new NitfFormatException("NitfSidecarIndex: cannot index streaming mode file " + nitfFile);
+            }
+            long headerLength = reader.getCurrentOffset();
+            reader.seekToAbsoluteOffset(0);
+            byte[] header = reader.readBytesRaw((int) headerLength);
+            NitfSidecarIndex index = new NitfSidecarIndex(fileSize, lastModified, header, crc(header));
+
+            TreLocationRecorder recorder = new TreLocationRecorder(index.mTreLocations);
+            recorder.setSource(index.mHeader, 0);
+            index.mNitfHeader = NitfParser.readTableOfContents(memoryReader(index.mHeader), recorder).getNitfHeader();
+
+            for (SegmentLocation location : tableOfContents.getImageSegments()) {
+                reader.seekToAbsoluteOffset(location.getSubheaderOffset());
+                ImageSegmentEntry entry = new ImageSegmentEntry(location.getSubheaderOffset(), location.getSubheaderLength(),
+                        location.getDataLength(), reader.readBytesRaw(location.getSubheaderLength()));
+                recorder.setSource(entry.mSubheader, entry.getSubheaderOffset());
+                ImageSegment imageSegment = index.decodeImageSegment(entry, recorder);
+                imageSegment.setData(new FileChannelImageInputStream(channel, entry.getDataOffset(), entry.getDataLength()));
+                findBlocks(imageSegment, entry.mBlocks);
+                index.mImageSegments.add(entry);
+            }
+            addSegments(index.mGraphicSegments, tableOfContents.getGraphicSegments());
+            addSegments(index.mSymbolSegments, tableOfContents.getSymbolSegments());
+            addSegments(index.mLabelSegments, tableOfContents.getLabelSegments());
+            addSegments(index.mTextSegments, tableOfContents.getTextSegments());
+            addSegments(index.mDataExtensionSegments, tableOfContents.getDataExtensionSegments());
+            return index;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void addSegments(final List<SegmentEntry> entries, final List<SegmentLocation> locations) {
+        for (SegmentLocation location : locations) {
+            entries.add(new SegmentEntry(location.getSubheaderOffset(), location.getSubheaderLength(), location.getDataLength()));
+        }
+    }
+
+    private static void findBlocks(final ImageSegment imageSegment, final List<BlockLocation> blocks) throws IOException {
+        switch (imageSegment.getImageCompression()) {
+            case JPEG:
+            case JPEGMASK:
+                findJpegBlocks(imageSegment, blocks);
+                break;
+            case JPEG2000:
+            case JPEG2000MASK:
+                findJpeg2000Blocks(imageSegment, blocks);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void findJpegBlocks(final ImageSegment imageSegment, final List<BlockLocation> blocks) throws IOException {
+        ImageInputStream data = imageSegment.getData();
+        ImageMask imageMask = new ImageMask(imageSegment);
+        boolean masked = imageSegment.getImageCompression() == ImageCompression.JPEGMASK;
+        if (masked) {
+            data.seek(0);
+            imageMask = new ImageMask(imageSegment, data);
+        }
+        JpegBlockLocator locator = new JpegBlockLocator(imageSegment, imageMask);
+        int numBlocks = imageSegment.getNumberOfBlocksPerRow() * imageSegment.getNumberOfBlocksPerColumn();
+        int numBlockBands = 1;
+        if (imageSegment.getImageMode() == ImageMode.BANDSEQUENTIAL) {
+            numBlockBands = imageSegment.getNumBands();
+        }
+        long offset = 0;
+        for (int band = 0; band < numBlockBands; band++) {
+            for (int blockNumber = 0; blockNumber < numBlocks; blockNumber++) {
+                if (masked) {
+                    if (imageMask.isMaskedBlock(blockNumber, band)) {
+                        continue;
+                    }
+                    offset = imageMask.getBlockOffset(blockNumber, band);
+                }
+                long end = locator.findEndOfStream(offset);
+                blocks.add(new BlockLocation(band, blockNumber, offset, end - offset));
+                offset = end;
+            }
+        }
+    }
+
+    private static void findJpeg2000Blocks(final ImageSegment imageSegment, final List<BlockLocation> blocks) throws IOException {
+        ImageInputStream data = imageSegment.getData();
+        long start = 0;
+        if (imageSegment.getImageCompression() == ImageCompression.JPEG2000MASK) {
+            data.seek(0);
+            start = data.readUnsignedInt();
+        }
+        for (Jpeg2000Codestream.TilePart tilePart : Jpeg2000Codestream.findTileParts(data, start, imageSegment.getDataLength())) {
+            blocks.add(new BlockLocation(0, tilePart.getTileNumber(), tilePart.getOffset(), tilePart.getLength()));
+        }
+    }
+
+    /**
+     * Read an index from a sidecar file.
+     *
+     * This does not check whether the index is current, see isCurrent().
+     *
+     * @param sidecar the sidecar file.
+     * @return the index.
+     * @throws IOException if the sidecar could not be read, or is not an index.
+     */
+    public static NitfSidecarIndex read(final Path sidecar) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(sidecar)))) {
+            if ((input.readInt() != MAGIC) || (input.readInt() != VERSION)) {
+                throw new IOException("NitfSidecarIndex: not a sidecar index: " + sidecar);
+            }
+            long fileSize = input.readLong();
+            long lastModified = input.readLong();
+            byte[] header = new byte[input.readInt()];
+            input.readFully(header);
+            NitfSidecarIndex index = new NitfSidecarIndex(fileSize, lastModified, header, input.readLong());
+            int numImageSegments = input.readInt();
+            for (int i = 0; i < numImageSegments; i++) {
+                long subheaderOffset = input.readLong();
+                byte[] subheader = new byte[input.readInt()];
+                input.readFully(subheader);
+                ImageSegmentEntry entry = new ImageSegmentEntry(subheaderOffset, subheader.length, input.readLong(), subheader);
+                int numBlocks = input.readInt();
+                for (int j = 0; j < numBlocks; j++) {
+                    entry.mBlocks.add(new BlockLocation(input.readInt(), input.readInt(), input.readLong(), input.readLong()));
+                }
+                index.mImageSegments.add(entry);
+            }
+            readSegments(input, index.mGraphicSegments);
+            readSegments(input, index.mSymbolSegments);
+            readSegments(input, index.mLabelSegments);
+            readSegments(input, index.mTextSegments);
+            readSegments(input, index.mDataExtensionSegments);
+            int numTres = input.readInt();
+            for (int i = 0; i < numTres; i++) {
+                index.mTreLocations.add(new TreLocation(TreSource.valueOf(input.readUTF()), input.readUTF(), input.readLong(),
+                        input.readInt()));
+            }
+            return index;
+        } catch (IllegalArgumentException ex) {
+            throw new IOException("NitfSidecarIndex: bad TRE source in " + sidecar, ex);
+        }
+    }
+
+    private static void readSegments(final DataInputStream input, final List<SegmentEntry> entries) throws IOException {
+        int numSegments = input.readInt();
+        for (int i = 0; i < numSegments; i++) {
+            entries.add(new SegmentEntry(input.readLong(), input.readInt(), input.readLong()));
+        }
+    }
+
+    /**
+     * Write the index to a sidecar file.
+     *
+     * The index is written to a temporary file that then replaces the sidecar, so a reader never sees a partly
+     * written index.
+     *
+     * @param sidecar the sidecar file.
+     * @throws IOException if the sidecar could not be written.
+     */
+    public void write(final Path sidecar) throws IOException {
+        Path directory = sidecar.toAbsolutePath().getParent();
+        if (directory == null) {
+            throw new IOException("NitfSidecarIndex: no directory for temporary file next to " + sidecar);
+        }
+        Path temporaryFile = Files.createTempFile(directory, "nidx", ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeLong(mFileSize);
+                output.writeLong(mLastModified);
+                output.writeInt(mHeader.length);
+                output.write(mHeader);
+                output.writeLong(mHeaderHash);
+                output.writeInt(mImageSegments.size());
+                for (ImageSegmentEntry entry : mImageSegments) {
+                    output.writeLong(entry.getSubheaderOffset());
+                    output.writeInt(entry.mSubheader.length);
+                    output.write(entry.mSubheader);
+                    output.writeLong(entry.getDataLength());
+                    output.writeInt(entry.mBlocks.size());
+                    for (BlockLocation block : entry.mBlocks) {
+                        output.writeInt(block.getBand());
+                        output.writeInt(block.getBlockNumber());
+                        output.writeLong(block.getOffset());
+                        output.writeLong(block.getLength());
+                    }
+                }
+                writeSegments(output, mGraphicSegments);
+                writeSegments(output, mSymbolSegments);
+                writeSegments(output, mLabelSegments);
+                writeSegments(output, mTextSegments);
+                writeSegments(output, mDataExtensionSegments);
+                output.writeInt(mTreLocations.size());
+                for (TreLocation tre : mTreLocations) {
+                    output.writeUTF(tre.getSource().name());
+                    output.writeUTF(tre.getTag());
+                    output.writeLong(tre.getOffset());
+                    output.writeInt(tre.getLength());
+                }
+            }
+            Files.move(temporaryFile, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    private static void writeSegments(final DataOutputStream output, final List<SegmentEntry> entries) throws IOException {
+        output.writeInt(entries.size());
+        for (SegmentEntry entry : entries) {
+            output.writeLong(entry.getSubheaderOffset());
+            output.writeInt(entry.getSubheaderLength());
+            output.writeLong(entry.getDataLength());
+        }
+    }
+
+    /**
+     * Check whether the index still describes a NITF file.
+     *
+     * The file size and modification time are checked first. Then the file header is read from the NITF file, and its
+     * CRC is compared with the one stored in the index.
+     *
+     * @param nitfFile the NITF file.
+     * @return true if the index matches the file, otherwise false.
+     * @throws IOException if the NITF file could not be read.
+     */
+    public boolean isCurrent(final Path nitfFile) throws IOException {
+        if ((Files.size(nitfFile) != mFileSize) || (Files.getLastModifiedTime(nitfFile).toMillis() != mLastModified)) {
+            return false;
+        }
+        ByteBuffer header = ByteBuffer.allocate(mHeader.length);
+        try (FileChannel channel = FileChannel.open(nitfFile, StandardOpenOption.READ)) {
+            int bytesRead = 0;
+            while (header.hasRemaining() && (bytesRead >= 0)) {
+                bytesRead = channel.read(header);
+            }
+        }
+        return !header.hasRemaining() && (crc(header.array()) == mHeaderHash);
+    }
+
+    private static long crc(final byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+
+    /**
+     * Get the size of the NITF file when it was indexed.
+     *
+     * @return the file size, in bytes.
+     */
+    public long getFileSize() {
+        return mFileSize;
+    }
+
+    /**
+     * Get the modification time of the NITF file when it was indexed.
+     *
+     * @return the modification time, in milliseconds since the epoch.
+     */
+    public long getLastModified() {
+        return mLastModified;
+    }
+
+    /**
+     * Get the CRC of the file header when it was indexed.
+     *
+     * @return the CRC-32 of the file header bytes.
+     */
+    public long getHeaderHash() {
+        return mHeaderHash;
+    }
+
+    /**
+     * Get the file header.
+     *
+     * The header is decoded from the index the first time this is called.
+     *
+     * @return the file header.
+     * @throws NitfFormatException if the stored header could not be decoded.
+     */
+    public NitfHeader getNitfHeader() throws NitfFormatException {
+        if (mNitfHeader == null) {
+            mNitfHeader = NitfParser.readTableOfContents(memoryReader(mHeader),
+                    new SlottedParseStrategy(SlottedParseStrategy.HEADERS_ONLY)).getNitfHeader();
+        }
+        return mNitfHeader;
+    }
+
+    /**
+     * Get the image segment entries.
+     *
+     * @return the image segments, in file order.
+     */
+    public List<ImageSegmentEntry> getImageSegments() {
+        return Collections.unmodifiableList(mImageSegments);
+    }
+
+    /**
+     * Get the graphic segment entries.
+     *
+     * @return the graphic segments, in file order.
+     */
+    public List<SegmentEntry> getGraphicSegments() {
+        return Collections.unmodifiableList(mGraphicSegments);
+    }
+
+    /**
+     * Get the symbol segment entries.
+     *
+     * This is always empty except for NITF 2.0 files.
+     *
+     * @return the symbol segments, in file order.
+     */
+    public List<SegmentEntry> getSymbolSegments() {
+        return Collections.unmodifiableList(mSymbolSegments);
+    }
+
+    /**
+     * Get the label segment entries.
+     *
+     * This is always empty except for NITF 2.0 files.
+     *
+     * @return the label segments, in file order.
+     */
+    public List<SegmentEntry> getLabelSegments() {
+        return Collections.unmodifiableList(mLabelSegments);
+    }
+
+    /**
+     * Get the text segment entries.
+     *
+     * @return the text segments, in file order.
+     */
+    public List<SegmentEntry> getTextSegments() {
+        return Collections.unmodifiableList(mTextSegments);
+    }
+
+    /**
+     * Get the data extension segment entries.
+     *
+     * @return the data extension segments, in file order.
+     */
+    public List<SegmentEntry> getDataExtensionSegments() {
+        return Collections.unmodifiableList(mDataExtensionSegments);
+    }
+
+    /**
+     * Get the locations of the TREs in the file header and image subheaders.
+     *
+     * @return the TRE locations, in file order.
+     */
+    public List<TreLocation> getTreLocations() {
+        return Collections.unmodifiableList(mTreLocations);
+    }
+
+    /**
+     * Rebuild an image segment from the index.
+     *
+     * The subheader is decoded from the index, and the data is a view of the image data in the NITF file, read
+     * through the given channel. The channel is not closed when the image data stream is closed.
+     *
+     * @param channel a channel open for reading on the NITF file.
+     * @param index the index of the image segment (from 0).
+     * @return the image segment.
+     * @throws NitfFormatException if the stored subheader could not be decoded.
+     */
+    public ImageSegment getImageSegment(final FileChannel channel, final int index) throws NitfFormatException {
+        ImageSegmentEntry entry = mImageSegments.get(index);
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.HEADERS_ONLY);
+        parseStrategy.setFileHeader(getNitfHeader());
+        ImageSegment imageSegment = decodeImageSegment(entry, parseStrategy);
+        imageSegment.setData(new FileChannelImageInputStream(channel, entry.getDataOffset(), entry.getDataLength()));
+        return imageSegment;
+    }
+
+    private ImageSegment decodeImageSegment(final ImageSegmentEntry entry, final ParseStrategy parseStrategy)
+            throws NitfFormatException {
+        NitfReader reader = memoryReader(entry.mSubheader);
+        reader.setFileType(getNitfHeader().getFileType());
+        return new ImageSegmentParser().parse(reader, parseStrategy, entry.getDataLength());
+    }
+
+    private static NitfReader memoryReader(final byte[] bytes) {
+        return new NitfInputStreamReader(new ByteArrayInputStream(bytes));
+    }
+
+    /**
+     * The location of one segment in the NITF file.
+     */
+    public static class SegmentEntry {
+
+        private final long mSubheaderOffset;
+        private final int mSubheaderLength;
+        private final long mDataLength;
+
+        SegmentEntry(final long subheaderOffset, final int subheaderLength, final long dataLength) {
+            mSubheaderOffset = subheaderOffset;
+            mSubheaderLength = subheaderLength;
+            mDataLength = dataLength;
+        }
+
+        /**
+         * Get the offset of the segment subheader from the start of the file.
+         *
+         * @return the subheader offset, in bytes.
+         */
+        public final long getSubheaderOffset() {
+            return mSubheaderOffset;
+        }
+
+        /**
+         * Get the length of the segment subheader.
+         *
+         * @return the subheader length, in bytes.
+         */
+        public final int getSubheaderLength() {
+            return mSubheaderLength;
+        }
+
+        /**
+         * Get the offset of the segment data from the start of the file.
+         *
+         * @return the data offset, in bytes.
+         */
+        public final long getDataOffset() {
+            return mSubheaderOffset + mSubheaderLength;
+        }
+
+        /**
+         * Get the length of the segment data.
+         *
+         * @return the data length, in bytes.
+         */
+        public final long getDataLength() {
+            return mDataLength;
+        }
+    }
+
+    /**
+     * The location of one image segment, with its subheader and compressed block locations.
+     */
+    public static final class ImageSegmentEntry extends SegmentEntry {
+
+        private final byte[] mSubheader;
+        private final List<BlockLocation> mBlocks = new ArrayList<>();
+
+        ImageSegmentEntry(final long subheaderOffset, final int subheaderLength, final long dataLength, final byte[] subheader) {
+            super(subheaderOffset, subheaderLength, dataLength);
+            mSubheader = subheader;
+        }
+
+        /**
+         * Get the locations of the compressed blocks.
+         *
+         * For JPEG, there is one entry for each recorded block. For JPEG 2000, there is one entry for each tile-part,
+         * with the tile number as the block number. The list is empty for other compression types.
+         *
+         * @return the block locations, in the order they are recorded.
+         */
+        public List<BlockLocation> getBlocks() {
+            return Collections.unmodifiableList(mBlocks);
+        }
+    }
+
+    /**
+     * The location of one compressed block in the image data.
+     */
+    public static final class BlockLocation {
+
+        private final int mBand;
+        private final int mBlockNumber;
+        private final long mOffset;
+        private final long mLength;
+
+        BlockLocation(final int band, final int blockNumber, final long offset, final long length) {
+            mBand = band;
+            mBlockNumber = blockNumber;
+            mOffset = offset;
+            mLength = length;
+        }
+
+        /**
+         * Get the band of the block.
+         *
+         * This is always 0, except for band sequential (IMODE S) images.
+         *
+         * @return the band number (from 0).
+         */
+        public int getBand() {
+            return mBand;
+        }
+
+        /**
+         * Get the block number.
+         *
+         * @return the block number (from 0), counting across each row of blocks in turn.
+         */
+        public int getBlockNumber() {
+            return mBlockNumber;
+        }
+
+        /**
+         * Get the offset of the block from the start of the image data.
+         *
+         * @return the block offset, in bytes.
+         */
+        public long getOffset() {
+            return mOffset;
+        }
+
+        /**
+         * Get the length of the block.
+         *
+         * @return the block length, in bytes.
+         */
+        public long getLength() {
+            return mLength;
+        }
+    }
+
+    /**
+     * The location of one TRE in the NITF file.
+     */
+    public static final class TreLocation {
+
+        private final TreSource mSource;
+        private final String mTag;
+        private final long mOffset;
+        private final int mLength;
+
+        TreLocation(final TreSource source, final String tag, final long offset, final int length) {
+            mSource = source;
+            mTag = tag;
+            mOffset = offset;
+            mLength = length;
+        }
+
+        /**
+         * Get the header area the TRE is in.
+         *
+         * @return the TRE source.
+         */
+        public TreSource getSource() {
+            return mSource;
+        }
+
+        /**
+         * Get the TRE tag.
+         *
+         * @return the tag (CETAG), without padding.
+         */
+        public String getTag() {
+            return mTag;
+        }
+
+        /**
+         * Get the offset of the TRE from the start of the file.
+         *
+         * @return the offset of the start of the tag, in bytes.
+         */
+        public long getOffset() {
+            return mOffset;
+        }
+
+        /**
+         * Get the length of the TRE.
+         *
+         * @return the length of the tag, length and data fields together, in bytes.
+         */
+        public int getLength() {
+            return mLength;
+        }
+    }
+
+    /**
+     * Records where each TRE is, while headers are decoded from memory.
+     */
+    private static final class TreLocationRecorder implements ParseStrategy {
+
+        private final SlottedParseStrategy mParseStrategy = new SlottedParseStrategy(SlottedParseStrategy.HEADERS_ONLY);
+        private final List<TreLocation> mTreLocations;
+        private byte[] mBytes;
+        private long mBaseOffset;
+
+        TreLocationRecorder(final List<TreLocation> treLocations) {
+            mTreLocations = treLocations;
+        }
+
+        void setSource(final byte[] bytes, final long baseOffset) {
+            mBytes = bytes;
+            mBaseOffset = baseOffset;
+        }
+
+        @Override
+        public void setFileHeader(final NitfHeader nitfHeader) {
+            mParseStrategy.setFileHeader(nitfHeader);
+        }
+
+        @Override
+        public NitfHeader getNitfHeader() {
+            return mParseStrategy.getNitfHeader();
+        }
+
+        @Override
+        public TreCollection parseTREs(final NitfReader reader, final int length, final TreSource source) throws NitfFormatException {
+            int position = (int) reader.getCurrentOffset();
+            int end = position + length;
+            while (position + TRE_TAG_LENGTH + TRE_LENGTH_LENGTH <= end) {
+                String tag = new String(mBytes, position, TRE_TAG_LENGTH, StandardCharsets.US_ASCII).trim();
+                String treLength = new String(mBytes, position + TRE_TAG_LENGTH, TRE_LENGTH_LENGTH, StandardCharsets.US_ASCII);
+                int totalLength;
+                try {
+                    totalLength = TRE_TAG_LENGTH + TRE_LENGTH_LENGTH + Integer.parseInt(treLength.trim());
+                } catch (NumberFormatException ex) {
+                    throw new NitfFormatException("Bad length for TRE " + tag, mBaseOffset + position);
+                }
+                mTreLocations.add(new TreLocation(source, tag, mBaseOffset + position, totalLength));
+                position += totalLength;
+            }
+            return mParseStrategy.parseTREs(reader, length, source);
+        }
+
+        @Override
+        public void handleTextSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+            mParseStrategy.handleTextSegment(reader, dataLength);
+        }
+
+        @Override
+        public void handleDataExtensionSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+            mParseStrategy.handleDataExtensionSegment(reader, dataLength);
+        }
+
+        @Override
+        public void handleGraphicSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+            mParseStrategy.handleGraphicSegment(reader, dataLength);
+        }
+
+        @Override
+        public void handleImageSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+            mParseStrategy.handleImageSegment(reader, dataLength);
+        }
+
+        @Override
+        public void handleLabelSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+            mParseStrategy.handleLabelSegment(reader, dataLength);
+        }
+
+        @Override
+        public void handleSymbolSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+            mParseStrategy.handleSymbolSegment(reader, dataLength);
+        }
+
+        @Override
+        public void registerAdditionalTREdescriptor(final Source source) throws NitfFormatException {
+            mParseStrategy.registerAdditionalTREdescriptor(source);
+        }
+
+        @Override
+        public DataSource getDataSource() {
+            return mParseStrategy.getDataSource();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.IOException;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.render.imagemode.BlockRowTarget;
+import org.codice.imaging.nitf.render.imagerep.ImageRepresentationHandler;
+
+/**
+ * BlockRowTarget that renders each row of blocks into a re-usable strip image, and passes the strip on to a consumer.
+ */
+class StripBuffer implements BlockRowTarget {
+
+    private final StripConsumer mConsumer;
+    private final BufferedImage mStrip;
+    private final int mStripWidth;
+    private final int mStripHeight;
+    private final int mNumberOfRows;
+    private Graphics2D mStripGraphic = null;
+
+    StripBuffer(final ImageSegment imageSegment, final ImageRepresentationHandler handler, final StripConsumer consumer) {
+        mConsumer = consumer;
+        mStripWidth = (int) imageSegment.getNumberOfColumns();
+        mStripHeight = (int) imageSegment.getNumberOfPixelsPerBlockVertical();
+        mNumberOfRows = (int) imageSegment.getNumberOfRows();
+        mStrip = handler.createBufferedImage(mStripWidth, mStripHeight);
+    }
+
+    @Override
+    public Graphics2D beginBlockRow(final int blockRowIndex) {
+        clear();
+        mStripGraphic = mStrip.createGraphics();
+        mStripGraphic.translate(0, -blockRowIndex * mStripHeight);
+        return mStripGraphic;
+    }
+
+    @Override
+    public void endBlockRow(final int blockRowIndex) throws IOException {
+        mStripGraphic.dispose();
+        mStripGraphic = null;
+
+        int firstRow = blockRowIndex * mStripHeight;
+        int rowsInStrip = Math.min(mStripHeight, mNumberOfRows - firstRow);
+        if (rowsInStrip > 0) {
+            mConsumer.accept(mStrip.getSubimage(0, 0, mStripWidth, rowsInStrip), firstRow);
+        }
+    }
+
+    private void clear() {
+        DataBuffer data = mStrip.getRaster().getDataBuffer();
+
+        for (int bank = 0; bank < data.getNumBanks(); bank++) {
+            for (int i = 0; i < data.getSize(); i++) {
+                data.setElem(bank, i, 0);
+            }
+        }
+    }
+}
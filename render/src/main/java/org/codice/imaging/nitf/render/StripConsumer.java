@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Consumer for image strips produced by NitfRenderer.renderToStrips().
+ */
+@FunctionalInterface
+public interface StripConsumer {
+
+    /**
+     * Accept a rendered strip.
+     *
+     * The strip image is only valid for the duration of this call, because the renderer re-uses the same image for
+     * the next strip.
+     *
+     * @param strip the rendered strip, covering the full width of the image segment.
+     * @param firstRow the (zero-based) image segment row that corresponds to the top row of the strip.
+     * @throws IOException if the strip could not be processed.
+     */
+    void accept(BufferedImage strip, int firstRow) throws IOException;
+}
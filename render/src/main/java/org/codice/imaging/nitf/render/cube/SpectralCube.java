@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.cube;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+import javax.imageio.stream.ImageInputStream;
+import org.codice.imaging.nitf.core.image.ImageMode;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.render.ImageMask;
+
+/**
+ * Random access to the sample values of an uncompressed image segment.
+ *
+ * This supports the two common access patterns for multispectral and hyperspectral data - all the bands at a single
+ * pixel (a spectrum), and a single band over a window. The location of each sample is calculated directly from the
+ * image mode (IMODE) and block layout, so only the bytes that hold the requested samples (and any samples interleaved
+ * between them) are read.
+ *
+ * Sample values are returned as stored, without any adjustment for pixel justification or actual bits per pixel.
+ * Samples in blocks that are masked (not recorded in the file) are returned as zero.
+ *
+ * This class reads from the image segment data stream, so it is not thread safe.
+ */
+public class SpectralCube {
+
+    private static final int BYTE_MASK = 0xFF;
+    private static final int MAX_BITS_PER_SAMPLE = Integer.SIZE;
+
+    private final ImageSegment mImageSegment;
+    private final ImageInputStream mImageData;
+    private final ImageMask mImageMask;
+    private final long mDataStart;
+    private final int mBlockWidth;
+    private final int mBlockHeight;
+    private final int mNumBands;
+    private final int mBitsPerSample;
+    private byte[] mReadBuffer = new byte[0];
+
+    /**
+     * Create a cube over the specified image segment.
+     *
+     * The image segment data stream must be positioned at the start of the image data, which is where the parser
+     * leaves it.
+     *
+     * @param imageSegment the uncompressed (NC or NM) image segment to read from.
+     * @throws IOException if the image data mask could not be read.
+     */
+    public SpectralCube(final ImageSegment imageSegment) throws IOException {
+        if (imageSegment == null) {
+            throw new IllegalArgumentException("SpectralCube: argument 'imageSegment' may not be null.");
+        }
+        mImageSegment = imageSegment;
+        mImageData = imageSegment.getData();
+        mBlockWidth = (int) imageSegment.getNumberOfPixelsPerBlockHorizontal();
+        mBlockHeight = (int) imageSegment.getNumberOfPixelsPerBlockVertical();
+        mNumBands = imageSegment.getNumBands();
+        mBitsPerSample = imageSegment.getNumberOfBitsPerPixelPerBand();
+
+        if (mBitsPerSample > MAX_BITS_PER_SAMPLE) {
+            throw new UnsupportedOperationException("SpectralCube: unsupported number of bits per pixel per band: " + mBitsPerSample);
+        }
+
+        mDataStart = mImageData.getStreamPosition();
+        switch (imageSegment.getImageCompression()) {
+            case NOTCOMPRESSED:
+                mImageMask = new ImageMask(imageSegment);
+                break;
+            case NOTCOMPRESSEDMASK:
+                mImageMask = new ImageMask(imageSegment, mImageData);
+                break;
+            default:
+                throw new UnsupportedOperationException("SpectralCube: unsupported image compression: "
+                        + imageSegment.getImageCompression());
+        }
+    }
+
+    /**
+     * Get the values of all bands at the specified pixel.
+     *
+     * @param row the zero-based row of the pixel.
+     * @param column the zero-based column of the pixel.
+     * @return the sample values, indexed by zero-based band number.
+     * @throws IOException if the image data could not be read.
+     */
+    public final int[] getPixel(final int row, final int column) throws IOException {
+        checkWindow(new Rectangle(column, row, 1, 1));
+        int[] values = new int[mNumBands];
+
+        switch (mImageSegment.getImageMode()) {
+            case PIXELINTERLEVE:
+                readSamples(getSampleBitOffset(0, row, column), mNumBands, 1, values, 0);
+                break;
+            case ROWINTERLEVE:
+                readSamples(getSampleBitOffset(0, row, column), mNumBands, mBlockWidth, values, 0);
+                break;
+            default:
+                for (int band = 0; band < mNumBands; band++) {
+                    readSamples(getSampleBitOffset(band, row, column), 1, 1, values, band);
+                }
+                break;
+        }
+        return values;
+    }
+
+    /**
+     * Get the values of one band over the specified window.
+     *
+     * @param band the zero-based band number.
+     * @param window the window, in image pixel coordinates (x is the column, y is the row).
+     * @return the sample values, in row-major order (window.width values per row).
+     * @throws IOException if the image data could not be read.
+     */
+    public final int[] getBand(final int band, final Rectangle window) throws IOException {
+        if ((band < 0) || (band >= mNumBands)) {
+            throw new IllegalArgumentException("SpectralCube: band " + band + " is not valid for an image with " + mNumBands + " bands");
+        }
+        checkWindow(window);
+
+        int sampleStride = 1;
+        if (mImageSegment.getImageMode() == ImageMode.PIXELINTERLEVE) {
+            sampleStride = mNumBands;
+        }
+
+        int[] values = new int[window.width * window.height];
+        for (int row = window.y; row < window.y + window.height; row++) {
+            int column = window.x;
+            while (column < window.x + window.width) {
+                int endColumn = Math.min((column / mBlockWidth + 1) * mBlockWidth, window.x + window.width);
+                int valuesOffset = (row - window.y) * window.width + (column - window.x);
+                readSamples(getSampleBitOffset(band, row, column), endColumn - column, sampleStride, values, valuesOffset);
+                column = endColumn;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Get the image mask for the image segment.
+     *
+     * For an image segment without a mask (NC), this is derived from the block layout.
+     *
+     * @return the image mask.
+     */
+    public final ImageMask getImageMask() {
+        return mImageMask;
+    }
+
+    private void checkWindow(final Rectangle window) {
+        if ((window.x < 0) || (window.y < 0) || (window.width < 0) || (window.height < 0)
+                || (window.x + window.width > mImageSegment.getNumberOfColumns())
+                || (window.y + window.height > mImageSegment.getNumberOfRows())) {
+            throw new IllegalArgumentException("SpectralCube: window " + window + " is outside the image");
+        }
+    }
+
+    /**
+     * Get the location of a sample.
+     *
+     * @return the offset in bits from the start of the image data stream, or -1 if the sample is in a masked block.
+     */
+    private long getSampleBitOffset(final int band, final int row, final int column) {
+        int blockIndex = (row / mBlockHeight) * mImageSegment.getNumberOfBlocksPerRow() + (column / mBlockWidth);
+        if (mImageMask.isMaskedBlock(blockIndex, band)) {
+            return -1;
+        }
+
+        long x = column % mBlockWidth;
+        long y = row % mBlockHeight;
+        long sampleIndex;
+        switch (mImageSegment.getImageMode()) {
+            case BLOCKINTERLEVE:
+                sampleIndex = (band * (long) mBlockHeight + y) * mBlockWidth + x;
+                break;
+            case PIXELINTERLEVE:
+                sampleIndex = (y * mBlockWidth + x) * mNumBands + band;
+                break;
+            case ROWINTERLEVE:
+                sampleIndex = (y * mNumBands + band) * mBlockWidth + x;
+                break;
+            case BANDSEQUENTIAL:
+                sampleIndex = y * mBlockWidth + x;
+                break;
+            default:
+                throw new UnsupportedOperationException("SpectralCube: unsupported image mode: " + mImageSegment.getImageMode());
+        }
+
+        return (mDataStart + mImageMask.getBlockOffset(blockIndex, band)) * Byte.SIZE + sampleIndex * mBitsPerSample;
+    }
+
+    /**
+     * Read a run of samples.
+     *
+     * @param bitOffset the location of the first sample, or -1 for a masked block.
+     * @param count the number of samples to read.
+     * @param sampleStride the distance between the samples to read, in samples.
+     * @param values the array to store the samples in.
+     * @param valuesOffset the index in the array to store the first sample in.
+     */
+    private void readSamples(final long bitOffset, final int count, final int sampleStride, final int[] values, final int valuesOffset)
+            throws IOException {
+        if (bitOffset < 0) {
+            return;
+        }
+
+        if ((mBitsPerSample % Byte.SIZE != 0) || (bitOffset % Byte.SIZE != 0)) {
+            for (int i = 0; i < count; i++) {
+                long sampleBitOffset = bitOffset + (long) i * sampleStride * mBitsPerSample;
+                mImageData.seek(sampleBitOffset / Byte.SIZE);
+                mImageData.setBitOffset((int) (sampleBitOffset % Byte.SIZE));
+                values[valuesOffset + i] = (int) mImageData.readBits(mBitsPerSample);
+            }
+            return;
+        }
+
+        int bytesPerSample = mBitsPerSample / Byte.SIZE;
+        int length = ((count - 1) * sampleStride + 1) * bytesPerSample;
+        if (mReadBuffer.length < length) {
+            mReadBuffer = new byte[length];
+        }
+        mImageData.seek(bitOffset / Byte.SIZE);
+        mImageData.readFully(mReadBuffer, 0, length);
+
+        for (int i = 0; i < count; i++) {
+            int bufferOffset = i * sampleStride * bytesPerSample;
+            int value = 0;
+            for (int b = 0; b < bytesPerSample; b++) {
+                value = (value << Byte.SIZE) | (mReadBuffer[bufferOffset + b] & BYTE_MASK);
+            }
+            values[valuesOffset + i] = value;
+        }
+    }
+}
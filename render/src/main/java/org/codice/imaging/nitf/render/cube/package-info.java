@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+
+/**
+ * The classes in this package provide direct access to uncompressed image data as sample values.
+ *
+ * SpectralCube treats an uncompressed (NC or NM) image segment as a cube of rows, columns and bands, and reads
+ * either all the bands at one pixel, or one band over a window, without decoding whole blocks.
+ */
+package org.codice.imaging.nitf.render.cube;
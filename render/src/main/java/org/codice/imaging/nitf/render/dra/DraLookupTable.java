@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.dra;
+
+import java.util.List;
+import org.codice.imaging.nitf.render.ImageMask;
+import org.codice.imaging.nitf.render.statistics.BandStatistics;
+
+/**
+ * A lookup table that maps recorded sample values to 8 bit display values, for each band.
+ *
+ * The table has an entry for every possible sample value, so applying it is a single array lookup per sample.
+ * Pad ("no data") sample values map to NO_DATA, so that the renderer can make them transparent.
+ */
+public final class DraLookupTable {
+
+    /**
+     * The lookup result for a pad ("no data") sample value.
+     */
+    public static final int NO_DATA = -1;
+
+    /**
+     * The maximum number of bits per sample that a lookup table can be built for.
+     */
+    public static final int MAXIMUM_BITS_PER_SAMPLE = Short.SIZE;
+
+    private static final int MAXIMUM_DISPLAY_VALUE = 0xFF;
+
+    private final short[][] mTable;
+    private final DraParameters mParameters;
+
+    /**
+     * Build a lookup table from image statistics.
+     *
+     * @param statistics the statistics for each band of the image segment.
+     * @param bitsPerSample the number of bits per sample as recorded (NBPP), which sets the size of the table.
+     * @param parameters the adjustment parameters.
+     * @param imageMask the image mask used to identify pad sample values, or null if there are none.
+     */
+    public DraLookupTable(final List<BandStatistics> statistics, final int bitsPerSample, final DraParameters parameters,
+            final ImageMask imageMask) {
+        if ((bitsPerSample < 1) || (bitsPerSample > MAXIMUM_BITS_PER_SAMPLE)) {
+            throw new UnsupportedOperationException("DraLookupTable: unsupported number of bits per sample: " + bitsPerSample);
+        }
+        mParameters = parameters;
+        mTable = new short[statistics.size()][];
+        for (int band = 0; band < statistics.size(); band++) {
+            mTable[band] = buildTable(statistics.get(band), 1 << bitsPerSample, imageMask);
+        }
+    }
+
+    private short[] buildTable(final BandStatistics statistics, final int tableSize, final ImageMask imageMask) {
+        short[] table = new short[tableSize];
+        if (mParameters.getMethod() == DraMethod.EQUALISED) {
+            fillEqualised(table, statistics);
+        } else {
+            fillStretched(table, statistics);
+        }
+        if ((imageMask != null) && imageMask.hasPixelMasks()) {
+            for (int value = 0; value < tableSize; value++) {
+                if (imageMask.isPadSample(value)) {
+                    table[value] = NO_DATA;
+                }
+            }
+        }
+        return table;
+    }
+
+    private void fillStretched(final short[] table, final BandStatistics statistics) {
+        double low = statistics.getPercentile(mParameters.getLowPercentile());
+        double high = statistics.getPercentile(mParameters.getHighPercentile());
+        double exponent = 1.0 / mParameters.getGamma();
+        for (int value = 0; value < table.length; value++) {
+            double stretched;
+            if (high > low) {
+                stretched = Math.min(Math.max((value - low) / (high - low), 0.0), 1.0);
+            } else if (value > low) {
+                stretched = 1.0;
+            } else {
+                stretched = 0.0;
+            }
+            table[value] = (short) Math.round(MAXIMUM_DISPLAY_VALUE * Math.pow(stretched, exponent));
+        }
+    }
+
+    private void fillEqualised(final short[] table, final BandStatistics statistics) {
+        long[] histogram = statistics.getHistogram();
+        long[] cumulative = new long[histogram.length];
+        long runningTotal = 0;
+        long firstCount = 0;
+        for (int bin = 0; bin < histogram.length; bin++) {
+            runningTotal += histogram[bin];
+            cumulative[bin] = runningTotal;
+            if ((firstCount == 0) && (runningTotal > 0)) {
+                firstCount = runningTotal;
+            }
+        }
+        long range = runningTotal - firstCount;
+        for (int value = 0; value < table.length; value++) {
+            int bin = (int) Math.min(value / statistics.getHistogramBinWidth(), histogram.length - 1);
+            if (range > 0) {
+                table[value] = (short) Math.round(MAXIMUM_DISPLAY_VALUE * (double) Math.max(cumulative[bin] - firstCount, 0) / range);
+            }
+        }
+    }
+
+    /**
+     * Get the number of bands in the lookup table.
+     *
+     * @return the number of bands.
+     */
+    public int getNumBands() {
+        return mTable.length;
+    }
+
+    /**
+     * Get the parameters that the lookup table was built with.
+     *
+     * @return the parameters.
+     */
+    public DraParameters getParameters() {
+        return mParameters;
+    }
+
+    /**
+     * Look up the display value for a sample.
+     *
+     * @param band the zero-based band number.
+     * @param sample the sample value, as recorded.
+     * @return the display value (from 0 to 255), or NO_DATA for a pad sample value.
+     */
+    public int lookup(final int band, final int sample) {
+        short[] table = mTable[band];
+        return table[Math.min(sample, table.length - 1)];
+    }
+}
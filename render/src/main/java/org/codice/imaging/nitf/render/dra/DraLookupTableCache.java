@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.dra;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import javax.imageio.stream.ImageInputStream;
+import org.codice.imaging.nitf.core.image.ImageCompression;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.render.ImageMask;
+import org.codice.imaging.nitf.render.statistics.BandStatistics;
+import org.codice.imaging.nitf.render.statistics.ImageStatisticsCalculator;
+
+/**
+ * Cache of dynamic range adjustment lookup tables.
+ *
+ * The statistics for each image segment are calculated once (with the calculator's configuration), and the lookup
+ * table for each set of parameters is built from them once. Entries are held weakly against the image segment, so
+ * they are discarded when the segment is no longer in use.
+ *
+ * This class is thread safe.
+ */
+public class DraLookupTableCache {
+
+    private final ImageStatisticsCalculator mCalculator;
+    private final Map<ImageSegment, CacheEntry> mEntries = new WeakHashMap<>();
+
+    /**
+     * Create a cache that uses the default statistics configuration.
+     */
+    public DraLookupTableCache() {
+        this(new ImageStatisticsCalculator());
+    }
+
+    /**
+     * Create a cache that uses the specified statistics calculator.
+     *
+     * @param calculator the calculator for the image statistics.
+     */
+    public DraLookupTableCache(final ImageStatisticsCalculator calculator) {
+        if (calculator == null) {
+            throw new IllegalArgumentException("DraLookupTableCache: argument 'calculator' may not be null.");
+        }
+        mCalculator = calculator;
+    }
+
+    /**
+     * Get the lookup table for an uncompressed image segment.
+     *
+     * If the statistics have not already been calculated for the segment, this reads the image data once. The
+     * image segment data stream must be positioned at the start of the image data, and is returned to that position
+     * afterwards.
+     *
+     * @param imageSegment the uncompressed (NC or NM) image segment.
+     * @param parameters the adjustment parameters.
+     * @return the lookup table.
+     * @throws IOException if the image data could not be read.
+     */
+    public final synchronized DraLookupTable get(final ImageSegment imageSegment, final DraParameters parameters) throws IOException {
+        if ((imageSegment.getImageCompression() != ImageCompression.NOTCOMPRESSED)
+                && (imageSegment.getImageCompression() != ImageCompression.NOTCOMPRESSEDMASK)) {
+            throw new UnsupportedOperationException("DraLookupTableCache: unsupported image compression: "
+                    + imageSegment.getImageCompression());
+        }
+        CacheEntry entry = mEntries.get(imageSegment);
+        if (entry == null) {
+            entry = new CacheEntry(mCalculator.calculate(imageSegment));
+            mEntries.put(imageSegment, entry);
+        }
+        DraLookupTable lookupTable = entry.mLookupTables.get(parameters);
+        if (lookupTable == null) {
+            lookupTable = new DraLookupTable(entry.mStatistics, imageSegment.getNumberOfBitsPerPixelPerBand(), parameters,
+                    readImageMask(imageSegment));
+            entry.mLookupTables.put(parameters, lookupTable);
+        }
+        return lookupTable;
+    }
+
+    /**
+     * Remove all entries from the cache.
+     */
+    public final synchronized void clear() {
+        mEntries.clear();
+    }
+
+    private static ImageMask readImageMask(final ImageSegment imageSegment) throws IOException {
+        if (imageSegment.getImageCompression() != ImageCompression.NOTCOMPRESSEDMASK) {
+            return null;
+        }
+        ImageInputStream imageData = imageSegment.getData();
+        imageData.mark();
+        try {
+            return new ImageMask(imageSegment, imageData);
+        } finally {
+            imageData.reset();
+        }
+    }
+
+    private static final class CacheEntry {
+        private final List<BandStatistics> mStatistics;
+        private final Map<DraParameters, DraLookupTable> mLookupTables = new HashMap<>();
+
+        CacheEntry(final List<BandStatistics> statistics) {
+            mStatistics = statistics;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.dra;
+
+/**
+ * Methods for mapping sample values to display values.
+ */
+public enum DraMethod {
+
+    /**
+     * Linear stretch between the low and high percentile values.
+     *
+     * With the default (0 and 100) percentiles, this stretches between the minimum and maximum values.
+     */
+    LINEAR,
+
+    /**
+     * Linear stretch between the low and high percentile values, followed by a gamma (power law) adjustment.
+     */
+    GAMMA,
+
+    /**
+     * Histogram equalisation, so that each display value is used by roughly the same number of pixels.
+     */
+    EQUALISED
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.dra;
+
+import java.util.Objects;
+
+/**
+ * The parameters for a dynamic range adjustment.
+ *
+ * Instances are immutable, and can be compared, so they are suitable as cache keys.
+ */
+public final class DraParameters {
+
+    private static final double MINIMUM_PERCENTILE = 0.0;
+    private static final double MAXIMUM_PERCENTILE = 100.0;
+    private static final double NO_GAMMA = 1.0;
+
+    private final DraMethod mMethod;
+    private final double mLowPercentile;
+    private final double mHighPercentile;
+    private final double mGamma;
+
+    private DraParameters(final DraMethod method, final double lowPercentile, final double highPercentile, final double gamma) {
+        if ((lowPercentile < MINIMUM_PERCENTILE) || (highPercentile > MAXIMUM_PERCENTILE) || (lowPercentile >= highPercentile)) {
+            throw new IllegalArgumentException("DraParameters: percentiles must be increasing, from 0 to 100, not "
+                    + lowPercentile + " and " + highPercentile);
+        }
+        if (gamma <= 0.0) {
+            throw new IllegalArgumentException("DraParameters: gamma must be greater than zero, not " + gamma);
+        }
+        mMethod = method;
+        mLowPercentile = lowPercentile;
+        mHighPercentile = highPercentile;
+        mGamma = gamma;
+    }
+
+    /**
+     * Linear stretch from the minimum to the maximum value.
+     *
+     * @return the parameters.
+     */
+    public static DraParameters linear() {
+        return percentileClip(MINIMUM_PERCENTILE, MAXIMUM_PERCENTILE);
+    }
+
+    /**
+     * Linear stretch between two percentiles, with values outside that range clipped.
+     *
+     * A typical choice for EO imagery is 2 and 98.
+     *
+     * @param lowPercentile the percentile that maps to black, from 0 to 100.
+     * @param highPercentile the percentile that maps to white, from 0 to 100.
+     * @return the parameters.
+     */
+    public static DraParameters percentileClip(final double lowPercentile, final double highPercentile) {
+        return new DraParameters(DraMethod.LINEAR, lowPercentile, highPercentile, NO_GAMMA);
+    }
+
+    /**
+     * Linear stretch between two percentiles, followed by a gamma adjustment.
+     *
+     * The display value is 255 * t^(1 / gamma), where t is the stretched value (from 0 to 1), so a gamma greater
+     * than 1 brightens the mid tones.
+     *
+     * @param lowPercentile the percentile that maps to black, from 0 to 100.
+     * @param highPercentile the percentile that maps to white, from 0 to 100.
+     * @param gamma the gamma value, which must be greater than zero.
+     * @return the parameters.
+     */
+    public static DraParameters gamma(final double lowPercentile, final double highPercentile, final double gamma) {
+        return new DraParameters(DraMethod.GAMMA, lowPercentile, highPercentile, gamma);
+    }
+
+    /**
+     * Histogram equalisation.
+     *
+     * @return the parameters.
+     */
+    public static DraParameters equalised() {
+        return new DraParameters(DraMethod.EQUALISED, MINIMUM_PERCENTILE, MAXIMUM_PERCENTILE, NO_GAMMA);
+    }
+
+    /**
+     * Get the adjustment method.
+     *
+     * @return the method.
+     */
+    public DraMethod getMethod() {
+        return mMethod;
+    }
+
+    /**
+     * Get the percentile that maps to black.
+     *
+     * This is not used for histogram equalisation.
+     *
+     * @return the low percentile, from 0 to 100.
+     */
+    public double getLowPercentile() {
+        return mLowPercentile;
+    }
+
+    /**
+     * Get the percentile that maps to white.
+     *
+     * This is not used for histogram equalisation.
+     *
+     * @return the high percentile, from 0 to 100.
+     */
+    public double getHighPercentile() {
+        return mHighPercentile;
+    }
+
+    /**
+     * Get the gamma value.
+     *
+     * @return the gamma value, which is 1 for methods other than GAMMA.
+     */
+    public double getGamma() {
+        return mGamma;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof DraParameters)) {
+            return false;
+        }
+        DraParameters parameters = (DraParameters) other;
+        return (mMethod == parameters.mMethod)
+                && (Double.compare(mLowPercentile, parameters.mLowPercentile) == 0)
+                && (Double.compare(mHighPercentile, parameters.mHighPercentile) == 0)
+                && (Double.compare(mGamma, parameters.mGamma) == 0);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(mMethod, mLowPercentile, mHighPercentile, mGamma);
+    }
+
+    @Override
+    public String toString() {
+        return mMethod + " (" + mLowPercentile + "-" + mHighPercentile + ", gamma " + mGamma + ")";
+    }
+}
@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+
+/**
+ * The classes in this package provide dynamic range adjustment (DRA) for rendering high bit depth imagery.
+ *
+ * A DraLookupTable maps each recorded sample value to an 8 bit display value. It is built from the image
+ * statistics, using one of the methods in DraMethod, and is applied by the renderer while the samples are unpacked,
+ * so the display image is produced in a single pass. DraLookupTableCache keeps the statistics and lookup tables for
+ * each image segment, so that they are only calculated once.
+ */
+package org.codice.imaging.nitf.render.dra;
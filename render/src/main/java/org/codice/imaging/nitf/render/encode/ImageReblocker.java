@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.encode;
+
+import java.awt.Point;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.codice.imaging.nitf.core.DataSource;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.ChannelDataOutput;
+import org.codice.imaging.nitf.core.image.ImageCompression;
+import org.codice.imaging.nitf.core.image.ImageMode;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.impl.NitfRewriter;
+import org.codice.imaging.nitf.core.impl.NitfWritePlan;
+import org.codice.imaging.nitf.render.cube.SpectralCube;
+
+/**
+ * Rewrites the uncompressed image segments of a NITF file with a different block size and image mode.
+ *
+ * Files that hold a large image as a single block, or as many small blocks, are slow to read at random. Converting
+ * them once to a moderate block size (for example 1024 by 1024, block interleaved) makes later window reads cheaper.
+ *
+ * Each uncompressed (NC or NM) image segment with 8, 16 or 32 bits per pixel per band is re-blocked. The samples for
+ * each new block are read from the source file with SpectralCube, which only reads the bytes that hold them, and
+ * written out with TiledImageSegmentBuilder, so memory use depends on the block size rather than the image size.
+ * Samples are copied as stored, and the actual bits per pixel (ABPP), pixel value type (PVTYPE) and pixel
+ * justification (PJUST) are kept. The file header, all other subheader fields and TREs, and all other segments are
+ * copied unchanged. For masked (NM) images, new blocks that hold only the pad value (or zero, for images without a pad
+ * pixel value, since that is what masked blocks read as) are masked again.
+ */
+public final class ImageReblocker {
+
+    private final int mBlockWidth;
+    private final int mBlockHeight;
+    private final ImageMode mImageMode;
+
+    /**
+     * Create a re-blocker.
+     *
+     * @param blockWidth the number of pixels horizontally in each new block (NPPBH).
+     * @param blockHeight the number of pixels vertically in each new block (NPPBV).
+     * @param imageMode the new image mode: block (B), pixel (P), row (R) interleaved or band sequential (S).
+     */
+    public ImageReblocker(final int blockWidth, final int blockHeight, final ImageMode imageMode) {
+        mBlockWidth = blockWidth;
+        mBlockHeight = blockHeight;
+        mImageMode = imageMode;
+    }
+
+    /**
+     * Re-block a NITF file.
+     *
+     * @param source the file to read.
+     * @param target the file to write. This may not be the source file.
+     * @return the number of image segments that were re-blocked.
+     * @throws IOException if the source could not be read, or the target could not be written.
+     * @throws NitfFormatException if the source could not be parsed, or the headers could not be serialised.
+     */
+    public int reblock(final Path source, final Path target) throws IOException, NitfFormatException {
+        if (Files.exists(target) && Files.isSameFile(source, target)) {
+            throw new IllegalArgumentException("ImageReblocker: cannot write to source file " + target);
+        }
+        try (NitfRewriter rewriter = new NitfRewriter()) {
+            // The image segments in the first copy are read from, while those in the second copy are changed
+            DataSource original = rewriter.open(source);
+            DataSource reblocked = rewriter.open(source);
+            Map<ImageSegment, TiledImageSegmentBuilder> builders = new IdentityHashMap<>();
+            List<ImageSegment> originalImages = original.getImageSegments();
+            for (int i = 0; i < originalImages.size(); i++) {
+                if (canReblock(originalImages.get(i))) {
+                    ImageSegment reblockedImage = reblocked.getImageSegments().get(i);
+                    TiledImageSegmentBuilder builder = createBuilder(originalImages.get(i));
+                    builder.configure(reblockedImage);
+                    // The samples are copied as stored, so keep the fields that say how to interpret them
+                    reblockedImage.setActualBitsPerPixelPerBand(originalImages.get(i).getActualBitsPerPixelPerBand());
+                    reblockedImage.setPixelValueType(originalImages.get(i).getPixelValueType());
+                    reblockedImage.setPixelJustification(originalImages.get(i).getPixelJustification());
+                    builders.put(reblockedImage, builder);
+                }
+            }
+            write(NitfWritePlan.create(reblocked, rewriter.getTreParser()), builders, target);
+            return builders.size();
+        }
+    }
+
+    private static boolean canReblock(final ImageSegment imageSegment) {
+        if ((imageSegment.getImageCompression() != ImageCompression.NOTCOMPRESSED)
+                && (imageSegment.getImageCompression() != ImageCompression.NOTCOMPRESSEDMASK)) {
+            return false;
+        }
+        switch (imageSegment.getNumberOfBitsPerPixelPerBand()) {
+            case Byte.SIZE:
+            case Short.SIZE:
+            case Integer.SIZE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private TiledImageSegmentBuilder createBuilder(final ImageSegment imageSegment) throws IOException {
+        SpectralCube cube = new SpectralCube(imageSegment);
+        int numBands = imageSegment.getNumBands();
+        TiledImageSegmentBuilder builder = new TiledImageSegmentBuilder(region -> {
+            WritableRaster raster = Raster.createBandedRaster(DataBuffer.TYPE_INT, region.width, region.height, numBands,
+                    new Point(region.x, region.y));
+            for (int band = 0; band < numBands; band++) {
+                raster.setSamples(region.x, region.y, region.width, region.height, band, cube.getBand(band, region));
+            }
+            return raster;
+        }, (int) imageSegment.getNumberOfColumns(), (int) imageSegment.getNumberOfRows(), numBands,
+                imageSegment.getNumberOfBitsPerPixelPerBand());
+        builder.setBlockSize(Math.min(mBlockWidth, (int) imageSegment.getNumberOfColumns()),
+                Math.min(mBlockHeight, (int) imageSegment.getNumberOfRows()));
+        builder.setImageMode(mImageMode);
+        if (imageSegment.getImageCompression() == ImageCompression.NOTCOMPRESSEDMASK) {
+            builder.setPadValue(Math.max(cube.getImageMask().getPadSample(), 0));
+        }
+        return builder;
+    }
+
+    private static void write(final NitfWritePlan plan, final Map<ImageSegment, TiledImageSegmentBuilder> builders,
+            final Path target) throws IOException {
+        try (FileChannel channel = FileChannel.open(target,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                ChannelDataOutput output = new ChannelDataOutput(channel)) {
+            plan.writeFileHeader(output);
+            for (NitfWritePlan.SegmentPlan segment : plan.getSegments()) {
+                segment.writeSubheader(output);
+                TiledImageSegmentBuilder builder = builders.get(segment.getSegment());
+                if (builder == null) {
+                    segment.writeData(output);
+                } else {
+                    builder.write(output);
+                }
+            }
+            if (output.getBytesWritten() != plan.getFileLength()) {
+                throw new IOException("ImageReblocker: wrote " + output.getBytesWritten() + " bytes, but expected " + plan.getFileLength());
+            }
+        }
+    }
+}
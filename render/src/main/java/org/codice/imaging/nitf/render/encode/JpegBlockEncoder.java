@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.encode;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import org.codice.imaging.nitf.core.image.ImageCategory;
+import org.codice.imaging.nitf.core.image.ImageCompression;
+import org.codice.imaging.nitf.core.image.ImageMode;
+import org.codice.imaging.nitf.core.image.ImageRepresentation;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.image.PixelJustification;
+import org.codice.imaging.nitf.core.image.PixelValueType;
+import org.codice.imaging.nitf.core.image.impl.ImageBandImpl;
+
+/**
+ * Encoder for JPEG (C3) and masked JPEG (M3) image segment data.
+ *
+ * The image is split into fixed size blocks, and each block is compressed as a separate JPEG stream by a task on the
+ * supplied executor, so large images can use all the available processors. The compressed blocks are then
+ * concatenated in block order to form the image segment data.
+ *
+ * If an empty block test is provided, blocks that it accepts are not recorded. When any block is omitted, the image
+ * compression is set to M3 and the data starts with a block mask table that marks the omitted blocks.
+ *
+ * Only 8 bit monochrome (one band) and colour (three band) images are supported. Colour images are recorded in
+ * pixel interleaved YCbCr, as the JPEG writer converts them.
+ */
+public final class JpegBlockEncoder {
+
+    private static final String JPEG_MIME_TYPE = "image/jpeg";
+    private static final String COMPRESSION_RATE_CUSTOM_TABLES = "00.0";
+    private static final int BITS_PER_SAMPLE = 8;
+    private static final int COLOUR_BANDS = 3;
+    private static final int MAX_BLOCK_SIZE = 8192;
+
+    // IMDATOFF (4 bytes), BMRLNTH, TMRLNTH and TPXCDLNTH (2 bytes each)
+    private static final int MASK_HEADER_LENGTH = 10;
+    private static final int BLOCK_MASK_RECORD_LENGTH = 4;
+    private static final int BLOCK_NOT_RECORDED = 0xFFFFFFFF;
+
+    private final ExecutorService mExecutor;
+    private final int mBlockSize;
+    private final float mQuality;
+    private Predicate<Raster> mEmptyBlockTest = null;
+
+    /**
+     * Create an encoder.
+     *
+     * @param executor the executor to run the block encoding tasks on.
+     * @param blockSize the number of pixels in each direction of a block (NPPBH and NPPBV).
+     * @param quality the JPEG compression quality, from 0.0 (smallest) to 1.0 (best).
+     */
+    public JpegBlockEncoder(final ExecutorService executor, final int blockSize, final float quality) {
+        if (executor == null) {
+            throw new IllegalArgumentException("JpegBlockEncoder: argument 'executor' may not be null.");
+        }
+        if ((blockSize <= 0) || (blockSize > MAX_BLOCK_SIZE)) {
+            throw new IllegalArgumentException("JpegBlockEncoder: block size must be between 1 and " + MAX_BLOCK_SIZE);
+        }
+        if ((quality < 0.0f) || (quality > 1.0f)) {
+            throw new IllegalArgumentException("JpegBlockEncoder: quality must be between 0.0 and 1.0");
+        }
+        mExecutor = executor;
+        mBlockSize = blockSize;
+        mQuality = quality;
+    }
+
+    /**
+     * Set the test for blocks that should not be recorded.
+     *
+     * The test is given the source pixels for each block, and returns true if the block is empty. Passing null
+     * records every block.
+     *
+     * @param emptyBlockTest the test for empty blocks, or null.
+     */
+    public void setEmptyBlockTest(final Predicate<Raster> emptyBlockTest) {
+        mEmptyBlockTest = emptyBlockTest;
+    }
+
+    /**
+     * Encode an image into an image segment.
+     *
+     * This sets the image structure fields (size, blocking, bands, pixel type, mode, representation and compression),
+     * the image data and the image data length. Other fields are left unchanged. Image bands are created if the
+     * segment does not already have the right number of bands.
+     *
+     * @param imageSegment the image segment to update.
+     * @param image the image to encode.
+     * @throws IOException if a block could not be encoded.
+     */
+    public void encode(final ImageSegment imageSegment, final BufferedImage image) throws IOException {
+        int numBands = checkImage(image);
+        if (numBands == 1) {
+            addBands(imageSegment, new String[] {"M"});
+        } else {
+            addBands(imageSegment, new String[] {"Y", "Cb", "Cr"});
+        }
+        int blocksPerRow = (image.getWidth() + mBlockSize - 1) / mBlockSize;
+        int blocksPerColumn = (image.getHeight() + mBlockSize - 1) / mBlockSize;
+
+        List<Future<byte[]>> blocks = new ArrayList<>();
+        for (int blockRow = 0; blockRow < blocksPerColumn; blockRow++) {
+            for (int blockColumn = 0; blockColumn < blocksPerRow; blockColumn++) {
+                final Rectangle region = new Rectangle(blockColumn * mBlockSize, blockRow * mBlockSize, mBlockSize, mBlockSize)
+                        .intersection(new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+                blocks.add(mExecutor.submit(() -> encodeBlock(image.getData(region), numBands)));
+            }
+        }
+
+        List<byte[]> encodedBlocks = new ArrayList<>();
+        boolean hasEmptyBlocks = false;
+        for (Future<byte[]> block : blocks) {
+            byte[] encodedBlock = getResult(block);
+            hasEmptyBlocks |= (encodedBlock == null);
+            encodedBlocks.add(encodedBlock);
+        }
+
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        if (hasEmptyBlocks) {
+            writeBlockMask(new DataOutputStream(data), encodedBlocks);
+        }
+        for (byte[] encodedBlock : encodedBlocks) {
+            if (encodedBlock != null) {
+                data.write(encodedBlock);
+            }
+        }
+
+        imageSegment.setNumberOfRows(image.getHeight());
+        imageSegment.setNumberOfColumns(image.getWidth());
+        imageSegment.setNumberOfBlocksPerRow(blocksPerRow);
+        imageSegment.setNumberOfBlocksPerColumn(blocksPerColumn);
+        imageSegment.setNumberOfPixelsPerBlockHorizontalRaw(mBlockSize);
+        imageSegment.setNumberOfPixelsPerBlockVerticalRaw(mBlockSize);
+        imageSegment.setNumberOfBitsPerPixelPerBand(BITS_PER_SAMPLE);
+        imageSegment.setActualBitsPerPixelPerBand(BITS_PER_SAMPLE);
+        imageSegment.setPixelValueType(PixelValueType.INTEGER);
+        imageSegment.setPixelJustification(PixelJustification.RIGHT);
+        imageSegment.setImageCategory(ImageCategory.VISUAL);
+        if (hasEmptyBlocks) {
+            imageSegment.setImageCompression(ImageCompression.JPEGMASK);
+        } else {
+            imageSegment.setImageCompression(ImageCompression.JPEG);
+        }
+        imageSegment.setCompressionRate(COMPRESSION_RATE_CUSTOM_TABLES);
+        if (numBands == 1) {
+            imageSegment.setImageMode(ImageMode.BLOCKINTERLEVE);
+            imageSegment.setImageRepresentation(ImageRepresentation.MONOCHROME);
+        } else {
+            imageSegment.setImageMode(ImageMode.PIXELINTERLEVE);
+            imageSegment.setImageRepresentation(ImageRepresentation.ITUBT6015);
+        }
+        imageSegment.setData(new MemoryCacheImageInputStream(new ByteArrayInputStream(data.toByteArray())));
+        imageSegment.setDataLength(data.size());
+    }
+
+    private int checkImage(final BufferedImage image) {
+        if (image == null) {
+            throw new IllegalArgumentException("JpegBlockEncoder: argument 'image' may not be null.");
+        }
+        Raster raster = image.getRaster();
+        int numBands = raster.getNumBands();
+        if ((numBands != 1) && (numBands != COLOUR_BANDS)) {
+            throw new IllegalArgumentException("JpegBlockEncoder: unsupported number of bands: " + numBands);
+        }
+        for (int sampleSize : raster.getSampleModel().getSampleSize()) {
+            if (sampleSize != BITS_PER_SAMPLE) {
+                throw new IllegalArgumentException("JpegBlockEncoder: unsupported sample size: " + sampleSize);
+            }
+        }
+        return numBands;
+    }
+
+    private byte[] encodeBlock(final Raster source, final int numBands) throws IOException {
+        if ((mEmptyBlockTest != null) && mEmptyBlockTest.test(source)) {
+            return null;
+        }
+        // Edge blocks are padded out to the full block size with zero samples
+        BufferedImage block;
+        if (numBands == 1) {
+            block = new BufferedImage(mBlockSize, mBlockSize, BufferedImage.TYPE_BYTE_GRAY);
+        } else {
+            block = new BufferedImage(mBlockSize, mBlockSize, BufferedImage.TYPE_3BYTE_BGR);
+        }
+        block.getRaster().setRect(-source.getMinX(), -source.getMinY(), source);
+
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByMIMEType(JPEG_MIME_TYPE);
+        if (!writers.hasNext()) {
+            throw new IOException("JpegBlockEncoder: no JPEG image writer available");
+        }
+        ImageWriter writer = writers.next();
+        try {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(mQuality);
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+            try (MemoryCacheImageOutputStream output = new MemoryCacheImageOutputStream(encoded)) {
+                writer.setOutput(output);
+                writer.write(null, new IIOImage(block, null, null), param);
+            }
+            return encoded.toByteArray();
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private void writeBlockMask(final DataOutputStream output, final List<byte[]> encodedBlocks) throws IOException {
+        output.writeInt(MASK_HEADER_LENGTH + BLOCK_MASK_RECORD_LENGTH * encodedBlocks.size());
+        output.writeShort(BLOCK_MASK_RECORD_LENGTH);
+        output.writeShort(0);
+        output.writeShort(0);
+        int offset = 0;
+        for (byte[] encodedBlock : encodedBlocks) {
+            if (encodedBlock == null) {
+                output.writeInt(BLOCK_NOT_RECORDED);
+            } else {
+                output.writeInt(offset);
+                offset += encodedBlock.length;
+            }
+        }
+        output.flush();
+    }
+
+    private static void addBands(final ImageSegment imageSegment, final String[] representations) {
+        if (imageSegment.getNumBands() == representations.length) {
+            return;
+        }
+        if (imageSegment.getNumBands() != 0) {
+            throw new IllegalArgumentException("JpegBlockEncoder: image segment has " + imageSegment.getNumBands()
+                    + " bands, but the image has " + representations.length);
+        }
+        for (String representation : representations) {
+            ImageBandImpl band = new ImageBandImpl();
+            band.setImageRepresentation(representation);
+            imageSegment.addImageBand(band);
+        }
+    }
+
+    private static byte[] getResult(final Future<byte[]> block) throws IOException {
+        try {
+            return block.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("JpegBlockEncoder: interrupted while encoding", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("JpegBlockEncoder: block encoding failed", e.getCause());
+        }
+    }
+}
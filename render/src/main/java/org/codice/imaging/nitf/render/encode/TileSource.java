@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.encode;
+
+import java.awt.Rectangle;
+import java.awt.image.Raster;
+import java.io.IOException;
+
+/**
+ * A source of image samples that is read a region at a time.
+ *
+ * This is typically backed by a set of tiles (for example, the tiles of a large mosaic), where the tile layout does
+ * not need to match the layout of the NITF blocks being produced.
+ */
+@FunctionalInterface
+public interface TileSource {
+
+    /**
+     * Get the samples for a region of the image.
+     *
+     * The region always lies within the image. The returned raster must cover exactly the region (so its minimum X
+     * and Y are the region X and Y), and have one band for each image band.
+     *
+     * @param region the region of the image, in pixels.
+     * @return the samples for the region.
+     * @throws IOException if the samples could not be read.
+     */
+    Raster getRegion(Rectangle region) throws IOException;
+}
@@ -0,0 +1,394 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.encode;
+
+import java.awt.Rectangle;
+import java.awt.image.Raster;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.image.ImageCompression;
+import org.codice.imaging.nitf.core.image.ImageMode;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.image.PixelJustification;
+import org.codice.imaging.nitf.core.image.PixelValueType;
+import org.codice.imaging.nitf.core.image.impl.ImageBandImpl;
+import org.codice.imaging.nitf.core.impl.StreamingNitfWriter;
+
+/**
+ * Builder for uncompressed (NC or NM) blocked image segment data from a tile source.
+ *
+ * The image data is produced one block at a time. Each block is read from the tile source, reordered into the
+ * requested image mode (IMODE), and written straight to the output, so memory use depends on the block size rather
+ * than the image size. This makes it possible to write a large mosaic into a NITF file (typically through
+ * StreamingNitfWriter) without first assembling the image in memory or in a temporary file.
+ *
+ * If a pad value is set, blocks where every sample equals the pad value are not recorded, and the image compression
+ * is set to NM with a block mask that marks them. Finding those blocks needs an extra pass over the tile source before
+ * any data is written, because the block mask comes first. Band sequential (S) images read each block from the tile
+ * source once per band. In both cases the tile source has to return the same samples each time a region is read.
+ *
+ * Samples are integers with 8, 16 or 32 bits per pixel per band.
+ */
+public final class TiledImageSegmentBuilder {
+
+    private static final int BYTE_MASK = 0xFF;
+
+    // IMDATOFF (4 bytes), BMRLNTH, TMRLNTH and TPXCDLNTH (2 bytes each)
+    private static final int MASK_HEADER_LENGTH = 10;
+    private static final int BLOCK_MASK_RECORD_LENGTH = 4;
+    private static final int BLOCK_NOT_RECORDED = 0xFFFFFFFF;
+    private static final int MAX_BLOCK_SIZE = 8192;
+    private static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    private final TileSource mTileSource;
+    private final int mWidth;
+    private final int mHeight;
+    private final int mNumBands;
+    private final int mBitsPerSample;
+    private int mBlockWidth;
+    private int mBlockHeight;
+    private ImageMode mImageMode = ImageMode.BLOCKINTERLEVE;
+    private Integer mPadValue = null;
+
+    private boolean[] mMaskedBlocks = null;
+    private int mBlocksPerRow;
+    private int mBlocksPerColumn;
+
+    /**
+     * Create a builder.
+     *
+     * The block size defaults to 1024 by 1024 pixels, or the image size in a direction where the image is smaller.
+     *
+     * @param tileSource the source of the image samples.
+     * @param width the image width (NCOLS), in pixels.
+     * @param height the image height (NROWS), in pixels.
+     * @param numBands the number of bands.
+     * @param bitsPerSample the number of bits per pixel per band (8, 16 or 32).
+     */
+    public TiledImageSegmentBuilder(final TileSource tileSource, final int width, final int height, final int numBands,
+            final int bitsPerSample) {
+        if (tileSource == null) {
+            throw new IllegalArgumentException("TiledImageSegmentBuilder: argument 'tileSource' may not be null.");
+        }
+        if ((width <= 0) || (height <= 0) || (numBands <= 0)) {
+            throw new IllegalArgumentException("TiledImageSegmentBuilder: image width, height and number of bands must be positive.");
+        }
+        if ((bitsPerSample != Byte.SIZE) && (bitsPerSample != Short.SIZE) && (bitsPerSample != Integer.SIZE)) {
+            throw new IllegalArgumentException("TiledImageSegmentBuilder: unsupported number of bits per sample: " + bitsPerSample);
+        }
+        mTileSource = tileSource;
+        mWidth = width;
+        mHeight = height;
+        mNumBands = numBands;
+        mBitsPerSample = bitsPerSample;
+        mBlockWidth = getDefaultBlockSize(width);
+        mBlockHeight = getDefaultBlockSize(height);
+    }
+
+    private static int getDefaultBlockSize(final int imageSize) {
+        return Math.min(imageSize, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Set the block size.
+     *
+     * Each block is packed in memory before it is written, so the block size (with the number of bands recorded in
+     * each block and the bits per sample) has to fit in a byte array. configure() checks this.
+     *
+     * @param blockWidth the number of pixels horizontally in each block (NPPBH).
+     * @param blockHeight the number of pixels vertically in each block (NPPBV).
+     */
+    public void setBlockSize(final int blockWidth, final int blockHeight) {
+        if ((blockWidth <= 0) || (blockWidth > MAX_BLOCK_SIZE) || (blockHeight <= 0) || (blockHeight > MAX_BLOCK_SIZE)) {
+            throw new IllegalArgumentException("TiledImageSegmentBuilder: block size must be between 1 and " + MAX_BLOCK_SIZE);
+        }
+        mBlockWidth = blockWidth;
+        mBlockHeight = blockHeight;
+    }
+
+    /**
+     * Set the image mode (IMODE) for the data.
+     *
+     * The default is block interleaved (B).
+     *
+     * @param imageMode block (B), pixel (P), row (R) interleaved or band sequential (S).
+     */
+    public void setImageMode(final ImageMode imageMode) {
+        switch (imageMode) {
+            case BLOCKINTERLEVE:
+            case PIXELINTERLEVE:
+            case ROWINTERLEVE:
+            case BANDSEQUENTIAL:
+                mImageMode = imageMode;
+                break;
+            default:
+                throw new IllegalArgumentException("TiledImageSegmentBuilder: unsupported image mode: " + imageMode);
+        }
+    }
+
+    /**
+     * Set the pad value.
+     *
+     * Pixels in edge blocks that lie outside the image are filled with the pad value, and blocks made entirely of pad
+     * values are not recorded. Without a pad value, edge blocks are filled with zero and every block is recorded.
+     *
+     * @param padValue the pad value, or null for none.
+     */
+    public void setPadValue(final Integer padValue) {
+        mPadValue = padValue;
+    }
+
+    /**
+     * Configure an image segment for the data this builder writes.
+     *
+     * This sets the image size, blocking, pixel type, image mode, compression (NC, or NM if any block is not
+     * recorded) and data length. Image bands are created if the segment does not have any; the image representation
+     * and category are left to the caller. If a pad value is set, this reads every block from the tile source to find
+     * the blocks to mask.
+     *
+     * @param imageSegment the image segment to configure.
+     * @throws IOException if the tile source could not be read.
+     * @throws IllegalArgumentException if one block does not fit in a byte array.
+     */
+    public void configure(final ImageSegment imageSegment) throws IOException {
+        if (getBytesPerRecordedBlock() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("TiledImageSegmentBuilder: block of " + mBlockWidth + " by " + mBlockHeight
+                    + " pixels needs " + getBytesPerRecordedBlock() + " bytes, which is more than one buffer can hold");
+        }
+        if ((imageSegment.getNumBands() != 0) && (imageSegment.getNumBands() != mNumBands)) {
+            throw new IllegalArgumentException("TiledImageSegmentBuilder: image segment has " + imageSegment.getNumBands()
+                    + " bands, but the tile source has " + mNumBands);
+        }
+        mBlocksPerRow = (mWidth + mBlockWidth - 1) / mBlockWidth;
+        mBlocksPerColumn = (mHeight + mBlockHeight - 1) / mBlockHeight;
+        mMaskedBlocks = findMaskedBlocks();
+
+        for (int band = imageSegment.getNumBands(); band < mNumBands; band++) {
+            imageSegment.addImageBand(new ImageBandImpl());
+        }
+        imageSegment.setNumberOfRows(mHeight);
+        imageSegment.setNumberOfColumns(mWidth);
+        imageSegment.setNumberOfBlocksPerRow(mBlocksPerRow);
+        imageSegment.setNumberOfBlocksPerColumn(mBlocksPerColumn);
+        imageSegment.setNumberOfPixelsPerBlockHorizontalRaw(mBlockWidth);
+        imageSegment.setNumberOfPixelsPerBlockVerticalRaw(mBlockHeight);
+        imageSegment.setNumberOfBitsPerPixelPerBand(mBitsPerSample);
+        imageSegment.setActualBitsPerPixelPerBand(mBitsPerSample);
+        imageSegment.setPixelValueType(PixelValueType.INTEGER);
+        imageSegment.setPixelJustification(PixelJustification.RIGHT);
+        imageSegment.setImageMode(mImageMode);
+        if (hasMaskedBlocks()) {
+            imageSegment.setImageCompression(ImageCompression.NOTCOMPRESSEDMASK);
+        } else {
+            imageSegment.setImageCompression(ImageCompression.NOTCOMPRESSED);
+        }
+        imageSegment.setDataLength(getDataLength());
+    }
+
+    /**
+     * Write the image data.
+     *
+     * This must follow configure(), and writes exactly the data length that configure() set.
+     *
+     * @param output the output to write to.
+     * @throws IOException if the tile source could not be read, or on write failure.
+     */
+    public void write(final DataOutput output) throws IOException {
+        if (mMaskedBlocks == null) {
+            throw new IllegalStateException("TiledImageSegmentBuilder: configure() must be called before write()");
+        }
+        if (hasMaskedBlocks()) {
+            writeBlockMask(output);
+        }
+        byte[] blockBuffer = new byte[(int) getBytesPerRecordedBlock()];
+        if (mImageMode == ImageMode.BANDSEQUENTIAL) {
+            for (int band = 0; band < mNumBands; band++) {
+                for (int blockNumber = 0; blockNumber < mMaskedBlocks.length; blockNumber++) {
+                    if (!mMaskedBlocks[blockNumber]) {
+                        packBlock(getBlock(blockNumber), band, blockBuffer);
+                        output.write(blockBuffer);
+                    }
+                }
+            }
+        } else {
+            for (int blockNumber = 0; blockNumber < mMaskedBlocks.length; blockNumber++) {
+                if (!mMaskedBlocks[blockNumber]) {
+                    packBlock(getBlock(blockNumber), 0, blockBuffer);
+                    output.write(blockBuffer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Configure an image segment, and write it with its data to a streaming writer.
+     *
+     * @param writer the streaming writer.
+     * @param imageSegment the image segment to configure and write.
+     * @throws IOException if the tile source could not be read, or on write failure.
+     * @throws NitfFormatException on TRE serialisation problems.
+     */
+    public void writeTo(final StreamingNitfWriter writer, final ImageSegment imageSegment) throws IOException, NitfFormatException {
+        configure(imageSegment);
+        write(writer.startImageSegment(imageSegment));
+    }
+
+    private boolean[] findMaskedBlocks() throws IOException {
+        boolean[] maskedBlocks = new boolean[mBlocksPerRow * mBlocksPerColumn];
+        if (mPadValue == null) {
+            return maskedBlocks;
+        }
+        for (int blockNumber = 0; blockNumber < maskedBlocks.length; blockNumber++) {
+            maskedBlocks[blockNumber] = isPadBlock(getBlock(blockNumber));
+        }
+        return maskedBlocks;
+    }
+
+    private boolean isPadBlock(final Raster block) {
+        int[] samples = null;
+        for (int row = block.getMinY(); row < block.getMinY() + block.getHeight(); row++) {
+            samples = block.getPixels(block.getMinX(), row, block.getWidth(), 1, samples);
+            for (int sample : samples) {
+                if (sample != mPadValue) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean hasMaskedBlocks() {
+        for (boolean masked : mMaskedBlocks) {
+            if (masked) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Raster getBlock(final int blockNumber) throws IOException {
+        Rectangle region = new Rectangle((blockNumber % mBlocksPerRow) * mBlockWidth, (blockNumber / mBlocksPerRow) * mBlockHeight,
+                mBlockWidth, mBlockHeight).intersection(new Rectangle(0, 0, mWidth, mHeight));
+        Raster block = mTileSource.getRegion(region);
+        if ((block.getMinX() != region.x) || (block.getMinY() != region.y) || (block.getWidth() != region.width)
+                || (block.getHeight() != region.height) || (block.getNumBands() != mNumBands)) {
+            throw new IOException("TiledImageSegmentBuilder: tile source returned the wrong region or bands for " + region);
+        }
+        return block;
+    }
+
+    private int getBytesPerSample() {
+        return mBitsPerSample / Byte.SIZE;
+    }
+
+    private int getRecordedBandsPerBlock() {
+        if (mImageMode == ImageMode.BANDSEQUENTIAL) {
+            return 1;
+        }
+        return mNumBands;
+    }
+
+    private long getBytesPerRecordedBlock() {
+        return (long) mBlockWidth * mBlockHeight * getRecordedBandsPerBlock() * getBytesPerSample();
+    }
+
+    private int getMaskLength() {
+        int maskLength = MASK_HEADER_LENGTH + BLOCK_MASK_RECORD_LENGTH * mMaskedBlocks.length * (mNumBands / getRecordedBandsPerBlock());
+        if (mPadValue != null) {
+            maskLength += getBytesPerSample();
+        }
+        return maskLength;
+    }
+
+    private long getDataLength() {
+        long recordedBlocks = 0;
+        for (boolean masked : mMaskedBlocks) {
+            if (!masked) {
+                recordedBlocks++;
+            }
+        }
+        long dataLength = recordedBlocks * (mNumBands / getRecordedBandsPerBlock()) * getBytesPerRecordedBlock();
+        if (hasMaskedBlocks()) {
+            dataLength += getMaskLength();
+        }
+        return dataLength;
+    }
+
+    private void writeBlockMask(final DataOutput output) throws IOException {
+        output.writeInt(getMaskLength());
+        output.writeShort(BLOCK_MASK_RECORD_LENGTH);
+        output.writeShort(0);
+        output.writeShort(mBitsPerSample);
+        writeSample(output, mPadValue);
+        long offset = 0;
+        for (int band = 0; band < mNumBands / getRecordedBandsPerBlock(); band++) {
+            for (boolean masked : mMaskedBlocks) {
+                if (masked) {
+                    output.writeInt(BLOCK_NOT_RECORDED);
+                } else {
+                    output.writeInt((int) offset);
+                    offset += getBytesPerRecordedBlock();
+                }
+            }
+        }
+    }
+
+    private void writeSample(final DataOutput output, final int sample) throws IOException {
+        for (int shift = mBitsPerSample - Byte.SIZE; shift >= 0; shift -= Byte.SIZE) {
+            output.writeByte((sample >> shift) & BYTE_MASK);
+        }
+    }
+
+    private void packBlock(final Raster block, final int sequentialBand, final byte[] blockBuffer) {
+        int padValue = 0;
+        if (mPadValue != null) {
+            padValue = mPadValue;
+        }
+        int bytesPerSample = getBytesPerSample();
+        int recordedBands = getRecordedBandsPerBlock();
+        int[] samples = new int[mBlockWidth];
+        for (int row = 0; row < mBlockHeight; row++) {
+            for (int recordedBand = 0; recordedBand < recordedBands; recordedBand++) {
+                int band = sequentialBand + recordedBand;
+                if (row < block.getHeight()) {
+                    block.getSamples(block.getMinX(), block.getMinY() + row, block.getWidth(), 1, band, samples);
+                    Arrays.fill(samples, block.getWidth(), mBlockWidth, padValue);
+                } else {
+                    Arrays.fill(samples, padValue);
+                }
+                for (int column = 0; column < mBlockWidth; column++) {
+                    int index = getSampleIndex(row, column, recordedBand, recordedBands) * bytesPerSample;
+                    for (int b = 0; b < bytesPerSample; b++) {
+                        blockBuffer[index + b] = (byte) (samples[column] >> ((bytesPerSample - 1 - b) * Byte.SIZE));
+                    }
+                }
+            }
+        }
+    }
+
+    private int getSampleIndex(final int row, final int column, final int band, final int recordedBands) {
+        switch (mImageMode) {
+            case PIXELINTERLEVE:
+                return (row * mBlockWidth + column) * recordedBands + band;
+            case ROWINTERLEVE:
+                return (row * recordedBands + band) * mBlockWidth + column;
+            default:
+                // Block interleaved, or a single band of band sequential
+                return (band * mBlockHeight + row) * mBlockWidth + column;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+
+/**
+ * The classes in this package build compressed or blocked image segment data from pixel sources.
+ *
+ * JpegBlockEncoder compresses an image into JPEG (C3 or M3) blocks, encoding the blocks concurrently.
+ * TiledImageSegmentBuilder writes uncompressed (NC or NM) blocks from a TileSource one block at a time, so large
+ * images can be written without holding them in memory. ImageReblocker uses it to change the block size and image mode
+ * of the uncompressed images in an existing file.
+ */
+package org.codice.imaging.nitf.render.encode;
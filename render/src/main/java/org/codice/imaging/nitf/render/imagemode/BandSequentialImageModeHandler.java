@@ -42,6 +42,8 @@ class BandSequentialImageModeHandler extends BaseImageModeHandler implements Ima
         checkNull(targetImage, "targetImage");
         checkImageMode(imageSegment);
 
+        final ImageInputStream imageInputStream = imageSegment.getData();
+        final long dataStart = imageInputStream.getStreamPosition();
         final ImageMask imageMask = getImageMask(imageSegment);
 
         ImageBlockMatrix matrix = new ImageBlockMatrix(imageSegment, ()
@@ -49,11 +51,14 @@ class BandSequentialImageModeHandler extends BaseImageModeHandler implements Ima
                 (int) imageSegment.getNumberOfPixelsPerBlockVertical()));
 
         for (int bandIndex = 0; bandIndex < imageSegment.getNumBands(); bandIndex++) {
+            if (!imageRepresentationHandler.isBandRendered(bandIndex)) {
+                continue;
+            }
             final int index = bandIndex;
 
             matrix.forEachBlock(block -> {
                 if (!imageMask.isMaskedBlock(block.getBlockIndex(), index)) {
-                    readBlock(block, imageSegment.getData(), index);
+                    readBlock(block, imageInputStream, index, dataStart + imageMask.getBlockOffset(block.getBlockIndex(), index));
                     applyMask(block, imageMask);
                 }
             });
@@ -62,11 +67,56 @@ class BandSequentialImageModeHandler extends BaseImageModeHandler implements Ima
         matrix.forEachBlock(block -> block.render(targetImage, true));
     }
 
-    private void readBlock(final ImageBlock block, final ImageInputStream imageInputStream, final int bandIndex) {
+    /**
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public void handleImageByBlockRows(final ImageSegment imageSegment, final BlockRowTarget target) throws IOException {
+
+        checkNull(imageSegment, "imageSegment");
+        checkNull(target, "target");
+        checkImageMode(imageSegment);
+
+        final ImageInputStream imageInputStream = imageSegment.getData();
+        final long dataStart = imageInputStream.getStreamPosition();
+        final ImageMask imageMask = getImageMask(imageSegment);
+
+        ImageBlockRow blockRow = new ImageBlockRow(imageSegment, ()
+                -> imageRepresentationHandler.createBufferedImage((int) imageSegment.getNumberOfPixelsPerBlockHorizontal(),
+                (int) imageSegment.getNumberOfPixelsPerBlockVertical()));
+
+        for (int rowIndex = 0; rowIndex < imageSegment.getNumberOfBlocksPerColumn(); rowIndex++) {
+            blockRow.startRow(rowIndex);
+
+            for (int bandIndex = 0; bandIndex < imageSegment.getNumBands(); bandIndex++) {
+                if (!imageRepresentationHandler.isBandRendered(bandIndex)) {
+                    continue;
+                }
+                for (ImageBlock block : blockRow.getBlocks()) {
+                    if (!imageMask.isMaskedBlock(block.getBlockIndex(), bandIndex)) {
+                        readBlock(block, imageInputStream, bandIndex, dataStart + imageMask.getBlockOffset(block.getBlockIndex(), bandIndex));
+                        applyMask(block, imageMask);
+                    }
+                }
+            }
+
+            blockRow.render(target.beginBlockRow(rowIndex));
+            target.endBlockRow(rowIndex);
+        }
+    }
+
+    @Override
+    long getSampleIndex(final ImageSegment imageSegment, final int bandIndex, final int column, final int row) {
+        return row * imageSegment.getNumberOfPixelsPerBlockHorizontal() + column;
+    }
+
+    private void readBlock(final ImageBlock block, final ImageInputStream imageInputStream, final int bandIndex, final long blockOffset) {
 
         final DataBuffer data = block.getDataBuffer();
 
         try {
+            imageInputStream.seek(blockOffset);
             for (int row = 0; row < block.getHeight(); row++) {
                 for (int column = 0; column < block.getWidth(); column++) {
                     int i = row * block.getWidth() + column;
@@ -14,7 +14,11 @@
  */
 package org.codice.imaging.nitf.render.imagemode;
 
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
 import java.io.IOException;
+import java.util.stream.IntStream;
+import javax.imageio.stream.ImageInputStream;
 import org.codice.imaging.nitf.core.image.ImageCompression;
 import org.codice.imaging.nitf.core.image.ImageMode;
 import org.codice.imaging.nitf.core.image.ImageSegment;
@@ -30,6 +34,96 @@ abstract class BaseImageModeHandler implements ImageModeHandler {
 
     abstract String getHandlerName();
 
+    /**
+     * Get the position of a pixel band value within the block that holds it.
+     *
+     * @param imageSegment the image segment specifying the image characteristics.
+     * @param bandIndex the zero-based band index.
+     * @param column the column of the pixel within the block.
+     * @param row the row of the pixel within the block.
+     * @return the number of pixel band values that precede this one in the block.
+     */
+    abstract long getSampleIndex(ImageSegment imageSegment, int bandIndex, int column, int row);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void handleImageSubsampled(final ImageSegment imageSegment, final int subsampling, final BufferedImage targetImage)
+            throws IOException {
+        checkNull(imageSegment, "imageSegment");
+        checkNull(targetImage, "targetImage");
+        checkImageMode(imageSegment);
+        if (subsampling < 1) {
+            throw new IllegalArgumentException(String.format("%s: argument 'subsampling' must be at least 1.", getHandlerName()));
+        }
+
+        final ImageInputStream imageInputStream = imageSegment.getData();
+        final long dataStart = imageInputStream.getStreamPosition();
+        final ImageMask imageMask = getImageMask(imageSegment);
+        final DataBuffer data = targetImage.getRaster().getDataBuffer();
+        final int blockWidth = (int) imageSegment.getNumberOfPixelsPerBlockHorizontal();
+        final int blockHeight = (int) imageSegment.getNumberOfPixelsPerBlockVertical();
+        final int width = (int) Math.min(targetImage.getWidth(), (imageSegment.getNumberOfColumns() + subsampling - 1) / subsampling);
+        final int height = (int) Math.min(targetImage.getHeight(), (imageSegment.getNumberOfRows() + subsampling - 1) / subsampling);
+        final int[] renderedBands = IntStream.range(0, imageSegment.getNumBands())
+                .filter(bandIndex -> imageRepresentationHandler.isBandRendered(bandIndex))
+                .toArray();
+
+        final int bitsPerBand = imageSegment.getNumberOfBitsPerPixelPerBand();
+        final int lastColumn = (width - 1) * subsampling;
+        // The kept columns of a row within one block are read as a single run, and then decimated in memory.
+        byte[] runData = new byte[0];
+        ByteArrayImageInputStream runStream = new ByteArrayImageInputStream(runData);
+
+        for (int targetRow = 0; targetRow < height; targetRow++) {
+            int row = targetRow * subsampling;
+            for (int blockColumn = 0; blockColumn * blockWidth <= lastColumn; blockColumn++) {
+                int firstColumn = ((blockColumn * blockWidth + subsampling - 1) / subsampling) * subsampling;
+                int endColumn = Math.min((blockColumn + 1) * blockWidth - 1, lastColumn);
+                if (firstColumn > endColumn) {
+                    continue;
+                }
+                endColumn -= (endColumn - firstColumn) % subsampling;
+                int blockIndex = (row / blockHeight) * imageSegment.getNumberOfBlocksPerRow() + blockColumn;
+                for (int bandIndex : renderedBands) {
+                    if (imageMask.isMaskedBlock(blockIndex, bandIndex)) {
+                        continue;
+                    }
+                    long blockBitStart = (dataStart + imageMask.getBlockOffset(blockIndex, bandIndex)) * Byte.SIZE;
+                    long firstBit = blockBitStart
+                            + getSampleIndex(imageSegment, bandIndex, firstColumn % blockWidth, row % blockHeight) * bitsPerBand;
+                    long endBit = blockBitStart
+                            + getSampleIndex(imageSegment, bandIndex, endColumn % blockWidth, row % blockHeight) * bitsPerBand
+                            + bitsPerBand;
+                    long runStart = firstBit / Byte.SIZE;
+                    int runLength = (int) ((endBit + Byte.SIZE - 1) / Byte.SIZE - runStart);
+                    if (runData.length < runLength) {
+                        runData = new byte[runLength];
+                        runStream = new ByteArrayImageInputStream(runData);
+                    }
+                    imageInputStream.seek(runStart);
+                    imageInputStream.readFully(runData, 0, runLength);
+
+                    for (int column = firstColumn; column <= endColumn; column += subsampling) {
+                        long bitPosition = blockBitStart - runStart * Byte.SIZE
+                                + getSampleIndex(imageSegment, bandIndex, column % blockWidth, row % blockHeight) * bitsPerBand;
+                        runStream.seek(bitPosition / Byte.SIZE);
+                        runStream.setBitOffset((int) (bitPosition % Byte.SIZE));
+                        int pixelIndex = targetRow * targetImage.getWidth() + column / subsampling;
+                        imageRepresentationHandler.renderPixelBand(data, pixelIndex, runStream, bandIndex);
+                    }
+                }
+            }
+        }
+
+        if (imageMask.hasPixelMasks()) {
+            for (int pixelIndex = 0; pixelIndex < targetImage.getWidth() * targetImage.getHeight(); ++pixelIndex) {
+                imageRepresentationHandler.renderPadPixel(imageMask, data, pixelIndex);
+            }
+        }
+    }
+
     protected void checkImageMode(final ImageSegment imageSegment) {
         if (!getSupportedImageMode().equals(imageSegment.getImageMode())) {
             throw new IllegalStateException(String.format("%s: argument 'imageSegment' must have an ImageMode of '%s'.",
@@ -53,6 +147,12 @@ abstract class BaseImageModeHandler implements ImageModeHandler {
         }
     }
 
+    protected void skipBits(final ImageInputStream imageInputStream, final long numberOfBits) throws IOException {
+        long bitPosition = imageInputStream.getStreamPosition() * Byte.SIZE + imageInputStream.getBitOffset() + numberOfBits;
+        imageInputStream.seek(bitPosition / Byte.SIZE);
+        imageInputStream.setBitOffset((int) (bitPosition % Byte.SIZE));
+    }
+
     protected void applyMask(final ImageBlock block, final ImageMask imageMask) {
         if ((imageMask != null) && (imageMask.hasPixelMasks())) {
             final int dataSize = block.getWidth() * block.getHeight();
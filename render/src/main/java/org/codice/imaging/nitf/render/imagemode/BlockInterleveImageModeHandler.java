@@ -40,13 +40,24 @@ class BlockInterleveImageModeHandler extends SharedImageModeHandler implements I
         return "BlockInterleveImageModeHandler";
     }
 
+    @Override
+    long getSampleIndex(final ImageSegment imageSegment, final int bandIndex, final int column, final int row) {
+        return (bandIndex * imageSegment.getNumberOfPixelsPerBlockVertical() + row)
+                * imageSegment.getNumberOfPixelsPerBlockHorizontal() + column;
+    }
+
     @Override
     protected void readBlock(final ImageBlock block, final ImageSegment imageSegment) {
 
         final DataBuffer data = block.getDataBuffer();
+        final long bitsPerBandBlock = (long) block.getWidth() * block.getHeight() * imageSegment.getNumberOfBitsPerPixelPerBand();
 
         try {
             for (int bandIndex = 0; bandIndex < imageSegment.getNumBands(); bandIndex++) {
+                if (!imageRepresentationHandler.isBandRendered(bandIndex)) {
+                    skipBits(imageSegment.getData(), bitsPerBandBlock);
+                    continue;
+                }
                 for (int row = 0; row < block.getHeight(); row++) {
                     for (int column = 0; column < block.getWidth(); column++) {
                         int i = row * block.getWidth() + column;
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.imagemode;
+
+import java.awt.Graphics2D;
+import java.io.IOException;
+
+/**
+ * A BlockRowTarget receives an image one row of blocks at a time.
+ *
+ * The ImageModeHandler asks for a drawing surface before rendering each row of blocks, and notifies the target once
+ * all of the blocks in that row have been drawn. The target is free to re-use the same surface for every row.
+ *
+ * The blocks are drawn at their position in the full image, so a target that only holds one row of blocks will
+ * typically return a Graphics2D that has been translated to match.
+ */
+public interface BlockRowTarget {
+
+    /**
+     * Get the surface that the specified row of blocks will be drawn on.
+     *
+     * @param blockRowIndex the zero-based index of the row of blocks that is about to be drawn.
+     * @return the Graphics2D to draw the row of blocks on.
+     */
+    Graphics2D beginBlockRow(int blockRowIndex);
+
+    /**
+     * Notification that all the blocks in the specified row have been drawn.
+     *
+     * @param blockRowIndex the zero-based index of the row of blocks that has been drawn.
+     * @throws IOException if the target could not process the row.
+     */
+    void endBlockRow(int blockRowIndex) throws IOException;
+}
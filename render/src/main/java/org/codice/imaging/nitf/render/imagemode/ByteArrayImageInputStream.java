@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.imagemode;
+
+import javax.imageio.stream.ImageInputStreamImpl;
+
+/**
+ * ImageInputStream over an existing byte array.
+ *
+ * This allows data that has been bulk read from the underlying image stream to be decoded by an
+ * ImageRepresentationHandler. The array is not copied, so changes to the array are visible through the stream.
+ */
+final class ByteArrayImageInputStream extends ImageInputStreamImpl {
+
+    private static final int BYTE_MASK = 0xFF;
+
+    private final byte[] buffer;
+
+    /**
+     * Constructor.
+     *
+     * @param data the array to read from.
+     */
+    ByteArrayImageInputStream(final byte[] data) {
+        this.buffer = data;
+    }
+
+    @Override
+    public int read() {
+        bitOffset = 0;
+        if (streamPos >= buffer.length) {
+            return -1;
+        }
+        return buffer[(int) streamPos++] & BYTE_MASK;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) {
+        bitOffset = 0;
+        if (streamPos >= buffer.length) {
+            return -1;
+        }
+        int numBytes = (int) Math.min(len, buffer.length - streamPos);
+        System.arraycopy(buffer, (int) streamPos, b, off, numBytes);
+        streamPos += numBytes;
+        return numBytes;
+    }
+
+    @Override
+    public long length() {
+        return buffer.length;
+    }
+}
@@ -71,6 +71,15 @@ class ImageBlock {
         return blockImage.getRaster().getDataBuffer();
     }
 
+    /**
+     * Check whether any data has been read into this block.
+     *
+     * @return true if the underlying image has been supplied, otherwise false.
+     */
+    public boolean isPopulated() {
+        return blockImage != null;
+    }
+
     /**
      * Render this image block into a target image.
      *
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.imagemode;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.util.function.Supplier;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+
+/**
+ * The ImageBlockRow represents one row of image blocks, re-using the same underlying images for each row.
+ */
+class ImageBlockRow {
+    private final ImageBlock[] blocks;
+    private final BufferedImage[] images;
+    private final int blockWidth;
+    private final int blockHeight;
+    private int blockRowIndex;
+
+    /**
+     * Constructor.
+     *
+     * @param imageSegment the Image Segment that this row is being created for.
+     * @param imageSupplier the source of the underlying buffered images to store the data.
+     */
+    ImageBlockRow(final ImageSegment imageSegment, final Supplier<BufferedImage> imageSupplier) {
+        int numberOfColumns = imageSegment.getNumberOfBlocksPerRow();
+        this.blockWidth = (int) imageSegment.getNumberOfPixelsPerBlockHorizontal();
+        this.blockHeight = (int) imageSegment.getNumberOfPixelsPerBlockVertical();
+        this.blocks = new ImageBlock[numberOfColumns];
+        this.images = new BufferedImage[numberOfColumns];
+
+        for (int i = 0; i < numberOfColumns; i++) {
+            images[i] = imageSupplier.get();
+        }
+    }
+
+    /**
+     * Start a new row of blocks.
+     *
+     * Any data from the previous row is discarded.
+     *
+     * @param rowIndex the zero-based index of the row of blocks.
+     */
+    public void startRow(final int rowIndex) {
+        this.blockRowIndex = rowIndex;
+
+        for (int i = 0; i < blocks.length; i++) {
+            final BufferedImage image = images[i];
+            blocks[i] = new ImageBlock(rowIndex, i, blocks.length, blockWidth, blockHeight, () -> clear(image));
+        }
+    }
+
+    /**
+     * Get the blocks in the current row.
+     *
+     * @return the blocks, in column order.
+     */
+    public ImageBlock[] getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * Render the blocks in the current row into a target image.
+     *
+     * Blocks that have not had any data read into them are not drawn.
+     *
+     * @param targetImage the image to draw into.
+     */
+    public void render(final Graphics2D targetImage) {
+        for (int i = 0; i < blocks.length; i++) {
+            if (blocks[i].isPopulated()) {
+                targetImage.drawImage(images[i], i * blockWidth, blockRowIndex * blockHeight, null);
+            }
+        }
+    }
+
+    private static BufferedImage clear(final BufferedImage image) {
+        DataBuffer data = image.getRaster().getDataBuffer();
+
+        for (int bank = 0; bank < data.getNumBanks(); bank++) {
+            for (int i = 0; i < data.getSize(); i++) {
+                data.setElem(bank, i, 0);
+            }
+        }
+
+        return image;
+    }
+}
@@ -15,6 +15,7 @@
 package org.codice.imaging.nitf.render.imagemode;
 
 import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
 import org.codice.imaging.nitf.core.image.ImageSegment;
 
@@ -34,4 +35,31 @@ public interface ImageModeHandler {
      */
     void handleImage(ImageSegment imageSegment, Graphics2D targetImage)
             throws IOException;
+
+    /**
+     * Handle rendering of this image segment to the specified target, one row of blocks at a time.
+     *
+     * Only the blocks for a single row are held in memory at any time.
+     *
+     * @param imageSegment the ImageSegment for the image being rendered.
+     * @param target the target that each row of blocks will be rendered to.
+     * @throws IOException propagated from the ImageInputStream or the target.
+     */
+    void handleImageByBlockRows(ImageSegment imageSegment, BlockRowTarget target)
+            throws IOException;
+
+    /**
+     * Handle rendering of a subsampled version of this image segment to the specified target.
+     *
+     * Only every subsampling'th pixel in each direction (starting from the top left pixel) is read, and the data for
+     * the other pixels is skipped over without being decoded.
+     *
+     * @param imageSegment the ImageSegment for the image being rendered.
+     * @param subsampling the subsampling factor, which must be at least one.
+     * @param targetImage the image to render to. This must have been created by the ImageRepresentationHandler for
+     * the image segment, with a width and height that is large enough to hold the subsampled image.
+     * @throws IOException propagated from the ImageInputStream.
+     */
+    void handleImageSubsampled(ImageSegment imageSegment, int subsampling, BufferedImage targetImage)
+            throws IOException;
 }
@@ -21,9 +21,36 @@ public final class ImageModeHandlerFactory {
      * could not be found.
      */
     public static ImageModeHandler forImageSegment(final ImageSegment imageSegment) {
-        ImageRepresentationHandler imageRepresentationHandler =
-                ImageRepresentationHandlerFactory.forImageSegment(imageSegment);
+        return forImageSegment(imageSegment, (int[]) null);
+    }
+
+    /**
+     * Get an appropriate image mode handler for the specified image segment, rendering only the selected bands.
+     *
+     * The data for bands that are not selected is skipped rather than decoded.
+     *
+     * @param imageSegment the image segment specifying the image
+     * characteristics.
+     * @param bandIndices the zero-based indices of the bands to render (one for greyscale, three for RGB), or null to
+     * use the default bands for the image representation.
+     * @return a handler for the image mode, or null if an appropriate reader
+     * could not be found.
+     */
+    public static ImageModeHandler forImageSegment(final ImageSegment imageSegment, final int[] bandIndices) {
+        return forImageSegment(imageSegment, ImageRepresentationHandlerFactory.forImageSegment(imageSegment, bandIndices));
+    }
 
+    /**
+     * Get an appropriate image mode handler for the specified image segment, using the specified image
+     * representation handler.
+     *
+     * @param imageSegment the image segment specifying the image
+     * characteristics.
+     * @param imageRepresentationHandler the handler for the image representation, which may be null.
+     * @return a handler for the image mode, or null if imageRepresentationHandler is null.
+     */
+    public static ImageModeHandler forImageSegment(final ImageSegment imageSegment,
+            final ImageRepresentationHandler imageRepresentationHandler) {
         if (imageRepresentationHandler == null) {
             return null;
         }
@@ -16,6 +16,7 @@ package org.codice.imaging.nitf.render.imagemode;
 
 import java.awt.image.DataBuffer;
 import java.io.IOException;
+import java.util.stream.IntStream;
 import org.codice.imaging.nitf.core.image.ImageMode;
 import org.codice.imaging.nitf.core.image.ImageSegment;
 import org.codice.imaging.nitf.render.imagerep.ImageRepresentationHandler;
@@ -39,17 +40,35 @@ class PixelInterleveImageModeHandler extends SharedImageModeHandler implements I
         return ImageMode.PIXELINTERLEVE;
     }
 
+    @Override
+    long getSampleIndex(final ImageSegment imageSegment, final int bandIndex, final int column, final int row) {
+        return (row * imageSegment.getNumberOfPixelsPerBlockHorizontal() + column)
+                * imageSegment.getNumBands() + bandIndex;
+    }
+
     @Override
     protected void readBlock(final ImageBlock block, final ImageSegment imageSegment) {
 
         final DataBuffer data = block.getDataBuffer();
+        final int[] renderedBands = getRenderedBands(imageSegment);
 
         try {
-            for (int row = 0; row < block.getHeight(); row++) {
-                for (int column = 0; column < block.getWidth(); column++) {
-                    for (int bandIndex = 0; bandIndex < imageSegment.getNumBands(); bandIndex++) {
-                        int i = row * block.getWidth() + column;
-                        imageRepresentationHandler.renderPixelBand(data, i, imageSegment.getData(), bandIndex);
+            if (renderedBands.length == 0) {
+                skipBits(imageSegment.getData(), (long) block.getWidth() * block.getHeight() * imageSegment.getNumBands()
+                        * imageSegment.getNumberOfBitsPerPixelPerBand());
+            } else if (imageSegment.getNumberOfBitsPerPixelPerBand() % Byte.SIZE == 0) {
+                readByteAlignedBlock(block, imageSegment, data, renderedBands);
+            } else {
+                for (int row = 0; row < block.getHeight(); row++) {
+                    for (int column = 0; column < block.getWidth(); column++) {
+                        for (int bandIndex = 0; bandIndex < imageSegment.getNumBands(); bandIndex++) {
+                            if (!imageRepresentationHandler.isBandRendered(bandIndex)) {
+                                skipBits(imageSegment.getData(), imageSegment.getNumberOfBitsPerPixelPerBand());
+                                continue;
+                            }
+                            int i = row * block.getWidth() + column;
+                            imageRepresentationHandler.renderPixelBand(data, i, imageSegment.getData(), bandIndex);
+                        }
                     }
                 }
             }
@@ -58,4 +77,35 @@ class PixelInterleveImageModeHandler extends SharedImageModeHandler implements I
         }
     }
 
+    /**
+     * Read a block where each band value occupies a whole number of bytes.
+     *
+     * Each row of the block is read from the image stream in a single operation, and then only the rendered bands
+     * are decoded from the row.
+     */
+    private void readByteAlignedBlock(final ImageBlock block, final ImageSegment imageSegment, final DataBuffer data,
+            final int[] renderedBands) throws IOException {
+        final int bytesPerBand = imageSegment.getNumberOfBitsPerPixelPerBand() / Byte.SIZE;
+        final int bytesPerPixel = bytesPerBand * imageSegment.getNumBands();
+        final byte[] rowData = new byte[block.getWidth() * bytesPerPixel];
+        final ByteArrayImageInputStream rowStream = new ByteArrayImageInputStream(rowData);
+
+        for (int row = 0; row < block.getHeight(); row++) {
+            imageSegment.getData().readFully(rowData);
+            for (int column = 0; column < block.getWidth(); column++) {
+                int i = row * block.getWidth() + column;
+                for (int bandIndex : renderedBands) {
+                    rowStream.seek((long) column * bytesPerPixel + bandIndex * bytesPerBand);
+                    imageRepresentationHandler.renderPixelBand(data, i, rowStream, bandIndex);
+                }
+            }
+        }
+    }
+
+    private int[] getRenderedBands(final ImageSegment imageSegment) {
+        return IntStream.range(0, imageSegment.getNumBands())
+                .filter(bandIndex -> imageRepresentationHandler.isBandRendered(bandIndex))
+                .toArray();
+    }
+
 }
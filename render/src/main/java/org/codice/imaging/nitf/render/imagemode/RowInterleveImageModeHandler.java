@@ -40,14 +40,25 @@ class RowInterleveImageModeHandler extends SharedImageModeHandler implements Ima
         return "RowInterleveImageModeHandler";
     }
 
+    @Override
+    long getSampleIndex(final ImageSegment imageSegment, final int bandIndex, final int column, final int row) {
+        return ((long) row * imageSegment.getNumBands() + bandIndex)
+                * imageSegment.getNumberOfPixelsPerBlockHorizontal() + column;
+    }
+
     @Override
     protected void readBlock(final ImageBlock block, final ImageSegment imageSegment) {
 
         final DataBuffer data = block.getDataBuffer();
+        final long bitsPerBandRow = (long) block.getWidth() * imageSegment.getNumberOfBitsPerPixelPerBand();
 
         try {
             for (int row = 0; row < block.getHeight(); row++) {
                 for (int bandIndex = 0; bandIndex < imageSegment.getNumBands(); bandIndex++) {
+                    if (!imageRepresentationHandler.isBandRendered(bandIndex)) {
+                        skipBits(imageSegment.getData(), bitsPerBandRow);
+                        continue;
+                    }
                     for (int column = 0; column < block.getWidth(); column++) {
                         int i = row * block.getWidth() + column;
                         imageRepresentationHandler.renderPixelBand(data, i, imageSegment.getData(), bandIndex);
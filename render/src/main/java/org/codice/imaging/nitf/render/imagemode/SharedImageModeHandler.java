@@ -55,6 +55,36 @@ abstract class SharedImageModeHandler extends BaseImageModeHandler implements Im
         matrix.forEachBlock(block -> block.render(targetImage, true));
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void handleImageByBlockRows(final ImageSegment imageSegment, final BlockRowTarget target) throws IOException {
+        checkNull(imageSegment, "imageSegment");
+        checkNull(target, "target");
+        checkImageMode(imageSegment);
+
+        final ImageMask imageMask = getImageMask(imageSegment);
+
+        ImageBlockRow blockRow = new ImageBlockRow(imageSegment,
+                () -> imageRepresentationHandler.createBufferedImage((int) imageSegment.getNumberOfPixelsPerBlockHorizontal(),
+                        (int) imageSegment.getNumberOfPixelsPerBlockVertical()));
+
+        for (int rowIndex = 0; rowIndex < imageSegment.getNumberOfBlocksPerColumn(); rowIndex++) {
+            blockRow.startRow(rowIndex);
+
+            for (ImageBlock block : blockRow.getBlocks()) {
+                if (!imageMask.isMaskedBlock(block.getBlockIndex(), 0)) {
+                    readBlock(block, imageSegment);
+                    applyMask(block, imageMask);
+                }
+            }
+
+            blockRow.render(target.beginBlockRow(rowIndex));
+            target.endBlockRow(rowIndex);
+        }
+    }
+
     protected abstract void readBlock(final ImageBlock block, final ImageSegment imageSegment);
 
 }
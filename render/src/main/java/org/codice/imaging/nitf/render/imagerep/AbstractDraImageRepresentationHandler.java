@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.imagerep;
+
+import java.awt.image.DataBuffer;
+import java.io.IOException;
+import javax.imageio.stream.ImageInputStream;
+import org.codice.imaging.nitf.render.ImageMask;
+import org.codice.imaging.nitf.render.dra.DraLookupTable;
+
+/**
+ * Shared implementation details for the handlers that apply a dynamic range adjustment.
+ *
+ * These read each sample as recorded, and map it straight to an 8 bit display value using the lookup table, so the
+ * display image is produced without an intermediate high bit depth image. Pad samples are handled by the lookup
+ * table, so there is no separate pad pixel pass.
+ */
+abstract class AbstractDraImageRepresentationHandler implements ImageRepresentationHandler {
+    protected final DraLookupTable lookupTable;
+    private final int bitsPerSample;
+
+    AbstractDraImageRepresentationHandler(final DraLookupTable draLookupTable, final int numBitsPerPixelPerBand) {
+        this.lookupTable = draLookupTable;
+        this.bitsPerSample = numBitsPerPixelPerBand;
+    }
+
+    protected final int readSample(final ImageInputStream imageInputStream) throws IOException {
+        switch (bitsPerSample) {
+            case Byte.SIZE:
+                return imageInputStream.readUnsignedByte();
+            case Short.SIZE:
+                return imageInputStream.readUnsignedShort();
+            default:
+                return (int) imageInputStream.readBits(bitsPerSample);
+        }
+    }
+
+    @Override
+    public final void renderPadPixel(final ImageMask imageMask, final DataBuffer data, final int pixelIndex) {
+        // Pad samples were already mapped to "no data" by the lookup table.
+    }
+}
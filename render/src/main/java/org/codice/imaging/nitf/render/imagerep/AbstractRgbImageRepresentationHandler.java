@@ -44,4 +44,10 @@ abstract class AbstractRgbImageRepresentationHandler implements ImageRepresentat
             data.setElem(pixelIndex, 0x00000000);
         }
     }
+
+    @Override
+    public final boolean isBandRendered(final int bandIndex) {
+        Integer leftShift = bandMapping.get(bandIndex);
+        return (leftShift != null) && (leftShift >= 0);
+    }
 }
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.imagerep;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.IOException;
+import javax.imageio.stream.ImageInputStream;
+import org.codice.imaging.nitf.render.dra.DraLookupTable;
+
+/**
+ * Image representation handler for mono (greyscale) images with a dynamic range adjustment.
+ *
+ * Pad pixels are rendered as black.
+ */
+class DraMonoImageRepresentationHandler extends AbstractDraImageRepresentationHandler {
+    private final int selectedBandZeroBase;
+
+    DraMonoImageRepresentationHandler(final int selectedBand, final DraLookupTable draLookupTable, final int numBitsPerPixelPerBand) {
+        super(draLookupTable, numBitsPerPixelPerBand);
+        this.selectedBandZeroBase = selectedBand;
+    }
+
+    @Override
+    public void renderPixelBand(final DataBuffer dataBuffer, final int pixelIndex,
+            final ImageInputStream imageInputStream, final int bandIndex) throws IOException {
+        int sample = readSample(imageInputStream);
+        if (bandIndex == selectedBandZeroBase) {
+            dataBuffer.setElem(pixelIndex, Math.max(lookupTable.lookup(bandIndex, sample), 0));
+        }
+    }
+
+    @Override
+    public BufferedImage createBufferedImage(final int width, final int height) {
+        return new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+    }
+
+    @Override
+    public boolean isBandRendered(final int bandIndex) {
+        return bandIndex == selectedBandZeroBase;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.imagerep;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.IOException;
+import java.util.Map;
+import javax.imageio.stream.ImageInputStream;
+import org.codice.imaging.nitf.render.dra.DraLookupTable;
+
+/**
+ * Image representation handler for RGB (and RGB composite) images with a dynamic range adjustment.
+ *
+ * A pixel is only made opaque by a band that is not a pad sample, so pixels where all the rendered bands are pad
+ * samples are transparent.
+ */
+class DraRgbImageRepresentationHandler extends AbstractDraImageRepresentationHandler {
+    private static final int ALPHA_MASK = 0xFF000000;
+
+    private final Map<Integer, Integer> bandMapping;
+
+    DraRgbImageRepresentationHandler(final Map<Integer, Integer> bandMap, final DraLookupTable draLookupTable,
+            final int numBitsPerPixelPerBand) {
+        super(draLookupTable, numBitsPerPixelPerBand);
+        this.bandMapping = bandMap;
+    }
+
+    @Override
+    public void renderPixelBand(final DataBuffer data, final int pixelIndex, final ImageInputStream imageInputStream,
+            final int bandIndex) throws IOException {
+        int displayValue = lookupTable.lookup(bandIndex, readSample(imageInputStream));
+        Integer leftShift = bandMapping.get(bandIndex);
+        if ((displayValue != DraLookupTable.NO_DATA) && (leftShift != null) && (leftShift >= 0)) {
+            data.setElem(pixelIndex, ALPHA_MASK | data.getElem(pixelIndex) | (displayValue << leftShift));
+        }
+    }
+
+    @Override
+    public BufferedImage createBufferedImage(final int width, final int height) {
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    @Override
+    public boolean isBandRendered(final int bandIndex) {
+        Integer leftShift = bandMapping.get(bandIndex);
+        return (leftShift != null) && (leftShift >= 0);
+    }
+}
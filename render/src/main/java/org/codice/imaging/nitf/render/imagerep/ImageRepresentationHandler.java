@@ -61,4 +61,17 @@ public interface ImageRepresentationHandler {
      * @param pixelIndex the pixel index within the block to operate on
      */
     void renderPadPixel(ImageMask imageMask, DataBuffer data, int pixelIndex);
+
+    /**
+     * Check whether the specified band contributes to the rendered pixel.
+     *
+     * Image mode handlers use this to skip over band data that would otherwise be read and discarded. If this returns
+     * false, renderPixelBand() will not be called for the band.
+     *
+     * @param bandIndex the index of the band, zero-based.
+     * @return true if the band is used for rendering, otherwise false.
+     */
+    default boolean isBandRendered(final int bandIndex) {
+        return true;
+    }
 }
@@ -19,6 +19,8 @@ import java.util.Map;
 
 import org.codice.imaging.nitf.core.image.ImageBand;
 import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.image.PixelValueType;
+import org.codice.imaging.nitf.render.dra.DraLookupTable;
 import org.codice.imaging.nitf.render.datareader.DataReaderFactory;
 import org.codice.imaging.nitf.render.datareader.IOReaderFunction;
 
@@ -29,6 +31,8 @@ public final class ImageRepresentationHandlerFactory {
 
     private static final int NOT_VISIBLE_MAPPED = -1;
     private static final int BAND_NOT_FOUND = -2;
+    private static final int NUM_COMPOSITE_BANDS = 3;
+    private static final int[] COMPOSITE_LEFT_SHIFTS = {2 * Byte.SIZE, Byte.SIZE, 0};
 
     private ImageRepresentationHandlerFactory() {
     }
@@ -60,14 +64,89 @@ public final class ImageRepresentationHandlerFactory {
         }
     }
 
+    /**
+     * Get an ImageRepresentationHandler that renders a selected subset of the bands in the specified image segment.
+     *
+     * A single band is rendered as greyscale, and three bands are rendered as an RGB composite (in red, green, blue
+     * order). Only the selected bands contribute to the rendered image, so image mode handlers can skip the data for
+     * the other bands.
+     *
+     * @param segment the image segment specifying the image characteristics to
+     * be read.
+     * @param bandIndices the zero-based indices of the bands to render, or null to use the default bands for the
+     * image representation.
+     * @return a handler for the segment, or null if an appropriate handler could not be found.
+     */
+    public static ImageRepresentationHandler forImageSegment(final ImageSegment segment, final int[] bandIndices) {
+        if (bandIndices == null) {
+            return forImageSegment(segment);
+        }
+
+        for (int bandIndex : bandIndices) {
+            if ((bandIndex < 0) || (bandIndex >= segment.getNumBands())) {
+                throw new IllegalArgumentException("Band index " + bandIndex + " is not valid for an image with "
+                        + segment.getNumBands() + " bands");
+            }
+        }
+
+        switch (bandIndices.length) {
+            case 1:
+                return getMonoImageRepresentationHandler(segment, bandIndices[0]);
+            case NUM_COMPOSITE_BANDS:
+                return getRgbImageRepresentationHandler(segment, getCompositeMapping(segment, bandIndices));
+            default:
+                throw new IllegalArgumentException("Band selection must have one (greyscale) or three (RGB) bands, not "
+                        + bandIndices.length);
+        }
+    }
+
+    /**
+     * Get an ImageRepresentationHandler that applies a dynamic range adjustment to the selected bands.
+     *
+     * The handler renders 8 bit display values (greyscale, or RGB for a composite) directly from the recorded sample
+     * values. This only applies to integer images of up to 16 bits per pixel per band that would otherwise be rendered
+     * as greyscale or RGB - for other images, this is the same as forImageSegment(segment, bandIndices).
+     *
+     * @param segment the image segment specifying the image characteristics to
+     * be read.
+     * @param bandIndices the zero-based indices of the bands to render, or null to use the default bands for the
+     * image representation.
+     * @param lookupTable the dynamic range adjustment lookup table for the segment, or null for no adjustment.
+     * @return a handler for the segment, or null if an appropriate handler could not be found.
+     */
+    public static ImageRepresentationHandler forImageSegment(final ImageSegment segment, final int[] bandIndices,
+            final DraLookupTable lookupTable) {
+        ImageRepresentationHandler handler = forImageSegment(segment, bandIndices);
+        if ((lookupTable == null)
+                || (segment.getPixelValueType() != PixelValueType.INTEGER)
+                || (segment.getNumberOfBitsPerPixelPerBand() > DraLookupTable.MAXIMUM_BITS_PER_SAMPLE)) {
+            return handler;
+        }
+        if (lookupTable.getNumBands() != segment.getNumBands()) {
+            throw new IllegalArgumentException("Lookup table has " + lookupTable.getNumBands() + " bands, but the image has "
+                    + segment.getNumBands() + " bands");
+        }
+
+        if (handler instanceof AbstractRgbImageRepresentationHandler) {
+            return new DraRgbImageRepresentationHandler(((AbstractRgbImageRepresentationHandler) handler).bandMapping,
+                    lookupTable, segment.getNumberOfBitsPerPixelPerBand());
+        } else if (handler instanceof SharedMonoImageRepresentationHandler) {
+            return new DraMonoImageRepresentationHandler(((SharedMonoImageRepresentationHandler) handler).selectedBandZeroBase,
+                    lookupTable, segment.getNumberOfBitsPerPixelPerBand());
+        }
+        return handler;
+    }
+
     private static ImageRepresentationHandler getRgbImageRepresentationHandler(final ImageSegment segment) {
-        Map<Integer, Integer> bandMapping;
+        return getRgbImageRepresentationHandler(segment, getRgbImageRepresentationMapping(segment));
+    }
+
+    private static ImageRepresentationHandler getRgbImageRepresentationHandler(final ImageSegment segment,
+            final Map<Integer, Integer> bandMapping) {
         switch (segment.getNumberOfBitsPerPixelPerBand()) {
         case Byte.SIZE:
-            bandMapping = getRgbImageRepresentationMapping(segment);
             return new Rgb24ImageRepresentationHandler(bandMapping, segment.getActualBitsPerPixelPerBand());
         case Short.SIZE:
-            bandMapping = getRgbImageRepresentationMapping(segment);
             return new Rgb48ImageRepresentationHandler(bandMapping,
                     segment.getActualBitsPerPixelPerBand(),
                     segment.getPixelJustification(),
@@ -79,6 +158,19 @@ public final class ImageRepresentationHandlerFactory {
         }
     }
 
+    private static Map<Integer, Integer> getCompositeMapping(final ImageSegment imageSegment, final int[] bandIndices) {
+        Map<Integer, Integer> mapping = new HashMap<>();
+        for (int bandIndex = 0; bandIndex < imageSegment.getNumBands(); bandIndex++) {
+            mapping.put(bandIndex, NOT_VISIBLE_MAPPED);
+        }
+        for (int i = 0; i < NUM_COMPOSITE_BANDS; i++) {
+            if (mapping.put(bandIndices[i], COMPOSITE_LEFT_SHIFTS[i]) != NOT_VISIBLE_MAPPED) {
+                throw new IllegalArgumentException("Band " + bandIndices[i] + " can only be selected once");
+            }
+        }
+        return mapping;
+    }
+
     private static Map<Integer, Integer> getRgbImageRepresentationMapping(final ImageSegment imageSegment) {
         Map<Integer, Integer> mapping = new HashMap<>();
         for (int bandIndex = 0; bandIndex < imageSegment.getNumBands(); bandIndex++) {
@@ -31,6 +31,11 @@ class NoDisplayImageRepresentationHandler implements ImageRepresentationHandler
         return new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
     }
 
+    @Override
+    public final boolean isBandRendered(final int bandIndex) {
+        return false;
+    }
+
     @Override
     public final void renderPadPixel(final ImageMask imageMask, final DataBuffer data, final int pixelIndex) {
         return;
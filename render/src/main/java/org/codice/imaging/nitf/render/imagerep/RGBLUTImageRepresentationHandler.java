@@ -67,6 +67,11 @@ class RGBLUTImageRepresentationHandler implements ImageRepresentationHandler {
         // Handled by the colour model.
     }
 
+    @Override
+    public boolean isBandRendered(final int bandIndex) {
+        return bandIndex == selectedBand;
+    }
+
     @Override
     public BufferedImage createBufferedImage(final int width, final int height) {
         return new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED, colourModel);
@@ -37,4 +37,9 @@ abstract class SharedMonoImageRepresentationHandler implements ImageRepresentati
         }
     }
 
+    @Override
+    public boolean isBandRendered(final int bandIndex) {
+        return bandIndex == selectedBandZeroBase;
+    }
+
 }
@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.statistics;
+
+import org.codice.imaging.nitf.render.ImageMask;
+
+/**
+ * Statistics for the sample values of a single band.
+ *
+ * Samples that are "no data" (pad pixels, or samples in blocks that are not recorded in the file) are counted, but
+ * are not included in any of the other statistics.
+ *
+ * The histogram covers the full range of the sample values (from zero to 2^bits - 1). Each bin covers the same
+ * number of sample values (the bin width), so that for 11, 12 and 16 bit data, a smaller number of bins can be used
+ * than there are possible sample values.
+ */
+public final class BandStatistics {
+
+    private static final long UNSIGNED_INT_MASK = 0xFFFFFFFFL;
+    private static final double PERCENT = 100.0;
+
+    private final long[] mHistogram;
+    private final long mBinWidth;
+    private final int mSampleShift;
+    private long mSampleCount = 0;
+    private long mNoDataCount = 0;
+    private long mMinimum = Long.MAX_VALUE;
+    private long mMaximum = Long.MIN_VALUE;
+    private double mMean = 0.0;
+    private double mSumOfSquaredDifferences = 0.0;
+
+    /**
+     * Create empty statistics.
+     *
+     * @param bitsPerSample the number of bits per sample, which determines the range of the histogram.
+     * @param maximumNumberOfBins the maximum number of histogram bins.
+     */
+    BandStatistics(final int bitsPerSample, final int maximumNumberOfBins) {
+        this(bitsPerSample, maximumNumberOfBins, 0);
+    }
+
+    /**
+     * Create empty statistics for samples that are stored shifted left (left justified, PJUST=L).
+     *
+     * @param bitsPerSample the number of bits per sample, which determines the range of the histogram.
+     * @param maximumNumberOfBins the maximum number of histogram bins.
+     * @param sampleShift the number of bits to shift each stored sample right by, to get its value.
+     */
+    BandStatistics(final int bitsPerSample, final int maximumNumberOfBins, final int sampleShift) {
+        long range = 1L << bitsPerSample;
+        mBinWidth = Math.max(1, (range + maximumNumberOfBins - 1) / maximumNumberOfBins);
+        mHistogram = new long[(int) ((range + mBinWidth - 1) / mBinWidth)];
+        mSampleShift = sampleShift;
+    }
+
+    private BandStatistics(final long binWidth, final int numberOfBins, final int sampleShift) {
+        mBinWidth = binWidth;
+        mHistogram = new long[numberOfBins];
+        mSampleShift = sampleShift;
+    }
+
+    /**
+     * Create empty statistics with the same histogram layout as this one.
+     *
+     * @return the new statistics.
+     */
+    BandStatistics createEmptyCopy() {
+        return new BandStatistics(mBinWidth, mHistogram.length, mSampleShift);
+    }
+
+    /**
+     * Add a set of samples (typically one block).
+     *
+     * The samples are treated as unsigned values. Pad samples are identified before any shift for left justified
+     * samples is applied. Each sample is read twice - once for the sum and histogram, and
+     * again for the squared differences from the mean of the set - which is more accurate than a sum of squares.
+     *
+     * @param samples the sample values.
+     * @param imageMask the image mask used to identify pad samples, or null if there are no pad samples.
+     */
+    void addSamples(final int[] samples, final ImageMask imageMask) {
+        boolean checkPadSamples = (imageMask != null) && imageMask.hasPixelMasks();
+        long count = 0;
+        long sum = 0;
+        long minimum = Long.MAX_VALUE;
+        long maximum = Long.MIN_VALUE;
+        int lastBin = mHistogram.length - 1;
+        for (int sample : samples) {
+            if (checkPadSamples && imageMask.isPadSample(sample)) {
+                mNoDataCount++;
+                continue;
+            }
+            long value = (sample & UNSIGNED_INT_MASK) >>> mSampleShift;
+            count++;
+            sum += value;
+            minimum = Math.min(minimum, value);
+            maximum = Math.max(maximum, value);
+            mHistogram[(int) Math.min(value / mBinWidth, lastBin)]++;
+        }
+        if (count == 0) {
+            return;
+        }
+
+        double mean = (double) sum / count;
+        double sumOfSquaredDifferences = 0.0;
+        for (int sample : samples) {
+            if (checkPadSamples && imageMask.isPadSample(sample)) {
+                continue;
+            }
+            double difference = ((sample & UNSIGNED_INT_MASK) >>> mSampleShift) - mean;
+            sumOfSquaredDifferences += difference * difference;
+        }
+        combine(count, minimum, maximum, mean, sumOfSquaredDifferences);
+    }
+
+    /**
+     * Add samples that are "no data".
+     *
+     * @param count the number of samples.
+     */
+    void addNoData(final long count) {
+        mNoDataCount += count;
+    }
+
+    /**
+     * Merge another set of statistics into this one.
+     *
+     * @param other the statistics to merge, which must have the same histogram layout.
+     */
+    void merge(final BandStatistics other) {
+        for (int i = 0; i < mHistogram.length; i++) {
+            mHistogram[i] += other.mHistogram[i];
+        }
+        mNoDataCount += other.mNoDataCount;
+        if (other.mSampleCount > 0) {
+            combine(other.mSampleCount, other.mMinimum, other.mMaximum, other.mMean, other.mSumOfSquaredDifferences);
+        }
+    }
+
+    private void combine(final long count, final long minimum, final long maximum, final double mean, final double sumOfSquaredDifferences) {
+        long totalCount = mSampleCount + count;
+        double delta = mean - mMean;
+        mMean += delta * count / totalCount;
+        mSumOfSquaredDifferences += sumOfSquaredDifferences + delta * delta * ((double) mSampleCount * count / totalCount);
+        mSampleCount = totalCount;
+        mMinimum = Math.min(mMinimum, minimum);
+        mMaximum = Math.max(mMaximum, maximum);
+    }
+
+    /**
+     * Get the number of valid (not "no data") samples.
+     *
+     * @return the number of samples included in the statistics.
+     */
+    public long getSampleCount() {
+        return mSampleCount;
+    }
+
+    /**
+     * Get the number of "no data" samples.
+     *
+     * This includes pad pixels, and the samples in blocks that are not recorded in the file.
+     *
+     * @return the number of samples that were not included in the statistics.
+     */
+    public long getNoDataCount() {
+        return mNoDataCount;
+    }
+
+    /**
+     * Get the minimum sample value.
+     *
+     * @return the minimum value, or zero if there are no valid samples.
+     */
+    public long getMinimum() {
+        if (mSampleCount == 0) {
+            return 0;
+        }
+        return mMinimum;
+    }
+
+    /**
+     * Get the maximum sample value.
+     *
+     * @return the maximum value, or zero if there are no valid samples.
+     */
+    public long getMaximum() {
+        if (mSampleCount == 0) {
+            return 0;
+        }
+        return mMaximum;
+    }
+
+    /**
+     * Get the mean sample value.
+     *
+     * @return the mean value, or zero if there are no valid samples.
+     */
+    public double getMean() {
+        return mMean;
+    }
+
+    /**
+     * Get the (population) standard deviation of the sample values.
+     *
+     * @return the standard deviation, or zero if there are no valid samples.
+     */
+    public double getStandardDeviation() {
+        if (mSampleCount == 0) {
+            return 0.0;
+        }
+        return Math.sqrt(mSumOfSquaredDifferences / mSampleCount);
+    }
+
+    /**
+     * Get the approximate sample value at the specified percentile.
+     *
+     * This is calculated from the histogram, so it is the lowest value of the bin that contains the percentile, and
+     * is only exact if the bin width is 1. The 0th and 100th percentiles are the minimum and maximum.
+     *
+     * @param percentile the percentile, from 0 to 100.
+     * @return the sample value, or zero if there are no valid samples.
+     */
+    public long getPercentile(final double percentile) {
+        if ((percentile < 0.0) || (percentile > PERCENT)) {
+            throw new IllegalArgumentException("BandStatistics: percentile must be from 0 to 100, not " + percentile);
+        }
+        if (percentile == 0.0) {
+            return getMinimum();
+        }
+        if (percentile == PERCENT) {
+            return getMaximum();
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / PERCENT * mSampleCount));
+        long cumulativeCount = 0;
+        for (int bin = 0; bin < mHistogram.length; bin++) {
+            cumulativeCount += mHistogram[bin];
+            if (cumulativeCount >= target) {
+                return Math.min(Math.max(bin * mBinWidth, getMinimum()), getMaximum());
+            }
+        }
+        return getMaximum();
+    }
+
+    /**
+     * Get the histogram of sample values.
+     *
+     * Bin i counts the samples with values from i * binWidth to (i + 1) * binWidth - 1. Any samples beyond the
+     * range of the histogram (e.g. from incorrect bits per pixel values) are counted in the last bin.
+     *
+     * @return a copy of the histogram counts.
+     */
+    public long[] getHistogram() {
+        return mHistogram.clone();
+    }
+
+    /**
+     * Get the number of sample values covered by each histogram bin.
+     *
+     * @return the bin width, which is 1 if there is a bin for each possible sample value.
+     */
+    public long getHistogramBinWidth() {
+        return mBinWidth;
+    }
+}
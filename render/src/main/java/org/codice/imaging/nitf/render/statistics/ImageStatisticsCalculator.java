@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.statistics;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import javax.imageio.stream.ImageInputStream;
+import org.codice.imaging.nitf.core.image.ImageMode;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.image.PixelJustification;
+import org.codice.imaging.nitf.render.ImageMask;
+import org.codice.imaging.nitf.render.NitfRenderer;
+import org.codice.imaging.nitf.render.StripConsumer;
+import org.codice.imaging.nitf.render.cube.SpectralCube;
+
+/**
+ * Calculates per-band statistics for an image segment, in a single pass over the image data.
+ *
+ * For uncompressed (NC and NM) images, the statistics are calculated from the sample values as recorded in the file,
+ * and the histogram range is based on the actual bits per pixel (ABPP). Left justified (PJUST=L) samples are shifted
+ * right by NBPP - ABPP bits first, so they are counted by their value rather than as stored. For JPEG (C3, M3 and I1)
+ * and vector quantization (C4 and M4) images, the statistics are calculated from the decoded blocks, one row of
+ * blocks at a time.
+ *
+ * Blocks that are masked (not recorded in the file) and pad pixels are counted as "no data". Samples that are
+ * outside the image (i.e. the fill at the right and bottom edges of partial blocks) are not counted.
+ *
+ * The calculations for each block run in parallel on an executor (by default, the common fork-join pool), while the
+ * image data is read on the calling thread.
+ */
+public class ImageStatisticsCalculator {
+
+    /**
+     * The default maximum number of histogram bins.
+     */
+    public static final int DEFAULT_MAXIMUM_NUMBER_OF_BINS = 256;
+
+    private static final int PENDING_BLOCKS_PER_PROCESSOR = 2;
+
+    private final int mMaximumNumberOfBins;
+    private final Executor mExecutor;
+    private final int mMaximumPendingBlocks;
+
+    /**
+     * Create a calculator with the default maximum number of histogram bins, using the common fork-join pool.
+     */
+    public ImageStatisticsCalculator() {
+        this(DEFAULT_MAXIMUM_NUMBER_OF_BINS);
+    }
+
+    /**
+     * Create a calculator with the specified maximum number of histogram bins, using the common fork-join pool.
+     *
+     * @param maximumNumberOfBins the maximum number of histogram bins. If the data has fewer possible values than
+     * this (e.g. 8 bit data with more than 256 bins), there is one bin for each value.
+     */
+    public ImageStatisticsCalculator(final int maximumNumberOfBins) {
+        this(maximumNumberOfBins, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create a calculator with the specified maximum number of histogram bins and executor.
+     *
+     * @param maximumNumberOfBins the maximum number of histogram bins.
+     * @param executor the executor to run the per-block calculations on.
+     */
+    public ImageStatisticsCalculator(final int maximumNumberOfBins, final Executor executor) {
+        if (maximumNumberOfBins < 1) {
+            throw new IllegalArgumentException("ImageStatisticsCalculator: maximum number of bins must be at least 1");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("ImageStatisticsCalculator: argument 'executor' may not be null.");
+        }
+        mMaximumNumberOfBins = maximumNumberOfBins;
+        mExecutor = executor;
+        mMaximumPendingBlocks = Runtime.getRuntime().availableProcessors() * PENDING_BLOCKS_PER_PROCESSOR;
+    }
+
+    /**
+     * Get the maximum number of histogram bins.
+     *
+     * @return the maximum number of bins.
+     */
+    public final int getMaximumNumberOfBins() {
+        return mMaximumNumberOfBins;
+    }
+
+    /**
+     * Calculate the statistics for an image segment.
+     *
+     * The image segment data stream must be positioned at the start of the image data, which is where the parser
+     * leaves it. The stream is returned to that position afterwards, so the segment can then be rendered.
+     *
+     * @param imageSegment the image segment to calculate statistics for.
+     * @return the statistics for each band, indexed by zero-based band number. For JPEG and vector quantization
+     * images, the bands are those of the decoded image (e.g. the colour lookup table index for an RGB/LUT image).
+     * @throws IOException if the image data could not be read.
+     */
+    public final List<BandStatistics> calculate(final ImageSegment imageSegment) throws IOException {
+        ImageInputStream imageData = imageSegment.getData();
+        imageData.mark();
+        try {
+            return calculateFromCurrentPosition(imageSegment);
+        } finally {
+            imageData.reset();
+        }
+    }
+
+    private List<BandStatistics> calculateFromCurrentPosition(final ImageSegment imageSegment) throws IOException {
+        switch (imageSegment.getImageCompression()) {
+            case NOTCOMPRESSED:
+            case NOTCOMPRESSEDMASK:
+                return calculateUncompressed(imageSegment);
+            case JPEG:
+            case DOWNSAMPLEDJPEG:
+            case VECTORQUANTIZATION:
+                return calculateDecoded(imageSegment, null);
+            case JPEGMASK:
+            case VECTORQUANTIZATIONMASK:
+                return calculateDecoded(imageSegment, readImageMask(imageSegment));
+            default:
+                throw new UnsupportedOperationException("ImageStatisticsCalculator: unsupported image compression: "
+                        + imageSegment.getImageCompression());
+        }
+    }
+
+    private List<BandStatistics> calculateUncompressed(final ImageSegment imageSegment) throws IOException {
+        SpectralCube cube = new SpectralCube(imageSegment);
+        ImageMask imageMask = cube.getImageMask();
+        int numBands = imageSegment.getNumBands();
+
+        int sampleShift = 0;
+        if (imageSegment.getPixelJustification() == PixelJustification.LEFT) {
+            sampleShift = imageSegment.getNumberOfBitsPerPixelPerBand() - imageSegment.getActualBitsPerPixelPerBand();
+        }
+        BandStatistics[] totals = new BandStatistics[numBands];
+        for (int band = 0; band < numBands; band++) {
+            totals[band] = new BandStatistics(imageSegment.getActualBitsPerPixelPerBand(), mMaximumNumberOfBins, sampleShift);
+        }
+        StatisticsAccumulator accumulator = new StatisticsAccumulator(totals, imageMask, mExecutor, mMaximumPendingBlocks);
+
+        for (int blockRow = 0; blockRow < imageSegment.getNumberOfBlocksPerColumn(); blockRow++) {
+            for (int blockColumn = 0; blockColumn < imageSegment.getNumberOfBlocksPerRow(); blockColumn++) {
+                Rectangle window = getBlockWindow(imageSegment, blockRow, blockColumn);
+                int blockIndex = blockRow * imageSegment.getNumberOfBlocksPerRow() + blockColumn;
+                int[][] samples = new int[numBands][];
+                for (int band = 0; band < numBands; band++) {
+                    int maskBand = 0;
+                    if (imageSegment.getImageMode() == ImageMode.BANDSEQUENTIAL) {
+                        maskBand = band;
+                    }
+                    if (imageMask.isMaskedBlock(blockIndex, maskBand)) {
+                        accumulator.addMaskedBlock(band, (long) window.width * window.height);
+                    } else {
+                        samples[band] = cube.getBand(band, window);
+                    }
+                }
+                accumulator.addBlock(samples);
+            }
+        }
+        return accumulator.finish();
+    }
+
+    private List<BandStatistics> calculateDecoded(final ImageSegment imageSegment, final ImageMask imageMask) throws IOException {
+        DecodedStripStatistics stripStatistics = new DecodedStripStatistics(imageSegment, imageMask);
+        new NitfRenderer().renderToStrips(imageSegment, stripStatistics);
+        return stripStatistics.finish();
+    }
+
+    private static ImageMask readImageMask(final ImageSegment imageSegment) throws IOException {
+        ImageInputStream imageData = imageSegment.getData();
+        imageData.mark();
+        try {
+            return new ImageMask(imageSegment, imageData);
+        } finally {
+            imageData.reset();
+        }
+    }
+
+    private static Rectangle getBlockWindow(final ImageSegment imageSegment, final int blockRow, final int blockColumn) {
+        int blockWidth = (int) imageSegment.getNumberOfPixelsPerBlockHorizontal();
+        int blockHeight = (int) imageSegment.getNumberOfPixelsPerBlockVertical();
+        int x = blockColumn * blockWidth;
+        int y = blockRow * blockHeight;
+        return new Rectangle(x, y,
+                (int) Math.min(blockWidth, imageSegment.getNumberOfColumns() - x),
+                (int) Math.min(blockHeight, imageSegment.getNumberOfRows() - y));
+    }
+
+    /**
+     * Splits each decoded strip into blocks, and hands them to an accumulator.
+     */
+    private final class DecodedStripStatistics implements StripConsumer {
+
+        private final ImageSegment mImageSegment;
+        private final ImageMask mImageMask;
+        private StatisticsAccumulator mAccumulator = null;
+        private int mNumBands = 0;
+
+        DecodedStripStatistics(final ImageSegment imageSegment, final ImageMask imageMask) {
+            mImageSegment = imageSegment;
+            mImageMask = imageMask;
+        }
+
+        @Override
+        public void accept(final BufferedImage strip, final int firstRow) {
+            Raster raster = strip.getRaster();
+            if (mAccumulator == null) {
+                createAccumulator(strip);
+            }
+
+            int blockWidth = (int) mImageSegment.getNumberOfPixelsPerBlockHorizontal();
+            int blockRow = firstRow / (int) mImageSegment.getNumberOfPixelsPerBlockVertical();
+            for (int blockColumn = 0; blockColumn < mImageSegment.getNumberOfBlocksPerRow(); blockColumn++) {
+                int x = blockColumn * blockWidth;
+                int width = Math.min(blockWidth, raster.getWidth() - x);
+                int blockIndex = blockRow * mImageSegment.getNumberOfBlocksPerRow() + blockColumn;
+                int[][] samples = new int[mNumBands][];
+                for (int band = 0; band < mNumBands; band++) {
+                    if ((mImageMask != null) && mImageMask.isMaskedBlock(blockIndex, 0)) {
+                        mAccumulator.addMaskedBlock(band, (long) width * raster.getHeight());
+                    } else {
+                        samples[band] = raster.getSamples(x, 0, width, raster.getHeight(), band, (int[]) null);
+                    }
+                }
+                mAccumulator.addBlock(samples);
+            }
+        }
+
+        private void createAccumulator(final BufferedImage strip) {
+            mNumBands = strip.getRaster().getNumBands();
+            if (strip.getColorModel().hasAlpha()) {
+                mNumBands--;
+            }
+            BandStatistics[] totals = new BandStatistics[mNumBands];
+            for (int band = 0; band < mNumBands; band++) {
+                totals[band] = new BandStatistics(strip.getSampleModel().getSampleSize(band), mMaximumNumberOfBins);
+            }
+            mAccumulator = new StatisticsAccumulator(totals, mImageMask, mExecutor, mMaximumPendingBlocks);
+        }
+
+        List<BandStatistics> finish() {
+            if (mAccumulator == null) {
+                return Collections.emptyList();
+            }
+            return mAccumulator.finish();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.statistics;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import org.codice.imaging.nitf.render.ImageMask;
+
+/**
+ * Accumulates statistics for a sequence of blocks, with the per-block calculations running in parallel.
+ *
+ * The block samples are read on the calling thread (since the image data stream is not thread safe), and handed off
+ * to the executor. The partial results are merged back on the calling thread, in order, so that only a bounded number
+ * of blocks is held in memory at any time.
+ */
+class StatisticsAccumulator {
+
+    private final BandStatistics[] mTotals;
+    private final ImageMask mImageMask;
+    private final Executor mExecutor;
+    private final int mMaximumPendingBlocks;
+    private final Deque<CompletableFuture<BandStatistics[]>> mPendingBlocks = new ArrayDeque<>();
+
+    StatisticsAccumulator(final BandStatistics[] totals, final ImageMask imageMask, final Executor executor,
+            final int maximumPendingBlocks) {
+        mTotals = totals;
+        mImageMask = imageMask;
+        mExecutor = executor;
+        mMaximumPendingBlocks = maximumPendingBlocks;
+    }
+
+    /**
+     * Count the samples in a block that is not recorded in the file.
+     *
+     * @param band the band the block belongs to.
+     * @param numberOfSamples the number of samples (pixels) in the block.
+     */
+    void addMaskedBlock(final int band, final long numberOfSamples) {
+        mTotals[band].addNoData(numberOfSamples);
+    }
+
+    /**
+     * Add the samples in a block.
+     *
+     * @param samples the samples for each band, or null for a band that has no samples in this block.
+     */
+    void addBlock(final int[][] samples) {
+        mPendingBlocks.add(CompletableFuture.supplyAsync(() -> calculate(samples), mExecutor));
+        while (mPendingBlocks.size() > mMaximumPendingBlocks) {
+            mergeOldest();
+        }
+    }
+
+    /**
+     * Wait for all the blocks to be processed.
+     *
+     * @return the statistics for each band.
+     */
+    List<BandStatistics> finish() {
+        while (!mPendingBlocks.isEmpty()) {
+            mergeOldest();
+        }
+        return Collections.unmodifiableList(Arrays.asList(mTotals));
+    }
+
+    private BandStatistics[] calculate(final int[][] samples) {
+        BandStatistics[] partial = new BandStatistics[samples.length];
+        for (int band = 0; band < samples.length; band++) {
+            if (samples[band] != null) {
+                partial[band] = mTotals[band].createEmptyCopy();
+                partial[band].addSamples(samples[band], mImageMask);
+            }
+        }
+        return partial;
+    }
+
+    private void mergeOldest() {
+        BandStatistics[] partial = mPendingBlocks.remove().join();
+        for (int band = 0; band < partial.length; band++) {
+            if (partial[band] != null) {
+                mTotals[band].merge(partial[band]);
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+
+/**
+ * The classes in this package calculate image statistics from the sample values in an image segment.
+ *
+ * ImageStatisticsCalculator reads the image data once, and produces a BandStatistics (minimum, maximum, mean,
+ * standard deviation, histogram and "no data" count) for each band.
+ */
+package org.codice.imaging.nitf.render.statistics;
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
+import org.junit.Test;
+
+/**
+ * Tests for rendering a selected subset of bands.
+ */
+public class BandSelectionTest {
+
+    private static final int BYTE_MASK = 0xFF;
+
+    @Test
+    public void testBlockInterleveSelection() throws IOException, NitfFormatException {
+        checkBandSelection("/JitcNitf21Samples/ns3302a.nsf");
+    }
+
+    @Test
+    public void testPixelInterleveSelection() throws IOException, NitfFormatException {
+        checkBandSelection("/JitcNitf21Samples/ns3310a.nsf");
+    }
+
+    @Test
+    public void testRowInterleveSelection() throws IOException, NitfFormatException {
+        checkBandSelection("/JitcNitf21Samples/i_3301h.ntf");
+    }
+
+    @Test
+    public void testBandSequentialSelection() throws IOException, NitfFormatException {
+        checkBandSelection("/JitcNitf21Samples/i_3301a.ntf");
+    }
+
+    @Test
+    public void testSelectedBandStrips() throws IOException, NitfFormatException {
+        NitfRenderer renderer = new NitfRenderer();
+        renderer.setSelectedBands(1);
+        BufferedImage expected = renderer.renderToClosestDataModel(getImageSegment("/JitcNitf21Samples/i_3301a.ntf"));
+
+        renderer.renderToStrips(getImageSegment("/JitcNitf21Samples/i_3301a.ntf"), (strip, firstRow) -> {
+            for (int y = 0; y < strip.getHeight(); y++) {
+                for (int x = 0; x < strip.getWidth(); x++) {
+                    assertEquals(expected.getRaster().getSample(x, firstRow + y, 0), strip.getRaster().getSample(x, y, 0));
+                }
+            }
+        });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBandIndex() throws IOException, NitfFormatException {
+        NitfRenderer renderer = new NitfRenderer();
+        renderer.setSelectedBands(3);
+        renderer.render(getImageSegment("/JitcNitf21Samples/i_3301h.ntf"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongNumberOfBands() throws IOException, NitfFormatException {
+        NitfRenderer renderer = new NitfRenderer();
+        renderer.setSelectedBands(0, 1);
+        renderer.render(getImageSegment("/JitcNitf21Samples/i_3301h.ntf"));
+    }
+
+    private void checkBandSelection(final String fileName) throws IOException, NitfFormatException {
+        BufferedImage defaultImage = new NitfRenderer().render(getImageSegment(fileName));
+
+        NitfRenderer renderer = new NitfRenderer();
+        renderer.setSelectedBands(2, 1, 0);
+        BufferedImage swappedImage = renderer.render(getImageSegment(fileName));
+
+        renderer.setSelectedBands(1);
+        BufferedImage greenImage = renderer.renderToClosestDataModel(getImageSegment(fileName));
+
+        for (int y = 0; y < defaultImage.getHeight(); y++) {
+            for (int x = 0; x < defaultImage.getWidth(); x++) {
+                int defaultPixel = defaultImage.getRGB(x, y);
+                int swappedPixel = swappedImage.getRGB(x, y);
+                assertEquals(defaultPixel & BYTE_MASK, (swappedPixel >> (2 * Byte.SIZE)) & BYTE_MASK);
+                assertEquals((defaultPixel >> Byte.SIZE) & BYTE_MASK, (swappedPixel >> Byte.SIZE) & BYTE_MASK);
+                assertEquals((defaultPixel >> (2 * Byte.SIZE)) & BYTE_MASK, swappedPixel & BYTE_MASK);
+                assertEquals((defaultPixel >> Byte.SIZE) & BYTE_MASK, greenImage.getRaster().getSample(x, y, 0));
+            }
+        }
+    }
+
+    private ImageSegment getImageSegment(final String fileName) throws NitfFormatException {
+        assertNotNull("Test file missing: " + fileName, getClass().getResource(fileName));
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.IMAGE_DATA);
+        NitfParser.parse(new NitfInputStreamReader(getClass().getResourceAsStream(fileName)), parseStrategy);
+        return parseStrategy.getDataSource().getImageSegments().get(0);
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import static org.codice.imaging.nitf.render.TestUtils.parseImageSegment;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import org.codice.imaging.nitf.core.common.FileType;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.header.impl.NitfHeaderFactory;
+import org.codice.imaging.nitf.core.image.ImageCompression;
+import org.codice.imaging.nitf.core.image.ImageMode;
+import org.codice.imaging.nitf.core.image.ImageRepresentation;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.image.impl.ImageSegmentFactory;
+import org.codice.imaging.nitf.core.impl.NitfRewriter;
+import org.codice.imaging.nitf.core.impl.SlottedStorage;
+import org.codice.imaging.nitf.core.tre.Tre;
+import org.codice.imaging.nitf.render.cube.SpectralCube;
+import org.codice.imaging.nitf.render.encode.JpegBlockEncoder;
+import org.codice.imaging.nitf.render.encode.TiledImageSegmentBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for ImageChipper.
+ */
+public class ImageChipperTest {
+
+    private static final int WIDTH = 200;
+    private static final int HEIGHT = 150;
+    private static final double DELTA = 0.0001;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testJpegChip() throws IOException, NitfFormatException {
+        ImageSegment source = ImageSegmentFactory.getDefault(FileType.NITF_TWO_ONE);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            new JpegBlockEncoder(executor, 64, 0.8f).encode(source, createImage(BufferedImage.TYPE_BYTE_GRAY, WIDTH));
+        } finally {
+            executor.shutdown();
+        }
+        Path sourceFile = write(source);
+
+        Path chipFile = temporaryFolder.newFile().toPath();
+        Rectangle chipArea;
+        try (ImageChipper chipper = new ImageChipper()) {
+            chipArea = chipper.chip(sourceFile, 0, new Rectangle(70, 20, 100, 60), chipFile);
+        }
+        assertEquals(new Rectangle(64, 0, 106, 80), chipArea);
+
+        ImageSegment chip = parseImageSegment(chipFile);
+        assertEquals(ImageCompression.JPEG, chip.getImageCompression());
+        assertEquals(106, chip.getNumberOfColumns());
+        assertEquals(80, chip.getNumberOfRows());
+        assertEquals(2, chip.getNumberOfBlocksPerRow());
+        assertEquals(2, chip.getNumberOfBlocksPerColumn());
+        assertRenderMatches(parseImageSegment(sourceFile), chip, chipArea);
+
+        Tre chipTre = chip.getTREsRawStructure().getTREsWithName("ICHIPB").get(0);
+        assertEquals(0.5, chipTre.getDoubleValue("OP_COL_11"), DELTA);
+        assertEquals(64.5, chipTre.getDoubleValue("FI_COL_11"), DELTA);
+        assertEquals(0.5, chipTre.getDoubleValue("FI_ROW_11"), DELTA);
+        assertEquals(169.5, chipTre.getDoubleValue("FI_COL_22"), DELTA);
+        assertEquals(79.5, chipTre.getDoubleValue("FI_ROW_22"), DELTA);
+        assertEquals(WIDTH, chipTre.getIntValue("FI_COL"));
+        assertEquals(HEIGHT, chipTre.getIntValue("FI_ROW"));
+    }
+
+    @Test
+    public void testMaskedJpegChipOfChip() throws IOException, NitfFormatException {
+        BufferedImage image = createImage(BufferedImage.TYPE_INT_RGB, 100);
+        ImageSegment source = ImageSegmentFactory.getDefault(FileType.NITF_TWO_ONE);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            JpegBlockEncoder encoder = new JpegBlockEncoder(executor, 32, 0.8f);
+            encoder.setEmptyBlockTest(raster -> raster.getMinX() >= 100);
+            encoder.encode(source, image);
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(ImageCompression.JPEGMASK, source.getImageCompression());
+        Path sourceFile = write(source);
+
+        Path chipFile = temporaryFolder.newFile().toPath();
+        Path secondChipFile = temporaryFolder.newFile().toPath();
+        try (ImageChipper chipper = new ImageChipper()) {
+            assertEquals(new Rectangle(64, 32, 136, 96), chipper.chip(sourceFile, 0, new Rectangle(70, 40, 200, 88), chipFile));
+            assertEquals(new Rectangle(32, 32, 40, 40), chipper.chip(chipFile, 0, new Rectangle(40, 40, 32, 32), secondChipFile));
+        }
+
+        ImageSegment chip = parseImageSegment(chipFile);
+        assertEquals(ImageCompression.JPEGMASK, chip.getImageCompression());
+        assertEquals(ImageMode.PIXELINTERLEVE, chip.getImageMode());
+        ImageMask mask = new ImageMask(chip, chip.getData());
+        assertFalse(mask.isMaskedBlock(0, 0));
+        assertTrue(mask.isMaskedBlock(2, 0));
+        chip.getData().seek(0);
+        assertRenderMatches(parseImageSegment(sourceFile), parseImageSegment(chipFile), new Rectangle(64, 32, 36, 96));
+
+        Tre chipTre = parseImageSegment(secondChipFile).getTREsRawStructure().getTREsWithName("ICHIPB").get(0);
+        assertEquals(96.5, chipTre.getDoubleValue("FI_COL_11"), DELTA);
+        assertEquals(64.5, chipTre.getDoubleValue("FI_ROW_11"), DELTA);
+        assertEquals(WIDTH, chipTre.getIntValue("FI_COL"));
+    }
+
+    @Test
+    public void testUncompressedMaskedChip() throws IOException, NitfFormatException {
+        BufferedImage image = createImage(BufferedImage.TYPE_3BYTE_BGR, 120);
+        TiledImageSegmentBuilder builder = new TiledImageSegmentBuilder(image::getData, WIDTH, HEIGHT, 3, 8);
+        builder.setBlockSize(40, 30);
+        builder.setImageMode(ImageMode.BANDSEQUENTIAL);
+        builder.setPadValue(0);
+        ImageSegment source = ImageSegmentFactory.getDefault(FileType.NITF_TWO_ONE);
+        builder.configure(source);
+        source.setImageRepresentation(ImageRepresentation.MULTIBAND);
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        builder.write(new DataOutputStream(data));
+        source.setData(new MemoryCacheImageInputStream(new ByteArrayInputStream(data.toByteArray())));
+        Path sourceFile = write(source);
+
+        Path chipFile = temporaryFolder.newFile().toPath();
+        Rectangle chipArea;
+        try (ImageChipper chipper = new ImageChipper()) {
+            chipArea = chipper.chip(sourceFile, 0, new Rectangle(45, 35, 110, 100), chipFile);
+        }
+        assertEquals(new Rectangle(40, 30, 115, 105), chipArea);
+
+        ImageSegment chip = parseImageSegment(chipFile);
+        assertEquals(ImageCompression.NOTCOMPRESSEDMASK, chip.getImageCompression());
+        SpectralCube chipCube = new SpectralCube(chip);
+        SpectralCube sourceCube = new SpectralCube(parseImageSegment(sourceFile));
+        assertTrue(chipCube.getImageMask().isMaskedBlock(2, 1));
+        assertFalse(chipCube.getImageMask().isMaskedBlock(1, 1));
+        for (int band = 0; band < 3; band++) {
+            int[] expected = sourceCube.getBand(band, chipArea);
+            int[] actual = chipCube.getBand(band, new Rectangle(0, 0, chipArea.width, chipArea.height));
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i], actual[i]);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegionOutsideImage() throws IOException, NitfFormatException {
+        ImageSegment source = ImageSegmentFactory.getDefault(FileType.NITF_TWO_ONE);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            new JpegBlockEncoder(executor, 64, 0.8f).encode(source, createImage(BufferedImage.TYPE_BYTE_GRAY, WIDTH));
+        } finally {
+            executor.shutdown();
+        }
+        Path sourceFile = write(source);
+        try (ImageChipper chipper = new ImageChipper()) {
+            chipper.chip(sourceFile, 0, new Rectangle(WIDTH, 0, 10, 10), temporaryFolder.newFile().toPath());
+        }
+    }
+
+    private static BufferedImage createImage(final int imageType, final int filledWidth) {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, imageType);
+        for (int row = 0; row < HEIGHT; row++) {
+            for (int column = 0; column < filledWidth; column++) {
+                int value = 1 + (row + 2 * column) % 255;
+                image.setRGB(column, row, (value << 16) | ((255 - value) << 8) | value);
+            }
+        }
+        return image;
+    }
+
+    private Path write(final ImageSegment imageSegment) throws IOException, NitfFormatException {
+        SlottedStorage storage = new SlottedStorage();
+        storage.setNitfHeader(NitfHeaderFactory.getDefault(FileType.NITF_TWO_ONE));
+        storage.getImageSegments().add(imageSegment);
+        Path file = temporaryFolder.newFile().toPath();
+        try (NitfRewriter rewriter = new NitfRewriter()) {
+            rewriter.write(storage, file);
+        }
+        return file;
+    }
+
+    private static void assertRenderMatches(final ImageSegment source, final ImageSegment chip, final Rectangle area) throws IOException {
+        BufferedImage sourceImage = new NitfRenderer().render(source);
+        BufferedImage chipImage = new NitfRenderer().render(chip);
+        for (int row = 0; row < area.height; row++) {
+            for (int column = 0; column < area.width; column++) {
+                assertEquals(sourceImage.getRGB(area.x + column, area.y + row), chipImage.getRGB(column, row));
+            }
+        }
+    }
+}
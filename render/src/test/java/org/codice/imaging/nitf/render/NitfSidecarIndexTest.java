@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import static org.codice.imaging.nitf.render.TestUtils.copyResource;
+import static org.codice.imaging.nitf.render.TestUtils.parseImageSegment;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.imageio.stream.ImageInputStream;
+import org.codice.imaging.nitf.core.common.FileType;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.header.impl.NitfHeaderFactory;
+import org.codice.imaging.nitf.core.image.ImageCompression;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.image.impl.ImageSegmentFactory;
+import org.codice.imaging.nitf.core.impl.NitfRewriter;
+import org.codice.imaging.nitf.core.impl.SlottedStorage;
+import org.codice.imaging.nitf.core.tre.TreSource;
+import org.codice.imaging.nitf.render.NitfSidecarIndex.BlockLocation;
+import org.codice.imaging.nitf.render.NitfSidecarIndex.TreLocation;
+import org.codice.imaging.nitf.render.encode.JpegBlockEncoder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for NitfSidecarIndex.
+ */
+public class NitfSidecarIndexTest {
+
+    private static final int WIDTH = 200;
+    private static final int HEIGHT = 150;
+    private static final int BYTE_MASK = 0xFF;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testMaskedJpegBlocksAndTres() throws IOException, NitfFormatException {
+        Path file = createMaskedJpegChip();
+        NitfSidecarIndex index = NitfSidecarIndex.open(file);
+        assertTrue(Files.exists(NitfSidecarIndex.getSidecarPath(file)));
+        assertEquals(1, index.getImageSegments().size());
+
+        // 32 pixel blocks, with the blocks that start at or after column 100 masked
+        assertEquals(4 * 5, index.getImageSegments().get(0).getBlocks().size());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ImageSegment imageSegment = index.getImageSegment(channel, 0);
+            assertEquals(ImageCompression.JPEGMASK, imageSegment.getImageCompression());
+            ImageInputStream data = imageSegment.getData();
+            for (BlockLocation block : index.getImageSegments().get(0).getBlocks()) {
+                assertTrue(block.getBlockNumber() % 7 < 4);
+                assertEquals(0xFFD8, readShort(data, block.getOffset()));
+                assertEquals(0xFFD9, readShort(data, block.getOffset() + block.getLength() - 2));
+            }
+        }
+
+        TreLocation chipTre = index.getTreLocations().get(0);
+        assertEquals("ICHIPB", chipTre.getTag());
+        assertEquals(TreSource.ImageExtendedSubheaderData, chipTre.getSource());
+        byte[] tag = new byte[6];
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+            raf.seek(chipTre.getOffset());
+            raf.readFully(tag);
+        }
+        assertEquals("ICHIPB", new String(tag, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testJpeg2000TileParts() throws IOException, NitfFormatException {
+        Path file = copyResource(temporaryFolder, "/JitcNitf21Samples/005_007_1024x1024_s_8_1_multi_j2c.ntf");
+        NitfSidecarIndex index = NitfSidecarIndex.open(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ImageSegment imageSegment = index.getImageSegment(channel, 0);
+            assertEquals(ImageCompression.JPEG2000, imageSegment.getImageCompression());
+            ImageInputStream data = imageSegment.getData();
+            assertFalse(index.getImageSegments().get(0).getBlocks().isEmpty());
+            long end = 0;
+            for (BlockLocation block : index.getImageSegments().get(0).getBlocks()) {
+                assertEquals(0xFF90, readShort(data, block.getOffset()));
+                end = block.getOffset() + block.getLength();
+            }
+            assertEquals(0xFFD9, readShort(data, end));
+        }
+    }
+
+    @Test
+    public void testReopenFromSidecar() throws IOException, NitfFormatException {
+        Path file = createMaskedJpegChip();
+        NitfSidecarIndex built = NitfSidecarIndex.open(file);
+        NitfSidecarIndex reopened = NitfSidecarIndex.read(NitfSidecarIndex.getSidecarPath(file));
+        assertTrue(reopened.isCurrent(file));
+        assertEquals(built.getHeaderHash(), reopened.getHeaderHash());
+        assertEquals(built.getNitfHeader().getFileTitle(), reopened.getNitfHeader().getFileTitle());
+        assertEquals(built.getTreLocations().size(), reopened.getTreLocations().size());
+        assertEquals(built.getImageSegments().get(0).getBlocks().size(), reopened.getImageSegments().get(0).getBlocks().size());
+
+        ImageSegment parsed = parseImageSegment(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ImageSegment rebuilt = reopened.getImageSegment(channel, 0);
+            assertEquals(parsed.getNumberOfRows(), rebuilt.getNumberOfRows());
+            assertEquals(parsed.getNumberOfColumns(), rebuilt.getNumberOfColumns());
+            assertEquals(parsed.getDataLength(), rebuilt.getDataLength());
+            assertEquals(parsed.getTREsRawStructure().getTREs().size(), rebuilt.getTREsRawStructure().getTREs().size());
+            byte[] expected = new byte[(int) parsed.getDataLength()];
+            parsed.getData().readFully(expected);
+            byte[] actual = new byte[(int) rebuilt.getDataLength()];
+            rebuilt.getData().readFully(actual);
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testInvalidation() throws IOException, NitfFormatException {
+        Path file = createMaskedJpegChip();
+        NitfSidecarIndex index = NitfSidecarIndex.open(file);
+        assertTrue(index.isCurrent(file));
+
+        FileTime lastModified = Files.getLastModifiedTime(file);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified.toMillis() + 1000));
+        assertFalse(index.isCurrent(file));
+        Files.setLastModifiedTime(file, lastModified);
+        assertTrue(index.isCurrent(file));
+
+        // Same size and time, but a different file title
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(39);
+            raf.write('X');
+        }
+        Files.setLastModifiedTime(file, lastModified);
+        assertFalse(index.isCurrent(file));
+
+        NitfSidecarIndex rebuilt = NitfSidecarIndex.open(file);
+        assertTrue(rebuilt.isCurrent(file));
+        assertTrue(NitfSidecarIndex.read(NitfSidecarIndex.getSidecarPath(file)).isCurrent(file));
+    }
+
+    @Test
+    public void testUnreadableSidecarIsReplaced() throws IOException, NitfFormatException {
+        Path file = createMaskedJpegChip();
+        Path sidecar = NitfSidecarIndex.getSidecarPath(file);
+        Files.write(sidecar, new byte[] {1, 2, 3});
+        NitfSidecarIndex index = NitfSidecarIndex.open(file);
+        assertEquals(1, index.getImageSegments().size());
+        assertTrue(NitfSidecarIndex.read(sidecar).isCurrent(file));
+    }
+
+    @Test
+    public void testStreamingModeFile() throws IOException {
+        Path file = copyResource(temporaryFolder, "/JitcNitf21Samples/ns3321a.nsf");
+        try {
+            NitfSidecarIndex.open(file);
+            fail("Streaming mode files should not be indexed");
+        } catch (NitfFormatException ex) {
+            assertTrue(ex.getMessage().contains("streaming mode"));
+        }
+        assertFalse(Files.exists(NitfSidecarIndex.getSidecarPath(file)));
+    }
+
+    private Path createMaskedJpegChip() throws IOException, NitfFormatException {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_BYTE_GRAY);
+        for (int row = 0; row < HEIGHT; row++) {
+            for (int column = 0; column < WIDTH; column++) {
+                image.getRaster().setSample(column, row, 0, (row + 2 * column) % BYTE_MASK);
+            }
+        }
+        ImageSegment imageSegment = ImageSegmentFactory.getDefault(FileType.NITF_TWO_ONE);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            JpegBlockEncoder encoder = new JpegBlockEncoder(executor, 32, 0.8f);
+            encoder.setEmptyBlockTest(raster -> raster.getMinX() >= 100);
+            encoder.encode(imageSegment, image);
+        } finally {
+            executor.shutdown();
+        }
+        SlottedStorage storage = new SlottedStorage();
+        storage.setNitfHeader(NitfHeaderFactory.getDefault(FileType.NITF_TWO_ONE));
+        storage.getImageSegments().add(imageSegment);
+        Path source = temporaryFolder.newFile().toPath();
+        try (NitfRewriter rewriter = new NitfRewriter()) {
+            rewriter.write(storage, source);
+        }
+        // Chipping the whole image adds an ICHIPB TRE
+        Path chip = temporaryFolder.newFile("chip.ntf").toPath();
+        try (ImageChipper chipper = new ImageChipper()) {
+            chipper.chip(source, 0, new Rectangle(0, 0, WIDTH, HEIGHT), chip);
+        }
+        return chip;
+    }
+
+    private static int readShort(final ImageInputStream data, final long offset) throws IOException {
+        data.seek(offset);
+        return data.readUnsignedShort();
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.List;
+import org.codice.imaging.compare.Compare;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
+import org.junit.Test;
+
+/**
+ * Tests for rendering to strips.
+ *
+ * Each file is rendered both in one piece and as strips, and the strips (placed at the image location) must give the
+ * same image.
+ */
+public class StripRenderTest {
+
+    @Test
+    public void testUncompressedMono() throws IOException, NitfFormatException {
+        checkStrips("/Codice/merlionM.ntf");
+        checkStrips("/Codice/headmono7.ntf");
+    }
+
+    @Test
+    public void testUncompressedRgb() throws IOException, NitfFormatException {
+        checkStrips("/Codice/merlionRGB.ntf");
+        checkStrips("/fromGDAL/rgb16.ntf");
+    }
+
+    @Test
+    public void testUncompressedJitc() throws IOException, NitfFormatException {
+        checkStrips("/JitcNitf21Samples/ns3301j.nsf");
+        checkStrips("/JitcNitf21Samples/i_3034f.ntf");
+        checkStrips("/JitcNitf20Samples/U_3058B.NTF");
+    }
+
+    @Test
+    public void testImageLocation() throws IOException, NitfFormatException {
+        ImageSegment imageSegment = getImageSegments("/JitcNitf21Samples/i_3301a.ntf").get(0);
+        assertEquals(100, imageSegment.getImageLocationColumn());
+        assertEquals(100, imageSegment.getImageLocationRow());
+        checkStrips("/JitcNitf21Samples/i_3301a.ntf");
+    }
+
+    @Test
+    public void testCompressed() throws IOException, NitfFormatException {
+        checkStrips("/JitcNitf20Samples/U_1001A.NTF");
+        checkStrips("/JitcNitf20Samples/U_2001A.NTF");
+        checkStrips("/JitcNitf20Samples/U_4003B.NTF");
+        checkStrips("/JitcJpeg2000/file9_j2c.ntf");
+    }
+
+    private void checkStrips(final String fileName) throws IOException, NitfFormatException {
+        List<ImageSegment> segmentsForStrips = getImageSegments(fileName);
+        List<ImageSegment> segmentsForImage = getImageSegments(fileName);
+        for (int i = 0; i < segmentsForStrips.size(); i++) {
+            ImageSegment imageSegment = segmentsForStrips.get(i);
+            int locationColumn = imageSegment.getImageLocationColumn();
+            int locationRow = imageSegment.getImageLocationRow();
+
+            // The full render is done without the image location, so that it can be placed at ILOC in the same way.
+            ImageSegment segmentForImage = segmentsForImage.get(i);
+            segmentForImage.setImageLocationColumn(0);
+            segmentForImage.setImageLocationRow(0);
+            BufferedImage expected = createCanvas(imageSegment);
+            Graphics2D expectedGraphic = expected.createGraphics();
+            expectedGraphic.drawImage(new NitfRenderer().renderToClosestDataModel(segmentForImage), locationColumn, locationRow, null);
+            expectedGraphic.dispose();
+
+            BufferedImage actual = createCanvas(imageSegment);
+            Graphics2D actualGraphic = actual.createGraphics();
+            new NitfRenderer().renderToStrips(imageSegment, (strip, firstRow) -> {
+                assertEquals(imageSegment.getNumberOfColumns(), strip.getWidth());
+                assertTrue(strip.getHeight() <= imageSegment.getNumberOfPixelsPerBlockVertical());
+                actualGraphic.drawImage(strip, locationColumn, locationRow + firstRow, null);
+            });
+            actualGraphic.dispose();
+
+            assertTrue(fileName + " image " + i, Compare.areIdentical(actual, expected));
+        }
+    }
+
+    private BufferedImage createCanvas(final ImageSegment imageSegment) {
+        return new BufferedImage(imageSegment.getImageLocationColumn() + (int) imageSegment.getNumberOfColumns(),
+                imageSegment.getImageLocationRow() + (int) imageSegment.getNumberOfRows(),
+                BufferedImage.TYPE_INT_ARGB);
+    }
+
+    private List<ImageSegment> getImageSegments(final String fileName) throws NitfFormatException {
+        assertNotNull("Test file missing: " + fileName, getClass().getResource(fileName));
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.IMAGE_DATA);
+        NitfParser.parse(new NitfInputStreamReader(getClass().getResourceAsStream(fileName)), parseStrategy);
+        return parseStrategy.getDataSource().getImageSegments();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import static org.junit.Assert.assertNotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import org.codice.imaging.nitf.core.DataSource;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.FileReader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test utilities for working with NITF files.
+ */
+public class TestUtils {
+
+    public TestUtils() {
+    }
+
+    /**
+     * Copy a test resource to a new file in a temporary folder.
+     *
+     * @param temporaryFolder the folder to create the file in.
+     * @param resourceName the name of the resource, relative to the root of the test resources.
+     * @return the path to the copy.
+     * @throws IOException if the copy fails.
+     */
+    public static Path copyResource(final TemporaryFolder temporaryFolder, final String resourceName) throws IOException {
+        assertNotNull("Test file missing: " + resourceName, TestUtils.class.getResource(resourceName));
+        Path file = temporaryFolder.newFile().toPath();
+        try (InputStream inputStream = TestUtils.class.getResourceAsStream(resourceName)) {
+            Files.copy(inputStream, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return file;
+    }
+
+    /**
+     * Parse a file, keeping the specified segment data in memory.
+     *
+     * @param file the file to parse.
+     * @param segmentData the segment data to keep, as for SlottedParseStrategy.
+     * @return the parsed file.
+     * @throws NitfFormatException if the file could not be parsed.
+     */
+    public static DataSource parse(final Path file, final int segmentData) throws NitfFormatException {
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(segmentData);
+        try (FileReader reader = new FileReader(file.toFile())) {
+            NitfParser.parse(reader, parseStrategy);
+        }
+        return parseStrategy.getDataSource();
+    }
+
+    /**
+     * Parse the first image segment in a file, including its image data.
+     *
+     * @param file the file to parse.
+     * @return the first image segment.
+     * @throws NitfFormatException if the file could not be parsed.
+     */
+    public static ImageSegment parseImageSegment(final Path file) throws NitfFormatException {
+        return parse(file, SlottedParseStrategy.IMAGE_DATA).getImageSegments().get(0);
+    }
+}
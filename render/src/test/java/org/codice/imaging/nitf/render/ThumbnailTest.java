@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import org.codice.imaging.nitf.core.common.FileType;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageCompression;
+import org.codice.imaging.nitf.core.image.ImageRepresentation;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.image.PixelValueType;
+import org.codice.imaging.nitf.core.image.impl.ImageBandImpl;
+import org.codice.imaging.nitf.core.image.impl.ImageSegmentFactory;
+import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
+import org.junit.Test;
+
+/**
+ * Tests for thumbnail rendering.
+ */
+public class ThumbnailTest {
+
+    private static final int BYTE_MASK = 0xFF;
+
+    @Test
+    public void testBlockInterleve() throws IOException, NitfFormatException {
+        checkDecimated("/JitcNitf21Samples/ns3302a.nsf", 100, 100);
+    }
+
+    @Test
+    public void testPixelInterleve() throws IOException, NitfFormatException {
+        checkDecimated("/JitcNitf21Samples/ns3310a.nsf", 60, 80);
+    }
+
+    @Test
+    public void testRowInterleve() throws IOException, NitfFormatException {
+        checkDecimated("/JitcNitf21Samples/i_3301h.ntf", 50, 50);
+    }
+
+    @Test
+    public void testBandSequential() throws IOException, NitfFormatException {
+        checkDecimated("/JitcNitf21Samples/i_3301a.ntf", 128, 128);
+    }
+
+    @Test
+    public void testMaskedUncompressed() throws IOException, NitfFormatException {
+        checkDecimated("/JitcNitf21Samples/ns3301b.nsf", 100, 100);
+    }
+
+    @Test
+    public void testJpeg() throws IOException, NitfFormatException {
+        checkDecimated("/JitcNitf21Samples/i_3309a.ntf", 200, 200);
+    }
+
+    @Test
+    public void testMaskedJpeg() throws IOException, NitfFormatException {
+        checkDecimated("/JitcNitf21Samples/ns3301j.nsf", 256, 256);
+    }
+
+    @Test
+    public void testVectorQuantization() throws IOException, NitfFormatException {
+        checkDecimated("/JitcNitf20Samples/U_3058B.NTF", 256, 256);
+    }
+
+    @Test
+    public void testSmallImageIsNotSubsampled() throws IOException, NitfFormatException {
+        checkDecimated("/JitcNitf21Samples/i_3301h.ntf", 1000, 1000);
+    }
+
+    @Test
+    public void testJpeg2000() throws IOException, NitfFormatException {
+        final String fileName = "/JitcNitf21Samples/005_007_1024x1024_s_8_1_multi_j2c.ntf";
+        BufferedImage full = new NitfRenderer().renderToClosestDataModel(getImageSegment(fileName));
+        BufferedImage thumbnail = new NitfRenderer().renderThumbnail(getImageSegment(fileName), 128, 128);
+
+        assertEquals(128, thumbnail.getWidth());
+        assertEquals(128, thumbnail.getHeight());
+
+        // Reduced resolution decoding is a filtered version of the full image, so just check it is similar
+        long totalDifference = 0;
+        for (int y = 0; y < thumbnail.getHeight(); y++) {
+            for (int x = 0; x < thumbnail.getWidth(); x++) {
+                int expected = averageGrey(full, x * 8, y * 8, 8);
+                totalDifference += Math.abs(expected - (thumbnail.getRGB(x, y) & BYTE_MASK));
+            }
+        }
+        assertTrue(totalDifference / (thumbnail.getWidth() * thumbnail.getHeight()) < 16);
+    }
+
+    @Test
+    public void testMaskedJpeg2000() throws IOException {
+        BufferedImage full = new NitfRenderer().renderToClosestDataModel(createMaskedJpeg2000Segment());
+        BufferedImage thumbnail = new NitfRenderer().renderThumbnail(createMaskedJpeg2000Segment(), 192, 192);
+
+        assertEquals(192, thumbnail.getWidth());
+        assertEquals(192, thumbnail.getHeight());
+        long totalDifference = 0;
+        int recordedPixels = 0;
+        for (int y = 0; y < thumbnail.getHeight(); y++) {
+            for (int x = 0; x < thumbnail.getWidth(); x++) {
+                if ((y >= 64) && (y < 128)) {
+                    // The middle row of blocks is masked
+                    assertEquals(full.getRGB(x * 4, y * 4), thumbnail.getRGB(x, y));
+                } else {
+                    int expected = averageGrey(full, x * 4, y * 4, 4);
+                    totalDifference += Math.abs(expected - (thumbnail.getRGB(x, y) & BYTE_MASK));
+                    recordedPixels++;
+                }
+            }
+        }
+        assertTrue(totalDifference / recordedPixels < 16);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSize() throws IOException, NitfFormatException {
+        new NitfRenderer().renderThumbnail(getImageSegment("/JitcNitf21Samples/i_3301h.ntf"), 0, 10);
+    }
+
+    private void checkDecimated(final String fileName, final int maxWidth, final int maxHeight) throws IOException, NitfFormatException {
+        ImageSegment imageSegment = getImageSegment(fileName);
+        BufferedImage full = new NitfRenderer().renderToClosestDataModel(imageSegment);
+        BufferedImage thumbnail = new NitfRenderer().renderThumbnail(getImageSegment(fileName), maxWidth, maxHeight);
+
+        assertTrue(thumbnail.getWidth() <= maxWidth);
+        assertTrue(thumbnail.getHeight() <= maxHeight);
+        int subsampling = (int) Math.max(1, Math.max(Math.ceil(imageSegment.getNumberOfColumns() / (double) maxWidth),
+                Math.ceil(imageSegment.getNumberOfRows() / (double) maxHeight)));
+        assertEquals((imageSegment.getNumberOfColumns() + subsampling - 1) / subsampling, thumbnail.getWidth());
+        assertEquals((imageSegment.getNumberOfRows() + subsampling - 1) / subsampling, thumbnail.getHeight());
+
+        for (int y = 0; y < thumbnail.getHeight(); y++) {
+            for (int x = 0; x < thumbnail.getWidth(); x++) {
+                assertEquals(full.getRGB(x * subsampling, y * subsampling), thumbnail.getRGB(x, y));
+            }
+        }
+    }
+
+    /**
+     * Create a 768 by 768 pixel M8 image segment with 256 by 256 pixel blocks, where the middle row of blocks is masked.
+     *
+     * The codestream (768 by 512 pixels) holds the six recorded blocks.
+     */
+    private ImageSegment createMaskedJpeg2000Segment() throws IOException {
+        ImageSegment imageSegment = ImageSegmentFactory.getDefault(FileType.NITF_TWO_ONE);
+        imageSegment.setImageCompression(ImageCompression.JPEG2000MASK);
+        imageSegment.setImageRepresentation(ImageRepresentation.MONOCHROME);
+        imageSegment.addImageBand(new ImageBandImpl());
+        imageSegment.setNumberOfRows(768);
+        imageSegment.setNumberOfColumns(768);
+        imageSegment.setNumberOfBlocksPerRow(3);
+        imageSegment.setNumberOfBlocksPerColumn(3);
+        imageSegment.setNumberOfPixelsPerBlockHorizontalRaw(256);
+        imageSegment.setNumberOfPixelsPerBlockVerticalRaw(256);
+        imageSegment.setNumberOfBitsPerPixelPerBand(16);
+        imageSegment.setActualBitsPerPixelPerBand(12);
+        imageSegment.setPixelValueType(PixelValueType.INTEGER);
+
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(data);
+        output.writeInt(10 + 9 * 4);
+        output.writeShort(4);
+        output.writeShort(0);
+        output.writeShort(0);
+        for (int block = 0; block < 9; block++) {
+            if ((block >= 3) && (block < 6)) {
+                output.writeInt(0xFFFFFFFF);
+            } else {
+                output.writeInt(0);
+            }
+        }
+        try (InputStream codestream = getClass().getResourceAsStream("/file6.jp2")) {
+            output.write(codestream.readAllBytes());
+        }
+        imageSegment.setData(new MemoryCacheImageInputStream(new ByteArrayInputStream(data.toByteArray())));
+        return imageSegment;
+    }
+
+    private int averageGrey(final BufferedImage image, final int left, final int top, final int size) {
+        int total = 0;
+        for (int y = top; y < top + size; y++) {
+            for (int x = left; x < left + size; x++) {
+                total += image.getRGB(x, y) & BYTE_MASK;
+            }
+        }
+        return total / (size * size);
+    }
+
+    private ImageSegment getImageSegment(final String fileName) throws NitfFormatException {
+        assertNotNull("Test file missing: " + fileName, getClass().getResource(fileName));
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.IMAGE_DATA);
+        NitfParser.parse(new NitfInputStreamReader(getClass().getResourceAsStream(fileName)), parseStrategy);
+        return parseStrategy.getDataSource().getImageSegments().get(0);
+    }
+}
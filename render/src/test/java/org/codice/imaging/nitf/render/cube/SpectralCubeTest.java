@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.cube;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
+import org.codice.imaging.nitf.render.NitfRenderer;
+import org.junit.Test;
+
+/**
+ * Tests for SpectralCube.
+ */
+public class SpectralCubeTest {
+
+    private static final int BYTE_MASK = 0xFF;
+
+    @Test
+    public void testBlockInterleve() throws IOException, NitfFormatException {
+        checkAgainstRender("/JitcNitf21Samples/ns3302a.nsf");
+    }
+
+    @Test
+    public void testPixelInterleve() throws IOException, NitfFormatException {
+        checkAgainstRender("/JitcNitf21Samples/ns3310a.nsf");
+    }
+
+    @Test
+    public void testRowInterleve() throws IOException, NitfFormatException {
+        checkAgainstRender("/JitcNitf21Samples/i_3301h.ntf");
+    }
+
+    @Test
+    public void testBandSequential() throws IOException, NitfFormatException {
+        checkAgainstRender("/JitcNitf21Samples/i_3301a.ntf");
+    }
+
+    @Test
+    public void testTwelveBitPacked() throws IOException, NitfFormatException {
+        final String fileName = "/JitcNitf21Samples/i_3430a.ntf";
+        BufferedImage rendered = new NitfRenderer().renderToClosestDataModel(getImageSegment(fileName));
+        ImageSegment imageSegment = getImageSegment(fileName);
+        SpectralCube cube = new SpectralCube(imageSegment);
+        int shift = Short.SIZE - imageSegment.getNumberOfBitsPerPixelPerBand();
+
+        Rectangle window = new Rectangle(500, 500, 30, 20);
+        int[] values = cube.getBand(0, window);
+        for (int row = 0; row < window.height; row++) {
+            for (int column = 0; column < window.width; column++) {
+                assertEquals(rendered.getRaster().getSample(window.x + column, window.y + row, 0) >> shift,
+                        values[row * window.width + column]);
+            }
+        }
+        assertEquals(values[0], cube.getPixel(window.y, window.x)[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWindowOutsideImage() throws IOException, NitfFormatException {
+        SpectralCube cube = new SpectralCube(getImageSegment("/JitcNitf21Samples/i_3301h.ntf"));
+        cube.getBand(0, new Rectangle(200, 200, 20, 20));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testCompressedImage() throws IOException, NitfFormatException {
+        new SpectralCube(getImageSegment("/JitcNitf21Samples/i_3025b.ntf"));
+    }
+
+    private void checkAgainstRender(final String fileName) throws IOException, NitfFormatException {
+        BufferedImage rendered = new NitfRenderer().render(getImageSegment(fileName));
+        ImageSegment imageSegment = getImageSegment(fileName);
+        SpectralCube cube = new SpectralCube(imageSegment);
+        int width = (int) imageSegment.getNumberOfColumns();
+        int height = (int) imageSegment.getNumberOfRows();
+
+        int[][] bands = new int[3][];
+        for (int band = 0; band < 3; band++) {
+            bands[band] = cube.getBand(band, new Rectangle(0, 0, width, height));
+        }
+
+        for (int row = 0; row < height; row++) {
+            for (int column = 0; column < width; column++) {
+                int rgb = rendered.getRGB(column, row);
+                int[] expected = {(rgb >> (2 * Byte.SIZE)) & BYTE_MASK, (rgb >> Byte.SIZE) & BYTE_MASK, rgb & BYTE_MASK};
+                int index = row * width + column;
+                assertArrayEquals(expected, new int[] {bands[0][index], bands[1][index], bands[2][index]});
+            }
+        }
+
+        for (int row = 0; row < height; row += 17) {
+            for (int column = 0; column < width; column += 13) {
+                int index = row * width + column;
+                assertArrayEquals(new int[] {bands[0][index], bands[1][index], bands[2][index]}, cube.getPixel(row, column));
+            }
+        }
+
+        Rectangle window = new Rectangle(width / 3, height / 4, width / 2, height / 3);
+        int[] windowValues = cube.getBand(1, window);
+        for (int row = 0; row < window.height; row++) {
+            for (int column = 0; column < window.width; column++) {
+                assertEquals(bands[1][(window.y + row) * width + window.x + column], windowValues[row * window.width + column]);
+            }
+        }
+    }
+
+    private ImageSegment getImageSegment(final String fileName) throws NitfFormatException {
+        assertNotNull("Test file missing: " + fileName, getClass().getResource(fileName));
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.IMAGE_DATA);
+        NitfParser.parse(new NitfInputStreamReader(getClass().getResourceAsStream(fileName)), parseStrategy);
+        return parseStrategy.getDataSource().getImageSegments().get(0);
+    }
+}
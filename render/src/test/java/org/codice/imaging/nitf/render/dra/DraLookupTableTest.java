@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.dra;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.List;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
+import org.codice.imaging.nitf.render.NitfRenderer;
+import org.codice.imaging.nitf.render.cube.SpectralCube;
+import org.codice.imaging.nitf.render.statistics.BandStatistics;
+import org.codice.imaging.nitf.render.statistics.ImageStatisticsCalculator;
+import org.junit.Test;
+
+/**
+ * Tests for dynamic range adjustment.
+ */
+public class DraLookupTableTest {
+
+    private static final int BYTE_MASK = 0xFF;
+    private static final int MAXIMUM_DISPLAY_VALUE = 255;
+
+    @Test
+    public void testLinearMono16() throws IOException, NitfFormatException {
+        final String fileName = "/JitcNitf21Samples/i_3405a.ntf";
+        ImageSegment imageSegment = getImageSegment(fileName);
+        DraLookupTable lookupTable = new DraLookupTableCache().get(imageSegment, DraParameters.linear());
+        List<BandStatistics> statistics = new ImageStatisticsCalculator().calculate(getImageSegment(fileName));
+        assertEquals(0, lookupTable.lookup(0, (int) statistics.get(0).getMinimum()));
+        assertEquals(MAXIMUM_DISPLAY_VALUE, lookupTable.lookup(0, (int) statistics.get(0).getMaximum()));
+
+        NitfRenderer renderer = new NitfRenderer();
+        renderer.setDynamicRangeAdjustment(lookupTable);
+        BufferedImage rendered = renderer.renderToClosestDataModel(imageSegment);
+        assertEquals(BufferedImage.TYPE_BYTE_GRAY, rendered.getType());
+
+        Rectangle window = new Rectangle(300, 400, 50, 40);
+        int[] samples = new SpectralCube(getImageSegment(fileName)).getBand(0, window);
+        for (int row = 0; row < window.height; row++) {
+            for (int column = 0; column < window.width; column++) {
+                assertEquals(lookupTable.lookup(0, samples[row * window.width + column]),
+                        rendered.getRaster().getSample(window.x + column, window.y + row, 0));
+            }
+        }
+    }
+
+    @Test
+    public void testPercentileClip() throws IOException, NitfFormatException {
+        final String fileName = "/JitcNitf21Samples/i_3430a.ntf";
+        ImageSegment imageSegment = getImageSegment(fileName);
+        DraLookupTable lookupTable = new DraLookupTableCache().get(imageSegment, DraParameters.percentileClip(2, 98));
+        BandStatistics statistics = new ImageStatisticsCalculator().calculate(getImageSegment(fileName)).get(0);
+
+        long low = statistics.getPercentile(2);
+        long high = statistics.getPercentile(98);
+        assertTrue(low > statistics.getMinimum());
+        assertTrue(high < statistics.getMaximum());
+        assertEquals(0, lookupTable.lookup(0, (int) statistics.getMinimum()));
+        assertEquals(0, lookupTable.lookup(0, (int) low));
+        assertEquals(MAXIMUM_DISPLAY_VALUE, lookupTable.lookup(0, (int) high));
+        assertEquals(MAXIMUM_DISPLAY_VALUE, lookupTable.lookup(0, (int) statistics.getMaximum()));
+        checkMonotonic(lookupTable, 1 << imageSegment.getNumberOfBitsPerPixelPerBand());
+    }
+
+    @Test
+    public void testGamma() throws IOException, NitfFormatException {
+        final String fileName = "/JitcNitf21Samples/i_3430a.ntf";
+        ImageSegment imageSegment = getImageSegment(fileName);
+        DraLookupTableCache cache = new DraLookupTableCache();
+        DraLookupTable linear = cache.get(imageSegment, DraParameters.linear());
+        DraLookupTable gamma = cache.get(imageSegment, DraParameters.gamma(0, 100, 2.0));
+
+        BandStatistics statistics = new ImageStatisticsCalculator().calculate(getImageSegment(fileName)).get(0);
+        int middle = (int) ((statistics.getMinimum() + statistics.getMaximum()) / 2);
+        assertTrue(gamma.lookup(0, middle) > linear.lookup(0, middle));
+        assertEquals(linear.lookup(0, (int) statistics.getMaximum()), gamma.lookup(0, (int) statistics.getMaximum()));
+    }
+
+    @Test
+    public void testEqualised() throws IOException, NitfFormatException {
+        final String fileName = "/JitcNitf20Samples/U_4005A.NTF";
+        ImageSegment imageSegment = getImageSegment(fileName);
+        DraLookupTable lookupTable = new DraLookupTableCache(new ImageStatisticsCalculator(1 << Short.SIZE))
+                .get(imageSegment, DraParameters.equalised());
+        checkMonotonic(lookupTable, 1 << imageSegment.getNumberOfBitsPerPixelPerBand());
+
+        NitfRenderer renderer = new NitfRenderer();
+        renderer.setDynamicRangeAdjustment(lookupTable);
+        BufferedImage rendered = renderer.renderToClosestDataModel(imageSegment);
+
+        // About half the pixels should be in the lower half of the display range
+        int[] values = rendered.getRaster().getSamples(0, 0, rendered.getWidth(), rendered.getHeight(), 0, (int[]) null);
+        long lowerHalf = 0;
+        for (int value : values) {
+            if (value < (MAXIMUM_DISPLAY_VALUE + 1) / 2) {
+                lowerHalf++;
+            }
+        }
+        double fraction = (double) lowerHalf / values.length;
+        assertTrue("Fraction in lower half: " + fraction, (fraction > 0.4) && (fraction < 0.6));
+    }
+
+    @Test
+    public void testRgb16() throws IOException, NitfFormatException {
+        final String fileName = "/fromGDAL/rgb16_11ABPP.ntf";
+        ImageSegment imageSegment = getImageSegment(fileName);
+        DraLookupTable lookupTable = new DraLookupTableCache().get(imageSegment, DraParameters.linear());
+        NitfRenderer renderer = new NitfRenderer();
+        renderer.setDynamicRangeAdjustment(lookupTable);
+        BufferedImage rendered = renderer.renderToClosestDataModel(imageSegment);
+
+        SpectralCube cube = new SpectralCube(getImageSegment(fileName));
+        for (int row = 0; row < rendered.getHeight(); row++) {
+            for (int column = 0; column < rendered.getWidth(); column++) {
+                int[] samples = cube.getPixel(row, column);
+                int argb = rendered.getRGB(column, row);
+                assertEquals(lookupTable.lookup(0, samples[0]), (argb >> (2 * Byte.SIZE)) & BYTE_MASK);
+                assertEquals(lookupTable.lookup(1, samples[1]), (argb >> Byte.SIZE) & BYTE_MASK);
+                assertEquals(lookupTable.lookup(2, samples[2]), argb & BYTE_MASK);
+            }
+        }
+    }
+
+    @Test
+    public void testPadPixelsTransparent() throws IOException, NitfFormatException {
+        final String fileName = "/JitcNitf21Samples/ns3301e.nsf";
+        ImageSegment imageSegment = getImageSegment(fileName);
+        DraLookupTable lookupTable = new DraLookupTableCache().get(imageSegment, DraParameters.linear());
+        NitfRenderer renderer = new NitfRenderer();
+        renderer.setDynamicRangeAdjustment(lookupTable);
+        BufferedImage rendered = renderer.renderToClosestDataModel(imageSegment);
+
+        SpectralCube cube = new SpectralCube(getImageSegment(fileName));
+        long transparentPixels = 0;
+        for (int row = 0; row < rendered.getHeight(); row++) {
+            for (int column = 0; column < rendered.getWidth(); column++) {
+                int[] samples = cube.getPixel(row, column);
+                boolean allPad = true;
+                for (int band = 0; band < samples.length; band++) {
+                    allPad &= (lookupTable.lookup(band, samples[band]) == DraLookupTable.NO_DATA);
+                }
+                if (allPad) {
+                    assertEquals(0, rendered.getRGB(column, row));
+                    transparentPixels++;
+                }
+            }
+        }
+        assertTrue(transparentPixels > 0);
+    }
+
+    @Test
+    public void testCache() throws IOException, NitfFormatException {
+        ImageSegment imageSegment = getImageSegment("/JitcNitf21Samples/i_3430a.ntf");
+        long dataStart = imageSegment.getData().getStreamPosition();
+        DraLookupTableCache cache = new DraLookupTableCache();
+        DraLookupTable first = cache.get(imageSegment, DraParameters.percentileClip(2, 98));
+        assertEquals(dataStart, imageSegment.getData().getStreamPosition());
+        assertSame(first, cache.get(imageSegment, DraParameters.percentileClip(2, 98)));
+        assertNotSame(first, cache.get(imageSegment, DraParameters.equalised()));
+        cache.clear();
+        assertNotSame(first, cache.get(imageSegment, DraParameters.percentileClip(2, 98)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPercentiles() {
+        DraParameters.percentileClip(98, 2);
+    }
+
+    private void checkMonotonic(final DraLookupTable lookupTable, final int tableSize) {
+        for (int value = 1; value < tableSize; value++) {
+            assertTrue(lookupTable.lookup(0, value) >= lookupTable.lookup(0, value - 1));
+        }
+    }
+
+    private ImageSegment getImageSegment(final String fileName) throws NitfFormatException {
+        assertNotNull("Test file missing: " + fileName, getClass().getResource(fileName));
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.IMAGE_DATA);
+        NitfParser.parse(new NitfInputStreamReader(getClass().getResourceAsStream(fileName)), parseStrategy);
+        return parseStrategy.getDataSource().getImageSegments().get(0);
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.encode;
+
+import static org.codice.imaging.nitf.render.TestUtils.copyResource;
+import static org.codice.imaging.nitf.render.TestUtils.parse;
+import static org.codice.imaging.nitf.render.TestUtils.parseImageSegment;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.codice.imaging.nitf.core.DataSource;
+import org.codice.imaging.nitf.core.common.FileType;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.header.impl.NitfHeaderFactory;
+import org.codice.imaging.nitf.core.image.ImageCompression;
+import org.codice.imaging.nitf.core.image.ImageMode;
+import org.codice.imaging.nitf.core.image.ImageRepresentation;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.image.PixelJustification;
+import org.codice.imaging.nitf.core.image.PixelValueType;
+import org.codice.imaging.nitf.core.image.impl.ImageSegmentFactory;
+import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
+import org.codice.imaging.nitf.core.impl.StreamingNitfWriter;
+import org.codice.imaging.nitf.render.cube.SpectralCube;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for ImageReblocker.
+ */
+public class ImageReblockerTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testReblockSample() throws IOException, NitfFormatException {
+        Path source = copyResource(temporaryFolder, "/JitcNitf21Samples/ns3302a.nsf");
+        Path target = temporaryFolder.newFile().toPath();
+        assertEquals(1, new ImageReblocker(32, 48, ImageMode.PIXELINTERLEVE).reblock(source, target));
+
+        DataSource original = parse(source, SlottedParseStrategy.ALL_SEGMENT_DATA);
+        DataSource reblocked = parse(target, SlottedParseStrategy.ALL_SEGMENT_DATA);
+        assertEquals(original.getNitfHeader().getFileTitle(), reblocked.getNitfHeader().getFileTitle());
+        ImageSegment originalImage = original.getImageSegments().get(0);
+        ImageSegment reblockedImage = reblocked.getImageSegments().get(0);
+        assertEquals(ImageMode.PIXELINTERLEVE, reblockedImage.getImageMode());
+        assertEquals(32, reblockedImage.getNumberOfPixelsPerBlockHorizontal());
+        assertEquals(48, reblockedImage.getNumberOfPixelsPerBlockVertical());
+        assertEquals(originalImage.getImageIdentifier2(), reblockedImage.getImageIdentifier2());
+        assertEquals(originalImage.getTREsRawStructure().getTREs().size(), reblockedImage.getTREsRawStructure().getTREs().size());
+        assertSameSamples(originalImage, reblockedImage);
+    }
+
+    @Test
+    public void testReblockMasked() throws IOException, NitfFormatException {
+        BufferedImage image = new BufferedImage(150, 100, BufferedImage.TYPE_USHORT_GRAY);
+        for (int row = 50; row < 100; row++) {
+            for (int column = 0; column < 60; column++) {
+                image.getRaster().setSample(column, row, 0, 1 + row * column);
+            }
+        }
+        TiledImageSegmentBuilder builder = new TiledImageSegmentBuilder(image::getData, 150, 100, 1, 16);
+        builder.setBlockSize(150, 50);
+        builder.setPadValue(0);
+        ImageSegment imageSegment = ImageSegmentFactory.getDefault(FileType.NITF_TWO_ONE);
+        Path source = temporaryFolder.newFile().toPath();
+        try (StreamingNitfWriter writer = new StreamingNitfWriter(NitfHeaderFactory.getDefault(FileType.NITF_TWO_ONE),
+                Files.newOutputStream(source))) {
+            builder.configure(imageSegment);
+            imageSegment.setImageRepresentation(ImageRepresentation.MONOCHROME);
+            builder.write(writer.startImageSegment(imageSegment));
+        }
+
+        Path target = temporaryFolder.newFile().toPath();
+        new ImageReblocker(64, 64, ImageMode.BLOCKINTERLEVE).reblock(source, target);
+
+        ImageSegment originalImage = parseImageSegment(source);
+        ImageSegment reblockedImage = parseImageSegment(target);
+        assertEquals(ImageCompression.NOTCOMPRESSEDMASK, originalImage.getImageCompression());
+        assertEquals(ImageCompression.NOTCOMPRESSEDMASK, reblockedImage.getImageCompression());
+        assertEquals(3, reblockedImage.getNumberOfBlocksPerRow());
+        SpectralCube cube = new SpectralCube(reblockedImage);
+        assertFalse(cube.getImageMask().isMaskedBlock(0, 0));
+        assertTrue(cube.getImageMask().isMaskedBlock(2, 0));
+        reblockedImage.getData().seek(0);
+        assertSameSamples(originalImage, reblockedImage);
+    }
+
+    @Test
+    public void testReblockKeepsSampleInterpretation() throws IOException, NitfFormatException {
+        BufferedImage image = new BufferedImage(100, 80, BufferedImage.TYPE_USHORT_GRAY);
+        for (int row = 0; row < 80; row++) {
+            for (int column = 0; column < 100; column++) {
+                // 12 bit samples, left justified in 16 bits
+                image.getRaster().setSample(column, row, 0, ((row * 100 + column) & 0xFFF) << 4);
+            }
+        }
+        TiledImageSegmentBuilder builder = new TiledImageSegmentBuilder(image::getData, 100, 80, 1, 16);
+        ImageSegment imageSegment = ImageSegmentFactory.getDefault(FileType.NITF_TWO_ONE);
+        Path source = temporaryFolder.newFile().toPath();
+        try (StreamingNitfWriter writer = new StreamingNitfWriter(NitfHeaderFactory.getDefault(FileType.NITF_TWO_ONE),
+                Files.newOutputStream(source))) {
+            builder.configure(imageSegment);
+            imageSegment.setImageRepresentation(ImageRepresentation.MONOCHROME);
+            imageSegment.setActualBitsPerPixelPerBand(12);
+            imageSegment.setPixelJustification(PixelJustification.LEFT);
+            builder.write(writer.startImageSegment(imageSegment));
+        }
+
+        Path target = temporaryFolder.newFile().toPath();
+        assertEquals(1, new ImageReblocker(32, 32, ImageMode.BLOCKINTERLEVE).reblock(source, target));
+
+        ImageSegment originalImage = parseImageSegment(source);
+        ImageSegment reblockedImage = parseImageSegment(target);
+        assertEquals(16, reblockedImage.getNumberOfBitsPerPixelPerBand());
+        assertEquals(12, reblockedImage.getActualBitsPerPixelPerBand());
+        assertEquals(PixelJustification.LEFT, reblockedImage.getPixelJustification());
+        assertEquals(PixelValueType.INTEGER, reblockedImage.getPixelValueType());
+        assertEquals(32, reblockedImage.getNumberOfPixelsPerBlockHorizontal());
+        assertSameSamples(originalImage, reblockedImage);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReblockToSource() throws IOException, NitfFormatException {
+        Path source = copyResource(temporaryFolder, "/JitcNitf21Samples/ns3302a.nsf");
+        new ImageReblocker(32, 32, ImageMode.BLOCKINTERLEVE).reblock(source, source);
+    }
+
+    private void assertSameSamples(final ImageSegment expected, final ImageSegment actual) throws IOException {
+        SpectralCube expectedCube = new SpectralCube(expected);
+        SpectralCube actualCube = new SpectralCube(actual);
+        Rectangle window = new Rectangle(0, 0, (int) expected.getNumberOfColumns(), (int) expected.getNumberOfRows());
+        for (int band = 0; band < expected.getNumBands(); band++) {
+            assertArrayEquals(expectedCube.getBand(band, window), actualCube.getBand(band, window));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.encode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.codice.imaging.nitf.core.common.FileType;
+import org.codice.imaging.nitf.core.image.ImageCompression;
+import org.codice.imaging.nitf.core.image.ImageMode;
+import org.codice.imaging.nitf.core.image.ImageRepresentation;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.image.impl.ImageSegmentFactory;
+import org.codice.imaging.nitf.render.NitfRenderer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for JpegBlockEncoder.
+ */
+public class JpegBlockEncoderTest {
+
+    private static final int BYTE_MASK = 0xFF;
+    private static final int TOLERANCE = 12;
+
+    private ExecutorService executor;
+
+    @Before
+    public void createExecutor() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testMonochrome() throws IOException {
+        BufferedImage image = new BufferedImage(150, 100, BufferedImage.TYPE_BYTE_GRAY);
+        for (int row = 0; row < image.getHeight(); row++) {
+            for (int column = 0; column < image.getWidth(); column++) {
+                image.getRaster().setSample(column, row, 0, (row + column) % 256);
+            }
+        }
+        ImageSegment imageSegment = ImageSegmentFactory.getDefault(FileType.NITF_TWO_ONE);
+        new JpegBlockEncoder(executor, 64, 0.95f).encode(imageSegment, image);
+
+        assertEquals(ImageCompression.JPEG, imageSegment.getImageCompression());
+        assertEquals(ImageMode.BLOCKINTERLEVE, imageSegment.getImageMode());
+        assertEquals(ImageRepresentation.MONOCHROME, imageSegment.getImageRepresentation());
+        assertEquals(1, imageSegment.getNumBands());
+        assertEquals(3, imageSegment.getNumberOfBlocksPerRow());
+        assertEquals(2, imageSegment.getNumberOfBlocksPerColumn());
+
+        BufferedImage rendered = new NitfRenderer().render(imageSegment);
+        for (int row = 0; row < image.getHeight(); row++) {
+            for (int column = 0; column < image.getWidth(); column++) {
+                int expected = image.getRaster().getSample(column, row, 0);
+                int actual = rendered.getRGB(column, row) & BYTE_MASK;
+                assertTrue("Pixel " + column + "," + row, Math.abs(expected - actual) <= TOLERANCE);
+            }
+        }
+    }
+
+    @Test
+    public void testColourWithEmptyBlocks() throws IOException {
+        BufferedImage image = new BufferedImage(128, 128, BufferedImage.TYPE_INT_RGB);
+        for (int row = 0; row < image.getHeight(); row++) {
+            for (int column = 64; column < image.getWidth(); column++) {
+                image.setRGB(column, row, 0x3080C0);
+            }
+        }
+        ImageSegment imageSegment = ImageSegmentFactory.getDefault(FileType.NITF_TWO_ONE);
+        JpegBlockEncoder encoder = new JpegBlockEncoder(executor, 32, 0.9f);
+        encoder.setEmptyBlockTest(JpegBlockEncoderTest::isBlack);
+        encoder.encode(imageSegment, image);
+
+        assertEquals(ImageCompression.JPEGMASK, imageSegment.getImageCompression());
+        assertEquals(ImageMode.PIXELINTERLEVE, imageSegment.getImageMode());
+        assertEquals(ImageRepresentation.ITUBT6015, imageSegment.getImageRepresentation());
+        assertEquals(3, imageSegment.getNumBands());
+        // IMDATOFF covers the mask header and one record for each of the 16 blocks
+        assertEquals(10 + 4 * 16, imageSegment.getData().readInt());
+        imageSegment.getData().seek(0);
+
+        BufferedImage rendered = new NitfRenderer().render(imageSegment);
+        for (int row = 0; row < image.getHeight(); row += 7) {
+            for (int column = 0; column < image.getWidth(); column += 5) {
+                int expected = image.getRGB(column, row);
+                int actual = rendered.getRGB(column, row);
+                for (int shift = 0; shift < Integer.SIZE - Byte.SIZE; shift += Byte.SIZE) {
+                    int difference = ((expected >> shift) & BYTE_MASK) - ((actual >> shift) & BYTE_MASK);
+                    assertTrue("Pixel " + column + "," + row, Math.abs(difference) <= TOLERANCE);
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedImage() throws IOException {
+        BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_USHORT_GRAY);
+        new JpegBlockEncoder(executor, 8, 0.5f).encode(ImageSegmentFactory.getDefault(FileType.NITF_TWO_ONE), image);
+    }
+
+    private static boolean isBlack(final Raster raster) {
+        int[] samples = raster.getPixels(raster.getMinX(), raster.getMinY(), raster.getWidth(), raster.getHeight(), (int[]) null);
+        for (int sample : samples) {
+            if (sample != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.encode;
+
+import static org.codice.imaging.nitf.render.TestUtils.parseImageSegment;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.codice.imaging.nitf.core.common.FileType;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.header.impl.NitfHeaderFactory;
+import org.codice.imaging.nitf.core.image.ImageCompression;
+import org.codice.imaging.nitf.core.image.ImageMode;
+import org.codice.imaging.nitf.core.image.ImageRepresentation;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.image.impl.ImageSegmentFactory;
+import org.codice.imaging.nitf.core.impl.StreamingNitfWriter;
+import org.codice.imaging.nitf.render.cube.SpectralCube;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for TiledImageSegmentBuilder.
+ */
+public class TiledImageSegmentBuilderTest {
+
+    private static final int WIDTH = 100;
+    private static final int HEIGHT = 70;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testBlockInterleve() throws IOException, NitfFormatException {
+        checkRoundTrip(ImageMode.BLOCKINTERLEVE);
+    }
+
+    @Test
+    public void testPixelInterleve() throws IOException, NitfFormatException {
+        checkRoundTrip(ImageMode.PIXELINTERLEVE);
+    }
+
+    @Test
+    public void testRowInterleve() throws IOException, NitfFormatException {
+        checkRoundTrip(ImageMode.ROWINTERLEVE);
+    }
+
+    @Test
+    public void testBandSequential() throws IOException, NitfFormatException {
+        checkRoundTrip(ImageMode.BANDSEQUENTIAL);
+    }
+
+    @Test
+    public void testDefaultBlockSize() throws IOException {
+        TiledImageSegmentBuilder builder = new TiledImageSegmentBuilder(region -> {
+            throw new IOException("Should not be read");
+        }, 3000, 10, 1, 8);
+        ImageSegment imageSegment = ImageSegmentFactory.getDefault(FileType.NITF_TWO_ONE);
+        builder.configure(imageSegment);
+        assertEquals(1024, imageSegment.getNumberOfPixelsPerBlockHorizontal());
+        assertEquals(10, imageSegment.getNumberOfPixelsPerBlockVertical());
+        assertEquals(3, imageSegment.getNumberOfBlocksPerRow());
+        assertEquals(1, imageSegment.getNumberOfBlocksPerColumn());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBlockTooLargeForBuffer() throws IOException {
+        TiledImageSegmentBuilder builder = new TiledImageSegmentBuilder(region -> {
+            throw new IOException("Should not be read");
+        }, 8192, 8192, 9, 32);
+        builder.setBlockSize(8192, 8192);
+        builder.configure(ImageSegmentFactory.getDefault(FileType.NITF_TWO_ONE));
+    }
+
+    @Test
+    public void testPadBlocksMasked() throws IOException, NitfFormatException {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_USHORT_GRAY);
+        WritableRaster raster = image.getRaster();
+        for (int row = 40; row < HEIGHT; row++) {
+            for (int column = 0; column < WIDTH; column++) {
+                raster.setSample(column, row, 0, 1000 + row * column);
+            }
+        }
+        AtomicInteger reads = new AtomicInteger();
+        TiledImageSegmentBuilder builder = new TiledImageSegmentBuilder(region -> {
+            reads.incrementAndGet();
+            return image.getData(region);
+        }, WIDTH, HEIGHT, 1, 16);
+        builder.setBlockSize(32, 32);
+        builder.setPadValue(0);
+
+        ImageSegment imageSegment = writeAndParse(builder);
+        assertEquals(ImageCompression.NOTCOMPRESSEDMASK, imageSegment.getImageCompression());
+        // Every block is read once to find the pad blocks, and the recorded blocks are read again to write them
+        assertEquals(12 + 8, reads.get());
+
+        SpectralCube cube = new SpectralCube(imageSegment);
+        assertTrue(cube.getImageMask().isMaskedBlock(0, 0));
+        assertFalse(cube.getImageMask().isMaskedBlock(4, 0));
+        int[] samples = cube.getBand(0, new Rectangle(0, 0, WIDTH, HEIGHT));
+        for (int row = 0; row < HEIGHT; row++) {
+            for (int column = 0; column < WIDTH; column++) {
+                assertEquals(raster.getSample(column, row, 0), samples[row * WIDTH + column]);
+            }
+        }
+    }
+
+    private void checkRoundTrip(final ImageMode imageMode) throws IOException, NitfFormatException {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_3BYTE_BGR);
+        WritableRaster raster = image.getRaster();
+        for (int row = 0; row < HEIGHT; row++) {
+            for (int column = 0; column < WIDTH; column++) {
+                raster.setPixel(column, row, new int[] {row, column, (row * column) % 256});
+            }
+        }
+        TiledImageSegmentBuilder builder = new TiledImageSegmentBuilder(image::getData, WIDTH, HEIGHT, 3, 8);
+        builder.setBlockSize(32, 24);
+        builder.setImageMode(imageMode);
+
+        ImageSegment imageSegment = writeAndParse(builder);
+        assertEquals(ImageCompression.NOTCOMPRESSED, imageSegment.getImageCompression());
+        assertEquals(imageMode, imageSegment.getImageMode());
+        assertEquals(4, imageSegment.getNumberOfBlocksPerRow());
+        assertEquals(3, imageSegment.getNumberOfBlocksPerColumn());
+        assertEquals(4L * 3 * 32 * 24 * 3, imageSegment.getDataLength());
+
+        SpectralCube cube = new SpectralCube(imageSegment);
+        for (int row = 0; row < HEIGHT; row += 3) {
+            for (int column = 0; column < WIDTH; column += 7) {
+                assertArrayEquals(raster.getPixel(column, row, (int[]) null), cube.getPixel(row, column));
+            }
+        }
+    }
+
+    private ImageSegment writeAndParse(final TiledImageSegmentBuilder builder) throws IOException, NitfFormatException {
+        ImageSegment imageSegment = ImageSegmentFactory.getDefault(FileType.NITF_TWO_ONE);
+        File file = temporaryFolder.newFile();
+        try (OutputStream outputStream = new FileOutputStream(file);
+                StreamingNitfWriter writer = new StreamingNitfWriter(NitfHeaderFactory.getDefault(FileType.NITF_TWO_ONE), outputStream)) {
+            builder.configure(imageSegment);
+            imageSegment.setImageRepresentation(ImageRepresentation.MULTIBAND);
+            builder.write(writer.startImageSegment(imageSegment));
+        }
+        return parseImageSegment(file.toPath());
+    }
+}
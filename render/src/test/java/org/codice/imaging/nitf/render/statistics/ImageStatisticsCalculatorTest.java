@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.statistics;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import org.codice.imaging.nitf.core.common.FileType;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.image.PixelJustification;
+import org.codice.imaging.nitf.core.image.impl.ImageSegmentFactory;
+import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
+import org.codice.imaging.nitf.render.ImageMask;
+import org.codice.imaging.nitf.render.NitfRenderer;
+import org.codice.imaging.nitf.render.cube.SpectralCube;
+import org.codice.imaging.nitf.render.encode.TiledImageSegmentBuilder;
+import org.junit.Test;
+
+/**
+ * Tests for ImageStatisticsCalculator.
+ */
+public class ImageStatisticsCalculatorTest {
+
+    private static final double DELTA = 1e-6;
+
+    @Test
+    public void testBandSequential() throws IOException, NitfFormatException {
+        checkUncompressed("/JitcNitf21Samples/i_3301a.ntf", ImageStatisticsCalculator.DEFAULT_MAXIMUM_NUMBER_OF_BINS);
+    }
+
+    @Test
+    public void testPixelInterleve() throws IOException, NitfFormatException {
+        checkUncompressed("/JitcNitf21Samples/ns3310a.nsf", ImageStatisticsCalculator.DEFAULT_MAXIMUM_NUMBER_OF_BINS);
+    }
+
+    @Test
+    public void testTwelveBitHistogramBins() throws IOException, NitfFormatException {
+        List<BandStatistics> statistics = checkUncompressed("/JitcNitf21Samples/i_3430a.ntf", 64);
+        assertEquals(64, statistics.get(0).getHistogram().length);
+        assertEquals(64, statistics.get(0).getHistogramBinWidth());
+    }
+
+    @Test
+    public void testLeftJustified() throws IOException {
+        final int width = 64;
+        final int height = 48;
+        int[] values = new int[width * height];
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_USHORT_GRAY);
+        for (int i = 0; i < values.length; i++) {
+            // 12 bit samples, stored left justified in 16 bits
+            values[i] = (i * 37) & 0xFFF;
+            image.getRaster().setSample(i % width, i / width, 0, values[i] << 4);
+        }
+        TiledImageSegmentBuilder builder = new TiledImageSegmentBuilder(image::getData, width, height, 1, 16);
+        builder.setBlockSize(32, 32);
+        ImageSegment imageSegment = ImageSegmentFactory.getDefault(FileType.NITF_TWO_ONE);
+        builder.configure(imageSegment);
+        imageSegment.setActualBitsPerPixelPerBand(12);
+        imageSegment.setPixelJustification(PixelJustification.LEFT);
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        builder.write(new DataOutputStream(data));
+        imageSegment.setData(new MemoryCacheImageInputStream(new ByteArrayInputStream(data.toByteArray())));
+
+        List<BandStatistics> statistics = new ImageStatisticsCalculator(64).calculate(imageSegment);
+        assertEquals(64, statistics.get(0).getHistogramBinWidth());
+        checkBand(values, statistics.get(0));
+    }
+
+    @Test
+    public void testMaskedBlocks() throws IOException, NitfFormatException {
+        final String fileName = "/JitcNitf21Samples/v_3301f.ntf";
+        ImageSegment imageSegment = getImageSegment(fileName);
+        List<BandStatistics> statistics = new ImageStatisticsCalculator().calculate(imageSegment);
+
+        SpectralCube cube = new SpectralCube(getImageSegment(fileName));
+        ImageMask imageMask = cube.getImageMask();
+        int blockWidth = (int) imageSegment.getNumberOfPixelsPerBlockHorizontal();
+        int blockHeight = (int) imageSegment.getNumberOfPixelsPerBlockVertical();
+        for (int band = 0; band < imageSegment.getNumBands(); band++) {
+            long maskedPixels = 0;
+            long padSamples = 0;
+            for (int blockRow = 0; blockRow < imageSegment.getNumberOfBlocksPerColumn(); blockRow++) {
+                for (int blockColumn = 0; blockColumn < imageSegment.getNumberOfBlocksPerRow(); blockColumn++) {
+                    Rectangle window = new Rectangle(blockColumn * blockWidth, blockRow * blockHeight, blockWidth, blockHeight);
+                    if (imageMask.isMaskedBlock(blockRow * imageSegment.getNumberOfBlocksPerRow() + blockColumn, 0)) {
+                        maskedPixels += window.width * window.height;
+                        continue;
+                    }
+                    for (int sample : cube.getBand(band, window)) {
+                        if (imageMask.isPadSample(sample)) {
+                            padSamples++;
+                        }
+                    }
+                }
+            }
+            assertTrue(maskedPixels > 0);
+            assertEquals(maskedPixels + padSamples, statistics.get(band).getNoDataCount());
+            assertEquals(imageSegment.getNumberOfRows() * imageSegment.getNumberOfColumns() - maskedPixels - padSamples,
+                    statistics.get(band).getSampleCount());
+        }
+    }
+
+    @Test
+    public void testPadPixels() throws IOException, NitfFormatException {
+        final String fileName = "/JitcNitf21Samples/ns3301e.nsf";
+        ImageSegment imageSegment = getImageSegment(fileName);
+        List<BandStatistics> statistics = new ImageStatisticsCalculator().calculate(imageSegment);
+
+        SpectralCube cube = new SpectralCube(getImageSegment(fileName));
+        Rectangle window = new Rectangle(0, 0, (int) imageSegment.getNumberOfColumns(), (int) imageSegment.getNumberOfRows());
+        for (int band = 0; band < imageSegment.getNumBands(); band++) {
+            long padSamples = 0;
+            for (int sample : cube.getBand(band, window)) {
+                if (cube.getImageMask().isPadSample(sample)) {
+                    padSamples++;
+                }
+            }
+            assertTrue(padSamples > 0);
+            assertEquals(padSamples, statistics.get(band).getNoDataCount());
+            assertEquals((long) window.width * window.height - padSamples, statistics.get(band).getSampleCount());
+        }
+    }
+
+    @Test
+    public void testJpeg() throws IOException, NitfFormatException {
+        checkDecoded("/JitcNitf21Samples/i_3309a.ntf");
+    }
+
+    @Test
+    public void testJpegMask() throws IOException, NitfFormatException {
+        checkMaskedDecoded("/JitcNitf21Samples/ns3301j.nsf");
+    }
+
+    @Test
+    public void testVectorQuantizationMask() throws IOException, NitfFormatException {
+        checkMaskedDecoded("/JitcNitf20Samples/U_3058B.NTF");
+    }
+
+    @Test
+    public void testCallingThreadExecutor() throws IOException, NitfFormatException {
+        final String fileName = "/JitcNitf21Samples/ns3310a.nsf";
+        List<BandStatistics> parallel = new ImageStatisticsCalculator().calculate(getImageSegment(fileName));
+        List<BandStatistics> sequential = new ImageStatisticsCalculator(ImageStatisticsCalculator.DEFAULT_MAXIMUM_NUMBER_OF_BINS,
+                Runnable::run).calculate(getImageSegment(fileName));
+        assertEquals(parallel.size(), sequential.size());
+        for (int band = 0; band < parallel.size(); band++) {
+            assertEquals(parallel.get(band).getMean(), sequential.get(band).getMean(), DELTA);
+            assertEquals(parallel.get(band).getStandardDeviation(), sequential.get(band).getStandardDeviation(), DELTA);
+            assertArrayEquals(parallel.get(band).getHistogram(), sequential.get(band).getHistogram());
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testUnsupportedCompression() throws IOException, NitfFormatException {
+        new ImageStatisticsCalculator().calculate(getImageSegment("/JitcNitf21Samples/ns3038a.nsf"));
+    }
+
+    private List<BandStatistics> checkUncompressed(final String fileName, final int maximumNumberOfBins)
+            throws IOException, NitfFormatException {
+        ImageSegment imageSegment = getImageSegment(fileName);
+        List<BandStatistics> statistics = new ImageStatisticsCalculator(maximumNumberOfBins).calculate(imageSegment);
+
+        ImageSegment referenceSegment = getImageSegment(fileName);
+        SpectralCube cube = new SpectralCube(referenceSegment);
+        Rectangle window = new Rectangle(0, 0, (int) referenceSegment.getNumberOfColumns(), (int) referenceSegment.getNumberOfRows());
+        assertEquals(referenceSegment.getNumBands(), statistics.size());
+        for (int band = 0; band < referenceSegment.getNumBands(); band++) {
+            checkBand(cube.getBand(band, window), statistics.get(band));
+        }
+        return statistics;
+    }
+
+    private void checkDecoded(final String fileName) throws IOException, NitfFormatException {
+        List<BandStatistics> statistics = new ImageStatisticsCalculator().calculate(getImageSegment(fileName));
+
+        BufferedImage rendered = new NitfRenderer().renderToClosestDataModel(getImageSegment(fileName));
+        assertEquals(rendered.getRaster().getNumBands(), statistics.size());
+        for (int band = 0; band < statistics.size(); band++) {
+            checkBand(rendered.getRaster().getSamples(0, 0, rendered.getWidth(), rendered.getHeight(), band, (int[]) null),
+                    statistics.get(band));
+        }
+    }
+
+    private void checkMaskedDecoded(final String fileName) throws IOException, NitfFormatException {
+        ImageSegment imageSegment = getImageSegment(fileName);
+        List<BandStatistics> statistics = new ImageStatisticsCalculator().calculate(imageSegment);
+        for (BandStatistics bandStatistics : statistics) {
+            assertTrue(bandStatistics.getNoDataCount() > 0);
+            assertEquals(imageSegment.getNumberOfRows() * imageSegment.getNumberOfColumns(),
+                    bandStatistics.getSampleCount() + bandStatistics.getNoDataCount());
+        }
+    }
+
+    private void checkBand(final int[] samples, final BandStatistics statistics) {
+        long minimum = Long.MAX_VALUE;
+        long maximum = Long.MIN_VALUE;
+        double sum = 0.0;
+        long[] histogram = new long[statistics.getHistogram().length];
+        for (int sample : samples) {
+            minimum = Math.min(minimum, sample);
+            maximum = Math.max(maximum, sample);
+            sum += sample;
+            histogram[(int) Math.min(sample / statistics.getHistogramBinWidth(), histogram.length - 1)]++;
+        }
+        double mean = sum / samples.length;
+        double sumOfSquares = 0.0;
+        for (int sample : samples) {
+            sumOfSquares += (sample - mean) * (sample - mean);
+        }
+
+        assertEquals(samples.length, statistics.getSampleCount());
+        assertEquals(0, statistics.getNoDataCount());
+        assertEquals(minimum, statistics.getMinimum());
+        assertEquals(maximum, statistics.getMaximum());
+        assertEquals(mean, statistics.getMean(), DELTA);
+        assertEquals(Math.sqrt(sumOfSquares / samples.length), statistics.getStandardDeviation(), DELTA);
+        assertArrayEquals(histogram, statistics.getHistogram());
+    }
+
+    private ImageSegment getImageSegment(final String fileName) throws NitfFormatException {
+        assertNotNull("Test file missing: " + fileName, getClass().getResource(fileName));
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.IMAGE_DATA);
+        NitfParser.parse(new NitfInputStreamReader(getClass().getResourceAsStream(fileName)), parseStrategy);
+        return parseStrategy.getDataSource().getImageSegments().get(0);
+    }
+}